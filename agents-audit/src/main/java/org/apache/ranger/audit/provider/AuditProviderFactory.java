@@ -35,6 +35,7 @@
 import org.apache.ranger.audit.queue.AuditBatchQueue;
 import org.apache.ranger.audit.queue.AuditFileQueue;
 import org.apache.ranger.audit.queue.AuditQueue;
+import org.apache.ranger.audit.queue.AuditRingBufferQueue;
 import org.apache.ranger.audit.queue.AuditSummaryQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -431,6 +432,8 @@ private AuditHandler getProviderFromConfig(Properties props,
 				provider = getAuditProvider(props, propPrefix, consumer);
 			} else if (providerName.equalsIgnoreCase("async")) {
 				provider = new AuditAsyncQueue(consumer);
+			} else if (providerName.equalsIgnoreCase("ringbuffer")) {
+				provider = new AuditRingBufferQueue(consumer);
 			} else {
 				LOG.error("Provider name doesn't have any class associated with it. providerName="
 						+ providerName + ", propertyPrefix=" + propPrefix);
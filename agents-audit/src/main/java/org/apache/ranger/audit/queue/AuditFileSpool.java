@@ -28,11 +28,14 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -69,6 +72,13 @@ public enum SPOOL_FILE_STATUS {
 	// public static final String PROP_FILE_SPOOL_INDEX_DONE_FILE =
 	// "filespool.index.done_filename";
 	public static final String PROP_FILE_SPOOL_DEST_RETRY_MS = "filespool.destination.retry.ms";
+	public static final String PROP_FILE_SPOOL_FORMAT = "filespool.format";
+	public static final String PROP_FILE_SPOOL_BLOCK_SIZE = "filespool.binary.block.size";
+	public static final String PROP_FILE_SPOOL_SYNC = "filespool.binary.sync";
+
+	// with the binary format, the index file is an append-only journal that is compacted once it has these many entries per index record
+	static final int INDEX_JOURNAL_COMPACT_RATIO = 10;
+	static final int INDEX_JOURNAL_COMPACT_MIN   = 100;
 
 	AuditQueue queueProvider = null;
 	AuditHandler consumerProvider = null;
@@ -87,6 +97,11 @@ public enum SPOOL_FILE_STATUS {
 	int retryDestinationMS = 30 * 1000; // Default 30 seconds
 	int fileRolloverSec = 24 * 60 * 60; // In seconds
 	int maxArchiveFiles = 100;
+	AuditSpoolFile.Format fileFormat = AuditSpoolFile.Format.json;
+	int blockSize = AuditSpoolFile.DEFAULT_BLOCK_SIZE;
+	boolean syncOnCommit = false;
+	boolean isIndexJournal = false;
+	int indexJournalCount = 0;
 
 	int errorLogIntervalMS = 30 * 1000; // Every 30 seconds
 	long lastErrorLogMS = 0;
@@ -97,12 +112,10 @@ public enum SPOOL_FILE_STATUS {
 	long lastAttemptTime = 0;
 	boolean initDone = false;
 
-	PrintWriter logWriter = null;
+	AuditSpoolFile.Writer logWriter = null;
 	AuditIndexRecord currentWriterIndexRecord = null;
 	AuditIndexRecord currentConsumerIndexRecord = null;
 
-	BufferedReader logReader = null;
-
 	Thread destinationThread = null;
 
 	boolean isWriting = true;
@@ -154,6 +167,19 @@ public boolean init(Properties props, String basePropertyName) {
 					+ PROP_FILE_SPOOL_FILE_ROLLOVER, fileRolloverSec);
 			maxArchiveFiles = MiscUtil.getIntProperty(props, propPrefix + "."
 					+ PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
+			String fileFormatProp = MiscUtil.getStringProperty(props, propPrefix
+					+ "." + PROP_FILE_SPOOL_FORMAT, fileFormat.name());
+			try {
+				fileFormat = AuditSpoolFile.Format.valueOf(fileFormatProp.trim().toLowerCase());
+			} catch (IllegalArgumentException excp) {
+				logger.error("Invalid value for " + propPrefix + "." + PROP_FILE_SPOOL_FORMAT + ": " + fileFormatProp
+						+ ". Using " + fileFormat + ", queueName=" + queueProvider.getName());
+			}
+			blockSize = MiscUtil.getIntProperty(props, propPrefix + "."
+					+ PROP_FILE_SPOOL_BLOCK_SIZE, blockSize);
+			syncOnCommit = MiscUtil.getBooleanProperty(props, propPrefix + "."
+					+ PROP_FILE_SPOOL_SYNC, syncOnCommit);
+			isIndexJournal = fileFormat == AuditSpoolFile.Format.binary;
 
 			logger.info("retryDestinationMS=" + retryDestinationMS
 					+ ", queueName=" + queueProvider.getName());
@@ -161,6 +187,9 @@ public boolean init(Properties props, String basePropertyName) {
 					+ queueProvider.getName());
 			logger.info("maxArchiveFiles=" + maxArchiveFiles + ", queueName="
 					+ queueProvider.getName());
+			logger.info("fileFormat=" + fileFormat + ", blockSize=" + blockSize
+					+ ", syncOnCommit=" + syncOnCommit + ", queueName="
+					+ queueProvider.getName());
 
 			if (logFolderProp == null || logFolderProp.isEmpty()) {
 				logger.error("Audit spool folder is not configured. Please set "
@@ -323,7 +352,7 @@ public void stop() {
 		isDrain = true;
 		flush();
 
-		PrintWriter out = getOpenLogFileStream();
+		AuditSpoolFile.Writer out = getOpenLogFileStream();
 		if (out != null) {
 			// If write is still going on, then let's give it enough time to
 			// complete
@@ -341,7 +370,6 @@ public void stop() {
 							+ queueProvider.getName() + ", consumer="
 							+ consumerProvider.getName());
 
-					out.flush();
 					out.close();
 					break;
 				} catch (Throwable t) {
@@ -365,9 +393,13 @@ public void flush() {
 					+ queueProvider.getName());
 			return;
 		}
-		PrintWriter out = getOpenLogFileStream();
+		AuditSpoolFile.Writer out = getOpenLogFileStream();
 		if (out != null) {
-			out.flush();
+			try {
+				out.flush();
+			} catch (IOException excp) {
+				logger.error("Error flushing spool file. queueName=" + queueProvider.getName(), excp);
+			}
 		}
 	}
 
@@ -408,10 +440,10 @@ synchronized public void stashLogs(AuditEventBase event) {
 		}
 		try {
 			isWriting = true;
-			PrintWriter logOut = getLogFileStream();
+			AuditSpoolFile.Writer logOut = getLogFileStream();
 			// Convert event to json
 			String jsonStr = MiscUtil.stringify(event);
-			logOut.println(jsonStr);
+			logOut.write(jsonStr);
 			isPending = true;
 		} catch (Exception ex) {
 			logger.error("Error writing to file. event=" + event, ex);
@@ -437,8 +469,8 @@ synchronized public void stashLogsString(String event) {
 		}
 		try {
 			isWriting = true;
-			PrintWriter logOut = getLogFileStream();
-			logOut.println(event);
+			AuditSpoolFile.Writer logOut = getLogFileStream();
+			logOut.write(event);
 		} catch (Exception ex) {
 			logger.error("Error writing to file. event=" + event, ex);
 		} finally {
@@ -461,7 +493,7 @@ synchronized public void stashLogsString(Collection<String> events) {
 	 * @return
 	 * @throws Exception
 	 */
-	synchronized private PrintWriter getOpenLogFileStream() {
+	synchronized private AuditSpoolFile.Writer getOpenLogFileStream() {
 		return logWriter;
 	}
 
@@ -469,8 +501,9 @@ synchronized private PrintWriter getOpenLogFileStream() {
 	 * @return
 	 * @throws Exception
 	 */
-	synchronized private PrintWriter getLogFileStream() throws Exception {
+	synchronized private AuditSpoolFile.Writer getLogFileStream() throws Exception {
 		closeFileIfNeeded();
+		closeFileIfFormatChanged();
 
 		// Either there are no open log file or the previous one has been rolled
 		// over
@@ -498,8 +531,8 @@ synchronized private PrintWriter getLogFileStream() throws Exception {
 			logger.info("Creating new file. queueName="
 					+ queueProvider.getName() + ", fileName=" + fileName);
 			// Open the file
-			logWriter = new PrintWriter(new BufferedWriter(new FileWriter(
-					outLogFile)));
+			logWriter = AuditSpoolFile.openWriter(outLogFile, false, fileFormat,
+					Charset.defaultCharset(), blockSize, syncOnCommit);
 
 			AuditIndexRecord tmpIndexRecord = new AuditIndexRecord();
 
@@ -510,7 +543,7 @@ synchronized private PrintWriter getLogFileStream() throws Exception {
 			tmpIndexRecord.lastAttempt = true;
 			currentWriterIndexRecord = tmpIndexRecord;
 			indexRecords.add(currentWriterIndexRecord);
-			saveIndexFile();
+			saveIndexRecord(currentWriterIndexRecord);
 
 		} else {
 			if (logWriter == null) {
@@ -519,8 +552,8 @@ synchronized private PrintWriter getLogFileStream() throws Exception {
 				logger.info("Opening existing file for append. queueName="
 						+ queueProvider.getName() + ", fileName="
 						+ currentWriterIndexRecord.filePath);
-				logWriter = new PrintWriter(new BufferedWriter(new FileWriter(
-						currentWriterIndexRecord.filePath, true)));
+				logWriter = AuditSpoolFile.openWriter(new File(currentWriterIndexRecord.filePath), true,
+						fileFormat, Charset.defaultCharset(), blockSize, syncOnCommit);
 			}
 		}
 		return logWriter;
@@ -547,23 +580,44 @@ synchronized private void closeFileIfNeeded() throws FileNotFoundException,
 			}
 			if (closeFile) {
 				// Roll the file
-				if (logWriter != null) {
-					logWriter.flush();
-					logWriter.close();
-					logWriter = null;
-				}
-				currentWriterIndexRecord.status = SPOOL_FILE_STATUS.pending;
-				currentWriterIndexRecord.writeCompleteTime = new Date();
-				saveIndexFile();
-				logger.info("Adding file to queue. queueName="
-						+ queueProvider.getName() + ", fileName="
-						+ currentWriterIndexRecord.filePath);
-				indexQueue.add(currentWriterIndexRecord);
-				currentWriterIndexRecord = null;
+				closeWriterFile();
 			}
 		}
 	}
 
+	/**
+	 * A file left open by an earlier run, in a format other than the one
+	 * configured now, is closed instead of being appended to
+	 */
+	synchronized private void closeFileIfFormatChanged() throws IOException {
+		if (currentWriterIndexRecord != null && logWriter == null) {
+			AuditSpoolFile.Format existingFormat = AuditSpoolFile.getFormat(new File(currentWriterIndexRecord.filePath));
+
+			if (existingFormat != null && existingFormat != fileFormat) {
+				logger.info("Closing file. Spool file format changed to "
+						+ fileFormat + ". queueName=" + queueProvider.getName()
+						+ ", fileName=" + currentWriterIndexRecord.filePath);
+				closeWriterFile();
+			}
+		}
+	}
+
+	synchronized private void closeWriterFile() throws IOException {
+		// Roll the file
+		if (logWriter != null) {
+			logWriter.close();
+			logWriter = null;
+		}
+		currentWriterIndexRecord.status = SPOOL_FILE_STATUS.pending;
+		currentWriterIndexRecord.writeCompleteTime = new Date();
+		saveIndexRecord(currentWriterIndexRecord);
+		logger.info("Adding file to queue. queueName="
+				+ queueProvider.getName() + ", fileName="
+				+ currentWriterIndexRecord.filePath);
+		indexQueue.add(currentWriterIndexRecord);
+		currentWriterIndexRecord = null;
+	}
+
 	/**
 	 * Load the index file
 	 *
@@ -572,16 +626,26 @@ synchronized private void closeFileIfNeeded() throws FileNotFoundException,
 	void loadIndexFile() throws IOException {
 		logger.info("Loading index file. fileName=" + indexFile.getPath());
 		BufferedReader br = new BufferedReader(new FileReader(indexFile));
+		// the index file can be a journal, with more than one entry per
+		// record; the last entry wins and done records have been removed
+		Map<String, AuditIndexRecord> records = new LinkedHashMap<String, AuditIndexRecord>();
 		indexRecords.clear();
+		indexJournalCount = 0;
 		String line;
 		while ((line = br.readLine()) != null) {
 			if (!line.isEmpty() && !line.startsWith("#")) {
 				AuditIndexRecord record = gson.fromJson(line,
 						AuditIndexRecord.class);
-				indexRecords.add(record);
+				if (record.status == SPOOL_FILE_STATUS.done) {
+					records.remove(record.id);
+				} else {
+					records.put(record.id, record);
+				}
+				indexJournalCount++;
 			}
 		}
 		br.close();
+		indexRecords.addAll(records.values());
 	}
 
 	synchronized void printIndex() {
@@ -609,7 +673,8 @@ synchronized void removeIndexRecord(AuditIndexRecord indexRecord)
 				appendToDoneFile(record);
 			}
 		}
-		saveIndexFile();
+		indexRecord.status = SPOOL_FILE_STATUS.done;
+		saveIndexRecord(indexRecord);
 		// If there are no more files in the index, then let's assume the
 		// destination is now available
 		if (indexRecords.size() == 0) {
@@ -623,10 +688,48 @@ synchronized void saveIndexFile() throws FileNotFoundException, IOException {
 			out.println(gson.toJson(auditIndexRecord));
 		}
 		out.close();
+		indexJournalCount = indexRecords.size();
 		// printIndex();
 
 	}
 
+	/**
+	 * Persists the change to the given record. With the journal, only the
+	 * record is appended to the index file, which is rewritten only when the
+	 * journal grows too long; otherwise the whole index file is rewritten.
+	 */
+	synchronized void saveIndexRecord(AuditIndexRecord indexRecord)
+			throws FileNotFoundException, IOException {
+		if (!isIndexJournal) {
+			saveIndexFile();
+		} else if (indexJournalCount >= Math.max(INDEX_JOURNAL_COMPACT_MIN,
+				indexRecords.size() * INDEX_JOURNAL_COMPACT_RATIO)) {
+			compactIndexFile();
+		} else {
+			PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(
+					indexFile, true)));
+			out.println(gson.toJson(indexRecord));
+			out.close();
+			indexJournalCount++;
+		}
+	}
+
+	synchronized void compactIndexFile() throws FileNotFoundException, IOException {
+		File tmpIndexFile = new File(indexFile.getPath() + ".tmp");
+		PrintWriter out = new PrintWriter(tmpIndexFile);
+		for (AuditIndexRecord auditIndexRecord : indexRecords) {
+			out.println(gson.toJson(auditIndexRecord));
+		}
+		out.close();
+		if (!tmpIndexFile.renameTo(indexFile)) {
+			logger.warn("Failed to rename " + tmpIndexFile + " to " + indexFile
+					+ ". Rewriting index file in place");
+			saveIndexFile();
+			tmpIndexFile.delete();
+		}
+		indexJournalCount = indexRecords.size();
+	}
+
 	void appendToDoneFile(AuditIndexRecord indexRecord)
 			throws FileNotFoundException, IOException {
 		logger.info("Moving to done file. " + indexRecord.filePath
@@ -801,14 +904,14 @@ public void runLogAudit() {
 					isRemoveIndex = true;
 				} else {
 					// Let's open the file to write
-					BufferedReader br = new BufferedReader(new FileReader(
-							currentConsumerIndexRecord.filePath));
+					AuditSpoolFile.Reader br = AuditSpoolFile.openReader(
+							consumerFile, Charset.defaultCharset());
 					try {
 						int startLine = currentConsumerIndexRecord.linePosition;
 						String line;
 						int currLine = 0;
 						List<String> lines = new ArrayList<String>();
-						while ((line = br.readLine()) != null) {
+						while ((line = br.readRecord()) != null) {
 							currLine++;
 							if (currLine < startLine) {
 								continue;
@@ -851,7 +954,7 @@ public void runLogAudit() {
 						currentConsumerIndexRecord.lastFailedTime = new Date();
 						currentConsumerIndexRecord.failedAttemptCount++;
 						currentConsumerIndexRecord.lastAttempt = false;
-						saveIndexFile();
+						saveIndexRecord(currentConsumerIndexRecord);
 					} finally {
 						br.close();
 					}
@@ -889,7 +992,7 @@ private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord,
 				indexRecord.status = SPOOL_FILE_STATUS.read_inprogress;
 				indexRecord.lastSuccessTime = new Date();
 				indexRecord.lastAttempt = true;
-				saveIndexFile();
+				saveIndexRecord(indexRecord);
 
 				if (isDestDown) {
 					isDestDown = false;
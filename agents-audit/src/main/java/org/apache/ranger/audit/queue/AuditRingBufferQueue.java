@@ -0,0 +1,641 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * Batch queue backed by a bounded multi-producer/single-consumer ring buffer. Producers claim a slot with a
+ * compare-and-set on the tail sequence instead of taking a lock, so threads logging audit events don't contend
+ * with each other, or with the consumer thread, as they do on the lock of ArrayBlockingQueue in AuditBatchQueue.
+ *
+ * What happens when the buffer is full is configurable via &lt;prefix&gt;.full.policy:
+ *   block - wait for the consumer to make room (default, same as AuditBatchQueue)
+ *   drop  - discard the event and count it in the drop metrics
+ *   spill - write the event to the file spool; requires the file spool to be enabled
+ */
+public class AuditRingBufferQueue extends AuditQueue implements Runnable {
+	private static final Logger logger = LoggerFactory.getLogger(AuditRingBufferQueue.class);
+
+	public static final String PROP_FULL_POLICY = "full.policy";
+
+	public enum FullPolicy { BLOCK, DROP, SPILL }
+
+	static final String DEFAULT_NAME = "ringbuffer";
+
+	private static final long   BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+	private static final long   IDLE_WAIT_NANOS  = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final int    MAX_CAPACITY     = 1 << 30;
+
+	private volatile AtomicReferenceArray<AuditEventBase> buffer = null;
+	private int                                  mask   = 0;
+	private int                                  limit  = 0;
+	private final AtomicLong                     tail   = new AtomicLong(); // next sequence to be claimed by producers
+	private final AtomicLong                     head   = new AtomicLong(); // next sequence to be read by the consumer
+	private final Collection<AuditEventBase>     localBatchBuffer = new ArrayList<AuditEventBase>();
+	private FullPolicy                           fullPolicy       = FullPolicy.BLOCK;
+	private volatile boolean                     isConsumerWaiting = false;
+
+	// metrics
+	private final LongAdder  enqueueCount        = new LongAdder();
+	private final LongAdder  enqueueLatencyNanos = new LongAdder();
+	private final AtomicLong maxEnqueueLatency   = new AtomicLong();
+	private final LongAdder  droppedCount        = new LongAdder();
+	private final LongAdder  spilledCount        = new LongAdder();
+	private final LongAdder  blockedCount        = new LongAdder();
+	private final LongAdder  drainBatchCount     = new LongAdder();
+	private final LongAdder  drainedEventCount   = new LongAdder();
+	private final AtomicLong maxDrainBatchSize   = new AtomicLong();
+
+	volatile Thread consumerThread = null;
+	static int threadCount = 0;
+
+	public AuditRingBufferQueue(AuditHandler consumer) {
+		super(consumer);
+		setName(DEFAULT_NAME);
+	}
+
+	@Override
+	public boolean log(AuditEventBase event) {
+		long startTime = System.nanoTime();
+		boolean ret = offer(event);
+
+		if (!ret) {
+			ret = handleFull(event);
+		}
+
+		long latency = System.nanoTime() - startTime;
+
+		enqueueCount.increment();
+		enqueueLatencyNanos.add(latency);
+
+		for (long max = maxEnqueueLatency.get(); latency > max; max = maxEnqueueLatency.get()) {
+			if (maxEnqueueLatency.compareAndSet(max, latency)) {
+				break;
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public boolean log(Collection<AuditEventBase> events) {
+		boolean ret = true;
+		for (AuditEventBase event : events) {
+			ret = log(event);
+			if (!ret) {
+				break;
+			}
+		}
+		return ret;
+	}
+
+	@Override
+	public void init(Properties prop, String basePropertyName) {
+		String propPrefix = "xasecure.audit.ringbuffer";
+		if (basePropertyName != null) {
+			propPrefix = basePropertyName;
+		}
+
+		super.init(prop, propPrefix);
+
+		String policy = MiscUtil.getStringProperty(prop, propPrefix + "." + PROP_FULL_POLICY, FullPolicy.BLOCK.name());
+
+		try {
+			fullPolicy = FullPolicy.valueOf(policy.trim().toUpperCase());
+		} catch (IllegalArgumentException excp) {
+			logger.error("Invalid value for " + propPrefix + "." + PROP_FULL_POLICY + ": " + policy + ". Using " + FullPolicy.BLOCK);
+
+			fullPolicy = FullPolicy.BLOCK;
+		}
+
+		if (fullPolicy == FullPolicy.SPILL && !fileSpoolerEnabled) {
+			logger.warn("File spool is not enabled for " + getName() + ". Using full.policy=" + FullPolicy.BLOCK + " instead of " + FullPolicy.SPILL);
+
+			fullPolicy = FullPolicy.BLOCK;
+		}
+
+		logger.info("AuditRingBufferQueue.init(): name=" + getName() + ", full.policy=" + fullPolicy);
+
+		// allocate here, so that events logged before start() are accepted, as in other queues
+		getBuffer();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.apache.ranger.audit.provider.AuditProvider#start()
+	 */
+	@Override
+	synchronized public void start() {
+		if (consumerThread != null) {
+			logger.error("Provider is already started. name=" + getName());
+			return;
+		}
+
+		getBuffer();
+
+		// Start the consumer first
+		consumer.start();
+
+		// Then the FileSpooler
+		if (fileSpoolerEnabled) {
+			fileSpooler.start();
+		}
+
+		// Finally the queue listener
+		consumerThread = new Thread(this, this.getClass().getName() + (threadCount++));
+		consumerThread.setDaemon(true);
+		consumerThread.start();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.apache.ranger.audit.provider.AuditProvider#stop()
+	 */
+	@Override
+	public void stop() {
+		logger.info("Stop called. name=" + getName());
+		setDrain(true);
+		flush();
+		try {
+			if (consumerThread != null) {
+				logger.info("Interrupting consumerThread. name=" + getName()
+						+ ", consumer="
+						+ (consumer == null ? null : consumer.getName()));
+
+				consumerThread.interrupt();
+			}
+		} catch (Throwable t) {
+			// ignore any exception
+		}
+		consumerThread = null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.apache.ranger.audit.provider.AuditProvider#waitToComplete()
+	 */
+	@Override
+	public void waitToComplete() {
+		int defaultTimeOut = -1;
+		waitToComplete(defaultTimeOut);
+		consumer.waitToComplete(defaultTimeOut);
+	}
+
+	@Override
+	public void waitToComplete(long timeout) {
+		setDrain(true);
+		flush();
+		long sleepTime = 1000;
+		long startTime = System.currentTimeMillis();
+		long prevQueueSize = -1;
+		int staticLoopCount = 0;
+		while ((getQueueDepth() > 0 || localBatchBuffer.size() > 0)) {
+			long queueSize = getQueueDepth();
+
+			if (prevQueueSize == queueSize) {
+				logger.error("Queue size is not changing. " + getName()
+						+ ".size=" + queueSize);
+				staticLoopCount++;
+				if (staticLoopCount > 5) {
+					logger.error("Aborting writing to consumer. Some logs will be discarded."
+							+ getName() + ".size=" + queueSize);
+					break;
+				}
+			} else {
+				staticLoopCount = 0;
+				prevQueueSize = queueSize;
+			}
+			if (consumerThread != null) {
+				consumerThread.interrupt();
+			}
+			try {
+				Thread.sleep(sleepTime);
+				if (timeout > 0
+						&& (System.currentTimeMillis() - startTime > timeout)) {
+					break;
+				}
+			} catch (InterruptedException e) {
+				break;
+			}
+		}
+		consumer.waitToComplete(timeout);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.apache.ranger.audit.provider.AuditProvider#flush()
+	 */
+	@Override
+	public void flush() {
+		if (fileSpoolerEnabled) {
+			fileSpooler.flush();
+		}
+		consumer.flush();
+	}
+
+	public FullPolicy getFullPolicy() {
+		return fullPolicy;
+	}
+
+	public long getQueueDepth() {
+		return Math.max(0, tail.get() - head.get());
+	}
+
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	public long getSpilledCount() {
+		return spilledCount.sum();
+	}
+
+	/*
+	 * Snapshot of the queue metrics, for the status log and for the hosting component to publish
+	 */
+	public Map<String, Long> getMetrics() {
+		Map<String, Long> ret          = new LinkedHashMap<>();
+		long              enqueues     = enqueueCount.sum();
+		long              drainBatches = drainBatchCount.sum();
+
+		ret.put("queue.depth", getQueueDepth());
+		ret.put("queue.capacity", (long) getMaxQueueSize());
+		ret.put("enqueue.count", enqueues);
+		ret.put("enqueue.latency.avg.ns", enqueues > 0 ? (enqueueLatencyNanos.sum() / enqueues) : 0L);
+		ret.put("enqueue.latency.max.ns", maxEnqueueLatency.get());
+		ret.put("enqueue.blocked.count", blockedCount.sum());
+		ret.put("dropped.count", droppedCount.sum());
+		ret.put("spilled.count", spilledCount.sum());
+		ret.put("drain.batch.count", drainBatches);
+		ret.put("drain.batch.size.avg", drainBatches > 0 ? (drainedEventCount.sum() / drainBatches) : 0L);
+		ret.put("drain.batch.size.max", maxDrainBatchSize.get());
+
+		return ret;
+	}
+
+	@Override
+	public void logStatus() {
+		super.logStatus();
+
+		if (isStatusLogEnabled()) {
+			logger.info("Audit Queue Metrics: name=" + getName() + ", full.policy=" + fullPolicy + ", " + getMetrics());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		try {
+			//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
+			MDC.clear();
+			runLogAudit();
+		} catch (Throwable t) {
+			logger.error("Exited thread abnormaly. queue=" + getName(), t);
+		}
+	}
+
+	public void runLogAudit() {
+		long lastDispatchTime = System.currentTimeMillis();
+		boolean isDestActive = true;
+		while (true) {
+			logStatusIfRequired();
+
+			// Time to next dispatch
+			long nextDispatchDuration = lastDispatchTime
+					- System.currentTimeMillis() + getMaxBatchInterval();
+
+			boolean isToSpool = false;
+			boolean fileSpoolDrain = false;
+			try {
+				if (fileSpoolerEnabled && fileSpooler.isPending()) {
+					long percentUsed = getQueueDepth() * 100
+							/ getMaxQueueSize();
+					long lastAttemptDelta = fileSpooler
+							.getLastAttemptTimeDelta();
+
+					fileSpoolDrain = lastAttemptDelta > fileSpoolMaxWaitTime;
+					// If we should even read from queue?
+					if (!isDrain() && !fileSpoolDrain
+							&& percentUsed < fileSpoolDrainThresholdPercent) {
+						// Since some files are still under progress and it is
+						// not in drain mode, lets wait and retry
+						if (nextDispatchDuration > 0) {
+							Thread.sleep(nextDispatchDuration);
+						}
+						lastDispatchTime = System.currentTimeMillis();
+						continue;
+					}
+					isToSpool = true;
+				}
+
+				int drained = drainTo(localBatchBuffer, getMaxBatchSize() - localBatchBuffer.size());
+
+				if (drained == 0 && localBatchBuffer.size() < getMaxBatchSize()) {
+					if (!isToSpool && !isDrain() && !fileSpoolDrain
+							&& nextDispatchDuration > 0) {
+						awaitEvents(nextDispatchDuration);
+
+						drained = drainTo(localBatchBuffer, getMaxBatchSize() - localBatchBuffer.size());
+					}
+
+					if (drained == 0) {
+						nextDispatchDuration = lastDispatchTime
+								- System.currentTimeMillis()
+								+ getMaxBatchInterval();
+
+						if (nextDispatchDuration <= 0) {
+							// wait returned due to timeout, so reseting clock
+							lastDispatchTime = System.currentTimeMillis();
+						}
+					}
+				}
+
+				addTotalCount(drained);
+			} catch (InterruptedException e) {
+				logger.info("Caught exception in consumer thread. Shutdown might be in progress");
+				setDrain(true);
+			} catch (Throwable t) {
+				logger.error("Caught error during processing request.", t);
+			}
+
+			if (localBatchBuffer.size() > 0 && isToSpool) {
+				// Let spool to the file directly
+				if (isDestActive) {
+					logger.info("Switching to file spool. Queue=" + getName()
+							+ ", dest=" + consumer.getName());
+				}
+				isDestActive = false;
+				// Just before stashing
+				lastDispatchTime = System.currentTimeMillis();
+				fileSpooler.stashLogs(localBatchBuffer);
+				addStashedCount(localBatchBuffer.size());
+				localBatchBuffer.clear();
+			} else if (localBatchBuffer.size() > 0
+					&& (isDrain()
+							|| localBatchBuffer.size() >= getMaxBatchSize() || nextDispatchDuration <= 0)) {
+				if (fileSpoolerEnabled && !isDestActive) {
+					logger.info("Switching to writing to destination. Queue="
+							+ getName() + ", dest=" + consumer.getName());
+				}
+				// Reset time just before sending the logs
+				lastDispatchTime = System.currentTimeMillis();
+				updateDrainMetrics(localBatchBuffer.size());
+				boolean ret = consumer.log(localBatchBuffer);
+				if (!ret) {
+					if (fileSpoolerEnabled) {
+						logger.info("Switching to file spool. Queue="
+								+ getName() + ", dest=" + consumer.getName());
+						// Transient error. Stash and move on
+						fileSpooler.stashLogs(localBatchBuffer);
+						isDestActive = false;
+						addStashedCount(localBatchBuffer.size());
+					} else {
+						// We need to drop this event
+						addFailedCount(localBatchBuffer.size());
+						logFailedEvent(localBatchBuffer);
+					}
+				} else {
+					isDestActive = true;
+					addSuccessCount(localBatchBuffer.size());
+				}
+				localBatchBuffer.clear();
+			}
+
+			if (isDrain()) {
+				if (getQueueDepth() > 0 || localBatchBuffer.size() > 0) {
+					logger.info("Queue is not empty. Will retry. queue.size="
+							+ getQueueDepth() + ", localBatchBuffer.size()="
+							+ localBatchBuffer.size());
+				} else {
+					break;
+				}
+				if (isDrainMaxTimeElapsed()) {
+					logger.warn("Exiting polling loop because max time allowed reached. name="
+							+ getName()
+							+ ", waited for "
+							+ (stopTime - System.currentTimeMillis()) + " ms");
+				}
+			}
+		}
+
+		logger.info("Exiting consumerThread. Queue=" + getName() + ", dest="
+				+ consumer.getName());
+		try {
+			// Call stop on the consumer
+			logger.info("Calling to stop consumer. name=" + getName()
+					+ ", consumer.name=" + consumer.getName());
+
+			consumer.stop();
+			if (fileSpoolerEnabled) {
+				fileSpooler.stop();
+			}
+		} catch (Throwable t) {
+			logger.error("Error while calling stop on consumer.", t);
+		}
+		logStatus();
+		logger.info("Exiting consumerThread.run() method. name=" + getName());
+	}
+
+	/*
+	 * Claims the next slot with a CAS on tail and publishes the event into it; returns false if the queue is full.
+	 * The consumer clears a slot before advancing head, so a slot below head + limit is always free to write.
+	 */
+	private boolean offer(AuditEventBase event) {
+		final AtomicReferenceArray<AuditEventBase> buffer = getBuffer();
+		final int                                  limit  = this.limit;
+
+		while (true) {
+			long seq = tail.get();
+
+			if (seq - head.get() >= limit) {
+				return false;
+			}
+
+			if (tail.compareAndSet(seq, seq + 1)) {
+				buffer.lazySet((int) (seq & mask), event);
+
+				if (isConsumerWaiting && (seq + 1 - head.get()) >= getMaxBatchSize()) {
+					wakeupConsumer();
+				}
+
+				return true;
+			}
+		}
+	}
+
+	/*
+	 * mask and limit are written before the volatile write of buffer, so they are visible to threads that read buffer
+	 */
+	private AtomicReferenceArray<AuditEventBase> getBuffer() {
+		AtomicReferenceArray<AuditEventBase> ret = buffer;
+
+		if (ret == null) {
+			synchronized (this) {
+				ret = buffer;
+
+				if (ret == null) {
+					int capacity = getCapacity(getMaxQueueSize());
+
+					logger.info("Creating ring buffer with capacity=" + capacity + ", maxSize=" + getMaxQueueSize());
+
+					ret = new AtomicReferenceArray<AuditEventBase>(capacity);
+
+					mask   = capacity - 1;
+					limit  = Math.min(capacity, Math.max(getMaxQueueSize(), 1));
+					buffer = ret;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private boolean handleFull(AuditEventBase event) {
+		boolean ret = false;
+
+		switch (fullPolicy) {
+			case DROP:
+				droppedCount.increment();
+				logError("Queue is full. Dropping audit event. name=" + getName() + ", maxSize=" + getMaxQueueSize());
+			break;
+
+			case SPILL:
+				spilledCount.increment();
+				fileSpooler.stashLogs(event);
+				ret = true;
+			break;
+
+			case BLOCK:
+			default:
+				blockedCount.increment();
+				wakeupConsumer();
+
+				while (!(ret = offer(event))) {
+					LockSupport.parkNanos(this, BLOCK_WAIT_NANOS);
+
+					if (Thread.interrupted()) {
+						throw new RuntimeException(new InterruptedException("interrupted while waiting for space in queue " + getName()));
+					}
+				}
+			break;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Only the consumer thread calls this. A claimed slot whose event is not yet visible ends the drain; it will be
+	 * picked up in the next call.
+	 */
+	private int drainTo(Collection<AuditEventBase> events, int maxCount) {
+		final AtomicReferenceArray<AuditEventBase> buffer = this.buffer;
+
+		int  ret = 0;
+		long seq = head.get();
+
+		while (ret < maxCount) {
+			int            idx   = (int) (seq & mask);
+			AuditEventBase event = buffer.get(idx);
+
+			if (event == null) {
+				break;
+			}
+
+			buffer.lazySet(idx, null);
+			events.add(event);
+
+			seq++;
+			ret++;
+		}
+
+		if (ret > 0) {
+			head.lazySet(seq);
+		}
+
+		return ret;
+	}
+
+	private void awaitEvents(long maxWaitMs) throws InterruptedException {
+		isConsumerWaiting = true;
+
+		try {
+			if (getQueueDepth() < getMaxBatchSize()) {
+				LockSupport.parkNanos(this, Math.min(TimeUnit.MILLISECONDS.toNanos(maxWaitMs), IDLE_WAIT_NANOS));
+			}
+		} finally {
+			isConsumerWaiting = false;
+		}
+
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+	}
+
+	private void wakeupConsumer() {
+		Thread thread = consumerThread;
+
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	private void updateDrainMetrics(int batchSize) {
+		drainBatchCount.increment();
+		drainedEventCount.add(batchSize);
+
+		if (batchSize > maxDrainBatchSize.get()) {
+			maxDrainBatchSize.set(batchSize); // only the consumer thread updates this
+		}
+	}
+
+	private static int getCapacity(int maxQueueSize) {
+		if (maxQueueSize <= 1) {
+			return 2;
+		} else if (maxQueueSize >= MAX_CAPACITY) {
+			return MAX_CAPACITY;
+		}
+
+		return Integer.highestOneBit(maxQueueSize - 1) << 1;
+	}
+}
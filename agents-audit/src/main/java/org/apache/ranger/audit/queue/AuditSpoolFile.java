@@ -0,0 +1,459 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads and writes the records of an audit spool file, in one of two formats:
+ *
+ * json   - one JSON record per line; the original spool format.
+ * binary - a file header followed by blocks. Each block holds a batch of length-prefixed UTF-8 records, compressed
+ *          together with Deflater, behind a header carrying the compressed/uncompressed lengths, the record count
+ *          and a CRC32 of the compressed bytes. A block is appended to the file with a single FileChannel write,
+ *          so the records stashed by one call are committed together. Readers map the file in segments and stop
+ *          at the first incomplete or corrupt block, which is what a crash in the middle of a write leaves behind;
+ *          a writer reopening the file to append truncates it to the end of the last valid block first.
+ *
+ * The format of an existing file is detected from its header, so files spooled before a format change can still
+ * be replayed.
+ */
+public final class AuditSpoolFile {
+	private static final Logger logger = LoggerFactory.getLogger(AuditSpoolFile.class);
+
+	public enum Format {
+		json, binary
+	}
+
+	public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+	static final int FILE_MAGIC        = 0x52415346; // "RASF"
+	static final int FILE_VERSION      = 1;
+	static final int FILE_HEADER_SIZE  = 8;
+	static final int BLOCK_MAGIC       = 0x52414242; // "RABB"
+	static final int BLOCK_HEADER_SIZE = 24;         // magic, compressed length, uncompressed length, record count, crc32
+
+	private static final long MAX_MAPPED_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	private AuditSpoolFile() {
+	}
+
+	public interface Writer extends Closeable {
+		void write(String record) throws IOException;
+
+		void flush() throws IOException;
+	}
+
+	public interface Reader extends Closeable {
+		/*
+		 * returns null at the end of the file
+		 */
+		String readRecord() throws IOException;
+	}
+
+	public static Writer openWriter(File file, boolean append, Format format, Charset jsonCharset, int blockSize, boolean syncOnCommit) throws IOException {
+		if (format == Format.binary) {
+			return new BinaryWriter(file, append, blockSize, syncOnCommit);
+		} else {
+			return new JsonWriter(file, append, jsonCharset);
+		}
+	}
+
+	public static Reader openReader(File file, Charset jsonCharset) throws IOException {
+		if (getFormat(file) == Format.binary) {
+			return new BinaryReader(file);
+		} else {
+			return new JsonReader(file, jsonCharset);
+		}
+	}
+
+	/*
+	 * Format of an existing file, going by its header; empty files are reported as null
+	 */
+	public static Format getFormat(File file) throws IOException {
+		if (file.length() == 0) {
+			return null;
+		}
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+
+			while (header.hasRemaining() && channel.read(header) > 0) {
+				// keep reading
+			}
+
+			header.flip();
+
+			return (header.remaining() >= 4 && header.getInt() == FILE_MAGIC) ? Format.binary : Format.json;
+		}
+	}
+
+	static class JsonWriter implements Writer {
+		private final PrintWriter out;
+
+		JsonWriter(File file, boolean append, Charset charset) throws IOException {
+			out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), charset)));
+		}
+
+		@Override
+		public void write(String record) {
+			out.println(record);
+		}
+
+		@Override
+		public void flush() {
+			out.flush();
+		}
+
+		@Override
+		public void close() {
+			out.flush();
+			out.close();
+		}
+	}
+
+	static class JsonReader implements Reader {
+		private final BufferedReader in;
+
+		JsonReader(File file, Charset charset) throws IOException {
+			in = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset));
+		}
+
+		@Override
+		public String readRecord() throws IOException {
+			return in.readLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	static class BinaryWriter implements Writer {
+		private final FileChannel           channel;
+		private final int                   blockSize;
+		private final boolean               syncOnCommit;
+		private final ByteArrayOutputStream pending;
+		private final DataOutputStream      pendingOut;
+		private final Deflater              deflater = new Deflater(Deflater.BEST_SPEED);
+		private final CRC32                 crc      = new CRC32();
+		private byte[]                      compressBuffer = new byte[0];
+		private int                         pendingRecords = 0;
+
+		BinaryWriter(File file, boolean append, int blockSize, boolean syncOnCommit) throws IOException {
+			long validLength = (append && file.exists()) ? BinaryReader.getValidLength(file) : 0;
+
+			this.channel      = append ? FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+			                           : FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			this.blockSize    = blockSize > 0 ? blockSize : DEFAULT_BLOCK_SIZE;
+			this.syncOnCommit = syncOnCommit;
+			this.pending      = new ByteArrayOutputStream(this.blockSize);
+			this.pendingOut   = new DataOutputStream(pending);
+
+			// a crash in the middle of a write leaves an incomplete block at the end of the file. Readers stop
+			// there, so blocks appended after it would never be read: drop it before appending
+			if (channel.size() > validLength) {
+				logger.warn("Truncating incomplete or corrupt data at the end of spool file. file=" + file + ", validLength=" + validLength + ", fileSize=" + channel.size());
+
+				channel.truncate(validLength);
+			}
+
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+
+				header.putInt(FILE_MAGIC).putInt(FILE_VERSION).flip();
+
+				writeFully(header);
+			}
+		}
+
+		@Override
+		public void write(String record) throws IOException {
+			byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+
+			if (pendingRecords > 0 && (pending.size() + 4 + bytes.length) > blockSize) {
+				flush();
+			}
+
+			pendingOut.writeInt(bytes.length);
+			pendingOut.write(bytes);
+
+			pendingRecords++;
+		}
+
+		/*
+		 * Compresses the pending records into a block and appends it to the file with one write
+		 */
+		@Override
+		public void flush() throws IOException {
+			if (pendingRecords == 0) {
+				return;
+			}
+
+			byte[] data    = pending.toByteArray();
+			int    maxSize = data.length + (data.length >> 3) + 64;
+
+			if (compressBuffer.length < maxSize) {
+				compressBuffer = new byte[maxSize];
+			}
+
+			deflater.reset();
+			deflater.setInput(data);
+			deflater.finish();
+
+			int compressedLength = 0;
+
+			while (!deflater.finished()) {
+				if (compressedLength == compressBuffer.length) {
+					byte[] larger = new byte[compressBuffer.length * 2];
+
+					System.arraycopy(compressBuffer, 0, larger, 0, compressedLength);
+
+					compressBuffer = larger;
+				}
+
+				compressedLength += deflater.deflate(compressBuffer, compressedLength, compressBuffer.length - compressedLength);
+			}
+
+			crc.reset();
+			crc.update(compressBuffer, 0, compressedLength);
+
+			ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressedLength);
+
+			block.putInt(BLOCK_MAGIC)
+			     .putInt(compressedLength)
+			     .putInt(data.length)
+			     .putInt(pendingRecords)
+			     .putLong(crc.getValue())
+			     .put(compressBuffer, 0, compressedLength)
+			     .flip();
+
+			writeFully(block);
+
+			if (syncOnCommit) {
+				channel.force(false);
+			}
+
+			pending.reset();
+			pendingRecords = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				flush();
+			} finally {
+				deflater.end();
+				channel.close();
+			}
+		}
+
+		private void writeFully(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	static class BinaryReader implements Reader {
+		private final File        file;
+		private final FileChannel channel;
+		private final long        fileSize;
+		private final Inflater    inflater = new Inflater();
+		private final CRC32       crc      = new CRC32();
+		private MappedByteBuffer  segment;
+		private long              segmentStart;
+		private long              position;
+		private ByteBuffer        block;
+		private int               blockRecords;
+
+		BinaryReader(File file) throws IOException {
+			this.file     = file;
+			this.channel  = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			this.fileSize = channel.size();
+			this.position = FILE_HEADER_SIZE;
+		}
+
+		/*
+		 * Length of the given binary spool file up to the end of its last valid block; 0 if even the file header
+		 * is incomplete
+		 */
+		static long getValidLength(File file) throws IOException {
+			if (file.length() < FILE_HEADER_SIZE) {
+				return 0;
+			}
+
+			if (getFormat(file) != Format.binary) {
+				throw new IOException("Not a binary spool file: " + file);
+			}
+
+			try (BinaryReader reader = new BinaryReader(file)) {
+				while (reader.readBlock()) {
+					reader.blockRecords = 0;
+				}
+
+				return reader.position;
+			}
+		}
+
+		@Override
+		public String readRecord() throws IOException {
+			while (blockRecords == 0) {
+				if (!readBlock()) {
+					return null;
+				}
+			}
+
+			int    length = block.getInt();
+			byte[] bytes  = new byte[length];
+
+			block.get(bytes);
+			blockRecords--;
+
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void close() throws IOException {
+			segment = null;
+			block   = null;
+
+			inflater.end();
+			channel.close();
+		}
+
+		private boolean readBlock() throws IOException {
+			if (position + BLOCK_HEADER_SIZE > fileSize) {
+				if (position < fileSize) {
+					logger.warn("Ignoring incomplete block at the end of spool file. file=" + file + ", position=" + position + ", fileSize=" + fileSize);
+				}
+
+				return false;
+			}
+
+			ByteBuffer header           = map(position, BLOCK_HEADER_SIZE);
+			int        magic            = header.getInt();
+			int        compressedLength = header.getInt();
+			int        length           = header.getInt();
+			int        recordCount      = header.getInt();
+			long       checksum         = header.getLong();
+
+			if (magic != BLOCK_MAGIC || compressedLength < 0 || length < 0 || recordCount < 0 || position + BLOCK_HEADER_SIZE + compressedLength > fileSize) {
+				logger.warn("Ignoring invalid or incomplete block in spool file. file=" + file + ", position=" + position + ", fileSize=" + fileSize);
+
+				return false;
+			}
+
+			ByteBuffer compressed = map(position + BLOCK_HEADER_SIZE, compressedLength);
+			byte[]     input      = new byte[compressedLength];
+
+			compressed.get(input);
+
+			crc.reset();
+			crc.update(input, 0, input.length);
+
+			if (crc.getValue() != checksum) {
+				logger.warn("Ignoring block with CRC mismatch in spool file. file=" + file + ", position=" + position);
+
+				return false;
+			}
+
+			byte[] data = new byte[length];
+
+			try {
+				inflater.reset();
+				inflater.setInput(input);
+
+				int offset = 0;
+
+				while (offset < length && !inflater.finished()) {
+					int count = inflater.inflate(data, offset, length - offset);
+
+					if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+
+					offset += count;
+				}
+
+				if (offset != length) {
+					logger.warn("Ignoring block that decompressed to " + offset + " bytes instead of " + length + " in spool file. file=" + file + ", position=" + position);
+
+					return false;
+				}
+			} catch (DataFormatException excp) {
+				logger.warn("Ignoring invalid compressed block in spool file. file=" + file + ", position=" + position, excp);
+
+				return false;
+			}
+
+			position     += BLOCK_HEADER_SIZE + compressedLength;
+			block         = ByteBuffer.wrap(data);
+			blockRecords  = recordCount;
+
+			return true;
+		}
+
+		/*
+		 * Returns a view of the given range of the file, mapping a new segment of the file if the range is outside
+		 * the currently mapped segment
+		 */
+		private ByteBuffer map(long offset, int length) throws IOException {
+			if (segment == null || offset < segmentStart || (offset + length) > (segmentStart + segment.capacity())) {
+				long size = Math.min(fileSize - offset, Math.max(MAX_MAPPED_SEGMENT_SIZE, length));
+
+				segment      = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+				segmentStart = offset;
+			}
+
+			ByteBuffer ret = segment.duplicate();
+
+			ret.position((int) (offset - segmentStart));
+			ret.limit((int) (offset - segmentStart) + length);
+
+			return ret.slice();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.Objects;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+
+/**
+ * Key used by AuditSummaryQueue to group events. For AuthzAuditEvent the fields that make up
+ * AuthzAuditEvent.getEventKey() are hashed and compared directly, instead of being concatenated into a
+ * new String for every event; other event types fall back to getEventKey().
+ *
+ * A key can be reset to a different event with set(), so that a summarizer can look up its map with a single
+ * reusable probe key and only allocate a key for events that start a new summary.
+ */
+public final class AuditSummaryKey {
+	private AuditEventBase event;
+	private String         eventKey;
+	private int            hashCode;
+
+	public AuditSummaryKey() {
+	}
+
+	public AuditSummaryKey(AuditEventBase event) {
+		set(event);
+	}
+
+	public AuditSummaryKey(AuditSummaryKey other) {
+		this.event    = other.event;
+		this.eventKey = other.eventKey;
+		this.hashCode = other.hashCode;
+	}
+
+	public AuditSummaryKey set(AuditEventBase event) {
+		this.event    = event;
+		this.eventKey = (event == null || event instanceof AuthzAuditEvent) ? null : event.getEventKey();
+		this.hashCode = (event instanceof AuthzAuditEvent) ? hashOf((AuthzAuditEvent) event) : Objects.hashCode(eventKey);
+
+		return this;
+	}
+
+	public AuditEventBase getEvent() {
+		return event;
+	}
+
+	@Override
+	public int hashCode() {
+		return hashCode;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (!(obj instanceof AuditSummaryKey)) {
+			return false;
+		}
+
+		AuditSummaryKey other        = (AuditSummaryKey) obj;
+		boolean         isAuthzEvent = event instanceof AuthzAuditEvent;
+
+		if (hashCode != other.hashCode || isAuthzEvent != (other.event instanceof AuthzAuditEvent)) {
+			return false;
+		} else if (!isAuthzEvent) {
+			return Objects.equals(eventKey, other.eventKey);
+		}
+
+		AuthzAuditEvent e1 = (AuthzAuditEvent) event;
+		AuthzAuditEvent e2 = (AuthzAuditEvent) other.event;
+
+		return e1.getAccessResult() == e2.getAccessResult() &&
+		       Objects.equals(e1.getUser(), e2.getUser()) &&
+		       Objects.equals(e1.getAccessType(), e2.getAccessType()) &&
+		       Objects.equals(e1.getResourcePath(), e2.getResourcePath()) &&
+		       Objects.equals(e1.getResourceType(), e2.getResourceType()) &&
+		       Objects.equals(e1.getAction(), e2.getAction()) &&
+		       Objects.equals(e1.getSessionId(), e2.getSessionId()) &&
+		       Objects.equals(e1.getClientIP(), e2.getClientIP());
+	}
+
+	@Override
+	public String toString() {
+		return (event instanceof AuthzAuditEvent) ? event.getEventKey() : eventKey;
+	}
+
+	public static int hashOf(AuditEventBase event) {
+		return (event instanceof AuthzAuditEvent) ? hashOf((AuthzAuditEvent) event) : Objects.hashCode(event.getEventKey());
+	}
+
+	private static int hashOf(AuthzAuditEvent event) {
+		int ret = event.getAccessResult();
+
+		ret = 31 * ret + Objects.hashCode(event.getUser());
+		ret = 31 * ret + Objects.hashCode(event.getAccessType());
+		ret = 31 * ret + Objects.hashCode(event.getResourcePath());
+		ret = 31 * ret + Objects.hashCode(event.getResourceType());
+		ret = 31 * ret + Objects.hashCode(event.getAction());
+		ret = 31 * ret + Objects.hashCode(event.getSessionId());
+		ret = 31 * ret + Objects.hashCode(event.getClientIP());
+
+		return ret;
+	}
+}
@@ -27,6 +27,8 @@
 import java.util.Properties;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.provider.AuditHandler;
@@ -36,16 +38,18 @@
 import org.slf4j.MDC;
 
 /**
- * This is a non-blocking queue with no limit on capacity.
+ * This is a non-blocking queue that summarizes events with the same key over an interval.
+ *
+ * Events are sharded by key hash across &lt;prefix&gt;.summary.threads workers (default 1). Each worker has its
+ * own queue and summary map, so summaries for a key are always built by the same worker. With more than one worker,
+ * the consumer receives summaries from multiple threads.
  */
-public class AuditSummaryQueue extends AuditQueue implements Runnable {
+public class AuditSummaryQueue extends AuditQueue {
 	private static final Logger logger = LoggerFactory
 			.getLogger(AuditSummaryQueue.class);
 
 	public static final String PROP_SUMMARY_INTERVAL = "summary.interval.ms";
-
-	LinkedBlockingQueue<AuditEventBase> queue = new LinkedBlockingQueue<AuditEventBase>();
-	Thread consumerThread = null;
+	public static final String PROP_SUMMARY_THREADS  = "summary.threads";
 
 	static int threadCount = 0;
 	static final String DEFAULT_NAME = "summary";
@@ -54,7 +58,10 @@ public class AuditSummaryQueue extends AuditQueue implements Runnable {
 
 	private int maxSummaryIntervalMs = 5000;
 
-	HashMap<String, AuditSummary> summaryMap = new HashMap<String, AuditSummary>();
+	private SummaryWorker[]     workers       = new SummaryWorker[] { new SummaryWorker(0, AUDIT_MAX_QUEUE_SIZE_DEFAULT) };
+	private final AtomicInteger activeWorkers = new AtomicInteger();
+	private final LongAdder     eventsIn      = new LongAdder();
+	private final LongAdder     summariesOut  = new LongAdder();
 
 	public AuditSummaryQueue(AuditHandler consumer) {
 		super(consumer);
@@ -66,7 +73,17 @@ public void init(Properties props, String propPrefix) {
 		super.init(props, propPrefix);
 		maxSummaryIntervalMs = MiscUtil.getIntProperty(props, propPrefix + "."
 				+ PROP_SUMMARY_INTERVAL, maxSummaryIntervalMs);
-		logger.info("maxSummaryInterval=" + maxSummaryIntervalMs + ", name="
+
+		int threads = Math.max(1, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_SUMMARY_THREADS, 1));
+		int workerQueueSize = Math.max(1, getMaxQueueSize() / threads);
+
+		workers = new SummaryWorker[threads];
+
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new SummaryWorker(i, workerQueueSize);
+		}
+
+		logger.info("maxSummaryInterval=" + maxSummaryIntervalMs + ", threads=" + threads + ", name="
 				+ getName());
 	}
 
@@ -79,12 +96,19 @@ public void init(Properties props, String propPrefix) {
 	 */
 	@Override
 	public boolean log(AuditEventBase event) {
-		// Add to the queue and return ASAP
-		if (queue.size() >= getMaxQueueSize()) {
-			return false;
+		final SummaryWorker[] workers = this.workers;
+		final SummaryWorker   worker;
+
+		if (workers.length == 1) {
+			worker = workers[0];
+		} else {
+			int hash = AuditSummaryKey.hashOf(event);
+
+			worker = workers[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % workers.length];
 		}
-		queue.add(event);
-		return true;
+
+		// Add to the queue and return ASAP
+		return worker.queue.offer(event);
 	}
 
 	@Override
@@ -110,10 +134,14 @@ public void start() {
 			consumer.start();
 		}
 
-		consumerThread = new Thread(this, this.getClass().getName()
-				+ (threadCount++));
-		consumerThread.setDaemon(true);
-		consumerThread.start();
+		activeWorkers.set(workers.length);
+
+		for (SummaryWorker worker : workers) {
+			worker.thread = new Thread(worker, this.getClass().getName()
+					+ (threadCount++));
+			worker.thread.setDaemon(true);
+			worker.thread.start();
+		}
 	}
 
 	/*
@@ -125,126 +153,175 @@ public void start() {
 	public void stop() {
 		logger.info("Stop called. name=" + getName());
 		setDrain(true);
-		try {
-			if (consumerThread != null) {
-				logger.info("Interrupting consumerThread. name=" + getName()
-						+ ", consumer="
-						+ (consumer == null ? null : consumer.getName()));
+		for (SummaryWorker worker : workers) {
+			try {
+				if (worker.thread != null) {
+					logger.info("Interrupting consumerThread. name=" + getName()
+							+ ", consumer="
+							+ (consumer == null ? null : consumer.getName()));
 
-				consumerThread.interrupt();
+					worker.thread.interrupt();
+				}
+			} catch (Throwable t) {
+				// ignore any exception
 			}
-		} catch (Throwable t) {
-			// ignore any exception
+			worker.thread = null;
 		}
-		consumerThread = null;
 	}
 
-	/*
-	 * (non-Javadoc)
-	 *
-	 * @see java.lang.Runnable#run()
-	 */
+	public long getEventsInCount() {
+		return eventsIn.sum();
+	}
+
+	public long getSummariesOutCount() {
+		return summariesOut.sum();
+	}
+
 	@Override
-	public void run() {
-		try {
-			//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
-			MDC.clear();
-			runLogAudit();
-		} catch (Throwable t) {
-			logger.error("Exited thread without abnormaly. queue=" + getName(),
-					t);
+	public void logStatus() {
+		super.logStatus();
+
+		if (isStatusLogEnabled()) {
+			logger.info("Audit Summary Status: name=" + getName() + ", threads=" + workers.length + ", eventsIn=" + eventsIn.sum() + ", summariesOut=" + summariesOut.sum());
 		}
 	}
 
-	public void runLogAudit() {
+	private class SummaryWorker implements Runnable {
+		final int                                          index;
+		final LinkedBlockingQueue<AuditEventBase>          queue;
+		final HashMap<AuditSummaryKey, AuditSummary>       summaryMap = new HashMap<AuditSummaryKey, AuditSummary>();
+		final AuditSummaryKey                              probeKey   = new AuditSummaryKey();
+		volatile Thread                                    thread     = null;
+
+		SummaryWorker(int index, int maxQueueSize) {
+			this.index = index;
+			this.queue = new LinkedBlockingQueue<AuditEventBase>(maxQueueSize);
+		}
 
-		long lastDispatchTime = System.currentTimeMillis();
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			try {
+				//This is done to clear the MDC context to avoid issue with Ranger Auditing for Knox
+				MDC.clear();
+				runLogAudit();
+			} catch (Throwable t) {
+				logger.error("Exited thread without abnormaly. queue=" + getName(),
+						t);
+			} finally {
+				onWorkerExit();
+			}
+		}
 
-		while (true) {
-			// Time to next dispatch
-			long nextDispatchDuration = lastDispatchTime
-					- System.currentTimeMillis() + maxSummaryIntervalMs;
+		public void runLogAudit() {
 
+			long lastDispatchTime = System.currentTimeMillis();
 			Collection<AuditEventBase> eventList = new ArrayList<AuditEventBase>();
 
-			try {
-				AuditEventBase event = null;
-				if (!isDrain() && nextDispatchDuration > 0) {
-					event = queue.poll(nextDispatchDuration,
-							TimeUnit.MILLISECONDS);
-				} else {
-					// For poll() is non blocking
-					event = queue.poll();
+			while (true) {
+				if (index == 0) {
+					logStatusIfRequired();
 				}
 
-				if (event != null) {
-					eventList.add(event);
-					queue.drainTo(eventList, MAX_DRAIN - 1);
-				} else {
-					// poll returned due to timeout, so reseting clock
-					nextDispatchDuration = lastDispatchTime
-							- System.currentTimeMillis() + maxSummaryIntervalMs;
-					lastDispatchTime = System.currentTimeMillis();
-				}
-			} catch (InterruptedException e) {
-				logger.info("Caught exception in consumer thread. Shutdown might be in progress");
-			} catch (Throwable t) {
-				logger.error("Caught error during processing request.", t);
-			}
+				// Time to next dispatch
+				long nextDispatchDuration = lastDispatchTime
+						- System.currentTimeMillis() + maxSummaryIntervalMs;
+
+				eventList.clear();
+
+				try {
+					AuditEventBase event = null;
+					if (!isDrain() && nextDispatchDuration > 0) {
+						event = queue.poll(nextDispatchDuration,
+								TimeUnit.MILLISECONDS);
+					} else {
+						// For poll() is non blocking
+						event = queue.poll();
+					}
 
-			for (AuditEventBase event : eventList) {
-				// Add to hash map
-				String key = event.getEventKey();
-				AuditSummary auditSummary = summaryMap.get(key);
-				if (auditSummary == null) {
-					auditSummary = new AuditSummary();
-					auditSummary.event = event;
-					auditSummary.startTime = event.getEventTime();
-					auditSummary.endTime = event.getEventTime();
-					auditSummary.count = 1;
-					summaryMap.put(key, auditSummary);
-				} else {
-					auditSummary.endTime = event.getEventTime();
-					auditSummary.count++;
+					if (event != null) {
+						eventList.add(event);
+						queue.drainTo(eventList, MAX_DRAIN - 1);
+					} else {
+						// poll returned due to timeout, so reseting clock
+						nextDispatchDuration = lastDispatchTime
+								- System.currentTimeMillis() + maxSummaryIntervalMs;
+						lastDispatchTime = System.currentTimeMillis();
+					}
+				} catch (InterruptedException e) {
+					logger.info("Caught exception in consumer thread. Shutdown might be in progress");
+				} catch (Throwable t) {
+					logger.error("Caught error during processing request.", t);
 				}
-			}
 
-			if (isDrain() || nextDispatchDuration <= 0) {
-				// Reset time just before sending the logs
-				lastDispatchTime = System.currentTimeMillis();
-
-				for (Map.Entry<String, AuditSummary> entry : summaryMap
-						.entrySet()) {
-					AuditSummary auditSummary = entry.getValue();
-					auditSummary.event.setEventCount(auditSummary.count);
-					long timeDiff = auditSummary.endTime.getTime()
-							- auditSummary.startTime.getTime();
-					timeDiff = timeDiff > 0 ? timeDiff : 1;
-					auditSummary.event.setEventDurationMS(timeDiff);
-					boolean ret = consumer.log(auditSummary.event);
-					if (!ret) {
-						// We need to drop this event
-						logFailedEvent(auditSummary.event);
+				for (AuditEventBase event : eventList) {
+					// Add to hash map
+					AuditSummary auditSummary = summaryMap.get(probeKey.set(event));
+					if (auditSummary == null) {
+						auditSummary = new AuditSummary();
+						auditSummary.event = event;
+						auditSummary.startTime = event.getEventTime();
+						auditSummary.endTime = event.getEventTime();
+						auditSummary.count = 1;
+						summaryMap.put(new AuditSummaryKey(probeKey), auditSummary);
+					} else {
+						auditSummary.endTime = event.getEventTime();
+						auditSummary.count++;
 					}
 				}
-				summaryMap.clear();
-			}
 
-			if (isDrain()) {
-				if (summaryMap.isEmpty() && queue.isEmpty()) {
-					break;
+				eventsIn.add(eventList.size());
+				probeKey.set(null); // don't hold on to the last event
+
+				if (isDrain() || nextDispatchDuration <= 0) {
+					// Reset time just before sending the logs
+					lastDispatchTime = System.currentTimeMillis();
+
+					for (Map.Entry<AuditSummaryKey, AuditSummary> entry : summaryMap
+							.entrySet()) {
+						AuditSummary auditSummary = entry.getValue();
+						auditSummary.event.setEventCount(auditSummary.count);
+						long timeDiff = auditSummary.endTime.getTime()
+								- auditSummary.startTime.getTime();
+						timeDiff = timeDiff > 0 ? timeDiff : 1;
+						auditSummary.event.setEventDurationMS(timeDiff);
+						boolean ret = consumer.log(auditSummary.event);
+						if (!ret) {
+							// We need to drop this event
+							logFailedEvent(auditSummary.event);
+						}
+					}
+					summariesOut.add(summaryMap.size());
+					summaryMap.clear();
 				}
-				if (isDrainMaxTimeElapsed()) {
-					logger.warn("Exiting polling loop because max time allowed reached. name="
-							+ getName()
-							+ ", waited for "
-							+ (stopTime - System.currentTimeMillis()) + " ms");
+
+				if (isDrain()) {
+					if (summaryMap.isEmpty() && queue.isEmpty()) {
+						break;
+					}
+					if (isDrainMaxTimeElapsed()) {
+						logger.warn("Exiting polling loop because max time allowed reached. name="
+								+ getName()
+								+ ", waited for "
+								+ (stopTime - System.currentTimeMillis()) + " ms");
+					}
 				}
+
 			}
 
+			logger.info("Exiting polling loop. name=" + getName() + ", worker=" + index);
+		}
+	}
+
+	private void onWorkerExit() {
+		if (activeWorkers.decrementAndGet() > 0) {
+			return;
 		}
 
-		logger.info("Exiting polling loop. name=" + getName());
 		try {
 			// Call stop on the consumer
 			logger.info("Calling to stop consumer. name=" + getName()
@@ -109,6 +109,7 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 		int	 restClientReadTimeOutMs	= config.getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
 		int	 restClientMaxRetryAttempts	= config.getInt(propertyPrefix + ".policy.rest.client.max.retry.attempts", 3);
 		int	 restClientRetryIntervalMs	= config.getInt(propertyPrefix + ".policy.rest.client.retry.interval.ms", 1 * 1000);
+		boolean isCompressionEnabled    = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD_DEFAULT);
 
 		supportsPolicyDeltas            = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_DELTA_DEFAULT);
 		supportsTagDeltas               = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_TAG_DELTA_DEFAULT);
@@ -124,6 +125,8 @@ public void init(String serviceName, String appId, String propertyPrefix, Config
 
 		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs, restClientMaxRetryAttempts, restClientRetryIntervalMs, config);
 
+		restClient.setCompressionEnabled(isCompressionEnabled);
+
         try {
             this.serviceNameUrlParam = URLEncoderUtil.encodeURIParam(serviceName);
         } catch (UnsupportedEncodingException e) {
@@ -24,6 +24,12 @@ public class RangerHadoopConstants {
 	public static final String RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP = "ranger.optimize-subaccess-authorization" ;
 	public static final boolean RANGER_ADD_HDFS_PERMISSION_DEFAULT = false;
 	public static final boolean RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT = false ;
+	public static final String  RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_PROP         = "ranger.plugin.hdfs.subaccess.parallel.enabled";
+	public static final boolean RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_DEFAULT      = false;
+	public static final String  RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_THREADS_PROP = "ranger.plugin.hdfs.subaccess.parallel.threads";
+	public static final int     RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_THREADS_DEFAULT = 4;
+	public static final String  RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_PROP    = "ranger.plugin.hdfs.subaccess.max.directories";
+	public static final int     RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_DEFAULT = -1;
 	public static final String READ_ACCCESS_TYPE = "read";
 	public static final String WRITE_ACCCESS_TYPE = "write";
 	public static final String EXECUTE_ACCCESS_TYPE = "execute";
@@ -23,6 +23,7 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerCompiledScript;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
 import org.apache.ranger.plugin.util.ScriptEngineUtil;
 import org.slf4j.Logger;
@@ -37,8 +38,9 @@
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerScriptConditionEvaluator.class);
 
-	private ScriptEngine scriptEngine;
-	private Boolean      enableJsonCtx = null;
+	private          ScriptEngine         scriptEngine;
+	private          Boolean              enableJsonCtx = null;
+	private volatile RangerCompiledScript compiledScript;
 
 	@Override
 	public void init() {
@@ -77,6 +79,8 @@ public void init() {
 			LOG.error("failed to initialize condition '" + conditionType + "': script engine '" + engineName + "' was not created");
 		} else {
 			LOG.info("ScriptEngine for engineName=[" + engineName + "] is successfully created");
+
+			compileScript();
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -93,20 +97,20 @@ public boolean isMatched(RangerAccessRequest request) {
 		boolean result = true;
 
 		if (scriptEngine != null) {
-			String script = getScript();
+			RangerCompiledScript script = compiledScript;
 
-			if (StringUtils.isNotBlank(script)) {
+			if (script == null) { // script not available at init(); for example, subclasses that set the script after super.init()
+				script = compileScript();
+			}
+
+			if (script != null) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
 				}
 
 				RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(request);
 
-				if (enableJsonCtx == null) { // if not specified in evaluatorOptions, set it on first call to isMatched()
-					enableJsonCtx = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
-				}
-
-				evaluator.evaluateConditionScript(scriptEngine, script, enableJsonCtx);
+				evaluator.evaluateConditionScript(script);
 
 				result = evaluator.getResult();
 			} else {
@@ -128,6 +132,29 @@ public boolean isMatched(RangerAccessRequest request) {
 
 	}
 
+	/*
+	 * compiles the script once, on the first call that finds a non-empty script; evaluations reuse the compiled script
+	 */
+	protected RangerCompiledScript compileScript() {
+		RangerCompiledScript ret = compiledScript;
+
+		if (ret == null && scriptEngine != null) {
+			String script = getScript();
+
+			if (StringUtils.isNotBlank(script)) {
+				ret = RangerRequestScriptEvaluator.compileScript(scriptEngine, script, enableJsonCtx);
+
+				compiledScript = ret;
+
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerScriptConditionEvaluator.compileScript(): " + ret);
+				}
+			}
+		}
+
+		return ret;
+	}
+
 	protected String getScript() {
 		String       ret    = null;
 		List<String> values = condition.getValues();
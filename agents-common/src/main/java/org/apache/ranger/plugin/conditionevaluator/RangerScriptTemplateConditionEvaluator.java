@@ -56,6 +56,8 @@ public void init() {
 			}
 		}
 
+		compileScript();
+
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerScriptTemplateConditionEvaluator.init(" + condition + "): script=" + script + "; reverseResult=" + reverseResult);
 		}
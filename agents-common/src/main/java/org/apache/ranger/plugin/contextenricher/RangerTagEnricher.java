@@ -57,6 +57,7 @@
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -69,6 +70,7 @@
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerTagEnricher.class);
@@ -325,14 +327,20 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
 					} else {
 						if (serviceTags.getTagsChangeExtent() != ServiceTags.TagsChangeExtent.TAGS) {
 							Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> trieMap;
+							Set<String>                                                   sharedTrieNames; // tries to be copied before their first update
 
 							if (enrichedServiceTags == null) {
-								trieMap = new HashMap<>();
+								trieMap         = new HashMap<>();
+								sharedTrieNames = null;
+							} else if (writeLock.isLockingEnabled()) {
+								trieMap         = enrichedServiceTags.getServiceResourceTrie();
+								sharedTrieNames = null;
 							} else {
-								trieMap = writeLock.isLockingEnabled() ? enrichedServiceTags.getServiceResourceTrie() : copyServiceResourceTrie();
+								trieMap         = new HashMap<>(enrichedServiceTags.getServiceResourceTrie());
+								sharedTrieNames = new HashSet<>(trieMap.keySet());
 							}
 
-							processServiceTagDeltas(serviceTags, allServiceTags, trieMap);
+							processServiceTagDeltas(serviceTags, allServiceTags, trieMap, sharedTrieNames);
 						} else {
 							if (LOG.isDebugEnabled()) {
 								LOG.debug("Delta contains only tag attribute changes");
@@ -459,7 +467,7 @@ private void processServiceTags(ServiceTags serviceTags) {
 		}
 	}
 
-	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
+	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, Set<String> sharedTrieNames) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Delta contains changes other than tag attribute changes, [" + deltas.getTagsChangeExtent() + "]");
 		}
@@ -476,7 +484,7 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 		List<RangerServiceResource> changedServiceResources = deltas.getServiceResources();
 
 		for (RangerServiceResource serviceResource : changedServiceResources) {
-			final boolean removedOldServiceResource = MapUtils.isEmpty(serviceResource.getResourceElements()) || removeOldServiceResource(serviceResource, resourceMatchers, serviceResourceTrie);
+			final boolean removedOldServiceResource = MapUtils.isEmpty(serviceResource.getResourceElements()) || removeOldServiceResource(serviceResource, resourceMatchers, serviceResourceTrie, sharedTrieNames);
 
 			if (removedOldServiceResource) {
 				if (!StringUtils.isEmpty(serviceResource.getResourceSignature())) {
@@ -485,13 +493,18 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 					if (resourceMatcher != null) {
 						for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
 							RangerPolicy.RangerPolicyResource                policyResource = serviceResource.getResourceElements().get(resourceDef.getName());
-							RangerResourceTrie<RangerServiceResourceMatcher> trie           = serviceResourceTrie.get(resourceDef.getName());
+							boolean                                          isTrieUpdated  = policyResource != null || resourceMatcher.isAncestorOf(resourceDef);
+							RangerResourceTrie<RangerServiceResourceMatcher> trie           = isTrieUpdated ? getTrieForUpdate(serviceResourceTrie, resourceDef.getName(), sharedTrieNames) : serviceResourceTrie.get(resourceDef.getName());
 
 							if (LOG.isDebugEnabled()) {
 								LOG.debug("Trying to add resource-matcher to " + (trie == null ? "new" : "existing") + " trie for " + resourceDef.getName());
 							}
 
 							if (trie != null) {
+								if (!isTrieUpdated) { // resource-matcher is not added to this trie
+									continue;
+								}
+
 								trie.add(policyResource, resourceMatcher);
 								trie.wrapUpUpdate();
 
@@ -527,13 +540,20 @@ private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceT
 			deltas.setTagVersion(-1L);
 		} else {
 			for (Map.Entry<String, RangerResourceTrie<RangerServiceResourceMatcher>> entry : serviceResourceTrie.entrySet()) {
-				entry.getValue().wrapUpUpdate();
+				if (sharedTrieNames == null || !sharedTrieNames.contains(entry.getKey())) {
+					entry.getValue().wrapUpUpdate();
+				}
+			}
+
+			if (LOG.isDebugEnabled() && sharedTrieNames != null) {
+				LOG.debug("processServiceTagDeltas(): tries not updated, hence not copied: " + sharedTrieNames);
 			}
+
 			enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie);
 		}
 	}
 
-	private boolean removeOldServiceResource(RangerServiceResource serviceResource, List<RangerServiceResourceMatcher> resourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> resourceTries) {
+	private boolean removeOldServiceResource(RangerServiceResource serviceResource, List<RangerServiceResourceMatcher> resourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> resourceTries, Set<String> sharedTrieNames) {
 		boolean ret = true;
 
 		if (enrichedServiceTags != null) {
@@ -585,10 +605,14 @@ private boolean removeOldServiceResource(RangerServiceResource serviceResource,
 			for (RangerServiceResourceMatcher matcher : oldMatchers) {
 				for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
 					String                                           resourceDefName = resourceDef.getName();
-					RangerResourceTrie<RangerServiceResourceMatcher> trie            = resourceTries.get(resourceDefName);
+					RangerPolicy.RangerPolicyResource                policyResource  = serviceResource.getResourceElements().get(resourceDefName);
+					boolean                                          isTrieUpdated   = policyResource != null || matcher.isAncestorOf(resourceDef);
+					RangerResourceTrie<RangerServiceResourceMatcher> trie            = isTrieUpdated ? getTrieForUpdate(resourceTries, resourceDefName, sharedTrieNames) : resourceTries.get(resourceDefName);
 
 					if (trie != null) {
-						trie.delete(serviceResource.getResourceElements().get(resourceDefName), matcher);
+						if (isTrieUpdated) {
+							trie.delete(policyResource, matcher);
+						}
 					} else {
 						LOG.error("Cannot find resourceDef with name:[" + resourceDefName + "]. Should NOT happen!!");
 						LOG.error("Setting tagVersion to -1 to ensure that in the next download all tags are downloaded");
@@ -725,7 +749,7 @@ private Set<RangerTagForEval> findMatchingTags(final RangerAccessRequest request
 						if (ret == null) {
 							ret = new HashSet<>();
 						}
-						ret.addAll(getTagsForServiceResource(request.getAccessTime(), enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
+						addTagsForServiceResource(ret, request.getAccessTime(), enrichedServiceTags, resourceMatcher.getServiceResource(), matchType);
 					}
 
 				}
@@ -770,7 +794,7 @@ private Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessReque
 				perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerTagEnricher.getEvaluators(resource=" + resource.getAsString() + ")");
 			}
 
-			ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes());
+			ret = RangerResourceEvaluatorsRetriever.getEvaluators(serviceResourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes(), RangerAccessRequestUtil.getTrieLookupCacheFromContext(request.getContext()));
 
 			RangerPerfTracer.logAlways(perf);
 		}
@@ -785,59 +809,47 @@ private Collection<RangerServiceResourceMatcher> getEvaluators(RangerAccessReque
 		return ret;
 	}
 
-	private static Set<RangerTagForEval> getTagsForServiceResource(Date accessTime, final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
-		Set<RangerTagForEval> ret = new HashSet<>();
-
-		final Long resourceId                        = serviceResource.getId();
-		final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
-		final Map<Long, RangerTag> tags              = serviceTags.getTags();
+	private static void addTagsForServiceResource(Set<RangerTagForEval> ret, Date accessTime, final EnrichedServiceTags enrichedServiceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
+		final Long resourceId = serviceResource.getId();
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("Looking for tags for resource-id:[" + resourceId + "] in serviceTags:[" + serviceTags + "]");
+			LOG.debug("Looking for tags for resource-id:[" + resourceId + "] in serviceTags:[" + enrichedServiceTags.getServiceTags() + "]");
 		}
 
-		if (resourceId != null && MapUtils.isNotEmpty(resourceToTagIds) && MapUtils.isNotEmpty(tags)) {
-
-			List<Long> tagIds = resourceToTagIds.get(resourceId);
-
-			if (CollectionUtils.isNotEmpty(tagIds)) {
+		final TagsForEval tagsForEval = resourceId != null ? enrichedServiceTags.getTagsForServiceResource(resourceId, matchType) : null;
 
+		if (tagsForEval != null) {
+			if (!tagsForEval.hasValidityPeriods) {
+				Collections.addAll(ret, tagsForEval.tags);
+			} else {
 				accessTime = accessTime == null ? new Date() : accessTime;
 
-				for (Long tagId : tagIds) {
-
-					RangerTag tag = tags.get(tagId);
-
-					if (tag != null) {
-						RangerTagForEval tagForEval = new RangerTagForEval(tag, matchType);
-						if (tagForEval.isApplicable(accessTime)) {
-							ret.add(tagForEval);
-						}
+				for (RangerTagForEval tagForEval : tagsForEval.tags) {
+					if (tagForEval.isApplicable(accessTime)) {
+						ret.add(tagForEval);
 					}
 				}
-			} else {
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("No tags mapping found for resource:[" + resourceId + "]");
-				}
 			}
 		} else {
 			if (LOG.isDebugEnabled()) {
-				LOG.debug("resourceId is null or resourceToTagTds mapping is null or tags mapping is null!");
+				LOG.debug("No tags mapping found for resource:[" + resourceId + "]");
 			}
 		}
-
-		return ret;
 	}
 
-	private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> copyServiceResourceTrie() {
-		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> ret = new HashMap<>();
+	/*
+	 * When tag-deltas are applied without locking, tries in use by the current EnrichedServiceTags must not be
+	 * updated; such a trie is copied before its first update. Tries not affected by the deltas continue to be shared.
+	 */
+	private static RangerResourceTrie<RangerServiceResourceMatcher> getTrieForUpdate(Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> tries, String resourceDefName, Set<String> sharedTrieNames) {
+		RangerResourceTrie<RangerServiceResourceMatcher> ret = tries.get(resourceDefName);
 
-		if (enrichedServiceTags != null) {
-			for (Map.Entry<String, RangerResourceTrie<RangerServiceResourceMatcher>> entry : enrichedServiceTags.getServiceResourceTrie().entrySet()) {
-				RangerResourceTrie<RangerServiceResourceMatcher> resourceTrie = new RangerResourceTrie<>(entry.getValue());
-				ret.put(entry.getKey(), resourceTrie);
-			}
+		if (ret != null && sharedTrieNames != null && sharedTrieNames.remove(resourceDefName)) {
+			ret = new RangerResourceTrie<>(ret);
+
+			tries.put(resourceDefName, ret);
 		}
+
 		return ret;
 	}
 
@@ -847,6 +859,8 @@ static public final class EnrichedServiceTags {
 		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>    serviceResourceTrie;
 		final private Set<RangerTagForEval>                                            tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
 		final private Long                                                             resourceTrieVersion;
+		final private long[]                                                           taggedResourceIds; // sorted; index into tagsForEval
+		final private AtomicReferenceArray<TagsForEval[]>                              tagsForEval;       // per tagged resource, per match-type; created on first use
 
 		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
 			this.serviceTags                      = serviceTags;
@@ -854,6 +868,8 @@ static public final class EnrichedServiceTags {
 			this.serviceResourceTrie              = serviceResourceTrie;
 			this.tagsForEmptyResourceAndAnyAccess = createTagsForEmptyResourceAndAnyAccess();
 			this.resourceTrieVersion              = serviceTags.getTagVersion();
+			this.taggedResourceIds                = createTaggedResourceIds();
+			this.tagsForEval                      = new AtomicReferenceArray<>(taggedResourceIds.length);
 		}
 		public ServiceTags                                                   getServiceTags() {return serviceTags;}
 		public List<RangerServiceResourceMatcher>                            getServiceResourceMatchers() { return serviceResourceMatchers;}
@@ -868,6 +884,101 @@ private Set<RangerTagForEval> createTagsForEmptyResourceAndAnyAccess() {
 			}
 			return tagsForEmptyResourceAndAnyAccess;
 		}
+
+		/*
+		 * Returns the tags of the given service-resource, for the given match-type. RangerTagForEval objects for a
+		 * resource are created once per match-type and shared by all requests that match the resource, until the
+		 * service-tags change and a new EnrichedServiceTags is created.
+		 */
+		TagsForEval getTagsForServiceResource(long resourceId, RangerPolicyResourceMatcher.MatchType matchType) {
+			final int idx = Arrays.binarySearch(taggedResourceIds, resourceId);
+
+			if (idx < 0) {
+				return null;
+			}
+
+			TagsForEval[] tagsByMatchType = tagsForEval.get(idx);
+
+			if (tagsByMatchType == null) {
+				tagsByMatchType = new TagsForEval[RangerPolicyResourceMatcher.MatchType.values().length];
+
+				if (!tagsForEval.compareAndSet(idx, null, tagsByMatchType)) {
+					tagsByMatchType = tagsForEval.get(idx);
+				}
+			}
+
+			TagsForEval ret = tagsByMatchType[matchType.ordinal()];
+
+			if (ret == null) { // racing threads create equivalent instances; any of them can be retained
+				ret = createTagsForEval(resourceId, matchType);
+
+				tagsByMatchType[matchType.ordinal()] = ret;
+			}
+
+			return ret;
+		}
+
+		private TagsForEval createTagsForEval(long resourceId, RangerPolicyResourceMatcher.MatchType matchType) {
+			final List<Long>             tagIds = serviceTags.getResourceToTagIds().get(resourceId);
+			final Map<Long, RangerTag>   tags   = serviceTags.getTags();
+			final List<RangerTagForEval> ret    = new ArrayList<>(tagIds != null ? tagIds.size() : 0);
+
+			if (tagIds != null && tags != null) {
+				for (Long tagId : tagIds) {
+					RangerTag tag = tags.get(tagId);
+
+					if (tag != null) {
+						ret.add(new RangerTagForEval(tag, matchType));
+					}
+				}
+			}
+
+			return new TagsForEval(ret.toArray(new RangerTagForEval[0]));
+		}
+
+		private long[] createTaggedResourceIds() {
+			final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
+
+			if (MapUtils.isEmpty(resourceToTagIds) || MapUtils.isEmpty(serviceTags.getTags())) {
+				return new long[0];
+			}
+
+			long[] ret = new long[resourceToTagIds.size()];
+			int    len = 0;
+
+			for (Map.Entry<Long, List<Long>> entry : resourceToTagIds.entrySet()) {
+				if (entry.getKey() != null && CollectionUtils.isNotEmpty(entry.getValue())) {
+					ret[len++] = entry.getKey();
+				}
+			}
+
+			if (len != ret.length) {
+				ret = Arrays.copyOf(ret, len);
+			}
+
+			Arrays.sort(ret);
+
+			return ret;
+		}
+	}
+
+	static final class TagsForEval {
+		final RangerTagForEval[] tags;
+		final boolean            hasValidityPeriods;
+
+		TagsForEval(RangerTagForEval[] tags) {
+			boolean hasValidityPeriods = false;
+
+			for (RangerTagForEval tag : tags) {
+				if (tag.hasValidityPeriods()) {
+					hasValidityPeriods = true;
+					break;
+				}
+			}
+
+			this.tags               = tags;
+			this.hasValidityPeriods = hasValidityPeriods;
+		}
 	}
 
 	static class RangerTagRefresher extends Thread {
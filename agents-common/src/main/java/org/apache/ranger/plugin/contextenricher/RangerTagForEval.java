@@ -89,22 +89,7 @@ public boolean isApplicable(Date accessTime) {
 
         boolean ret = false;
 
-        List<RangerValidityScheduleEvaluator> validityPeriodEvaluators = this.validityPeriodEvaluators;
-
-        // Specifically for unit-testing using TestPolicyEngine
-        if (MapUtils.isNotEmpty(options) && CollectionUtils.isEmpty(validityPeriodEvaluators)) {
-            Object value = getOption(RangerTag.OPTION_TAG_VALIDITY_PERIODS);
-
-            if (value != null && value instanceof String) {
-                this.validityPeriods = JsonUtils.jsonToRangerValiditySchedule((String) value);
-
-                validityPeriodEvaluators = createValidityPeriodEvaluators();
-            } else {
-                validityPeriodEvaluators = Collections.emptyList();
-            }
-
-            this.validityPeriodEvaluators = validityPeriodEvaluators;
-        }
+        List<RangerValidityScheduleEvaluator> validityPeriodEvaluators = getValidityPeriodEvaluators();
 
         if (accessTime != null && CollectionUtils.isNotEmpty(validityPeriodEvaluators)) {
             for (RangerValidityScheduleEvaluator evaluator : validityPeriodEvaluators) {
@@ -124,6 +109,10 @@ public boolean isApplicable(Date accessTime) {
         return ret;
     }
 
+    public boolean hasValidityPeriods() {
+        return CollectionUtils.isNotEmpty(getValidityPeriodEvaluators());
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -216,6 +205,27 @@ private Object getOption(String name) {
         return options != null ? options.get(name) : null;
     }
 
+    private List<RangerValidityScheduleEvaluator> getValidityPeriodEvaluators() {
+        List<RangerValidityScheduleEvaluator> ret = this.validityPeriodEvaluators;
+
+        // Specifically for unit-testing using TestPolicyEngine
+        if (MapUtils.isNotEmpty(options) && CollectionUtils.isEmpty(ret)) {
+            Object value = getOption(RangerTag.OPTION_TAG_VALIDITY_PERIODS);
+
+            if (value != null && value instanceof String) {
+                this.validityPeriods = JsonUtils.jsonToRangerValiditySchedule((String) value);
+
+                ret = createValidityPeriodEvaluators();
+            } else {
+                ret = Collections.emptyList();
+            }
+
+            this.validityPeriodEvaluators = ret;
+        }
+
+        return ret;
+    }
+
     private List<RangerValidityScheduleEvaluator> createValidityPeriodEvaluators() {
         final List<RangerValidityScheduleEvaluator> ret;
 
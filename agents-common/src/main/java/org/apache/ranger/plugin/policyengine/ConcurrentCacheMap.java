@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache that can be shared by many threads without a global monitor.
+ *
+ * Entries are spread over a fixed number of segments, each backed by a ConcurrentHashMap; lookups never
+ * take a lock. Each entry records its last access time, and a segment that grows past its share of the
+ * capacity evicts its least recently used entries in a batch (approximate LRU). Only one thread trims a
+ * given segment at a time; other writers do not wait for it. Entries can optionally expire after a TTL.
+ */
+public class ConcurrentCacheMap<K, V> {
+    private static final Logger LOG = LoggerFactory.getLogger(ConcurrentCacheMap.class);
+
+    public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    private static final int EVICTION_BATCH_DIVISOR = 16; // evict 1/16 of a full segment at a time
+
+    private final Segment<K, V>[] segments;
+    private final int             segmentMask;
+    private final int             maxSize;
+    private final long            ttlNanos;
+    private final LongAdder       hitCount        = new LongAdder();
+    private final LongAdder       missCount       = new LongAdder();
+    private final LongAdder       evictionCount   = new LongAdder();
+    private final LongAdder       expirationCount = new LongAdder();
+
+    public ConcurrentCacheMap(int maxSize) {
+        this(maxSize, 0, DEFAULT_SEGMENT_COUNT);
+    }
+
+    public ConcurrentCacheMap(int maxSize, long ttlMs) {
+        this(maxSize, ttlMs, DEFAULT_SEGMENT_COUNT);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentCacheMap(int maxSize, long ttlMs, int segmentCount) {
+        int count = 1;
+
+        while (count < segmentCount && count < maxSize) {
+            count <<= 1;
+        }
+
+        int segmentCapacity = Math.max(1, (maxSize + count - 1) / count);
+
+        this.maxSize     = maxSize;
+        this.ttlNanos    = ttlMs > 0 ? TimeUnit.MILLISECONDS.toNanos(ttlMs) : 0;
+        this.segmentMask = count - 1;
+        this.segments    = new Segment[count];
+
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        Entry<V>      entry   = segment.map.get(key);
+        V             ret     = null;
+
+        if (entry != null) {
+            long now = System.nanoTime();
+
+            if (isExpired(entry, now)) {
+                if (segment.map.remove(key, entry)) {
+                    expirationCount.increment();
+                }
+            } else {
+                entry.lastAccessTime = now;
+
+                ret = entry.value;
+            }
+        }
+
+        if (ret != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+
+        return ret;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+
+        segment.map.put(key, new Entry<>(value, System.nanoTime()));
+
+        if (segment.map.size() > segment.capacity) {
+            trim(segment);
+        }
+    }
+
+    public V remove(K key) {
+        Entry<V> entry = segmentFor(key).map.remove(key);
+
+        return entry != null ? entry.value : null;
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.map.clear();
+        }
+    }
+
+    public int size() {
+        int ret = 0;
+
+        for (Segment<K, V> segment : segments) {
+            ret += segment.map.size();
+        }
+
+        return ret;
+    }
+
+    public int getMaxSize() { return maxSize; }
+
+    public long getTtlMs() { return TimeUnit.NANOSECONDS.toMillis(ttlNanos); }
+
+    public int getSegmentCount() { return segments.length; }
+
+    public long getHitCount() { return hitCount.sum(); }
+
+    public long getMissCount() { return missCount.sum(); }
+
+    public long getEvictionCount() { return evictionCount.sum(); }
+
+    public long getExpirationCount() { return expirationCount.sum(); }
+
+    @Override
+    public String toString() {
+        return "ConcurrentCacheMap={maxSize=" + maxSize + ", size=" + size() + ", segments=" + segments.length + ", ttlMs=" + getTtlMs()
+                + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + ", expirations=" + getExpirationCount() + "}";
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+
+        h ^= (h >>> 16); // spread higher bits, as ConcurrentHashMap does
+
+        return segments[h & segmentMask];
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && (now - entry.createTime) > ttlNanos;
+    }
+
+    private void trim(Segment<K, V> segment) {
+        if (!segment.trimLock.tryLock()) { // another thread is already trimming this segment
+            return;
+        }
+
+        try {
+            int size = segment.map.size();
+
+            if (size <= segment.capacity) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            // drop expired entries first; they may be enough to bring the segment under capacity
+            if (ttlNanos > 0) {
+                for (Iterator<Map.Entry<K, Entry<V>>> iter = segment.map.entrySet().iterator(); iter.hasNext(); ) {
+                    if (isExpired(iter.next().getValue(), now)) {
+                        iter.remove();
+
+                        expirationCount.increment();
+                    }
+                }
+
+                size = segment.map.size();
+
+                if (size <= segment.capacity) {
+                    return;
+                }
+            }
+
+            int    toEvict     = Math.min(size, (size - segment.capacity) + Math.max(1, segment.capacity / EVICTION_BATCH_DIVISOR));
+            long[] accessTimes = new long[size];
+            int    count       = 0;
+
+            for (Entry<V> entry : segment.map.values()) {
+                if (count == accessTimes.length) {
+                    break;
+                }
+
+                accessTimes[count++] = entry.lastAccessTime;
+            }
+
+            if (count == 0) {
+                return;
+            }
+
+            Arrays.sort(accessTimes, 0, count);
+
+            long threshold = accessTimes[Math.min(toEvict, count) - 1];
+            int  evicted   = 0;
+
+            for (Iterator<Entry<V>> iter = segment.map.values().iterator(); iter.hasNext() && evicted < toEvict; ) {
+                if (iter.next().lastAccessTime <= threshold) {
+                    iter.remove();
+
+                    evicted++;
+                }
+            }
+
+            evictionCount.add(evicted);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("ConcurrentCacheMap.trim(): evicted " + evicted + " entries; segmentSize=" + segment.map.size() + ", segmentCapacity=" + segment.capacity);
+            }
+        } finally {
+            segment.trimLock.unlock();
+        }
+    }
+
+    private static final class Segment<K, V> {
+        final ConcurrentHashMap<K, Entry<V>> map;
+        final int                            capacity;
+        final ReentrantLock                  trimLock = new ReentrantLock();
+
+        Segment(int capacity) {
+            this.map      = new ConcurrentHashMap<>(Math.min(capacity, 1024) * 4 / 3 + 1);
+            this.capacity = capacity;
+        }
+    }
+
+    private static final class Entry<V> {
+        final    V    value;
+        final    long createTime;
+        volatile long lastAccessTime;
+
+        Entry(V value, long createTime) {
+            this.value          = value;
+            this.createTime     = createTime;
+            this.lastAccessTime = createTime;
+        }
+    }
+}
@@ -121,6 +121,16 @@ public RangerPolicyRepository getTagPolicyRepository() {
 
     public Map<String, RangerPolicyRepository> getZonePolicyRepositories() { return zonePolicyRepositories; }
 
+    public Map<Long, Long> getPolicyHitCounts() {
+        Map<Long, Long> ret = policyRepository != null ? policyRepository.getPolicyHitCounts() : new HashMap<>();
+
+        for (RangerPolicyRepository zonePolicyRepository : zonePolicyRepositories.values()) {
+            ret.putAll(zonePolicyRepository.getPolicyHitCounts());
+        }
+
+        return ret;
+    }
+
     public List<RangerContextEnricher> getAllContextEnrichers() { return allContextEnrichers; }
 
     public RangerPluginContext getPluginContext() { return pluginContext; }
@@ -210,10 +220,10 @@ public PolicyEngine(ServicePolicies servicePolicies, RangerPluginContext pluginC
             }
         }
 
-        this.pluginContext.setAuthContext(new RangerAuthContext(null, roles));
-
         RangerPolicyEngineOptions options = pluginContext.getConfig().getPolicyEngineOptions();
 
+        this.pluginContext.setAuthContext(new RangerAuthContext(null, roles, options.rolesCacheSize));
+
         if(StringUtils.isBlank(options.evaluatorType) || StringUtils.equalsIgnoreCase(options.evaluatorType, RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO)) {
             options.evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
         }
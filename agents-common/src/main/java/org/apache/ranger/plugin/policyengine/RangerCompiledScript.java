@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+/**
+ * A condition script prepared once, for repeated evaluation by RangerRequestScriptEvaluator.
+ *
+ * The script text, with macros expanded and the pre-exec/polyfill prefixes added, is compiled when the engine
+ * supports javax.script.Compilable; otherwise the prepared text is evaluated on each call. Creating bindings
+ * is expensive with Nashorn (a new global object each time), so evaluations borrow bindings from a pool of at
+ * most MAX_POOLED_BINDINGS, which is discarded along with this script when the condition evaluator is replaced.
+ * Variables added to the bindings by an evaluation, like variables assigned at the top-level of the script, are
+ * removed before the bindings are returned to the pool; variables that the engine doesn't allow to be removed,
+ * like those declared with var, are set to null.
+ */
+public final class RangerCompiledScript {
+	private static final Logger LOG = LoggerFactory.getLogger(RangerCompiledScript.class);
+
+	static final int MAX_POOLED_BINDINGS = Runtime.getRuntime().availableProcessors();
+
+	private final ScriptEngine    scriptEngine;
+	private final String          scriptText;
+	private final boolean         isJsonCtxEnabled;
+	private final CompiledScript  compiledScript;
+	private final Queue<Bindings> bindingsPool = new ArrayBlockingQueue<>(MAX_POOLED_BINDINGS);
+	private volatile Set<String>  initialBindingNames;
+
+	RangerCompiledScript(ScriptEngine scriptEngine, String scriptText, boolean isJsonCtxEnabled) {
+		this.scriptEngine     = scriptEngine;
+		this.scriptText       = scriptText;
+		this.isJsonCtxEnabled = isJsonCtxEnabled;
+		this.compiledScript   = compile(scriptEngine, scriptText);
+	}
+
+	public ScriptEngine getScriptEngine() { return scriptEngine; }
+
+	public String getScriptText() { return scriptText; }
+
+	public boolean isJsonCtxEnabled() { return isJsonCtxEnabled; }
+
+	public boolean isCompiled() { return compiledScript != null; }
+
+	Bindings borrowBindings() {
+		Bindings ret = bindingsPool.poll();
+
+		if (ret == null) {
+			ret = scriptEngine.createBindings();
+
+			if (initialBindingNames == null) {
+				initialBindingNames = new HashSet<>(ret.keySet());
+			}
+		}
+
+		return ret;
+	}
+
+	void returnBindings(Bindings bindings) {
+		try {
+			Set<String>  initialNames = initialBindingNames;
+			List<String> addedNames   = new ArrayList<>();
+
+			for (String name : bindings.keySet()) {
+				if (!initialNames.contains(name)) {
+					addedNames.add(name);
+				}
+			}
+
+			for (String name : addedNames) {
+				bindings.remove(name);
+
+				if (bindings.containsKey(name)) {
+					bindings.put(name, null);
+				}
+			}
+
+			bindingsPool.offer(bindings); // discarded if the pool is full
+		} catch (Throwable t) {
+			LOG.warn("RangerCompiledScript.returnBindings(): failed to reset bindings; discarding them", t);
+		}
+	}
+
+	Object eval(Bindings bindings) throws ScriptException {
+		return compiledScript != null ? compiledScript.eval(bindings) : scriptEngine.eval(scriptText, bindings);
+	}
+
+	@Override
+	public String toString() {
+		return "RangerCompiledScript={isCompiled=" + isCompiled() + ", isJsonCtxEnabled=" + isJsonCtxEnabled + ", scriptText=" + scriptText + "}";
+	}
+
+	private static CompiledScript compile(ScriptEngine scriptEngine, String scriptText) {
+		CompiledScript ret = null;
+
+		if (scriptEngine instanceof Compilable) {
+			try {
+				ret = ((Compilable) scriptEngine).compile(scriptText);
+			} catch (ScriptException excp) {
+				LOG.error("RangerCompiledScript.compile(): failed to compile script; it will be evaluated as text. exception=" + excp);
+			}
+		} else {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerCompiledScript.compile(): script engine " + scriptEngine.getClass().getName() + " does not support compilation");
+			}
+		}
+
+		return ret;
+	}
+}
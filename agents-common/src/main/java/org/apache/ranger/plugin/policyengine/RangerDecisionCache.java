@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.contextenricher.RangerUserStoreEnricher;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerMetricsUtil;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of access decisions, keyed on everything a policy without conditions, validity schedules
+ * or dynamic resource expansion looks at: user, groups, roles, resource, tags, access-type and matching scope.
+ *
+ * Every entry is stamped with the policy, role, tag and userstore versions in effect when it was computed;
+ * a change in any of these versions discards the whole cache. Decisions that involved a context-sensitive
+ * policy are never stored - see CacheContext.
+ */
+public class RangerDecisionCache {
+    private static final Logger LOG                     = LoggerFactory.getLogger(RangerDecisionCache.class);
+    private static final Logger PERF_DECISION_CACHE_LOG = RangerPerfTracer.getPerfLogger("policyengine.decisioncache");
+
+    public static final String METRICS_NAME_PREFIX = "policyengine.decisioncache.";
+
+    private final String                                         serviceName;
+    private final ConcurrentCacheMap<DecisionKey, CachedResult>  cache;
+    private final LongAdder                                      bypassCount = new LongAdder();
+    private final Supplier<Map<String, Object>>                  metrics     = this::getMetrics;
+    private volatile VersionStamp                                versions    = null;
+
+    public RangerDecisionCache(String serviceName, int maxSize, long ttlMs) {
+        this.serviceName = serviceName;
+        this.cache       = new ConcurrentCacheMap<>(maxSize, ttlMs);
+
+        RangerMetricsUtil.registerCacheMetrics(METRICS_NAME_PREFIX + serviceName, metrics);
+    }
+
+    /**
+     * Starts a cache lookup for the request. Returns null when the request is not eligible for caching; otherwise,
+     * the returned context should be passed to the evaluation so that it can record the policies looked at.
+     */
+    public CacheContext newCacheContext(RangerAccessRequest request, int policyType, PolicyEngine policyEngine) {
+        final CacheContext ret;
+
+        if (isCacheableRequest(request, policyType)) {
+            ret = new CacheContext(new DecisionKey(request, policyType), refreshVersions(policyEngine));
+        } else {
+            bypassCount.increment();
+
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the result cached for the request, or null on a cache miss. The returned result belongs to the
+     * given request and can be handed over to the result processor.
+     */
+    public RangerAccessResult get(CacheContext context, RangerAccessRequest request, PolicyEngine policyEngine) {
+        CachedResult       cached = cache.get(context.key);
+        RangerAccessResult ret    = null;
+
+        if (cached != null && context.versions.equals(cached.versions)) {
+            RangerPolicyRepository repository = policyEngine.getPolicyRepository();
+
+            ret = new RangerAccessResult(context.key.policyType, repository.getServiceName(), repository.getServiceDef(), request);
+
+            ret.setAccessResultFrom(cached.result);
+            ret.setAuditResultFrom(cached.result);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("RangerDecisionCache.get(serviceName=" + serviceName + ", request=" + request + "): " + (ret != null ? "hit" : "miss"));
+        }
+
+        return ret;
+    }
+
+    public void put(CacheContext context, RangerAccessResult result, PolicyEngine policyEngine) {
+        if (result == null || !context.isCacheable()) {
+            return;
+        }
+
+        VersionStamp current = refreshVersions(policyEngine);
+
+        if (!current.equals(context.versions)) { // policies/roles/tags changed during evaluation
+            return;
+        }
+
+        CachedResult cached = new CachedResult(new RangerAccessResult(context.key.policyType, result.getServiceName(), result.getServiceDef(), null), current);
+
+        cached.result.setAccessResultFrom(result);
+        cached.result.setAuditResultFrom(result);
+
+        cache.put(context.key, cached);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public void release() {
+        RangerMetricsUtil.unregisterCacheMetrics(METRICS_NAME_PREFIX + serviceName, metrics);
+
+        if (PERF_DECISION_CACHE_LOG.isDebugEnabled()) {
+            PERF_DECISION_CACHE_LOG.debug("RangerDecisionCache(serviceName=" + serviceName + "): " + this);
+        }
+    }
+
+    public long getHitCount() { return cache.getHitCount(); }
+
+    public long getMissCount() { return cache.getMissCount(); }
+
+    public long getBypassCount() { return bypassCount.sum(); }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> ret    = new LinkedHashMap<>();
+        long                hits   = cache.getHitCount();
+        long                misses = cache.getMissCount();
+
+        ret.put("size", cache.size());
+        ret.put("maxSize", cache.getMaxSize());
+        ret.put("hits", hits);
+        ret.put("misses", misses);
+        ret.put("bypasses", getBypassCount());
+        ret.put("evictions", cache.getEvictionCount());
+        ret.put("hitRate", (hits + misses) > 0 ? ((double) hits) / (hits + misses) : 0.0);
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerDecisionCache={serviceName=" + serviceName + ", versions=" + versions + ", bypasses=" + getBypassCount() + ", " + cache + "}";
+    }
+
+    static boolean isCacheableRequest(RangerAccessRequest request, int policyType) {
+        if (policyType != RangerPolicy.POLICY_TYPE_ACCESS || request.getResource() == null) {
+            return false;
+        }
+
+        Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+
+        if (CollectionUtils.isNotEmpty(tags)) {
+            for (RangerTagForEval tag : tags) {
+                if (CollectionUtils.isNotEmpty(tag.getValidityPeriods()) || (MapUtils.isNotEmpty(tag.getOptions()) && tag.getOptions().containsKey(RangerTag.OPTION_TAG_VALIDITY_PERIODS))) {
+                    return false; // applicability of the tag depends on access-time
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private VersionStamp refreshVersions(PolicyEngine policyEngine) {
+        VersionStamp current  = new VersionStamp(policyEngine);
+        VersionStamp existing = versions;
+
+        if (!current.equals(existing)) {
+            synchronized (this) {
+                if (!current.equals(versions)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("RangerDecisionCache(serviceName=" + serviceName + "): versions changed from " + versions + " to " + current + ". Clearing cache");
+                    }
+
+                    versions = current;
+
+                    cache.clear();
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Tracks a single evaluation: records whether the policies looked at allow the decision to be cached.
+     */
+    public static class CacheContext {
+        private final DecisionKey  key;
+        private final VersionStamp versions;
+        private       boolean      isCacheable = true;
+
+        CacheContext(DecisionKey key, VersionStamp versions) {
+            this.key      = key;
+            this.versions = versions;
+        }
+
+        public boolean isCacheable() { return isCacheable; }
+
+        public void setNotCacheable() { isCacheable = false; }
+
+        public void visit(RangerPolicyEvaluator evaluator) {
+            if (isCacheable && isContextSensitive(evaluator)) {
+                isCacheable = false;
+            }
+        }
+
+        public void visit(RangerPolicyRepository tagPolicyRepository) {
+            if (isCacheable && tagPolicyRepository != null && tagPolicyRepository.hasValiditySchedules()) {
+                isCacheable = false; // tag policies not applicable at access-time are dropped before they are visited
+            }
+        }
+
+        private static boolean isContextSensitive(RangerPolicyEvaluator evaluator) {
+            if (evaluator.getCustomConditionsCount() > 0 || evaluator.getValidityScheduleEvaluatorsCount() > 0) {
+                return true;
+            }
+
+            List<RangerPolicyResourceEvaluator> resourceEvaluators = evaluator.getResourceEvaluators();
+
+            if (resourceEvaluators != null) {
+                for (RangerPolicyResourceEvaluator resourceEvaluator : resourceEvaluators) {
+                    if (resourceEvaluator.getPolicyResourceMatcher() != null && resourceEvaluator.getPolicyResourceMatcher().getNeedsDynamicEval()) {
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+
+    static final class VersionStamp {
+        final long policyVersion;
+        final long roleVersion;
+        final long tagVersion;
+        final long userStoreVersion;
+
+        VersionStamp(PolicyEngine policyEngine) {
+            long tagVersion       = -1;
+            long userStoreVersion = -1;
+
+            List<RangerContextEnricher> enrichers = policyEngine.getAllContextEnrichers();
+
+            if (enrichers != null) {
+                for (RangerContextEnricher enricher : enrichers) {
+                    if (enricher instanceof RangerTagEnricher) {
+                        Long version = ((RangerTagEnricher) enricher).getServiceTagsVersion();
+
+                        tagVersion = version != null ? version : -1;
+                    } else if (enricher instanceof RangerUserStoreEnricher) {
+                        Long version = ((RangerUserStoreEnricher) enricher).getUserStoreVersion();
+
+                        userStoreVersion = version != null ? version : -1;
+                    }
+                }
+            }
+
+            this.policyVersion    = policyEngine.getPolicyVersion();
+            this.roleVersion      = policyEngine.getRoleVersion();
+            this.tagVersion       = tagVersion;
+            this.userStoreVersion = userStoreVersion;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof VersionStamp)) {
+                return false;
+            }
+
+            VersionStamp other = (VersionStamp) obj;
+
+            return policyVersion == other.policyVersion && roleVersion == other.roleVersion && tagVersion == other.tagVersion && userStoreVersion == other.userStoreVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(policyVersion, roleVersion, tagVersion, userStoreVersion);
+        }
+
+        @Override
+        public String toString() {
+            return "{policyVersion=" + policyVersion + ", roleVersion=" + roleVersion + ", tagVersion=" + tagVersion + ", userStoreVersion=" + userStoreVersion + "}";
+        }
+    }
+
+    static final class DecisionKey {
+        private final int                                                             policyType;
+        private final String                                                          user;
+        private final Set<String>                                                     groups;
+        private final Set<String>                                                     roles;
+        private final Set<RangerTagForEval>                                           tags;
+        private final String                                                          accessType;
+        private final Set<String>                                                     accessTypes;
+        private final boolean                                                         isAccessTypeAny;
+        private final boolean                                                         isDelegatedAdmin;
+        private final String                                                          resource;
+        private final String                                                          resourceOwner;
+        private final RangerAccessRequest.ResourceMatchingScope                       matchingScope;
+        private final Map<String, RangerAccessRequest.ResourceElementMatchingScope>   elementMatchingScopes;
+        private final int                                                             hashCode;
+
+        DecisionKey(RangerAccessRequest request, int policyType) {
+            Set<String> accessTypes = RangerAccessRequestUtil.getAllRequestedAccessTypes(request);
+
+            this.policyType            = policyType;
+            this.user                  = request.getUser();
+            this.groups                = copyOf(request.getUserGroups());
+            this.roles                 = copyOf(RangerAccessRequestUtil.getUserRoles(request));
+            this.tags                  = copyOf(RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext()));
+            this.accessType            = request.getAccessType();
+            this.accessTypes           = accessTypes.size() == 1 && accessTypes.contains(accessType) ? Collections.emptySet() : copyOf(accessTypes);
+            this.isAccessTypeAny       = request.isAccessTypeAny();
+            this.isDelegatedAdmin      = request.isAccessTypeDelegatedAdmin();
+            this.resource              = request.getResource().getAsString();
+            this.resourceOwner         = request.getResource().getOwnerUser();
+            this.matchingScope         = request.getResourceMatchingScope();
+            this.elementMatchingScopes = MapUtils.isEmpty(request.getResourceElementMatchingScopes()) ? Collections.emptyMap() : new LinkedHashMap<>(request.getResourceElementMatchingScopes());
+            this.hashCode              = Objects.hash(policyType, user, groups, roles, tags, accessType, accessTypes, isAccessTypeAny, isDelegatedAdmin, resource, resourceOwner, matchingScope, elementMatchingScopes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof DecisionKey)) {
+                return false;
+            }
+
+            DecisionKey other = (DecisionKey) obj;
+
+            return hashCode == other.hashCode &&
+                   policyType == other.policyType &&
+                   isAccessTypeAny == other.isAccessTypeAny &&
+                   isDelegatedAdmin == other.isDelegatedAdmin &&
+                   matchingScope == other.matchingScope &&
+                   Objects.equals(user, other.user) &&
+                   Objects.equals(accessType, other.accessType) &&
+                   Objects.equals(resource, other.resource) &&
+                   Objects.equals(resourceOwner, other.resourceOwner) &&
+                   Objects.equals(groups, other.groups) &&
+                   Objects.equals(roles, other.roles) &&
+                   Objects.equals(tags, other.tags) &&
+                   Objects.equals(accessTypes, other.accessTypes) &&
+                   Objects.equals(elementMatchingScopes, other.elementMatchingScopes);
+        }
+
+        private static <T> Set<T> copyOf(Set<T> values) {
+            return CollectionUtils.isEmpty(values) ? Collections.emptySet() : new HashSet<>(values);
+        }
+    }
+
+    private static final class CachedResult {
+        final RangerAccessResult result;
+        final VersionStamp       versions;
+
+        CachedResult(RangerAccessResult result, VersionStamp versions) {
+            this.result   = result;
+            this.versions = versions;
+        }
+    }
+}
@@ -28,6 +28,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
 public class RangerPluginContext {
 	private static final Logger LOG = LoggerFactory.getLogger(RangerPluginContext.class);
 
@@ -35,7 +38,7 @@ public class RangerPluginContext {
 	private       RangerAuthContext         authContext;
 	private       RangerAuthContextListener authContextListener;
 	private 	  RangerAdminClient         adminClient;
-
+	private volatile ForkJoinPool           batchEvaluationPool;
 
 	public RangerPluginContext(RangerPluginConfig config) {
 		this.config = config;
@@ -73,6 +76,41 @@ public void setAdminClient(RangerAdminClient adminClient) {
 		this.adminClient = adminClient;
 	}
 
+	/*
+	 * Pool used by the policy-engine to evaluate large batches of requests in parallel; created on first use, with
+	 * the number of threads given by option batchParallelThreads. The pool is shared by successive policy-engines
+	 * of the plugin.
+	 */
+	public ForkJoinPool getBatchEvaluationPool() {
+		ForkJoinPool ret = batchEvaluationPool;
+
+		if (ret == null) {
+			synchronized (this) {
+				ret = batchEvaluationPool;
+
+				if (ret == null) {
+					int threads = Math.max(1, config.getPolicyEngineOptions().batchParallelThreads);
+
+					ret = new ForkJoinPool(threads, new BatchEvaluationThreadFactory(config.getServiceName()), null, false);
+
+					batchEvaluationPool = ret;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public void cleanup() {
+		ForkJoinPool pool = batchEvaluationPool;
+
+		batchEvaluationPool = null;
+
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
 	public RangerAdminClient createAdminClient(RangerPluginConfig pluginConfig) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerBasePlugin.createAdminClient(" + pluginConfig.getServiceName() + ", " + pluginConfig.getAppId() + ", " + pluginConfig.getPropertyPrefix() + ")");
@@ -115,4 +153,22 @@ public RangerAdminClient createAdminClient(RangerPluginConfig pluginConfig) {
 
 		return ret;
 	}
+
+	private static class BatchEvaluationThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private final String serviceName;
+
+		BatchEvaluationThreadFactory(String serviceName) {
+			this.serviceName = serviceName;
+		}
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread ret = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+			ret.setName("RangerBatchEvaluation-" + serviceName + "-" + ret.getPoolIndex());
+			ret.setDaemon(true);
+
+			return ret;
+		}
+	}
 }
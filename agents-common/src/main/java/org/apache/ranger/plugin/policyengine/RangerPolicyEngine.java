@@ -21,6 +21,7 @@
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.ranger.plugin.model.RangerPolicy;
@@ -88,6 +89,9 @@ public interface RangerPolicyEngine {
 
 	List<RangerPolicy> getTagPolicies();
 
+	// number of times each resource policy determined the outcome of an access request; tracked only when option enableAdaptiveEvalOrder is set
+	Map<Long, Long> getPolicyHitCounts();
+
 	// This API is used only used by test code
 	RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request);
 }
@@ -44,12 +44,14 @@
 import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
+import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -57,7 +59,10 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
 import static org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.ACCESS_CONDITIONAL;
 
@@ -71,6 +76,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private final PolicyEngine                 policyEngine;
 	private final RangerAccessRequestProcessor requestProcessor;
 	private final ServiceConfig                serviceConfig;
+	private final RangerDecisionCache          decisionCache;
 
 
 	static public RangerPolicyEngine getPolicyEngine(final RangerPolicyEngineImpl other, final ServicePolicies servicePolicies) {
@@ -106,6 +112,7 @@ public RangerPolicyEngineImpl(ServicePolicies servicePolicies, RangerPluginConte
 		policyEngine     = new PolicyEngine(servicePolicies, pluginContext, roles, isUseReadWriteLock);
 		serviceConfig    = new ServiceConfig(servicePolicies.getServiceConfig());
 		requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+		decisionCache    = createDecisionCache(policyEngine);
 	}
 
 	@Override
@@ -140,7 +147,7 @@ public RangerAccessResult evaluatePolicies(RangerAccessRequest request, int poli
 
 			requestProcessor.preProcess(request);
 
-			ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+			ret = evaluatePoliciesWithDecisionCache(request, policyType);
 
 			if (resultProcessor != null) {
 				RangerPerfTracer perfAuditTracer = null;
@@ -181,13 +188,7 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
 				}
 			}
 			if (requests != null) {
-				for (RangerAccessRequest request : requests) {
-					requestProcessor.preProcess(request);
-
-					RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
-
-					ret.add(result);
-				}
+				ret = evaluatePoliciesInBatch(requests, policyType);
 			}
 
 			if (resultProcessor != null) {
@@ -202,6 +203,107 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
 		return ret;
 	}
 
+	/*
+	 * Evaluates a batch of requests, typically generated by a single listing or filtering call: requests from the same
+	 * user share role lookup, and trie lookups for resource values common across the requests (like the database in
+	 * requests for each table of the database) are done only once for the batch. When the batch has at least
+	 * batchParallelThreshold requests, the requests are evaluated in parallel. Results are returned in the same order
+	 * as the requests.
+	 */
+	private List<RangerAccessResult> evaluatePoliciesInBatch(Collection<RangerAccessRequest> requests, int policyType) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesInBatch(count=" + requests.size() + ", policyType=" + policyType + ")");
+		}
+
+		final RangerAccessRequest[] batch   = requests.toArray(new RangerAccessRequest[0]);
+		final RangerAccessResult[]  results = new RangerAccessResult[batch.length];
+		final RangerPluginContext   pluginContext = policyEngine.getPluginContext();
+
+		RangerPerfTracer perf = null;
+
+		if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePoliciesInBatch(count=" + batch.length + ")");
+		}
+
+		if (batch.length > 1) {
+			RangerResourceEvaluatorsRetriever.TrieLookupCache lookupCache = new RangerResourceEvaluatorsRetriever.TrieLookupCache();
+			RangerAccessRequest                               prevRequest = null;
+			Set<String>                                       prevRoles   = null;
+
+			for (RangerAccessRequest request : batch) {
+				if (request == null) {
+					continue;
+				}
+
+				prevRoles = setUserRoles(request, prevRequest, prevRoles);
+
+				RangerAccessRequestUtil.setTrieLookupCacheInContext(request.getContext(), lookupCache);
+
+				prevRequest = request;
+			}
+
+			try {
+				int parallelThreshold = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions().batchParallelThreshold : 0;
+
+				if (parallelThreshold > 0 && batch.length >= parallelThreshold) {
+					pluginContext.getBatchEvaluationPool().invoke(ForkJoinTask.adapt(() -> IntStream.range(0, batch.length).parallel().forEach(i -> results[i] = evaluateInBatch(batch[i], policyType))));
+				} else {
+					for (int i = 0; i < batch.length; i++) {
+						results[i] = evaluateInBatch(batch[i], policyType);
+					}
+				}
+			} finally {
+				for (RangerAccessRequest request : batch) {
+					if (request != null) {
+						RangerAccessRequestUtil.setTrieLookupCacheInContext(request.getContext(), null);
+					}
+				}
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("evaluatePoliciesInBatch(): count=" + batch.length + ", distinctTrieLookups=" + lookupCache.size());
+			}
+		} else {
+			for (int i = 0; i < batch.length; i++) {
+				results[i] = evaluateInBatch(batch[i], policyType);
+			}
+		}
+
+		RangerPerfTracer.log(perf);
+
+		List<RangerAccessResult> ret = new ArrayList<>(Arrays.asList(results));
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyEngineImpl.evaluatePoliciesInBatch(count=" + requests.size() + ", policyType=" + policyType + ")");
+		}
+
+		return ret;
+	}
+
+	private RangerAccessResult evaluateInBatch(RangerAccessRequest request, int policyType) {
+		requestProcessor.preProcess(request);
+
+		return evaluatePoliciesWithDecisionCache(request, policyType);
+	}
+
+	private Set<String> setUserRoles(RangerAccessRequest request, RangerAccessRequest prevRequest, Set<String> prevRoles) {
+		Set<String> ret = request.getUserRoles();
+
+		if (CollectionUtils.isEmpty(ret) && request instanceof RangerAccessRequestImpl && !RangerAccessRequestUtil.getIsRequestPreprocessed(request.getContext())) {
+			if (prevRequest != null && StringUtils.equals(request.getUser(), prevRequest.getUser()) && Objects.equals(request.getUserGroups(), prevRequest.getUserGroups())) {
+				ret = prevRoles;
+			} else if (policyEngine.getPluginContext() != null) {
+				ret = policyEngine.getPluginContext().getAuthContext().getRolesForUserAndGroups(request.getUser(), request.getUserGroups());
+			}
+
+			if (CollectionUtils.isNotEmpty(ret)) {
+				((RangerAccessRequestImpl) request).setUserRoles(ret);
+			}
+		}
+
+		return ret;
+	}
+
 	@Override
 	public void evaluateAuditPolicies(RangerAccessResult result) {
 		if (LOG.isDebugEnabled()) {
@@ -374,6 +476,10 @@ public void setUseForwardedIPAddress(boolean useForwardedIPAddress) {
 				}
 			}
 			policyEngine.setUseForwardedIPAddress(useForwardedIPAddress);
+
+			if (decisionCache != null) {
+				decisionCache.clear();
+			}
 		}
 	}
 
@@ -386,6 +492,10 @@ public void setTrustedProxyAddresses(String[] trustedProxyAddresses) {
 				}
 			}
 			policyEngine.setTrustedProxyAddresses(trustedProxyAddresses);
+
+			if (decisionCache != null) {
+				decisionCache.clear();
+			}
 		}
 	}
 
@@ -534,6 +644,21 @@ public List<RangerPolicy> getTagPolicies() {
 		return ret;
 	}
 
+	@Override
+	public Map<Long, Long> getPolicyHitCounts() {
+		Map<Long, Long> ret;
+
+		try (RangerReadWriteLock.RangerLock readLock = policyEngine.getReadLock()) {
+			if (LOG.isDebugEnabled()) {
+				if (readLock.isLockingEnabled()) {
+					LOG.debug("Acquired lock - " + readLock);
+				}
+			}
+			ret = policyEngine.getPolicyHitCounts();
+		}
+		return ret;
+	}
+
 	// This API is used only used by test code
 	@Override
 	public RangerResourceAccessInfo getResourceAccessInfo(RangerAccessRequest request) {
@@ -581,6 +706,10 @@ public void releaseResources(boolean isForced) {
 			}
 		}
 
+		if (decisionCache != null) {
+			decisionCache.release();
+		}
+
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerPolicyEngineImpl.releaseResources(isForced=" + isForced + ")");
 		}
@@ -607,13 +736,47 @@ public RangerAccessRequestProcessor getRequestProcessor() {
 		return requestProcessor;
 	}
 
+	public RangerDecisionCache getDecisionCache() {
+		return decisionCache;
+	}
+
 	private RangerPolicyEngineImpl(final PolicyEngine policyEngine, RangerPolicyEngineImpl other) {
 		this.policyEngine     = policyEngine;
 		this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
 		this.serviceConfig    = new ServiceConfig(other.serviceConfig);
+		this.decisionCache    = createDecisionCache(policyEngine);
 	}
 
-	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType) {
+	private static RangerDecisionCache createDecisionCache(PolicyEngine policyEngine) {
+		RangerPluginContext       pluginContext = policyEngine.getPluginContext();
+		RangerPolicyEngineOptions options       = pluginContext != null && pluginContext.getConfig() != null ? pluginContext.getConfig().getPolicyEngineOptions() : null;
+		final RangerDecisionCache ret;
+
+		if (options != null && options.enableDecisionCache && options.decisionCacheSize > 0) {
+			ret = new RangerDecisionCache(policyEngine.getServiceName(), options.decisionCacheSize, options.decisionCacheTtlMs);
+		} else {
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	private RangerAccessResult evaluatePoliciesWithDecisionCache(RangerAccessRequest request, int policyType) {
+		RangerDecisionCache.CacheContext cacheContext = decisionCache != null ? decisionCache.newCacheContext(request, policyType, policyEngine) : null;
+		RangerAccessResult               ret          = cacheContext != null ? decisionCache.get(cacheContext, request, policyEngine) : null;
+
+		if (ret == null) {
+			ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType, cacheContext);
+
+			if (cacheContext != null) {
+				decisionCache.put(cacheContext, ret, policyEngine);
+			}
+		}
+
+		return ret;
+	}
+
+	private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequest request, int policyType, RangerDecisionCache.CacheContext cacheContext) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.zoneAwareAccessEvaluationWithNoAudit(" + request + ", policyType =" + policyType + ")");
 		}
@@ -631,7 +794,7 @@ private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequ
 			// Evaluate default policies
 			policyRepository = policyEngine.getRepositoryForZone(null);
 
-			ret = evaluatePoliciesNoAudit(request, policyType, null, policyRepository, tagPolicyRepository);
+			ret = evaluatePoliciesNoAudit(request, policyType, null, policyRepository, tagPolicyRepository, cacheContext);
 
 			ret.setZoneName(null);
 		} else if (zoneNames.size() == 1 || request.isAccessTypeAny()) {
@@ -639,7 +802,7 @@ private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequ
 			for (String zoneName : zoneNames) {
 				policyRepository = policyEngine.getRepositoryForZone(zoneName);
 
-				ret = evaluatePoliciesNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository);
+				ret = evaluatePoliciesNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository, cacheContext);
 				ret.setZoneName(zoneName);
 
 				if (ret.getIsAllowed()) {
@@ -667,7 +830,7 @@ private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequ
 				}
 
 				if (policyRepository != null) {
-					accessResult = evaluatePoliciesNoAudit(request, policyType, someZone, policyRepository, tagPolicyRepository);
+					accessResult = evaluatePoliciesNoAudit(request, policyType, someZone, policyRepository, tagPolicyRepository, cacheContext);
 
 					if (accessResult.getIsAllowed()) {
 						if (LOG.isDebugEnabled()) {
@@ -688,7 +851,7 @@ private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequ
 		return ret;
 	}
 
-	private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository) {
+	private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository, RangerDecisionCache.CacheContext cacheContext) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesNoAudit(" + request + ", policyType =" + policyType + ", zoneName=" + zoneName + ")");
 		}
@@ -706,7 +869,7 @@ private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request,
 			RangerAccessRequestUtil.setAllRequestedAccessTypes(request.getContext(), allRequestedAccesses, Boolean.TRUE);
 		}
 
-		ret = evaluatePoliciesForOneAccessTypeNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository);
+		ret = evaluatePoliciesForOneAccessTypeNoAudit(request, policyType, zoneName, policyRepository, tagPolicyRepository, cacheContext);
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerPolicyEngineImpl.evaluatePoliciesNoAudit(" + request + ", policyType =" + policyType + ", zoneName=" + zoneName + "): " + ret);
@@ -715,7 +878,7 @@ private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request,
 		return ret;
 	}
 
-	private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository) {
+	private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository, RangerDecisionCache.CacheContext cacheContext) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesForOneAccessTypeNoAudit(" + request + ", policyType =" + policyType + ", zoneName=" + zoneName + ")");
 		}
@@ -732,7 +895,7 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 			ret.setReason("superuser");
 		}
 
-		evaluateTagPolicies(request, policyType, zoneName, tagPolicyRepository, ret);
+		evaluateTagPolicies(request, policyType, zoneName, tagPolicyRepository, ret, cacheContext);
 
 		if (LOG.isDebugEnabled()) {
 			if (ret.getIsAccessDetermined() && ret.getIsAuditedDetermined()) {
@@ -754,9 +917,14 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 
 			ret.setIsAccessDetermined(false); // discard result by tag-policies, to evaluate resource policies for possible override
 
-			List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType);
+			List<RangerPolicyEvaluator> evaluators           = policyRepository.getLikelyMatchPolicyEvaluators(request, policyType);
+			RangerPolicyEvaluator       determiningEvaluator = null;
 
 			for (RangerPolicyEvaluator evaluator : evaluators) {
+				if (cacheContext != null) {
+					cacheContext.visit(evaluator);
+				}
+
 				if (!evaluator.isApplicable(accessTime)) {
 					continue;
 				}
@@ -782,6 +950,10 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 				ret.incrementEvaluatedPoliciesCount();
 				evaluator.evaluate(request, ret);
 
+				if (ret.getPolicyId() == evaluator.getPolicyId()) {
+					determiningEvaluator = evaluator;
+				}
+
 				if (ret.getIsAllowed()) {
 					if (!evaluator.hasDeny()) { // No more deny policies left
 						ret.setIsAccessDetermined(true);
@@ -809,6 +981,10 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 				ret.setIsAccessDetermined(true);
 			}
 
+			if (determiningEvaluator != null && policyType == RangerPolicy.POLICY_TYPE_ACCESS && ret.getIsAccessDetermined() && ret.getPolicyId() == determiningEvaluator.getPolicyId()) {
+				policyRepository.recordDeterminingPolicyEvaluator(determiningEvaluator);
+			}
+
 			if (findAuditByResource && !foundInCache) {
 				policyRepository.storeAuditEnabledInCache(request, ret);
 			}
@@ -821,7 +997,7 @@ private RangerAccessResult evaluatePoliciesForOneAccessTypeNoAudit(RangerAccessR
 		return ret;
 	}
 
-	private void evaluateTagPolicies(final RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository tagPolicyRepository, RangerAccessResult result) {
+	private void evaluateTagPolicies(final RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository tagPolicyRepository, RangerAccessResult result, RangerDecisionCache.CacheContext cacheContext) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerPolicyEngineImpl.evaluateTagPolicies(" + request + ", policyType =" + policyType + ", zoneName=" + zoneName + ", " + result + ")");
 		}
@@ -830,6 +1006,10 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
 		Set<RangerTagForEval>       tags             = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
 		List<PolicyEvaluatorForTag> policyEvaluators = tagPolicyRepository == null ? null : tagPolicyRepository.getLikelyMatchPolicyEvaluators(request, tags, policyType, accessTime);
 
+		if (cacheContext != null && CollectionUtils.isNotEmpty(tags)) {
+			cacheContext.visit(tagPolicyRepository);
+		}
+
 		if (CollectionUtils.isNotEmpty(policyEvaluators)) {
 			final boolean useTagPoliciesFromDefaultZone = !policyEngine.isResourceZoneAssociatedWithTagService(zoneName);
 
@@ -837,6 +1017,10 @@ private void evaluateTagPolicies(final RangerAccessRequest request, int policyTy
 				RangerPolicyEvaluator evaluator      = policyEvaluator.getEvaluator();
 				String                policyZoneName = evaluator.getPolicy().getZoneName();
 
+				if (cacheContext != null) {
+					cacheContext.visit(evaluator);
+				}
+
 				if (useTagPoliciesFromDefaultZone) {
 					if (StringUtils.isNotEmpty(policyZoneName)) {
 						if (LOG.isDebugEnabled()) {
@@ -42,7 +42,14 @@ public class RangerPolicyEngineOptions {
 	public boolean optimizeTrieForSpace = false;
 	public boolean optimizeTagTrieForRetrieval = false;
 	public boolean optimizeTagTrieForSpace = false;
-
+	public boolean enableDecisionCache = false;
+	public int     decisionCacheSize = 64 * 1024;
+	public long    decisionCacheTtlMs = 0;
+	public int     rolesCacheSize = 10 * 1024;
+	public boolean enableAdaptiveEvalOrder = false;
+	public long    adaptiveEvalOrderIntervalMs = 60 * 1000L;
+	public int     batchParallelThreshold = 0;
+	public int     batchParallelThreads = Runtime.getRuntime().availableProcessors();
 
 	private RangerServiceDefHelper serviceDefHelper;
 
@@ -67,6 +74,14 @@ public RangerPolicyEngineOptions(final RangerPolicyEngineOptions other) {
 		this.optimizeTrieForSpace = other.optimizeTrieForSpace;
 		this.optimizeTagTrieForRetrieval = other.optimizeTagTrieForRetrieval;
 		this.optimizeTagTrieForSpace = other.optimizeTagTrieForSpace;
+		this.enableDecisionCache = other.enableDecisionCache;
+		this.decisionCacheSize = other.decisionCacheSize;
+		this.decisionCacheTtlMs = other.decisionCacheTtlMs;
+		this.rolesCacheSize = other.rolesCacheSize;
+		this.enableAdaptiveEvalOrder = other.enableAdaptiveEvalOrder;
+		this.adaptiveEvalOrderIntervalMs = other.adaptiveEvalOrderIntervalMs;
+		this.batchParallelThreshold = other.batchParallelThreshold;
+		this.batchParallelThreads = other.batchParallelThreads;
 	}
 
 	public void configureForPlugin(Configuration conf, String propertyPrefix) {
@@ -92,7 +107,14 @@ public void configureForPlugin(Configuration conf, String propertyPrefix) {
 		optimizeTrieForSpace = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.space", false);
 		optimizeTagTrieForRetrieval = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.retrieval", false);
 		optimizeTagTrieForSpace = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.tag.trie.for.space", false);
-
+		enableDecisionCache = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.decision.cache", false);
+		decisionCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.decision.cache.size", 64 * 1024);
+		decisionCacheTtlMs = conf.getLong(propertyPrefix + ".policyengine.option.decision.cache.ttl.ms", 0);
+		rolesCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.roles.cache.size", 10 * 1024);
+		enableAdaptiveEvalOrder = conf.getBoolean(propertyPrefix + ".policyengine.option.enable.adaptive.eval.order", false);
+		adaptiveEvalOrderIntervalMs = conf.getLong(propertyPrefix + ".policyengine.option.adaptive.eval.order.interval.ms", 60 * 1000L);
+		batchParallelThreshold = conf.getInt(propertyPrefix + ".policyengine.option.batch.parallel.threshold", 0);
+		batchParallelThreads = conf.getInt(propertyPrefix + ".policyengine.option.batch.parallel.threads", Runtime.getRuntime().availableProcessors());
 	}
 
 	public void configureDefaultRangerAdmin(Configuration conf, String propertyPrefix) {
@@ -183,6 +205,14 @@ public boolean equals(Object other) {
 					&& this.optimizeTrieForSpace == that.optimizeTrieForSpace
 					&& this.optimizeTagTrieForRetrieval == that.optimizeTagTrieForRetrieval
 					&& this.optimizeTagTrieForSpace == that.optimizeTagTrieForSpace
+					&& this.enableDecisionCache == that.enableDecisionCache
+					&& this.decisionCacheSize == that.decisionCacheSize
+					&& this.decisionCacheTtlMs == that.decisionCacheTtlMs
+					&& this.rolesCacheSize == that.rolesCacheSize
+					&& this.enableAdaptiveEvalOrder == that.enableAdaptiveEvalOrder
+					&& this.adaptiveEvalOrderIntervalMs == that.adaptiveEvalOrderIntervalMs
+					&& this.batchParallelThreshold == that.batchParallelThreshold
+					&& this.batchParallelThreads == that.batchParallelThreads
 			;
 		}
 		return ret;
@@ -223,6 +253,10 @@ public int hashCode() {
 		ret *= 2;
 		ret += optimizeTagTrieForSpace ? 1 : 0;
 		ret *= 2;
+		ret += enableDecisionCache ? 1 : 0;
+		ret *= 2;
+		ret += enableAdaptiveEvalOrder ? 1 : 0;
+		ret *= 2;
 		return ret;
 	}
 
@@ -246,6 +280,14 @@ public String toString() {
 				", optimizeTrieForSpace: " + optimizeTrieForSpace +
 				", optimizeTagTrieForRetrieval: " + optimizeTagTrieForRetrieval +
 				", optimizeTagTrieForSpace: " + optimizeTagTrieForSpace +
+				", enableDecisionCache: " + enableDecisionCache +
+				", decisionCacheSize: " + decisionCacheSize +
+				", decisionCacheTtlMs: " + decisionCacheTtlMs +
+				", rolesCacheSize: " + rolesCacheSize +
+				", enableAdaptiveEvalOrder: " + enableAdaptiveEvalOrder +
+				", adaptiveEvalOrderIntervalMs: " + adaptiveEvalOrderIntervalMs +
+				", batchParallelThreshold: " + batchParallelThreshold +
+				", batchParallelThreads: " + batchParallelThreads +
 				" }";
 
 	}
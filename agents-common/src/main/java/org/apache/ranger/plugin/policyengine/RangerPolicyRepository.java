@@ -41,6 +41,7 @@
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -51,6 +52,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -58,6 +60,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.ranger.plugin.contextenricher.RangerTagEnricher.TAG_RETRIEVER_CLASSNAME_OPTION;
 import static org.apache.ranger.plugin.contextenricher.RangerUserStoreEnricher.USERSTORE_RETRIEVER_CLASSNAME_OPTION;
@@ -68,6 +71,13 @@ public class RangerPolicyRepository {
 
     private static final Logger PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
     private static final Logger PERF_TRIE_OP_LOG              = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
+    private static final Logger PERF_AUDIT_CACHE_LOG          = RangerPerfTracer.getPerfLogger("policyengine.auditcache");
+    private static final Logger PERF_EVAL_ORDER_LOG           = RangerPerfTracer.getPerfLogger("policyengine.evalorder");
+
+    private static final int MAX_HOT_POLICIES_TO_LOG = 10;
+
+    private static final int  RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE   = 64 * 1024;
+    private static final long RANGER_POLICYENGINE_AUDITRESULT_CACHE_TTL_MS = 0; // no expiry
 
     enum AuditModeEnum {
         AUDIT_ALL, AUDIT_NONE, AUDIT_DEFAULT
@@ -83,20 +93,23 @@ enum AuditModeEnum {
     private final long                                                           policyVersion;
     private /*final*/ List<RangerContextEnricher>                                contextEnrichers;
     private final AuditModeEnum                                                  auditModeEnum;
-    private final Map<String, AuditInfo>                                         accessAuditCache;
+    private final ConcurrentCacheMap<String, AuditInfo>                          accessAuditCache;
     private final String                                                         componentServiceName;
     private final RangerServiceDef                                               componentServiceDef;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> policyResourceTrie;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> dataMaskResourceTrie;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> rowFilterResourceTrie;
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> auditFilterResourceTrie;
-    private       List<RangerPolicyEvaluator>                                    policyEvaluators;
+    private volatile List<RangerPolicyEvaluator>                                 policyEvaluators; // replaced by updateEvalOrder() on request threads
     private       List<RangerPolicyEvaluator>                                    dataMaskPolicyEvaluators;
     private       List<RangerPolicyEvaluator>                                    rowFilterPolicyEvaluators;
     private final List<RangerPolicyEvaluator>                                    auditPolicyEvaluators;
     private       Map<Long, RangerPolicyEvaluator>                               policyEvaluatorsMap;
     private       boolean                                                        isContextEnrichersShared = false;
     private       boolean                                                        isPreCleaned             = false;
+    private volatile Boolean                                                     hasValiditySchedules     = null;
+    private volatile Comparator<RangerPolicyEvaluator>                           evalOrderComparator      = RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR;
+    private final AtomicLong                                                     lastEvalOrderUpdateTime  = new AtomicLong(System.currentTimeMillis());
 
     RangerPolicyRepository(final RangerPolicyRepository other, final List<RangerPolicyDelta> deltas, long policyVersion) {
         this.serviceName               = other.serviceName;
@@ -156,9 +169,7 @@ enum AuditModeEnum {
         }
 
         if (other.accessAuditCache != null) {
-            int auditResultCacheSize = other.accessAuditCache.size();
-
-            this.accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+            this.accessAuditCache = new ConcurrentCacheMap<>(other.accessAuditCache.getMaxSize(), other.accessAuditCache.getTtlMs(), other.accessAuditCache.getSegmentCount());
         } else {
             this.accessAuditCache = null;
         }
@@ -178,6 +189,10 @@ enum AuditModeEnum {
         }
 
         this.policyVersion = policyVersion;
+
+        if (options.enableAdaptiveEvalOrder) {
+            updateEvalOrder(); // hit-counts are retained by evaluators of policies that were not updated
+        }
     }
 
     public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginContext pluginContext) {
@@ -212,13 +227,14 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
         }
 
         if (auditModeEnum == AuditModeEnum.AUDIT_DEFAULT) {
-            String propertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
+            String propertyPrefix = "ranger.plugin." + serviceName + ".policyengine.auditcache";
 
             if (options.cacheAuditResults) {
-                final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE = 64 * 1024;
+                int  auditResultCacheSize     = pluginContext.getConfig().getInt(propertyPrefix + "size", RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                long auditResultCacheTtlMs    = pluginContext.getConfig().getLong(propertyPrefix + ".ttl.ms", RANGER_POLICYENGINE_AUDITRESULT_CACHE_TTL_MS);
+                int  auditResultCacheSegments = pluginContext.getConfig().getInt(propertyPrefix + ".segments", ConcurrentCacheMap.DEFAULT_SEGMENT_COUNT);
 
-                int auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                accessAuditCache = new ConcurrentCacheMap<>(auditResultCacheSize, auditResultCacheTtlMs, auditResultCacheSegments);
             } else {
                 accessAuditCache = null;
             }
@@ -456,6 +472,10 @@ void cleanup() {
         }
         preCleanup(false);
 
+        if (accessAuditCache != null && PERF_AUDIT_CACHE_LOG.isDebugEnabled()) {
+            PERF_AUDIT_CACHE_LOG.debug("RangerPolicyRepository.accessAuditCache(serviceName=" + serviceName + ", zoneName=" + zoneName + ", policyVersion=" + policyVersion + "): " + accessAuditCache);
+        }
+
         if (CollectionUtils.isNotEmpty(this.contextEnrichers) && !isContextEnrichersShared) {
             for (RangerContextEnricher enricher : this.contextEnrichers) {
                 enricher.cleanup();
@@ -497,6 +517,79 @@ void reorderPolicyEvaluators() {
         }
     }
 
+    /*
+     * Records the access policy that determined the outcome of a request. When enabled by option
+     * enableAdaptiveEvalOrder, the evaluation order of access policies is periodically updated so that, among policies
+     * having the same priority and deny/allow type, the policies that determine outcomes most often are evaluated first.
+     * Data-mask and row-filter policies are not reordered, as the first match among policies of the same priority is final.
+     */
+    void recordDeterminingPolicyEvaluator(RangerPolicyEvaluator evaluator) {
+        if (!options.enableAdaptiveEvalOrder) {
+            return;
+        }
+
+        evaluator.incrementHitCount();
+
+        long lastUpdateTime = lastEvalOrderUpdateTime.get();
+        long now            = System.currentTimeMillis();
+
+        if ((now - lastUpdateTime) >= options.adaptiveEvalOrderIntervalMs && lastEvalOrderUpdateTime.compareAndSet(lastUpdateTime, now)) {
+            updateEvalOrder();
+        }
+    }
+
+    Map<Long, Long> getPolicyHitCounts() {
+        Map<Long, Long> ret = new HashMap<>();
+
+        addPolicyHitCounts(policyEvaluators, ret);
+
+        return ret;
+    }
+
+    void updateEvalOrder() {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerPolicyRepository.updateEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + ")");
+        }
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_EVAL_ORDER_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_EVAL_ORDER_LOG, "RangerPolicyRepository.updateEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + ")");
+        }
+
+        Map<RangerPolicyEvaluator, Long> hitCounts = new HashMap<>();
+
+        addHitCounts(policyEvaluators, hitCounts);
+
+        Comparator<RangerPolicyEvaluator> comparator = hitCounts.isEmpty() ? RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR : new PolicyHitCountComparator(hitCounts);
+
+        evalOrderComparator = comparator;
+
+        if (policyResourceTrie == null) {
+            policyEvaluators = getReorderedPolicyEvaluators(policyEvaluators, comparator);
+        }
+
+        if (PERF_EVAL_ORDER_LOG.isDebugEnabled() && !hitCounts.isEmpty()) {
+            List<Map.Entry<RangerPolicyEvaluator, Long>> hotPolicies = new ArrayList<>(hitCounts.entrySet());
+
+            hotPolicies.sort((me, other) -> Long.compare(other.getValue(), me.getValue()));
+
+            StringBuilder sb = new StringBuilder();
+
+            for (Map.Entry<RangerPolicyEvaluator, Long> entry : hotPolicies.subList(0, Math.min(hotPolicies.size(), MAX_HOT_POLICIES_TO_LOG))) {
+                sb.append(" {policyId=").append(entry.getKey().getPolicyId()).append(", hitCount=").append(entry.getValue()).append("}");
+            }
+
+            PERF_EVAL_ORDER_LOG.debug("RangerPolicyRepository.updateEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + "): policiesWithHits=" + hitCounts.size() + ", hotPolicies=[" + sb + " ]");
+        }
+
+        RangerPerfTracer.log(perf);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerPolicyRepository.updateEvalOrder(serviceName=" + serviceName + ", zoneName=" + zoneName + "): policiesWithHits=" + hitCounts.size());
+        }
+    }
+
     public String getServiceName() { return serviceName; }
 
     String getZoneName() { return zoneName; }
@@ -515,6 +608,28 @@ long getPolicyVersion() {
 
     AuditModeEnum getAuditModeEnum() { return auditModeEnum; }
 
+    boolean hasValiditySchedules() {
+        Boolean ret = hasValiditySchedules;
+
+        if (ret == null) {
+            ret = false;
+
+            if (policies != null) {
+                for (RangerPolicy policy : policies) {
+                    if (CollectionUtils.isNotEmpty(policy.getValiditySchedules())) {
+                        ret = true;
+
+                        break;
+                    }
+                }
+            }
+
+            hasValiditySchedules = ret;
+        }
+
+        return ret;
+    }
+
     boolean setAuditEnabledFromCache(RangerAccessRequest request, RangerAccessResult result) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.setAuditEnabledFromCache()");
@@ -684,31 +799,31 @@ private List<RangerPolicyEvaluator> getLikelyMatchAccessPolicyEvaluators(RangerA
         RangerAccessResource resource = request.getResource();
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return policyResourceTrie == null || StringUtils.isEmpty(resourceStr) ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, request);
+        return policyResourceTrie == null || StringUtils.isEmpty(resourceStr) ? getPolicyEvaluators() : getLikelyMatchPolicyEvaluators(policyResourceTrie, request, evalOrderComparator);
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchDataMaskPolicyEvaluators(RangerAccessRequest request) {
         RangerAccessResource resource = request.getResource();
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return dataMaskResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getDataMaskPolicyEvaluators() : getLikelyMatchPolicyEvaluators(dataMaskResourceTrie, request);
+        return dataMaskResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getDataMaskPolicyEvaluators() : getLikelyMatchPolicyEvaluators(dataMaskResourceTrie, request, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
     }
 
     private List<RangerPolicyEvaluator> getLikelyMatchRowFilterPolicyEvaluators(RangerAccessRequest request) {
         RangerAccessResource resource = request.getResource();
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return rowFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getRowFilterPolicyEvaluators() : getLikelyMatchPolicyEvaluators(rowFilterResourceTrie, request);
+        return rowFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getRowFilterPolicyEvaluators() : getLikelyMatchPolicyEvaluators(rowFilterResourceTrie, request, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
     }
 
     List<RangerPolicyEvaluator> getLikelyMatchAuditPolicyEvaluators(RangerAccessRequest request) {
         RangerAccessResource resource = request.getResource();
         String resourceStr = resource == null ? null : resource.getAsString();
 
-        return auditFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getAuditPolicyEvaluators() : getLikelyMatchPolicyEvaluators(auditFilterResourceTrie, request);
+        return auditFilterResourceTrie == null || StringUtils.isEmpty(resourceStr)  ? getAuditPolicyEvaluators() : getLikelyMatchPolicyEvaluators(auditFilterResourceTrie, request, RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
     }
 
-    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request) {
+    private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> resourceTrie, RangerAccessRequest request, Comparator<RangerPolicyEvaluator> comparator) {
         List<RangerPolicyEvaluator> ret          = Collections.EMPTY_LIST;
 
         RangerAccessResource              resource = request.getResource();
@@ -719,7 +834,7 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
             perf = RangerPerfTracer.getPerfTracer(PERF_TRIE_OP_LOG, "RangerPolicyRepository.getLikelyMatchEvaluators(resource=" + resource.getAsString() + ")");
         }
 
-        Collection<RangerPolicyResourceEvaluator> smallestList = RangerResourceEvaluatorsRetriever.getEvaluators(resourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes());
+        Collection<RangerPolicyResourceEvaluator> smallestList = RangerResourceEvaluatorsRetriever.getEvaluators(resourceTrie, resource.getAsMap(), request.getResourceElementMatchingScopes(), RangerAccessRequestUtil.getTrieLookupCacheFromContext(request.getContext()));
 
         if (smallestList != null) {
             if (smallestList.size() == 0) {
@@ -745,7 +860,7 @@ private List<RangerPolicyEvaluator> getLikelyMatchPolicyEvaluators(Map<String, R
                     }
                 }
 
-                ret.sort(RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR);
+                ret.sort(comparator);
             }
         }
 
@@ -1171,16 +1286,44 @@ private void removeNulls(Collection<String> strings, final Long policyId, final
     }
 
     private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPolicyEvaluator> evaluators) {
+        return getReorderedPolicyEvaluators(evaluators, new RangerPolicyEvaluator.PolicyEvalOrderComparator());
+    }
+
+    private List<RangerPolicyEvaluator> getReorderedPolicyEvaluators(List<RangerPolicyEvaluator> evaluators, Comparator<RangerPolicyEvaluator> comparator) {
         List<RangerPolicyEvaluator> ret = evaluators;
 
         if (CollectionUtils.isNotEmpty(evaluators)) {
             ret = new ArrayList<>(evaluators);
-            Collections.sort(ret, new RangerPolicyEvaluator.PolicyEvalOrderComparator());
+            Collections.sort(ret, comparator);
         }
 
         return ret;
     }
 
+    private static void addHitCounts(List<RangerPolicyEvaluator> evaluators, Map<RangerPolicyEvaluator, Long> hitCounts) {
+        if (evaluators != null) {
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                long hitCount = evaluator.getHitCount();
+
+                if (hitCount > 0) {
+                    hitCounts.put(evaluator, hitCount);
+                }
+            }
+        }
+    }
+
+    private static void addPolicyHitCounts(List<RangerPolicyEvaluator> evaluators, Map<Long, Long> hitCounts) {
+        if (evaluators != null) {
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                long hitCount = evaluator.getHitCount();
+
+                if (hitCount > 0) {
+                    hitCounts.merge(evaluator.getPolicyId(), hitCount, Long::sum);
+                }
+            }
+        }
+    }
+
     private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> createResourceTrieMap(List<? extends RangerPolicyEvaluator> evaluators, boolean optimizeTrieForRetrieval, boolean optimizeTrieForSpace) {
         final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> ret;
 
@@ -1466,6 +1609,7 @@ void reinit(List<RangerPolicyDelta> deltas) {
     }
 
     private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
+        hasValiditySchedules = null;
 
         boolean[] flags = new boolean[RangerPolicy.POLICY_TYPES.length];
 
@@ -1556,4 +1700,44 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
             }
         }
     }
+
+    /*
+     * Orders evaluators by priority and deny/allow type, as PolicyEvalOrderComparator does, and then by the number
+     * of times each policy determined the outcome of a request. Hit-counts are captured in a snapshot, so that the
+     * ordering doesn't change while a list is being sorted.
+     */
+    private static class PolicyHitCountComparator implements Comparator<RangerPolicyEvaluator> {
+        private final Map<RangerPolicyEvaluator, Long> hitCounts;
+
+        PolicyHitCountComparator(Map<RangerPolicyEvaluator, Long> hitCounts) {
+            this.hitCounts = hitCounts;
+        }
+
+        @Override
+        public int compare(RangerPolicyEvaluator me, RangerPolicyEvaluator other) {
+            int result = Integer.compare(other.getPolicyPriority(), me.getPolicyPriority());
+
+            if (result == 0) {
+                if (me.hasDeny() && !other.hasDeny()) {
+                    result = -1;
+                } else if (!me.hasDeny() && other.hasDeny()) {
+                    result = 1;
+                } else {
+                    result = Long.compare(getHitCount(other), getHitCount(me));
+
+                    if (result == 0) {
+                        result = RangerPolicyEvaluator.EVAL_ORDER_COMPARATOR.compare(me, other);
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        private long getHitCount(RangerPolicyEvaluator evaluator) {
+            Long ret = hitCounts.get(evaluator);
+
+            return ret != null ? ret : 0;
+        }
+    }
 }
@@ -181,6 +181,19 @@ public RangerRequestScriptEvaluator(final RangerAccessRequest accessRequest) {
 		this.accessRequest = accessRequest.getReadOnlyCopy();
 	}
 
+	/**
+	 * Prepares the given condition script for repeated evaluation with evaluateConditionScript(RangerCompiledScript).
+	 * The request context is serialized to JSON for each evaluation only if enableJsonCtx is not false, and the
+	 * script references one of the variables initialized from the JSON.
+	 */
+	public static RangerCompiledScript compileScript(ScriptEngine scriptEngine, String script, Boolean enableJsonCtx) {
+		script = expandMacros(script);
+
+		boolean isJsonCtxEnabled = !Boolean.FALSE.equals(enableJsonCtx) && needsJsonCtxEnabled(script);
+
+		return new RangerCompiledScript(scriptEngine, getScriptText(script, isJsonCtxEnabled), isJsonCtxEnabled);
+	}
+
 	public Object evaluateScript(ScriptEngine scriptEngine, String script) {
 		script = expandMacros(script);
 
@@ -192,6 +205,23 @@ public Object evaluateConditionScript(ScriptEngine scriptEngine, String script,
 
 		Object ret = evaluateScript(scriptEngine, script, enableJsonCtx);
 
+		return setConditionResult(ret);
+	}
+
+	public Object evaluateConditionScript(RangerCompiledScript script) {
+		Bindings bindings = script.borrowBindings();
+		Object   ret;
+
+		try {
+			ret = evaluateScript(script.getScriptEngine(), script, script.getScriptText(), bindings, script.isJsonCtxEnabled());
+		} finally {
+			script.returnBindings(bindings); // this request is removed from the bindings before they are reused
+		}
+
+		return setConditionResult(ret);
+	}
+
+	private Object setConditionResult(Object ret) {
 		if (ret == null) {
 			ret = getResult();
 		}
@@ -204,31 +234,20 @@ public Object evaluateConditionScript(ScriptEngine scriptEngine, String script,
 	}
 
 	private Object evaluateScript(ScriptEngine scriptEngine, String script, boolean enableJsonCtx) {
-		Object              ret           = null;
-		Bindings            bindings      = scriptEngine.createBindings();
-		RangerTagForEval    currentTag    = this.getCurrentTag();
-		Map<String, String> tagAttribs    = currentTag != null ? currentTag.getAttributes() : Collections.emptyMap();
-		boolean             hasIncludes   = StringUtils.contains(script, ".includes(");
-		boolean             hasIntersects = StringUtils.contains(script, ".intersects(");
+		return evaluateScript(scriptEngine, null, getScriptText(script, enableJsonCtx), scriptEngine.createBindings(), enableJsonCtx);
+	}
+
+	private Object evaluateScript(ScriptEngine scriptEngine, RangerCompiledScript compiledScript, String script, Bindings bindings, boolean enableJsonCtx) {
+		Object              ret        = null;
+		RangerTagForEval    currentTag = this.getCurrentTag();
+		Map<String, String> tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.emptyMap();
 
 		bindings.put(SCRIPT_VAR_ctx, this);
 		bindings.put(SCRIPT_VAR_tag, currentTag);
 		bindings.put(SCRIPT_VAR_tagAttr, tagAttribs);
 
-		script = SCRIPT_SAFE_PREEXEC + script;
-
 		if (enableJsonCtx) {
 			bindings.put(SCRIPT_VAR__CTX_JSON, this.toJson());
-
-			script = SCRIPT_PREEXEC + script;
-		}
-
-		if (hasIncludes) {
-			script = SCRIPT_POLYFILL_INCLUDES + script;
-		}
-
-		if (hasIntersects) {
-			script = SCRIPT_POLYFILL_INTERSECTS + script;
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -244,7 +263,7 @@ private Object evaluateScript(ScriptEngine scriptEngine, String script, boolean
 				perf = RangerPerfTracer.getPerfTracer(PERF_POLICY_CONDITION_SCRIPT_EVAL, "RangerRequestScriptEvaluator.evaluateScript(requestHash=" + requestHash + ")");
 			}
 
-			ret = scriptEngine.eval(script, bindings);
+			ret = compiledScript != null ? compiledScript.eval(bindings) : scriptEngine.eval(script, bindings);
 		} catch (NullPointerException nullp) {
 			LOG.error("RangerRequestScriptEvaluator.evaluateScript(): eval called with NULL argument(s)", nullp);
 
@@ -260,6 +279,27 @@ private Object evaluateScript(ScriptEngine scriptEngine, String script, boolean
 		return ret;
 	}
 
+	private static String getScriptText(String script, boolean enableJsonCtx) {
+		boolean hasIncludes   = StringUtils.contains(script, ".includes(");
+		boolean hasIntersects = StringUtils.contains(script, ".intersects(");
+
+		script = SCRIPT_SAFE_PREEXEC + script;
+
+		if (enableJsonCtx) {
+			script = SCRIPT_PREEXEC + script;
+		}
+
+		if (hasIncludes) {
+			script = SCRIPT_POLYFILL_INCLUDES + script;
+		}
+
+		if (hasIntersects) {
+			script = SCRIPT_POLYFILL_INTERSECTS + script;
+		}
+
+		return script;
+	}
+
 	private String toJson() {
 		RangerPerfTracer perf = null;
 
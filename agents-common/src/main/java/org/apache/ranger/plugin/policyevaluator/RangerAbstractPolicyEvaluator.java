@@ -46,6 +46,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvaluator {
@@ -70,6 +71,7 @@ public abstract class RangerAbstractPolicyEvaluator implements RangerPolicyEvalu
 	private   boolean                             needsDynamicEval = false;
 	private   int                                 evalOrder;
 	private   List<RangerPolicyResourceEvaluator> resourceEvaluators = Collections.emptyList();
+	private final LongAdder                       hitCount           = new LongAdder();
 	protected RangerPluginContext                 pluginContext      = null;
 
 
@@ -218,6 +220,16 @@ private RangerPolicy getPrunedPolicy(final RangerPolicy policy) {
 	public int getEvalOrder() {
 		return evalOrder;
 	}
+
+	@Override
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	@Override
+	public void incrementHitCount() {
+		hitCount.increment();
+	}
 	@Override
 	public boolean isAuditEnabled() {
 		return policy != null && policy.getIsAuditEnabled();
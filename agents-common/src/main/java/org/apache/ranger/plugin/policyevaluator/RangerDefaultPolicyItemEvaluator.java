@@ -19,6 +19,7 @@
 package org.apache.ranger.plugin.policyevaluator;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -52,8 +53,22 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
 	private boolean hasCurrentUser;
 	private boolean hasResourceOwner;
 
+	// users, groups, roles and allowed access-types (in lower case) of the policy-item, kept as sets so that each
+	// request is matched with hash lookups instead of scanning the lists in the policy-item
+	private final Set<String> users;
+	private final Set<String> groups;
+	private final Set<String> roles;
+	private final Set<String> allowedAccessTypes;
+	private final boolean     hasPublicGroup;
+
 	public RangerDefaultPolicyItemEvaluator(RangerServiceDef serviceDef, RangerPolicy policy, RangerPolicyItem policyItem, int policyItemType, int policyItemIndex, RangerPolicyEngineOptions options) {
 		super(serviceDef, policy, policyItem, policyItemType, policyItemIndex, options);
+
+		this.users              = policyItem != null ? toSet(policyItem.getUsers()) : null;
+		this.groups             = policyItem != null ? toSet(policyItem.getGroups()) : null;
+		this.roles              = policyItem != null ? toSet(policyItem.getRoles()) : null;
+		this.allowedAccessTypes = policyItem != null ? getAllowedAccessTypes(policyItem.getAccesses()) : Collections.emptySet();
+		this.hasPublicGroup     = groups != null && groups.contains(RangerPolicyEngine.GROUP_PUBLIC);
 	}
 
 	public void init() {
@@ -94,15 +109,8 @@ public boolean isMatch(RangerAccessRequest request) {
 					if (policyItem.getDelegateAdmin()) {
 						ret = true;
 					}
-				} else if (CollectionUtils.isNotEmpty(policyItem.getAccesses())) {
-					boolean isAccessTypeMatched = false;
-
-					for (RangerPolicy.RangerPolicyItemAccess access : policyItem.getAccesses()) {
-						if (access.getIsAllowed() && StringUtils.equalsIgnoreCase(access.getType(), request.getAccessType())) {
-							isAccessTypeMatched = true;
-							break;
-						}
-					}
+				} else if (!allowedAccessTypes.isEmpty()) {
+					boolean isAccessTypeMatched = allowedAccessTypes.contains(toLowerCase(request.getAccessType()));
 
 					if(isAccessTypeMatched) {
 						if(matchCustomConditions(request)) {
@@ -131,15 +139,14 @@ public boolean matchUserGroupAndOwner(String user, Set<String> userGroups, Set<S
 		boolean ret = false;
 
 		if(policyItem != null) {
-			if(!ret && user != null && policyItem.getUsers() != null) {
-				ret = hasCurrentUser || policyItem.getUsers().contains(user);
+			if(!ret && user != null && users != null) {
+				ret = hasCurrentUser || users.contains(user);
 			}
-			if(!ret && userGroups != null && policyItem.getGroups() != null) {
-				ret = policyItem.getGroups().contains(RangerPolicyEngine.GROUP_PUBLIC) ||
-						!Collections.disjoint(policyItem.getGroups(), userGroups);
+			if(!ret && userGroups != null && groups != null) {
+				ret = hasPublicGroup || containsAny(groups, userGroups);
 			}
-			if (!ret && CollectionUtils.isNotEmpty(roles) && CollectionUtils.isNotEmpty(policyItem.getRoles())) {
-				ret = !Collections.disjoint(policyItem.getRoles(), roles);
+			if (!ret && CollectionUtils.isNotEmpty(roles) && CollectionUtils.isNotEmpty(this.roles)) {
+				ret = containsAny(this.roles, roles);
 			}
 			if (!ret && hasResourceOwner) {
 				ret = user != null && user.equals(owner);
@@ -197,20 +204,10 @@ public boolean matchAccessType(String accessType) {
 				if(CollectionUtils.isNotEmpty(policyItem.getAccesses())) {
 					boolean isAnyAccess = StringUtils.equals(accessType, RangerPolicyEngine.ANY_ACCESS);
 
-					for(RangerPolicyItemAccess itemAccess : policyItem.getAccesses()) {
-						if(! itemAccess.getIsAllowed()) {
-							continue;
-						}
-
-						if(isAnyAccess) {
-							ret = true;
-
-							break;
-						} else if(StringUtils.equalsIgnoreCase(itemAccess.getType(), accessType)) {
-							ret = true;
-
-							break;
-						}
+					if(isAnyAccess) {
+						ret = !allowedAccessTypes.isEmpty();
+					} else {
+						ret = allowedAccessTypes.contains(toLowerCase(accessType));
 					}
 				} else if (StringUtils.isEmpty(accessType)) {
 					ret = true;
@@ -327,4 +324,71 @@ RangerConditionEvaluator newConditionEvaluator(String className) {
 
 		return evaluator;
 	}
+
+	private static Set<String> toSet(List<String> values) {
+		final Set<String> ret;
+
+		if (values == null) {
+			ret = null;
+		} else if (values.isEmpty()) {
+			ret = Collections.emptySet();
+		} else if (values.size() == 1) {
+			ret = Collections.singleton(values.get(0));
+		} else {
+			ret = Collections.unmodifiableSet(new HashSet<>(values));
+		}
+
+		return ret;
+	}
+
+	private static Set<String> getAllowedAccessTypes(List<RangerPolicyItemAccess> accesses) {
+		Set<String> ret = null;
+
+		if (CollectionUtils.isNotEmpty(accesses)) {
+			for (RangerPolicyItemAccess access : accesses) {
+				if (access != null && access.getIsAllowed()) {
+					if (ret == null) {
+						ret = new HashSet<>();
+					}
+
+					ret.add(toLowerCase(access.getType()));
+				}
+			}
+		}
+
+		return ret != null ? ret : Collections.emptySet();
+	}
+
+	/*
+	 * Iterates the smaller of the two sets and looks up its values in the other: a request can carry many more
+	 * groups and roles than a policy-item has, and vice versa
+	 */
+	private static boolean containsAny(Set<String> itemValues, Set<String> requestValues) {
+		final Set<String> toIterate;
+		final Set<String> toLookup;
+
+		if (itemValues.size() <= requestValues.size()) {
+			toIterate = itemValues;
+			toLookup  = requestValues;
+		} else {
+			toIterate = requestValues;
+			toLookup  = itemValues;
+		}
+
+		boolean ret = false;
+
+		for (String value : toIterate) {
+			if (toLookup.contains(value)) {
+				ret = true;
+
+				break;
+			}
+		}
+
+		return ret;
+	}
+
+	private static String toLowerCase(String str) {
+		return str != null ? str.toLowerCase() : null;
+	}
 }
@@ -91,6 +91,10 @@ public interface RangerPolicyEvaluator {
 
 	int getEvalOrder();
 
+	long getHitCount();
+
+	void incrementHitCount();
+
 	int getCustomConditionsCount();
 
 	int getValidityScheduleEvaluatorsCount();
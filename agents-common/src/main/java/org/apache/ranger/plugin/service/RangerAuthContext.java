@@ -23,22 +23,42 @@
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
+import org.slf4j.Logger;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class RangerAuthContext {
-    private final Map<RangerContextEnricher, Object> requestContextEnrichers;
-    private       RangerRolesUtil                    rolesUtil;
+    private static final Logger PERF_ROLES_CACHE_LOG = RangerPerfTracer.getPerfLogger("authcontext.rolescache");
+
+    public static final int DEFAULT_ROLES_CACHE_SIZE = 10 * 1024;
+
+    private final Map<RangerContextEnricher, Object>                requestContextEnrichers;
+    private final int                                               rolesCacheSize;
+    private       RangerRolesUtil                                   rolesUtil;
+    private volatile ConcurrentCacheMap<RolesCacheKey, CachedRoles> rolesCache;
 
 
     public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerRoles roles) {
+        this(requestContextEnrichers, roles, DEFAULT_ROLES_CACHE_SIZE);
+    }
+
+    /**
+     * @param rolesCacheSize maximum number of (user, groups) entries in the cache of roles resolved by
+     *                       getRolesForUserAndGroups(); 0 disables the cache
+     */
+    public RangerAuthContext(Map<RangerContextEnricher, Object> requestContextEnrichers, RangerRoles roles, int rolesCacheSize) {
         this.requestContextEnrichers = requestContextEnrichers != null ? requestContextEnrichers : new ConcurrentHashMap<>();
+        this.rolesCacheSize          = rolesCacheSize;
 
         setRoles(roles);
     }
@@ -58,11 +78,63 @@ public void cleanupRequestContextEnricher(RangerContextEnricher enricher) {
     }
 
     public void setRoles(RangerRoles roles) {
-        this.rolesUtil = roles != null ? new RangerRolesUtil(roles) : new RangerRolesUtil(null);
+        ConcurrentCacheMap<RolesCacheKey, CachedRoles> oldRolesCache = this.rolesCache;
+
+        this.rolesUtil  = roles != null ? new RangerRolesUtil(roles) : new RangerRolesUtil(null);
+        this.rolesCache = rolesCacheSize > 0 ? new ConcurrentCacheMap<>(rolesCacheSize) : null;
+
+        if (oldRolesCache != null && PERF_ROLES_CACHE_LOG.isDebugEnabled()) {
+            PERF_ROLES_CACHE_LOG.debug("RangerAuthContext.setRoles(roleVersion=" + rolesUtil.getRoleVersion() + "): discarded roles cache " + oldRolesCache);
+        }
     }
 
+    /**
+     * Returns the roles of the user, of the given groups and of the public group. When the roles cache is enabled,
+     * the returned set is cached by (user, groups) until the roles change, and can't be modified.
+     */
     public Set<String> getRolesForUserAndGroups(String user, Set<String> groups) {
-        RangerRolesUtil          rolesUtil        = this.rolesUtil;
+        RangerRolesUtil                                rolesUtil  = this.rolesUtil;
+        ConcurrentCacheMap<RolesCacheKey, CachedRoles> rolesCache = this.rolesCache;
+        final Set<String>                              ret;
+
+        if (rolesCache != null) {
+            RolesCacheKey key    = new RolesCacheKey(user, groups);
+            CachedRoles   cached = rolesCache.get(key);
+
+            // entries computed from earlier roles can be added by threads that raced with setRoles()
+            if (cached != null && cached.rolesUtil == rolesUtil) {
+                ret = cached.roles;
+            } else {
+                ret = Collections.unmodifiableSet(getRolesForUserAndGroups(rolesUtil, user, groups));
+
+                rolesCache.put(key.copy(), new CachedRoles(rolesUtil, ret));
+            }
+        } else {
+            ret = getRolesForUserAndGroups(rolesUtil, user, groups);
+        }
+
+        return ret;
+    }
+
+    public long getRoleVersion() { return this.rolesUtil.getRoleVersion(); }
+
+    public RangerRolesUtil getRangerRolesUtil() {
+        return this.rolesUtil;
+    }
+
+    public long getRolesCacheHitCount() {
+        ConcurrentCacheMap<RolesCacheKey, CachedRoles> rolesCache = this.rolesCache;
+
+        return rolesCache != null ? rolesCache.getHitCount() : 0;
+    }
+
+    public long getRolesCacheMissCount() {
+        ConcurrentCacheMap<RolesCacheKey, CachedRoles> rolesCache = this.rolesCache;
+
+        return rolesCache != null ? rolesCache.getMissCount() : 0;
+    }
+
+    private static Set<String> getRolesForUserAndGroups(RangerRolesUtil rolesUtil, String user, Set<String> groups) {
         Map<String, Set<String>> userRoleMapping  = rolesUtil.getUserRoleMapping();
         Map<String, Set<String>> groupRoleMapping = rolesUtil.getGroupRoleMapping();
         Set<String>              allRoles         = new HashSet<>();
@@ -96,9 +168,50 @@ public Set<String> getRolesForUserAndGroups(String user, Set<String> groups) {
         return allRoles;
     }
 
-    public long getRoleVersion() { return this.rolesUtil.getRoleVersion(); }
+    private static final class RolesCacheKey {
+        private final String      user;
+        private final Set<String> groups;
+        private final int         hashCode;
 
-    public RangerRolesUtil getRangerRolesUtil() {
-        return this.rolesUtil;
+        RolesCacheKey(String user, Set<String> groups) {
+            this.user     = user;
+            this.groups   = groups != null ? groups : Collections.emptySet();
+            this.hashCode = Objects.hash(user, this.groups);
+        }
+
+        // the key stored in the cache must not refer to the caller's set of groups, which could be modified later
+        RolesCacheKey copy() {
+            return new RolesCacheKey(user, groups.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(groups)));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof RolesCacheKey)) {
+                return false;
+            }
+
+            RolesCacheKey other = (RolesCacheKey) obj;
+
+            return hashCode == other.hashCode && Objects.equals(user, other.user) && groups.equals(other.groups);
+        }
+    }
+
+    private static final class CachedRoles {
+        final RangerRolesUtil rolesUtil;
+        final Set<String>     roles;
+
+        CachedRoles(RangerRolesUtil rolesUtil, Set<String> roles) {
+            this.rolesUtil = rolesUtil;
+            this.roles     = roles;
+        }
     }
 }
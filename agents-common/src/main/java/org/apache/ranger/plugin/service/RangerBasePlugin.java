@@ -463,6 +463,8 @@ public void cleanup() {
 		if (policyEngine != null) {
 			((RangerPolicyEngineImpl) policyEngine).releaseResources(true);
 		}
+
+		pluginContext.cleanup();
 	}
 
 	public void setResultProcessor(RangerAccessResultProcessor resultProcessor) {
@@ -598,6 +600,47 @@ public RangerAccessResult evalDataMaskPolicies(RangerAccessRequest request, Rang
 		return ret;
 	}
 
+	/*
+	 * Evaluates data-mask policies for a batch of requests, like the columns of a table. Each result is passed to
+	 * resultProcessor.processResult(), as results for different columns are audited separately.
+	 */
+	public Collection<RangerAccessResult> evalDataMaskPolicies(Collection<RangerAccessRequest> requests, RangerAccessResultProcessor resultProcessor) {
+		RangerPolicyEngine             policyEngine = this.policyEngine;
+		Collection<RangerAccessResult> ret          = null;
+
+		if (policyEngine != null) {
+			ret = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_DATAMASK, null);
+
+			if (CollectionUtils.isNotEmpty(ret)) {
+				Iterator<RangerAccessRequest> iterRequests = requests.iterator();
+
+				for (RangerAccessResult result : ret) {
+					RangerAccessRequest request = iterRequests.next();
+
+					if (result == null) {
+						continue;
+					}
+
+					for (RangerChainedPlugin chainedPlugin : chainedPlugins) {
+						RangerAccessResult chainedResult = chainedPlugin.evalDataMaskPolicies(request);
+
+						if (chainedResult != null) {
+							updateResultFromChainedResult(result, chainedResult);
+						}
+					}
+
+					policyEngine.evaluateAuditPolicies(result);
+
+					if (resultProcessor != null) {
+						resultProcessor.processResult(result);
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
 	public RangerAccessResult evalRowFilterPolicies(RangerAccessRequest request, RangerAccessResultProcessor resultProcessor) {
 		RangerPolicyEngine policyEngine = this.policyEngine;
 		RangerAccessResult ret          = null;
@@ -712,6 +755,16 @@ public RangerRoles getRangerRoles() {
 		return null;
 	}
 
+	public Map<Long, Long> getPolicyHitCounts() {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		if(policyEngine != null) {
+			return policyEngine.getPolicyHitCounts();
+		}
+
+		return Collections.emptyMap();
+	}
+
 	public Set<RangerRole> getRangerRoleForPrincipal(String principal, String type) {
 		Set<RangerRole>  		 ret                 = new HashSet<>();
 		Set<RangerRole>			 rangerRoles		 = null;
@@ -48,6 +48,7 @@ public class RangerAccessRequestUtil {
 	public static final String KEY_CONTEXT_IS_ANY_ACCESS = "ISANYACCESS";
 	public static final String KEY_CONTEXT_REQUEST       = "_REQUEST";
 	public static final String KEY_CONTEXT_IS_REQUEST_PREPROCESSED = "ISREQUESTPREPROCESSED";
+	public static final String KEY_CONTEXT_TRIE_LOOKUP_CACHE       = "_TRIE_LOOKUP_CACHE";
 
 	public static void setRequestTagsInContext(Map<String, Object> context, Set<RangerTagForEval> tags) {
 		if(CollectionUtils.isEmpty(tags)) {
@@ -135,6 +136,7 @@ public static Map<String, Object> copyContext(Map<String, Object> context) {
 			ret.remove(KEY_CONTEXT_ACCESSTYPES);
 			ret.remove(KEY_CONTEXT_IS_ANY_ACCESS);
 			ret.remove(KEY_CONTEXT_IS_REQUEST_PREPROCESSED);
+			ret.remove(KEY_CONTEXT_TRIE_LOOKUP_CACHE);
 			// don't remove REQUESTED_RESOURCES
 		}
 
@@ -257,4 +259,17 @@ public static RangerAccessRequest getRequestFromContext(Map<String, Object> cont
 		return ret;
 	}
 
+	public static void setTrieLookupCacheInContext(Map<String, Object> context, RangerResourceEvaluatorsRetriever.TrieLookupCache lookupCache) {
+		if (lookupCache == null) {
+			context.remove(KEY_CONTEXT_TRIE_LOOKUP_CACHE);
+		} else {
+			context.put(KEY_CONTEXT_TRIE_LOOKUP_CACHE, lookupCache);
+		}
+	}
+
+	public static RangerResourceEvaluatorsRetriever.TrieLookupCache getTrieLookupCacheFromContext(Map<String, Object> context) {
+		Object val = context != null ? context.get(KEY_CONTEXT_TRIE_LOOKUP_CACHE) : null;
+
+		return val instanceof RangerResourceEvaluatorsRetriever.TrieLookupCache ? (RangerResourceEvaluatorsRetriever.TrieLookupCache) val : null;
+	}
 }
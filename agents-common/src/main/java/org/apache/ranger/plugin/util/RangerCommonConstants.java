@@ -54,6 +54,9 @@ public class RangerCommonConstants {
 
 	public static final boolean POLICY_REST_CLIENT_SESSION_COOKIE_ENABLED            = true;
 
+	public static final String  PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD             = ".policy.rest.client.compression.enabled";
+	public static final boolean PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD_DEFAULT     = true;
+
 	public static final String SCRIPT_OPTION_ENABLE_JSON_CTX        = "enableJsonCtx";
 
 	public static final String SCRIPT_VAR_ctx                       = "ctx";
@@ -35,6 +35,8 @@
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.lang.management.MemoryPoolMXBean;
 import java.lang.management.MemoryType;
 import java.lang.management.MemoryUsage;
@@ -56,6 +58,7 @@ public class RangerMetricsUtil {
     private static final long UP_TIME_OF_JVM = RUNTIME.getUptime();
     private static final String JVM_VENDOR_NAME =  RUNTIME.getVmVendor();
     private static int IS_ROLE_ACTIVE =  0;
+    private static final Map<String, Supplier<Map<String, Object>>> CACHE_METRICS = new ConcurrentHashMap<>();
 
     static {
         OS = ManagementFactory.getOperatingSystemMXBean();
@@ -72,6 +75,10 @@ public Map<String, Object> getValues() {
         values.put("os.vcpus", String.valueOf(OS.getAvailableProcessors()));
         values.put("memory", addMemoryDetails());
 
+        if (!CACHE_METRICS.isEmpty()) {
+            values.put("caches", addCacheDetails());
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug("<== RangerMetricsUtil.getValues()" + values);
         }
@@ -129,6 +136,19 @@ protected Map<String, Object> addMemoryDetails() {
         return memory;
     }
 
+    /**
+     * Add hit/miss details of the registered caches
+     */
+    protected Map<String, Object> addCacheDetails() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Supplier<Map<String, Object>>> entry : CACHE_METRICS.entrySet()) {
+            caches.put(entry.getKey(), entry.getValue().get());
+        }
+
+        return caches;
+    }
+
     /**
      * Collect system information.
      */
@@ -176,6 +196,20 @@ public static void setIsRoleActive(int isRoleActive) {
         IS_ROLE_ACTIVE = isRoleActive;
     }
 
+    public static void registerCacheMetrics(String name, Supplier<Map<String, Object>> metrics) {
+        CACHE_METRICS.put(name, metrics);
+    }
+
+    public static void unregisterCacheMetrics(String name, Supplier<Map<String, Object>> metrics) {
+        CACHE_METRICS.remove(name, metrics);
+    }
+
+    public static Map<String, Object> getCacheMetrics(String name) {
+        Supplier<Map<String, Object>> metrics = CACHE_METRICS.get(name);
+
+        return metrics != null ? metrics.get() : null;
+    }
+
     public void writeMetricsToFile(File filePath) throws Throwable {
 
 		RangerMetrics rangerMetrics = null;
@@ -49,6 +49,7 @@ public class RangerPluginCapability {
 	- Audit-policies
 	- User/group/tag attributes in policy
 	- additional resources in policy
+	- compressed policy/tag/role download
      */
     private final long pluginCapabilities;
     private static final String baseRangerCapabilities = computeBaseCapabilities();
@@ -73,7 +74,8 @@ public enum RangerPluginFeature {
         RANGER_PLUGIN_CAPABILITY_USERSTORE_DOWNLOAD("UserStore Download"),
         RANGER_PLUGIN_CAPABILITY_AUDIT_POLICY("Audit Policy"),
         RANGER_PLUGIN_CAPABILITY_UGT_ATTRIBUTES_IN_POLICY("User/group/tag attributes in policy"),
-        RANGER_PLUGIN_CAPABILITY_ADDITIONAL_RESOURCES_IN_POLICY("additional resources in policy");
+        RANGER_PLUGIN_CAPABILITY_ADDITIONAL_RESOURCES_IN_POLICY("additional resources in policy"),
+        RANGER_PLUGIN_CAPABILITY_COMPRESSED_DOWNLOAD("Compressed download");
 
         private final String name;
         RangerPluginFeature(String name) {
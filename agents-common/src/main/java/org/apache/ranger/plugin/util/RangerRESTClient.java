@@ -62,6 +62,7 @@
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 
@@ -107,6 +108,7 @@ public class RangerRESTClient {
 	private int    mRestClientReadTimeOutMs;
 	private int    maxRetryAttempts;
 	private int    retryIntervalMs;
+	private boolean isCompressionEnabled;
 	private int    lastKnownActiveUrlIndex;
 
 	private final List<String> configuredURLs;
@@ -164,6 +166,11 @@ public void setRestClientReadTimeOutMs(int mRestClientReadTimeOutMs) {
 
 	public void setRetryIntervalMs(int retryIntervalMs) { this.retryIntervalMs = retryIntervalMs; }
 
+	public boolean isCompressionEnabled() { return isCompressionEnabled; }
+
+	// when enabled, requests have header "Accept-Encoding: gzip" and gzip-encoded responses are decompressed
+	public void setCompressionEnabled(boolean isCompressionEnabled) { this.isCompressionEnabled = isCompressionEnabled; }
+
 	public void setBasicAuthInfo(String username, String password) {
 		mUsername = username;
 		mPassword = password;
@@ -232,6 +239,10 @@ public boolean verify(String urlHostName, SSLSession session) {
 			client.addFilter(new HTTPBasicAuthFilter(mUsername, mPassword));
 		}
 
+		if (isCompressionEnabled) {
+			client.addFilter(new GZIPContentEncodingFilter(false));
+		}
+
 		// Set Connection Timeout and ReadTime for the PolicyRefresh
 		client.setConnectTimeout(mRestClientConnTimeOutMs);
 		client.setReadTimeout(mRestClientReadTimeOutMs);
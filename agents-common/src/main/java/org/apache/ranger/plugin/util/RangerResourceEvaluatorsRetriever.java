@@ -33,7 +33,9 @@
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RangerResourceEvaluatorsRetriever {
     private static final Logger LOG = LoggerFactory.getLogger(RangerResourceEvaluatorsRetriever.class);
@@ -43,6 +45,10 @@ public static <T  extends RangerResourceEvaluator> Collection<T> getEvaluators(M
     }
 
     public static <T  extends RangerResourceEvaluator> Collection<T> getEvaluators(Map<String, RangerResourceTrie<T>> resourceTrie, Map<String, ?> resource, Map<String, ResourceElementMatchingScope> scopes) {
+        return getEvaluators(resourceTrie, resource, scopes, null);
+    }
+
+    public static <T  extends RangerResourceEvaluator> Collection<T> getEvaluators(Map<String, RangerResourceTrie<T>> resourceTrie, Map<String, ?> resource, Map<String, ResourceElementMatchingScope> scopes, TrieLookupCache lookupCache) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyResourceEvaluatorsRetriever.getEvaluators(" + resource + ")");
         }
@@ -67,7 +73,7 @@ public static <T  extends RangerResourceEvaluator> Collection<T> getEvaluators(M
                 Object resourceValues = resource.get(resourceDefName);
 
                 Set<T> inheritedMatchers   = trie.getInheritedEvaluators();
-                Set<T> matchersForResource = trie.getEvaluatorsForResource(resourceValues, scopes.get(resourceDefName));
+                Set<T> matchersForResource = lookupCache != null ? lookupCache.getEvaluatorsForResource(trie, resourceValues, scopes.get(resourceDefName)) : trie.getEvaluatorsForResource(resourceValues, scopes.get(resourceDefName));
 
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("ResourceDefName:[" + resourceDefName + "], values:[" + resourceValues + "], resource-matchers:[" + matchersForResource + "], inherited-matchers:[" + inheritedMatchers + "]");
@@ -159,4 +165,67 @@ public int compareTo(Evaluators<T> other) {
             return Integer.compare(size, other.size);
         }
     }
+
+    /*
+     * Caches trie lookups of resource values shared by a batch of requests - for example, the database and table
+     * of requests that differ only in the column - so that each trie is walked once for each distinct value.
+     * Instances are meant to be used for a single batch, within which the tries do not change.
+     */
+    public static class TrieLookupCache {
+        private final Map<LookupKey, Set<?>> evaluators = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        <T extends RangerResourceEvaluator> Set<T> getEvaluatorsForResource(RangerResourceTrie<T> trie, Object resourceValues, ResourceElementMatchingScope scope) {
+            LookupKey key = new LookupKey(trie, resourceValues, scope);
+            Set<?>    ret = evaluators.get(key);
+
+            if (ret == null) {
+                ret = trie.getEvaluatorsForResource(resourceValues, scope);
+
+                evaluators.put(key, ret != null ? ret : Collections.emptySet());
+            }
+
+            return (Set<T>) ret;
+        }
+
+        public int size() {
+            return evaluators.size();
+        }
+    }
+
+    private static class LookupKey {
+        private final RangerResourceTrie<?>        trie;
+        private final Object                       resourceValues;
+        private final ResourceElementMatchingScope scope;
+        private final int                          hashCode;
+
+        LookupKey(RangerResourceTrie<?> trie, Object resourceValues, ResourceElementMatchingScope scope) {
+            this.trie           = trie;
+            this.resourceValues = resourceValues;
+            this.scope          = scope;
+            this.hashCode       = Objects.hash(System.identityHashCode(trie), resourceValues, scope);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            final boolean ret;
+
+            if (this == obj) {
+                ret = true;
+            } else if (obj instanceof LookupKey) {
+                LookupKey other = (LookupKey) obj;
+
+                ret = trie == other.trie && scope == other.scope && Objects.equals(resourceValues, other.resourceValues);
+            } else {
+                ret = false;
+            }
+
+            return ret;
+        }
+    }
 }
@@ -20,6 +20,7 @@
 package org.apache.ranger.plugin.util;
 
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +30,7 @@
 import java.util.ArrayList;
 
 import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
 import org.apache.ranger.plugin.model.RangerTagDef;
@@ -290,5 +292,80 @@ public void dedupStrings() {
 				resource.dedupStrings(strTbl);
 			}
 		}
+
+		dedupObjects();
+	}
+
+	/*
+	 * Large tag catalogs have many resources with the same element values (like the database of every column of a
+	 * table) and many tags with the same attributes; share one instance of each such value. Also, replace the lists
+	 * in resourceToTagIds, which typically have a single tag-id, with fixed-size lists referring to tag-id instances
+	 * from tags map.
+	 */
+	private void dedupObjects() {
+		if (tags != null) {
+			Map<Map<String, String>, Map<String, String>> attrsTbl = new HashMap<>();
+
+			for (RangerTag tag : tags.values()) {
+				Map<String, String> attributes = tag.getAttributes();
+
+				if (attributes != null) {
+					Map<String, String> existing = attrsTbl.putIfAbsent(attributes, attributes);
+
+					if (existing != null) {
+						tag.setAttributes(existing);
+					}
+				}
+			}
+		}
+
+		if (serviceResources != null) {
+			Map<RangerPolicyResource, RangerPolicyResource> policyResourceTbl = new HashMap<>();
+
+			for (RangerServiceResource resource : serviceResources) {
+				Map<String, RangerPolicyResource> resourceElements = resource.getResourceElements();
+
+				if (resourceElements != null) {
+					for (Map.Entry<String, RangerPolicyResource> entry : resourceElements.entrySet()) {
+						RangerPolicyResource policyResource = entry.getValue();
+
+						if (policyResource != null) {
+							RangerPolicyResource existing = policyResourceTbl.putIfAbsent(policyResource, policyResource);
+
+							if (existing != null) {
+								entry.setValue(existing);
+							}
+						}
+					}
+				}
+			}
+		}
+
+		if (resourceToTagIds != null) {
+			Map<Long, Long> tagIdTbl = new HashMap<>();
+
+			if (tags != null) {
+				for (Long tagId : tags.keySet()) {
+					tagIdTbl.put(tagId, tagId);
+				}
+			}
+
+			for (Map.Entry<Long, List<Long>> entry : resourceToTagIds.entrySet()) {
+				List<Long> tagIds = entry.getValue();
+
+				if (tagIds != null) {
+					Long[] compactTagIds = new Long[tagIds.size()];
+					int    idx           = 0;
+
+					for (Long tagId : tagIds) {
+						Long existing = tagIdTbl.get(tagId);
+
+						compactTagIds[idx++] = existing != null ? existing : tagId;
+					}
+
+					entry.setValue(Arrays.asList(compactTagIds)); // supports set(), used when tags are deduped
+				}
+			}
+		}
 	}
 }
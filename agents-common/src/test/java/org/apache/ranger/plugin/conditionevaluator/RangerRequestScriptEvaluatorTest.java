@@ -24,6 +24,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerCompiledScript;
 import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
 import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
@@ -424,6 +425,50 @@ public void testIntersectsIncludes() {
         Assert.assertFalse("test: TAGS.DEPTS.names.split(',').includes(USER.dept)", (Boolean) evaluator.evaluateScript(scriptEngine, "TAGS.DEPTS.names.split(',').includes(USER.dept)"));
     }
 
+    @Test
+    public void testCompiledScript() {
+        RangerCompiledScript isInGroup  = RangerRequestScriptEvaluator.compileScript(scriptEngine, "IS_IN_GROUP('test-group2')", null);
+        RangerCompiledScript userDept   = RangerRequestScriptEvaluator.compileScript(scriptEngine, "USER.dept == 'ENGG'", null);
+        RangerCompiledScript noJsonCtx  = RangerRequestScriptEvaluator.compileScript(scriptEngine, "USER.dept == 'ENGG'", false);
+        RangerCompiledScript tagInclude = RangerRequestScriptEvaluator.compileScript(scriptEngine, "ctx.getUser() == 'test-user2' && tag != null && ['PII', 'PCI'].includes(tag.getType())", null);
+
+        Assert.assertFalse("test: ctx-only script doesn't need JSON ctx", tagInclude.isJsonCtxEnabled());
+        Assert.assertTrue("test: script referencing USER needs JSON ctx", userDept.isJsonCtxEnabled());
+        Assert.assertFalse("test: JSON ctx disabled by option", noJsonCtx.isJsonCtxEnabled());
+
+        RangerTag tagPII = new RangerTag("PII", Collections.singletonMap("attr1", "PII_value"));
+
+        // evaluate the same compiled scripts for different requests, to verify that the reused bindings don't carry over the earlier request
+        RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(createRequest("test-user2", new HashSet<>(Arrays.asList("test-group1", "test-group2")), Collections.emptySet(), Collections.singletonList(tagPII)));
+
+        Assert.assertEquals("test: IS_IN_GROUP('test-group2')", Boolean.TRUE, evaluator.evaluateConditionScript(isInGroup));
+        Assert.assertEquals("test: USER.dept == 'ENGG'", Boolean.TRUE, evaluator.evaluateConditionScript(userDept));
+        Assert.assertEquals("test: ctx.getUser() == 'test-user2' && tag type is PII or PCI", Boolean.TRUE, evaluator.evaluateConditionScript(tagInclude));
+
+        evaluator = new RangerRequestScriptEvaluator(createRequest("test-user3", Collections.singleton("test-group3"), Collections.emptySet(), Collections.emptyList()));
+
+        Assert.assertEquals("test: IS_IN_GROUP('test-group2')", Boolean.FALSE, evaluator.evaluateConditionScript(isInGroup));
+        Assert.assertEquals("test: USER.dept == 'ENGG'", Boolean.FALSE, evaluator.evaluateConditionScript(userDept));
+        Assert.assertEquals("test: ctx.getUser() == 'test-user2' && tag type is PII or PCI", Boolean.FALSE, evaluator.evaluateConditionScript(tagInclude));
+
+        // results should match evaluation of the uncompiled script
+        Assert.assertEquals("test: uncompiled USER.dept == 'ENGG'", evaluator.evaluateConditionScript(scriptEngine, "USER.dept == 'ENGG'", true), evaluator.evaluateConditionScript(userDept));
+    }
+
+    @Test
+    public void testCompiledScriptDoesNotLeakVariables() {
+        RangerCompiledScript varDecl    = RangerRequestScriptEvaluator.compileScript(scriptEngine, "var count = (count == null) ? 1 : count + 1; count == 1", null);
+        RangerCompiledScript implicitGl = RangerRequestScriptEvaluator.compileScript(scriptEngine, "var isFirst = (typeof lastUser === 'undefined'); lastUser = ctx.getUser(); isFirst", null);
+
+        // evaluate more times than there can be pooled bindings, so that the same bindings get reused
+        for (int i = 0; i < 2 * Runtime.getRuntime().availableProcessors() + 2; i++) {
+            RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(createRequest("test-user" + i, Collections.emptySet(), Collections.emptySet(), Collections.emptyList()));
+
+            Assert.assertEquals("test: var declared by an earlier evaluation, iteration " + i, Boolean.TRUE, evaluator.evaluateConditionScript(varDecl));
+            Assert.assertEquals("test: global assigned by an earlier evaluation, iteration " + i, Boolean.TRUE, evaluator.evaluateConditionScript(implicitGl));
+        }
+    }
+
     @Test
     public void testBlockJavaClassReferences() {
         RangerAccessRequest          request   = createRequest("test-user", Collections.EMPTY_SET, Collections.EMPTY_SET, Collections.EMPTY_LIST);
@@ -26,11 +26,13 @@
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase.TestData;
+import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
 import org.apache.ranger.plugin.model.RangerTag;
 import org.apache.ranger.plugin.model.RangerTagDef;
 import org.apache.ranger.plugin.policyengine.*;
+import org.apache.ranger.plugin.store.RangerServiceResourceSignature;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.junit.AfterClass;
@@ -42,11 +44,14 @@
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class TestTagEnricher {
@@ -71,6 +76,152 @@ public void testTagEnricher_hive() {
         runTestsFromResourceFiles(hiveTestResourceFiles);
     }
 
+    @Test
+    public void testTagEnricher_reusesTagsForEvalUntilTagsChange() {
+        InputStream         inStream = this.getClass().getResourceAsStream("/contextenricher/test_tagenricher_hive.json");
+        TagEnricherTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(inStream), TagEnricherTestCase.class);
+        RangerTagEnricher   tagEnricher = new RangerTagEnricher();
+
+        tagEnricher.setServiceName(testCase.serviceName);
+        tagEnricher.setServiceDef(testCase.serviceDef);
+        tagEnricher.init();
+        tagEnricher.setServiceTags(createServiceTags(testCase, testCase.tags));
+
+        for (TestData test : testCase.tests) {
+            if (test.result == null || test.result.isEmpty()) {
+                continue;
+            }
+
+            Set<RangerTagForEval> result1 = enrich(tagEnricher, test);
+            Set<RangerTagForEval> result2 = enrich(tagEnricher, test);
+
+            assertEquals(test.name, result1, result2);
+
+            for (RangerTagForEval tag : result2) {
+                assertTrue(test.name + ": tag not reused - " + tag, containsSameInstance(result1, tag));
+            }
+        }
+
+        // replace the type of every tag; enricher must not return tags from the earlier version
+        Map<Long, RangerTag> updatedTags = new HashMap<>();
+
+        for (Map.Entry<Long, RangerTag> entry : testCase.tags.entrySet()) {
+            RangerTag tag = new RangerTag(entry.getValue().getType() + "_UPDATED", entry.getValue().getAttributes());
+
+            tag.setId(entry.getKey());
+
+            updatedTags.put(entry.getKey(), tag);
+        }
+
+        tagEnricher.setServiceTags(createServiceTags(testCase, updatedTags));
+
+        for (TestData test : testCase.tests) {
+            Set<RangerTagForEval> result = enrich(tagEnricher, test);
+
+            assertEquals(test.name, test.result == null ? 0 : test.result.size(), result == null ? 0 : result.size());
+
+            if (result != null) {
+                for (RangerTagForEval tag : result) {
+                    assertTrue(test.name + ": stale tag - " + tag, tag.getType().endsWith("_UPDATED"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTagEnricher_deltaDoesNotUpdateTriesInUse() {
+        InputStream         inStream    = this.getClass().getResourceAsStream("/contextenricher/test_tagenricher_hive.json");
+        TagEnricherTestCase testCase    = gsonBuilder.fromJson(new InputStreamReader(inStream), TagEnricherTestCase.class);
+        RangerTagEnricher   tagEnricher = new RangerTagEnricher();
+
+        tagEnricher.setServiceName(testCase.serviceName);
+        tagEnricher.setServiceDef(testCase.serviceDef);
+        tagEnricher.init();
+        tagEnricher.setServiceTags(createServiceTags(testCase, testCase.tags));
+
+        RangerTagEnricher.EnrichedServiceTags oldServiceTags = tagEnricher.getEnrichedServiceTags();
+
+        // add tag PCI (id=5) to resource hr.employee.id
+        RangerServiceResource addedResource = new RangerServiceResource();
+        Map<String, RangerPolicy.RangerPolicyResource> resourceElements = new HashMap<>();
+
+        resourceElements.put("database", new RangerPolicy.RangerPolicyResource("hr"));
+        resourceElements.put("table", new RangerPolicy.RangerPolicyResource("employee"));
+        resourceElements.put("column", new RangerPolicy.RangerPolicyResource("id"));
+
+        addedResource.setId(100L);
+        addedResource.setServiceName(testCase.serviceName);
+        addedResource.setResourceElements(resourceElements);
+        addedResource.setResourceSignature(new RangerServiceResourceSignature(addedResource).getSignature());
+
+        ServiceTags delta = new ServiceTags();
+
+        delta.setServiceName(testCase.serviceName);
+        delta.setTagVersion(2L);
+        delta.setIsDelta(true);
+        delta.setTagsChangeExtent(ServiceTags.TagsChangeExtent.SERVICE_RESOURCE);
+        delta.setTags(new HashMap<>());
+        delta.setServiceResources(new ArrayList<>(Collections.singletonList(addedResource)));
+        delta.setResourceToTagIds(new HashMap<>(Collections.singletonMap(100L, new ArrayList<>(Collections.singletonList(5L)))));
+
+        tagEnricher.setServiceTags(delta);
+
+        RangerTagEnricher.EnrichedServiceTags newServiceTags = tagEnricher.getEnrichedServiceTags();
+        RangerAccessResourceImpl              resource       = new RangerAccessResourceImpl();
+
+        resource.setValue("database", "hr");
+        resource.setValue("table", "employee");
+        resource.setValue("column", "id");
+
+        RangerAccessRequestImpl newRequest = new RangerAccessRequestImpl(resource, "read", "testUser", null, null);
+        RangerAccessRequestImpl oldRequest = new RangerAccessRequestImpl(resource, "read", "testUser", null, null);
+
+        tagEnricher.enrich(newRequest, newServiceTags);
+        tagEnricher.enrich(oldRequest, oldServiceTags);
+
+        Set<RangerTagForEval> newTags = RangerAccessRequestUtil.getRequestTagsFromContext(newRequest.getContext());
+        Set<RangerTagForEval> oldTags = RangerAccessRequestUtil.getRequestTagsFromContext(oldRequest.getContext());
+
+        assertEquals(1, newTags == null ? 0 : newTags.size());
+        assertEquals("PCI", newTags.iterator().next().getType());
+        assertTrue("tries in use must not be updated by deltas", oldTags == null || oldTags.isEmpty());
+
+        // tries not affected by the delta are shared; updated tries are copied
+        assertSame(oldServiceTags.getServiceResourceTrie().get("url"), newServiceTags.getServiceResourceTrie().get("url"));
+        assertSame(oldServiceTags.getServiceResourceTrie().get("udf"), newServiceTags.getServiceResourceTrie().get("udf"));
+        assertNotSame(oldServiceTags.getServiceResourceTrie().get("column"), newServiceTags.getServiceResourceTrie().get("column"));
+    }
+
+    private Set<RangerTagForEval> enrich(RangerTagEnricher tagEnricher, TestData test) {
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.resource, test.accessType, "testUser", null, null);
+
+        tagEnricher.enrich(request);
+
+        return RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+    }
+
+    private boolean containsSameInstance(Set<RangerTagForEval> tags, RangerTagForEval tag) {
+        for (RangerTagForEval t : tags) {
+            if (t == tag) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private ServiceTags createServiceTags(TagEnricherTestCase testCase, Map<Long, RangerTag> tags) {
+        ServiceTags ret = new ServiceTags();
+
+        ret.setServiceName(testCase.serviceName);
+        ret.setTagDefinitions(testCase.tagDefinitions);
+        ret.setTags(tags);
+        ret.setServiceResources(testCase.serviceResources);
+        ret.setResourceToTagIds(testCase.resourceToTagIds);
+
+        return ret;
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for(String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentCacheMap {
+	@Test
+	public void testGetAndPut() {
+		ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(16);
+
+		assertNull(cache.get("key1"));
+
+		cache.put("key1", "value1");
+
+		assertEquals("value1", cache.get("key1"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals("value1", cache.remove("key1"));
+		assertNull(cache.get("key1"));
+	}
+
+	@Test
+	public void testSizeIsBounded() {
+		int                                 maxSize = 1024;
+		ConcurrentCacheMap<Integer, String> cache   = new ConcurrentCacheMap<>(maxSize);
+
+		for (int i = 0; i < maxSize * 4; i++) {
+			cache.put(i, String.valueOf(i));
+		}
+
+		assertTrue("size=" + cache.size(), cache.size() <= maxSize);
+		assertTrue(cache.getEvictionCount() >= maxSize * 3);
+	}
+
+	@Test
+	public void testRecentlyUsedEntriesAreRetained() {
+		ConcurrentCacheMap<Integer, String> cache = new ConcurrentCacheMap<>(64, 0, 1);
+
+		for (int i = 0; i < 64; i++) {
+			cache.put(i, String.valueOf(i));
+		}
+
+		for (int i = 0; i < 8; i++) { // touch the oldest entries, so that they become the most recently used
+			cache.get(i);
+		}
+
+		for (int i = 64; i < 72; i++) {
+			cache.put(i, String.valueOf(i));
+		}
+
+		for (int i = 0; i < 8; i++) {
+			assertEquals(String.valueOf(i), cache.get(i));
+		}
+	}
+
+	@Test
+	public void testTtl() throws Exception {
+		ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(16, 50);
+
+		cache.put("key1", "value1");
+
+		assertEquals("value1", cache.get("key1"));
+
+		Thread.sleep(100);
+
+		assertNull(cache.get("key1"));
+		assertEquals(1, cache.getExpirationCount());
+	}
+
+	@Test
+	public void testConcurrentAccess() throws Exception {
+		final int                                 maxSize = 512;
+		final ConcurrentCacheMap<Integer, String> cache   = new ConcurrentCacheMap<>(maxSize);
+		final List<Thread>                        threads = new ArrayList<>();
+
+		for (int t = 0; t < 8; t++) {
+			final int offset = t * 1000;
+
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					int key = offset + (i % 1000);
+
+					if (cache.get(key) == null) {
+						cache.put(key, String.valueOf(key));
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(8 * 10000, cache.getHitCount() + cache.getMissCount());
+		assertTrue("size=" + cache.size(), cache.size() <= maxSize + 8 * cache.getSegmentCount());
+	}
+}
@@ -47,6 +47,7 @@
 import org.apache.ranger.plugin.model.validation.RangerZoneResourceMatcher;
 import org.apache.ranger.plugin.model.validation.ValidationFailureDetails;
 import org.apache.ranger.plugin.policyengine.TestPolicyEngine.PolicyEngineTestCase.TestData;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerValidityScheduleEvaluator;
 import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
@@ -482,6 +483,146 @@ public void testPolicyEngin_policyWithAdditionalResources() {
 		runTestsFromResourceFiles(resourceFiles);
 	}
 
+	@Test
+	public void testPolicyEngine_withDecisionCache() {
+		String[] resourceFiles = { "/policyengine/test_policyengine_hdfs.json",
+				"/policyengine/test_policyengine_hive.json",
+				"/policyengine/test_policyengine_conditions.json",
+				"/policyengine/test_policyengine_owner.json",
+				"/policyengine/test_policyengine_with_roles.json",
+				"/policyengine/test_policyengine_hdfs_zones.json",
+				"/policyengine/test_policyengine_tag_hdfs.json",
+				"/policyengine/test_policyengine_hive_incremental_update.json" };
+
+		RangerPolicyEngineOptions policyEngineOptions = pluginContext.getConfig().getPolicyEngineOptions();
+
+		policyEngineOptions.enableDecisionCache = true;
+
+		try {
+			runTestsFromResourceFiles(resourceFiles);
+		} finally {
+			policyEngineOptions.enableDecisionCache = false;
+		}
+	}
+
+	@Test
+	public void testPolicyEngine_withAdaptiveEvalOrder() {
+		String[] resourceFiles = { "/policyengine/test_policyengine_hdfs.json",
+				"/policyengine/test_policyengine_hive.json",
+				"/policyengine/test_policyengine_hbase_multiple_matching_policies.json",
+				"/policyengine/test_policyengine_owner.json",
+				"/policyengine/test_policyengine_with_roles.json",
+				"/policyengine/test_policyengine_hdfs_zones.json",
+				"/policyengine/test_policyengine_hive_mask_filter.json",
+				"/policyengine/test_policyengine_hive_incremental_update.json" };
+
+		RangerPolicyEngineOptions policyEngineOptions = pluginContext.getConfig().getPolicyEngineOptions();
+
+		policyEngineOptions.enableAdaptiveEvalOrder     = true;
+		policyEngineOptions.adaptiveEvalOrderIntervalMs = 0; // reorder after every decision
+
+		try {
+			runTestsFromResourceFiles(resourceFiles);
+		} finally {
+			policyEngineOptions.enableAdaptiveEvalOrder     = false;
+			policyEngineOptions.adaptiveEvalOrderIntervalMs = 60 * 1000L;
+		}
+	}
+
+	@Test
+	public void testPolicyEngine_adaptiveEvalOrderReordersByHitCount() {
+		String                    resourceName        = "/policyengine/test_policyengine_hdfs.json";
+		RangerPolicyEngineOptions policyEngineOptions = pluginContext.getConfig().getPolicyEngineOptions();
+
+		policyEngineOptions.enableAdaptiveEvalOrder     = true;
+		policyEngineOptions.adaptiveEvalOrderIntervalMs = 0; // reorder after every decision
+		policyEngineOptions.disableTrieLookupPrefilter  = true; // so that the order is that of policyEvaluators
+
+		try {
+			PolicyEngineTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), PolicyEngineTestCase.class);
+
+			ServicePolicies servicePolicies = new ServicePolicies();
+			servicePolicies.setPolicyVersion(100L);
+			servicePolicies.setServiceName(testCase.serviceName);
+			servicePolicies.setServiceDef(testCase.serviceDef);
+			servicePolicies.setPolicies(testCase.policies);
+
+			RangerPolicyEngineImpl policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, new RangerRoles());
+			RangerPolicyRepository repository   = policyEngine.getPolicyEngine().getPolicyRepository();
+			List<Long>             initialOrder = getPolicyIds(repository.getPolicyEvaluators());
+
+			assertTrue("no hit counts expected before any request - " + resourceName, policyEngine.getPolicyHitCounts().isEmpty());
+
+			// find a request decided by a policy other than the first one in the initial order
+			RangerAccessRequest hotRequest  = null;
+			long                hotPolicyId = -1;
+
+			for (TestData test : testCase.tests) {
+				if (test.result == null || test.request.getContext().containsKey(RangerAccessRequestUtil.KEY_CONTEXT_TAGS) || test.request.getContext().containsKey(RangerAccessRequestUtil.KEY_CONTEXT_REQUESTED_RESOURCES)) {
+					continue;
+				}
+
+				RangerAccessResult result = policyEngine.evaluatePolicies(test.request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+				if (hotRequest == null && result.getIsAccessDetermined() && result.getPolicyId() != -1 && result.getPolicyId() != initialOrder.get(0)) {
+					hotRequest  = test.request;
+					hotPolicyId = result.getPolicyId();
+				}
+			}
+
+			assertNotNull("no request decided by a policy other than the first - " + resourceName, hotRequest);
+
+			for (int i = 0; i < 2 * testCase.tests.size(); i++) {
+				policyEngine.evaluatePolicies(hotRequest, RangerPolicy.POLICY_TYPE_ACCESS, null);
+			}
+
+			Map<Long, Long> hitCounts = policyEngine.getPolicyHitCounts();
+
+			assertTrue("hit count of policy " + hotPolicyId + " not recorded - " + resourceName, hitCounts.containsKey(hotPolicyId) && hitCounts.get(hotPolicyId) > 2 * testCase.tests.size());
+
+			List<Long> updatedOrder = getPolicyIds(repository.getPolicyEvaluators());
+
+			assertEquals("most hit policy is not evaluated first - " + resourceName, Long.valueOf(hotPolicyId), updatedOrder.get(0));
+			assertNotEquals("evaluation order not changed - " + resourceName, initialOrder, updatedOrder);
+			assertEquals("policies changed by reordering - " + resourceName, new HashSet<>(initialOrder), new HashSet<>(updatedOrder));
+		} finally {
+			policyEngineOptions.enableAdaptiveEvalOrder     = false;
+			policyEngineOptions.adaptiveEvalOrderIntervalMs = 60 * 1000L;
+			policyEngineOptions.disableTrieLookupPrefilter  = false;
+		}
+	}
+
+	private static List<Long> getPolicyIds(List<RangerPolicyEvaluator> evaluators) {
+		List<Long> ret = new ArrayList<>();
+
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			ret.add(evaluator.getPolicyId());
+		}
+
+		return ret;
+	}
+
+	@Test
+	public void testPolicyEngine_evaluateInBatch() {
+		String[] resourceFiles = { "/policyengine/test_policyengine_hdfs.json",
+				"/policyengine/test_policyengine_hive.json",
+				"/policyengine/test_policyengine_hbase_multiple_matching_policies.json" };
+
+		RangerPolicyEngineOptions policyEngineOptions = pluginContext.getConfig().getPolicyEngineOptions();
+
+		for (int parallelThreshold : new int[] { 0, 2 }) {
+			policyEngineOptions.batchParallelThreshold = parallelThreshold;
+
+			try {
+				for (String resourceFile : resourceFiles) {
+					runBatchTestsFromResourceFile(resourceFile);
+				}
+			} finally {
+				policyEngineOptions.batchParallelThreshold = 0;
+			}
+		}
+	}
+
 	@Test
 	public void testAnyResourceAccess_Kafka() throws Exception {
 		String[] resourceFiles = {"/policyengine/test_policyengine_kafka.json"};
@@ -496,6 +637,56 @@ public void testAnyResourceAccess_S3() throws Exception {
 		runTestsFromResourceFiles(resourceFiles);
 	}
 
+	private void runBatchTestsFromResourceFile(String resourceName) {
+		InputStream          inStream = this.getClass().getResourceAsStream(resourceName);
+		PolicyEngineTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(inStream), PolicyEngineTestCase.class);
+
+		ServicePolicies servicePolicies = new ServicePolicies();
+		servicePolicies.setPolicyVersion(100L);
+		servicePolicies.setServiceName(testCase.serviceName);
+		servicePolicies.setServiceDef(testCase.serviceDef);
+		servicePolicies.setPolicies(testCase.policies);
+		servicePolicies.setSecurityZones(testCase.securityZones);
+		servicePolicies.setServiceConfig(testCase.serviceConfig);
+
+		RangerPolicyEngine        policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, new RangerRoles());
+		List<RangerAccessRequest> requests     = new ArrayList<>();
+		List<TestData>            tests        = new ArrayList<>();
+
+		for (TestData test : testCase.tests) {
+			if (test.result == null || test.request.getContext().containsKey(RangerAccessRequestUtil.KEY_CONTEXT_TAGS) || test.request.getContext().containsKey(RangerAccessRequestUtil.KEY_CONTEXT_REQUESTED_RESOURCES)) {
+				continue;
+			}
+
+			RangerAccessRequestImpl request = new RangerAccessRequestImpl(test.request.getResource(), test.request.getAccessType(), test.request.getUser(), test.request.getUserGroups(), null);
+
+			request.setAccessTime(test.request.getAccessTime());
+			request.setAction(test.request.getAction());
+			request.setClientIPAddress(test.request.getClientIPAddress());
+			request.setRemoteIPAddress(test.request.getRemoteIPAddress());
+			request.setForwardedAddresses(test.request.getForwardedAddresses());
+			request.setResourceMatchingScope(test.request.getResourceMatchingScope());
+			request.setContext(RangerAccessRequestUtil.copyContext(test.request.getContext()));
+
+			requests.add(request);
+			tests.add(test);
+		}
+
+		Collection<RangerAccessResult> results = policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+		assertEquals("result count mismatched! - " + resourceName, requests.size(), results.size());
+
+		int i = 0;
+
+		for (RangerAccessResult result : results) {
+			TestData test = tests.get(i++);
+
+			assertNotNull("result was null! - " + test.name, result);
+			assertEquals("isAllowed mismatched in batch! - " + test.name, test.result.getIsAllowed(), result.getIsAllowed());
+			assertNull("trie-lookup cache not removed from context! - " + test.name, RangerAccessRequestUtil.getTrieLookupCacheFromContext(result.getAccessRequest().getContext()));
+		}
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) {
 		for(String resourceName : resourceNames) {
 			InputStream inStream = this.getClass().getResourceAsStream(resourceName);
@@ -732,6 +923,17 @@ private void runTestCaseTests(RangerPolicyEngine policyEngine, RangerPolicyEngin
                 assertNotNull("result was null! - " + test.name, result);
                 assertEquals("isAllowed mismatched! - " + test.name, expected.getIsAllowed(), result.getIsAllowed());
                 assertEquals("isAudited mismatched! - " + test.name, expected.getIsAudited(), result.getIsAudited());
+
+                if (policyEngine instanceof RangerPolicyEngineImpl && ((RangerPolicyEngineImpl) policyEngine).getDecisionCache() != null) {
+                    // evaluate again, so that the decision is served from the decision-cache, if eligible
+                    result = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, auditHandler);
+
+                    policyEngine.evaluateAuditPolicies(result);
+
+                    assertNotNull("result was null! - " + test.name, result);
+                    assertEquals("isAllowed mismatched with decision-cache! - " + test.name, expected.getIsAllowed(), result.getIsAllowed());
+                    assertEquals("isAudited mismatched with decision-cache! - " + test.name, expected.getIsAudited(), result.getIsAudited());
+                }
 			}
 
 			if(test.dataMaskResult != null) {
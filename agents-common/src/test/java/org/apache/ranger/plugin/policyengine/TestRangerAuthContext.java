@@ -23,14 +23,21 @@
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections.MapUtils;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerRole.RoleMember;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -73,6 +80,60 @@ public void testRangerAuthContext() throws Exception {
 		runTestsFromResourceFiles(tests);
 	}
 
+	@Test
+	public void testRolesForUserAndGroups() {
+		RangerAuthContext ctx    = new RangerAuthContext(null, createRoles(1L, "role1"));
+		Set<String>       groups = new HashSet<>(Arrays.asList("group1", "group2"));
+		Set<String>       roles  = ctx.getRolesForUserAndGroups("user1", groups);
+
+		assertEquals(new HashSet<>(Arrays.asList("role1-user1", "role1-group1", "role1-public")), roles);
+		assertEquals(0, ctx.getRolesCacheHitCount());
+		assertEquals(1, ctx.getRolesCacheMissCount());
+
+		// same user and groups, in a different set: served from the cache
+		assertSame(roles, ctx.getRolesForUserAndGroups("user1", new HashSet<>(Arrays.asList("group2", "group1"))));
+		assertEquals(1, ctx.getRolesCacheHitCount());
+
+		// changes to the caller's set of groups must not affect the cached entry
+		groups.remove("group1");
+
+		assertEquals(new HashSet<>(Arrays.asList("role1-user1", "role1-public")), ctx.getRolesForUserAndGroups("user1", groups));
+		assertEquals(roles, ctx.getRolesForUserAndGroups("user1", new HashSet<>(Arrays.asList("group1", "group2"))));
+
+		// new roles discard the cache
+		ctx.setRoles(createRoles(2L, "role2"));
+
+		assertEquals(new HashSet<>(Arrays.asList("role2-user1", "role2-group1", "role2-public")), ctx.getRolesForUserAndGroups("user1", new HashSet<>(Arrays.asList("group1", "group2"))));
+		assertEquals(0, ctx.getRolesCacheHitCount());
+
+		assertEquals(Collections.singleton("role2-public"), ctx.getRolesForUserAndGroups(null, null));
+
+		// cache disabled
+		RangerAuthContext noCacheCtx = new RangerAuthContext(null, createRoles(1L, "role1"), 0);
+
+		assertEquals(roles, noCacheCtx.getRolesForUserAndGroups("user1", new HashSet<>(Arrays.asList("group1", "group2"))));
+		assertEquals(0, noCacheCtx.getRolesCacheMissCount());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedRolesAreNotModifiable() {
+		RangerAuthContext ctx = new RangerAuthContext(null, createRoles(1L, "role1"));
+
+		ctx.getRolesForUserAndGroups("user1", Collections.singleton("group1")).add("role2");
+	}
+
+	private RangerRoles createRoles(Long roleVersion, String prefix) {
+		RangerRoles ret = new RangerRoles();
+
+		ret.setRoleVersion(roleVersion);
+		ret.setRangerRoles(new HashSet<>(Arrays.asList(
+				new RangerRole(prefix + "-user1", null, null, Collections.singletonList(new RoleMember("user1", false)), null),
+				new RangerRole(prefix + "-group1", null, null, null, Collections.singletonList(new RoleMember("group1", false))),
+				new RangerRole(prefix + "-public", null, null, null, Collections.singletonList(new RoleMember(RangerPolicyEngine.GROUP_PUBLIC, false))))));
+
+		return ret;
+	}
+
 	private void runTestsFromResourceFiles(String[] resourceNames) throws Exception {
 		for(String resourceName : resourceNames) {
 			InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
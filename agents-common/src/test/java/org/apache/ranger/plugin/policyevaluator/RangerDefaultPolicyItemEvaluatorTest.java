@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.junit.Test;
+
+
+public class RangerDefaultPolicyItemEvaluatorTest {
+
+	@Test
+	public void testUserMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(Arrays.asList("user1", "user2"), null, null, "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user2", asSet("group1"), null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user3", asSet("group1"), asSet("role1"), null, "select")));
+		assertFalse(evaluator.isMatch(createRequest(null, null, null, null, "select")));
+	}
+
+	@Test
+	public void testGroupMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(null, Arrays.asList("group1", "group2", "group3"), null, "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", asSet("group3"), null, null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user1", asSet("group4", "group2"), null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", asSet("group4"), null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", Collections.emptySet(), null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+
+		// either set can be the larger one
+		Set<String> manyGroups = new HashSet<>();
+
+		for (int i = 10; i < 100; i++) {
+			manyGroups.add("group" + i);
+		}
+
+		assertFalse(evaluator.isMatch(createRequest("user1", manyGroups, null, null, "select")));
+
+		manyGroups.add("group1");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", manyGroups, null, null, "select")));
+	}
+
+	@Test
+	public void testPublicGroupMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(null, Arrays.asList(RangerPolicyEngine.GROUP_PUBLIC), null, "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", asSet("group1"), null, null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user1", Collections.emptySet(), null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", asSet("group1"), null, null, "update")));
+	}
+
+	@Test
+	public void testRoleMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(null, null, Arrays.asList("role1", "role2"), "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", asSet("group1"), asSet("role2"), null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user1", null, asSet("role3", "role4", "role5", "role1"), null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", asSet("role1"), asSet("role3"), null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+	}
+
+	@Test
+	public void testOwnerMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(Arrays.asList(RangerPolicyEngine.RESOURCE_OWNER), null, null, "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, "user1", "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, "user2", "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest(null, null, null, null, "select")));
+	}
+
+	@Test
+	public void testCurrentUserMatch() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(Arrays.asList(RangerPolicyEngine.USER_CURRENT), null, null, "select");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user2", asSet("group1"), null, "user1", "select")));
+		assertFalse(evaluator.isMatch(createRequest(null, asSet("group1"), null, null, "select")));
+	}
+
+	@Test
+	public void testAccessTypeMatchIgnoresCase() {
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(Arrays.asList("user1"), null, null, "Select", "UPDATE");
+
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "SELECT")));
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "update")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, null, "drop")));
+
+		assertTrue(evaluator.matchAccessType("select"));
+		assertTrue(evaluator.matchAccessType("Update"));
+		assertTrue(evaluator.matchAccessType(RangerPolicyEngine.ANY_ACCESS));
+		assertFalse(evaluator.matchAccessType("drop"));
+		assertFalse(evaluator.matchAccessType(RangerPolicyEngine.ADMIN_ACCESS));
+	}
+
+	@Test
+	public void testDeniedAccessTypeIsNotMatched() {
+		RangerPolicyItem policyItem = createPolicyItem(Arrays.asList("user1"), null, null, "select");
+
+		policyItem.getAccesses().add(new RangerPolicyItemAccess("update", Boolean.FALSE));
+
+		RangerDefaultPolicyItemEvaluator evaluator = createEvaluator(policyItem);
+
+		assertTrue(evaluator.isMatch(createRequest("user1", null, null, null, "select")));
+		assertFalse(evaluator.isMatch(createRequest("user1", null, null, null, "update")));
+		assertFalse(evaluator.matchAccessType("update"));
+	}
+
+	private RangerDefaultPolicyItemEvaluator createEvaluator(List<String> users, List<String> groups, List<String> roles, String... accessTypes) {
+		return createEvaluator(createPolicyItem(users, groups, roles, accessTypes));
+	}
+
+	private RangerDefaultPolicyItemEvaluator createEvaluator(RangerPolicyItem policyItem) {
+		RangerPolicy policy = new RangerPolicy();
+
+		policy.setId(1L);
+		policy.getPolicyItems().add(policyItem);
+
+		RangerDefaultPolicyItemEvaluator ret = new RangerDefaultPolicyItemEvaluator(new RangerServiceDef(), policy, policyItem, RangerPolicyItemEvaluator.POLICY_ITEM_TYPE_ALLOW, 0, new RangerPolicyEngineOptions());
+
+		ret.init();
+
+		return ret;
+	}
+
+	private RangerPolicyItem createPolicyItem(List<String> users, List<String> groups, List<String> roles, String... accessTypes) {
+		List<RangerPolicyItemAccess> accesses = new ArrayList<>();
+
+		for (String accessType : accessTypes) {
+			accesses.add(new RangerPolicyItemAccess(accessType, Boolean.TRUE));
+		}
+
+		return new RangerPolicyItem(accesses, users, groups, roles, null, Boolean.FALSE);
+	}
+
+	private RangerAccessRequestImpl createRequest(String user, Set<String> userGroups, Set<String> userRoles, String owner, String accessType) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+		resource.setValue("database", "db1");
+		resource.setOwnerUser(owner);
+
+		return new RangerAccessRequestImpl(resource, accessType, user, userGroups, userRoles);
+	}
+
+	private static Set<String> asSet(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
@@ -21,13 +21,16 @@
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.common.base.MoreObjects;
+import org.apache.hadoop.hbase.ByteBufferExtendedCell;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.filter.FilterBase;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.slf4j.Logger;
@@ -36,12 +39,18 @@
 public class RangerAuthorizationFilter extends FilterBase {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RangerAuthorizationFilter.class.getName());
+	// bound on the number of distinct columns whose result is remembered by a filter, i.e. for a scan
+	static final int MAX_COLUMN_RESULTS = 10000;
 	final Set<String> _familiesAccessAllowed;
 	final Set<String> _familiesAccessDenied;
 	final Set<String> _familiesAccessIndeterminate;
 	final Map<String, Set<String>> _columnsAccessAllowed;
 	final AuthorizationSession _session;
 	final HbaseAuditHandler _auditHandler = HbaseFactory.getInstance().getAuditHandler();
+	// result for each (family, column) seen by this filter; authorization, and its audit, is done once per column instead of once per cell
+	final Map<ColumnKey, ReturnCode> _columnResults = new HashMap<>();
+	// reused for lookups in _columnResults; a filter instance is used by only one scanner
+	final ColumnKey _lookupKey = new ColumnKey();
 
 	public RangerAuthorizationFilter(AuthorizationSession session, Set<String> familiesAccessAllowed, Set<String> familiesAccessDenied, Set<String> familiesAccessIndeterminate,
 									 Map<String, Set<String>> columnsAccessAllowed) {
@@ -63,6 +72,34 @@ public ReturnCode filterKeyValue(Cell kv) throws IOException {
 			LOG.debug("==> filterKeyValue");
 		}
 
+		ReturnCode result;
+
+		try {
+			result = _columnResults.get(_lookupKey.set(kv));
+
+			if (result != null) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("filterKeyValue: family/column found in results of earlier cells: " + result);
+				}
+			} else {
+				result = evaluate(kv);
+
+				if (_columnResults.size() < MAX_COLUMN_RESULTS) {
+					_columnResults.put(_lookupKey.copy(), result);
+				}
+			}
+		} finally {
+			// don't hold on to the cell, and the block backing it, beyond this call
+			_lookupKey.clear();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("filterKeyValue: " + result);
+		}
+		return result;
+	}
+
+	ReturnCode evaluate(Cell kv) {
 		String family = null;
 		byte[] familyBytes = CellUtil.cloneFamily(kv);
 		if (familyBytes != null && familyBytes.length > 0) {
@@ -127,9 +164,6 @@ public ReturnCode filterKeyValue(Cell kv) throws IOException {
 				LOG.debug("filterKeyValue: Access denied.  Denial not audited.");
 			}
 		}
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("filterKeyValue: " + result);
-		}
 		return result;
 	}
 
@@ -140,8 +174,95 @@ public String toString() {
 				.add("familiesAccessDenied", _familiesAccessDenied)
 				.add("familiesAccessUnknown", _familiesAccessIndeterminate)
 				.add("columnsAccessAllowed", _columnsAccessAllowed)
+				.add("columnResultsCount", _columnResults.size())
 				.toString();
 
 	}
 
+	/*
+	 * (family, qualifier) of a cell. The key used for lookup refers to the cell and compares with CellUtil, so that
+	 * family and qualifier of off-heap cells aren't copied; only the keys stored in _columnResults have their own copy
+	 * of the bytes.
+	 */
+	static final class ColumnKey {
+		private Cell   cell;
+		private byte[] family;
+		private byte[] qualifier;
+		private int    hash;
+
+		ColumnKey set(Cell cell) {
+			this.cell      = cell;
+			this.family    = null;
+			this.qualifier = null;
+			this.hash      = 31 * familyHash(cell) + qualifierHash(cell);
+
+			return this;
+		}
+
+		ColumnKey copy() {
+			ColumnKey ret = new ColumnKey();
+
+			ret.family    = cell != null ? CellUtil.cloneFamily(cell) : family;
+			ret.qualifier = cell != null ? CellUtil.cloneQualifier(cell) : qualifier;
+			ret.hash      = hash;
+
+			return ret;
+		}
+
+		void clear() {
+			cell = null;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof ColumnKey)) {
+				return false;
+			}
+
+			ColumnKey other = (ColumnKey) obj;
+
+			if (hash != other.hash) {
+				return false;
+			} else if (cell != null) {
+				return other.cell != null ? (CellUtil.matchingFamily(cell, other.cell) && CellUtil.matchingQualifier(cell, other.cell)) : other.matches(cell);
+			} else if (other.cell != null) {
+				return matches(other.cell);
+			}
+
+			return Bytes.equals(family, other.family) && Bytes.equals(qualifier, other.qualifier);
+		}
+
+		private boolean matches(Cell cell) {
+			return CellUtil.matchingFamily(cell, family, 0, family.length) && CellUtil.matchingQualifier(cell, qualifier, 0, qualifier.length);
+		}
+
+		// same as Bytes.hashCode() of the cloned family; ByteBufferUtils.hashCode() uses the same algorithm
+		private static int familyHash(Cell cell) {
+			if (cell instanceof ByteBufferExtendedCell) {
+				ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+
+				return ByteBufferUtils.hashCode(bbCell.getFamilyByteBuffer(), bbCell.getFamilyPosition(), cell.getFamilyLength());
+			}
+
+			return Bytes.hashCode(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+		}
+
+		private static int qualifierHash(Cell cell) {
+			if (cell instanceof ByteBufferExtendedCell) {
+				ByteBufferExtendedCell bbCell = (ByteBufferExtendedCell) cell;
+
+				return ByteBufferUtils.hashCode(bbCell.getQualifierByteBuffer(), bbCell.getQualifierPosition(), cell.getQualifierLength());
+			}
+
+			return Bytes.hashCode(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+		}
+	}
+
 }
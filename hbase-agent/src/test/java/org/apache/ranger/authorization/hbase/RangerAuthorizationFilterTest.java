@@ -21,15 +21,21 @@
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.hbase.ByteBufferKeyValue;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
 import org.junit.Test;
 
@@ -98,6 +104,59 @@ public void testFilterKeyValueCell_happyPath() throws IOException {
 		}
 	}
 
+	@Test
+	public void testFilterKeyValueCell_authorizedOncePerColumn() throws IOException {
+		Set<String> familiesAccessAllowed = ImmutableSet.of("family1");
+		AuthorizationSession session = createSessionMock();
+		RangerAuthorizationFilter filter = new RangerAuthorizationFilter(session, familiesAccessAllowed, Collections.emptySet(), Collections.emptySet(), new HashMap<>());
+
+		when(session.isAuthorized()).thenReturn(true);
+
+		// cells of 3 rows, each with 2 columns; family/qualifier at different offsets in the backing array of each cell
+		for (int row = 0; row < 3; row++) {
+			for (String column : new String[] { "column1", "column2" }) {
+				String rowKey = "row-" + row;
+				byte[] backingArray = (rowKey + "family1" + column).getBytes();
+				Cell aCell = mock(Cell.class);
+
+				when(aCell.getFamilyArray()).thenReturn(backingArray);
+				when(aCell.getFamilyOffset()).thenReturn(rowKey.length());
+				when(aCell.getFamilyLength()).thenReturn((byte) "family1".length());
+				when(aCell.getQualifierArray()).thenReturn(backingArray);
+				when(aCell.getQualifierOffset()).thenReturn(rowKey.length() + "family1".length());
+				when(aCell.getQualifierLength()).thenReturn(column.length());
+
+				assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(aCell));
+			}
+		}
+
+		verify(session, times(2)).authorize();
+		assertEquals(2, filter._columnResults.size());
+	}
+
+	@Test
+	public void testFilterKeyValueCell_offHeapCells() throws IOException {
+		Set<String> familiesAccessAllowed = ImmutableSet.of("family1");
+		AuthorizationSession session = createSessionMock();
+		RangerAuthorizationFilter filter = new RangerAuthorizationFilter(session, familiesAccessAllowed, Collections.emptySet(), Collections.emptySet(), new HashMap<>());
+
+		when(session.isAuthorized()).thenReturn(true);
+
+		// off-heap and on-heap cells of the same column share the result
+		for (int row = 0; row < 3; row++) {
+			KeyValue kv = new KeyValue(("row-" + row).getBytes(), "family1".getBytes(), "column1".getBytes(), "value".getBytes());
+			ByteBuffer offHeap = ByteBuffer.allocateDirect(kv.getLength());
+
+			offHeap.put(kv.getBuffer(), kv.getOffset(), kv.getLength());
+
+			assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(new ByteBufferKeyValue(offHeap, 0, kv.getLength())));
+			assertEquals(ReturnCode.INCLUDE, filter.filterKeyValue(kv));
+		}
+
+		verify(session, times(1)).authorize();
+		assertEquals(1, filter._columnResults.size());
+	}
+
 	private void setFamilyArray(Cell aCell, byte[] familyArray) {
 		when(aCell.getFamilyArray()).thenReturn(familyArray);
 		when(aCell.getFamilyLength()).thenReturn((byte) familyArray.length);
@@ -32,6 +32,10 @@
 import java.net.InetAddress;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
@@ -116,6 +120,10 @@ public void start() {
 			LOG.info(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP + " is enabled");
 		}
 
+		if (plugin.isParallelSubAccessAuthEnabled()) {
+			LOG.info(RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_PROP + " is enabled, with " + plugin.getParallelSubAccessAuthThreads() + " threads");
+		}
+
 		access2ActionListMapper.put(FsAction.NONE,          new HashSet<String>());
 		access2ActionListMapper.put(FsAction.ALL,           Sets.newHashSet(READ_ACCCESS_TYPE, WRITE_ACCCESS_TYPE, EXECUTE_ACCCESS_TYPE));
 		access2ActionListMapper.put(FsAction.READ,          Sets.newHashSet(READ_ACCCESS_TYPE));
@@ -427,38 +435,12 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
 
 					// checkSubAccess
 					if(authzStatus == AuthzStatus.ALLOW && subAccess != null && inode != null && inode.isDirectory()) {
-						Stack<SubAccessData> directories = new Stack<>();
-
-						for(directories.push(new SubAccessData(inode.asDirectory(), resourcePath)); !directories.isEmpty(); ) {
-							SubAccessData data = directories.pop();
-							ReadOnlyList<INode> cList = data.dir.getChildrenList(snapshotId);
-
-							if (!(cList.isEmpty() && ignoreEmptyDir)) {
-								INodeAttributes dirAttribs = data.dir.getSnapshotINode(snapshotId);
-
-								authzStatus = isAccessAllowed(data.dir, dirAttribs, data.resourcePath, subAccess, context);
-
-								if(authzStatus != AuthzStatus.ALLOW) {
-									break;
-								}
-
-								AuthzStatus subDirAuthStatus = AuthzStatus.NOT_DETERMINED;
-
-								boolean optimizeSubAccessAuthEnabled = rangerPlugin.isOptimizeSubAccessAuthEnabled();
-
-								if (optimizeSubAccessAuthEnabled) {
-									subDirAuthStatus = isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, subAccess, context);
-								}
-
-								if (subDirAuthStatus != AuthzStatus.ALLOW) {
-									for(INode child : cList) {
-										if (child.isDirectory()) {
-											directories.push(new SubAccessData(child.asDirectory(), resourcePath + Path.SEPARATOR_CHAR + child.getLocalName()));
-										}
-									}
-								}
-							}
+						if (rangerPlugin.isParallelSubAccessAuthEnabled()) {
+							authzStatus = checkSubAccessInParallel(inode.asDirectory(), resourcePath, snapshotId, subAccess, ignoreEmptyDir, context);
+						} else {
+							authzStatus = checkSubAccess(inode.asDirectory(), resourcePath, snapshotId, subAccess, ignoreEmptyDir, context);
 						}
+
 						if (authzStatus == AuthzStatus.NOT_DETERMINED) {
 
 							authzStatus = checkDefaultEnforcer(fsOwner, superGroup, ugi, inodeAttrs, inodes,
@@ -513,6 +495,267 @@ private void checkRangerPermission(String fsOwner, String superGroup, UserGroupI
 			}
 		}
 
+		private AuthzStatus checkSubAccess(INodeDirectory root, String rootPath, int snapshotId, FsAction subAccess, boolean ignoreEmptyDir, AuthzContext context) {
+			AuthzStatus          ret            = AuthzStatus.ALLOW;
+			int                  maxDirectories = rangerPlugin.getMaxSubAccessDirectories();
+			int                  dirCount       = 0;
+			Stack<SubAccessData> directories    = new Stack<>();
+
+			for(directories.push(new SubAccessData(root, rootPath)); !directories.isEmpty(); ) {
+				SubAccessData data = directories.pop();
+				ReadOnlyList<INode> cList = data.dir.getChildrenList(snapshotId);
+
+				if (!(cList.isEmpty() && ignoreEmptyDir)) {
+					if (maxDirectories > 0 && ++dirCount > maxDirectories) {
+						ret = denySubAccessOverLimit(rootPath, maxDirectories, context);
+
+						break;
+					}
+
+					INodeAttributes dirAttribs = data.dir.getSnapshotINode(snapshotId);
+
+					ret = isAccessAllowed(data.dir, dirAttribs, data.resourcePath, subAccess, context);
+
+					if(ret != AuthzStatus.ALLOW) {
+						break;
+					}
+
+					AuthzStatus subDirAuthStatus = AuthzStatus.NOT_DETERMINED;
+
+					boolean optimizeSubAccessAuthEnabled = rangerPlugin.isOptimizeSubAccessAuthEnabled();
+
+					if (optimizeSubAccessAuthEnabled) {
+						subDirAuthStatus = isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, subAccess, context);
+					}
+
+					if (subDirAuthStatus != AuthzStatus.ALLOW) {
+						for(INode child : cList) {
+							if (child.isDirectory()) {
+								directories.push(new SubAccessData(child.asDirectory(), getChildPath(data.resourcePath, child.getLocalName())));
+							}
+						}
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		/*
+		    Same as checkSubAccess(), with the directories evaluated by tasks in the plugin's ForkJoinPool. The calling
+		    thread waits for the tasks to complete while holding the namesystem lock, hence the inodes are not modified
+		    while being read by the tasks. Tasks evaluate policies without auditing; only the result that decides the
+		    outcome - the first not-allowed directory, or the top directory when all are allowed - is audited and saved
+		    in the context, by the calling thread.
+		 */
+		private AuthzStatus checkSubAccessInParallel(INodeDirectory root, String rootPath, int snapshotId, FsAction subAccess, boolean ignoreEmptyDir, AuthzContext context) {
+			Set<String> accessTypes = access2ActionListMapper.get(subAccess);
+
+			if (accessTypes == null) {
+				LOG.warn("RangerAccessControlEnforcer.checkSubAccessInParallel(" + rootPath + ", " + subAccess + ", " + context.user + "): no Ranger accessType found for " + subAccess);
+
+				accessTypes = access2ActionListMapper.get(FsAction.NONE);
+			}
+
+			SubAccessCheck check = new SubAccessCheck(snapshotId, subAccess, accessTypes, ignoreEmptyDir, context, RangerHdfsAccessRequest.getRemoteIp());
+
+			rangerPlugin.getSubAccessPool().invoke(new SubAccessTask(check, root, rootPath));
+
+			AuthzStatus        ret    = check.getStatus();
+			RangerAccessResult result = check.getResult();
+
+			context.saveResult(result);
+
+			if (ret == AuthzStatus.ALLOW && check.isLimitExceeded()) {
+				ret = denySubAccessOverLimit(rootPath, check.maxDirectories, context); // audits the result saved above
+			} else if (result != null && context.auditHandler != null) {
+				context.auditHandler.processResult(result);
+			}
+
+			return ret;
+		}
+
+		private AuthzStatus denySubAccessOverLimit(String path, int maxDirectories, AuthzContext context) {
+			LOG.warn("RangerAccessControlEnforcer.checkSubAccess(" + path + ", " + context.user + "): number of directories exceeds " + RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_PROP + "=" + maxDirectories + ". Access denied");
+
+			RangerAccessResult lastResult = context.getLastResult();
+
+			if (lastResult != null) {
+				lastResult.setIsAllowed(false);
+				lastResult.setIsAccessDetermined(true);
+				lastResult.setPolicyId(-1);
+
+				context.plugin.evalAuditPolicies(lastResult);
+
+				if (context.auditHandler != null) {
+					context.auditHandler.processResult(lastResult);
+				}
+			}
+
+			return AuthzStatus.DENY;
+		}
+
+		private RangerAccessResult evalSubAccess(INodeDirectory dir, String path, boolean forHierarchy, SubAccessCheck check) {
+			RangerAccessResult ret = null;
+
+			if (check.accessTypes.size() > 0) {
+				INodeAttributes dirAttribs = dir.getSnapshotINode(check.snapshotId);
+				String          pathOwner  = dirAttribs != null ? dirAttribs.getUserName() : null;
+				INode           inode      = dir;
+
+				if (pathOwner == null) {
+					pathOwner = dir.getUserName();
+				}
+
+				if (RangerHadoopConstants.HDFS_ROOT_FOLDER_PATH_ALT.equals(path)) {
+					path = HDFS_ROOT_FOLDER_PATH;
+				}
+
+				if (forHierarchy) {
+					path  = getChildPath(path, rangerPlugin.getRandomizedWildcardPathName());
+					inode = null;
+				}
+
+				ret = evalAccess(inode, path, pathOwner, check.subAccess, check.accessTypes, check.remoteIp, check.context, null);
+			}
+
+			return ret;
+		}
+
+		/*
+		    remoteIp is given by the caller, as sub-access tasks don't run in the IPC handler thread
+		 */
+		private RangerAccessResult evalAccess(INode inode, String path, String pathOwner, FsAction access, Set<String> accessTypes, String remoteIp, AuthzContext context, RangerHdfsAuditHandler auditHandler) {
+			RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, accessTypes.iterator().next(), context.operationName, context.user, context.userGroups, remoteIp);
+
+			if (accessTypes.size() > 1) {
+				RangerAccessRequestUtil.setAllRequestedAccessTypes(request.getContext(), accessTypes);
+			}
+
+			return context.plugin.isAccessAllowed(request, auditHandler);
+		}
+
+		class SubAccessCheck {
+			final int           snapshotId;
+			final FsAction      subAccess;
+			final Set<String>   accessTypes;
+			final boolean       ignoreEmptyDir;
+			final AuthzContext  context;
+			final String        remoteIp;
+			final int           maxDirectories               = rangerPlugin.getMaxSubAccessDirectories();
+			final boolean       optimizeSubAccessAuthEnabled = rangerPlugin.isOptimizeSubAccessAuthEnabled();
+			final AtomicInteger dirCount                     = new AtomicInteger();
+
+			private volatile boolean            isDone          = false;
+			private volatile boolean            isLimitExceeded = false;
+			private volatile RangerAccessResult rootResult      = null;
+			private          RangerAccessResult failedResult    = null;
+
+			SubAccessCheck(int snapshotId, FsAction subAccess, Set<String> accessTypes, boolean ignoreEmptyDir, AuthzContext context, String remoteIp) {
+				this.snapshotId     = snapshotId;
+				this.subAccess      = subAccess;
+				this.accessTypes    = accessTypes;
+				this.ignoreEmptyDir = ignoreEmptyDir;
+				this.context        = context;
+				this.remoteIp       = remoteIp;
+			}
+
+			boolean isDone() { return isDone; }
+
+			boolean isLimitExceeded() { return isLimitExceeded; }
+
+			// returns false when the limit on number of directories to check is exceeded
+			boolean addDirectory() {
+				if (maxDirectories > 0 && dirCount.incrementAndGet() > maxDirectories) {
+					isLimitExceeded = true;
+					isDone          = true;
+				}
+
+				return !isLimitExceeded;
+			}
+
+			void setRootResult(RangerAccessResult result) {
+				rootResult = result;
+			}
+
+			// an explicit deny takes precedence over a not-determined result found by another task
+			synchronized void setFailedResult(RangerAccessResult result) {
+				if (failedResult == null || (toAuthzStatus(result) == AuthzStatus.DENY && toAuthzStatus(failedResult) != AuthzStatus.DENY)) {
+					failedResult = result;
+				}
+
+				isDone = true;
+			}
+
+			synchronized RangerAccessResult getResult() {
+				return failedResult != null ? failedResult : rootResult;
+			}
+
+			synchronized AuthzStatus getStatus() {
+				return failedResult != null ? toAuthzStatus(failedResult) : AuthzStatus.ALLOW;
+			}
+		}
+
+		class SubAccessTask extends RecursiveAction {
+			private final SubAccessCheck check;
+			private final INodeDirectory dir;
+			private final String         resourcePath;
+			private final boolean        isRoot;
+
+			SubAccessTask(SubAccessCheck check, INodeDirectory dir, String resourcePath) {
+				this(check, dir, resourcePath, true);
+			}
+
+			private SubAccessTask(SubAccessCheck check, INodeDirectory dir, String resourcePath, boolean isRoot) {
+				this.check        = check;
+				this.dir          = dir;
+				this.resourcePath = resourcePath;
+				this.isRoot       = isRoot;
+			}
+
+			@Override
+			protected void compute() {
+				if (check.isDone()) {
+					return;
+				}
+
+				ReadOnlyList<INode> cList = dir.getChildrenList(check.snapshotId);
+
+				if ((cList.isEmpty() && check.ignoreEmptyDir) || !check.addDirectory()) {
+					return;
+				}
+
+				RangerAccessResult result = evalSubAccess(dir, resourcePath, false, check);
+
+				if (isRoot) {
+					check.setRootResult(result);
+				}
+
+				if (toAuthzStatus(result) != AuthzStatus.ALLOW) {
+					check.setFailedResult(result);
+
+					return;
+				}
+
+				// no need to check directories under this one, when a recursive policy allows access to all of them
+				if (check.optimizeSubAccessAuthEnabled && toAuthzStatus(evalSubAccess(dir, resourcePath, true, check)) == AuthzStatus.ALLOW) {
+					return;
+				}
+
+				List<SubAccessTask> subTasks = new ArrayList<>();
+
+				for (INode child : cList) {
+					if (child.isDirectory()) {
+						subTasks.add(new SubAccessTask(check, child.asDirectory(), getChildPath(resourcePath, child.getLocalName()), false));
+					}
+				}
+
+				if (!subTasks.isEmpty() && !check.isDone()) {
+					invokeAll(subTasks);
+				}
+			}
+		}
+
 		/*
 		    Check if parent or ancestor of the file being accessed is denied EXECUTE permission. If not, assume that Ranger-acls
 		    allowed EXECUTE access. Do not audit this authorization check if resource is a file unless access is explicitly denied
@@ -717,23 +960,11 @@ private AuthzStatus isAccessAllowed(INode inode, INodeAttributes inodeAttribs, S
 			}
 
 			if (accessTypes.size() > 0) {
-				RangerHdfsAccessRequest request = new RangerHdfsAccessRequest(inode, path, pathOwner, access, accessTypes.iterator().next(), context.operationName, context.user, context.userGroups);
-
-				if (accessTypes.size() > 1) {
-					RangerAccessRequestUtil.setAllRequestedAccessTypes(request.getContext(), accessTypes);
-				}
-
-				RangerAccessResult result = context.plugin.isAccessAllowed(request, context.auditHandler);
+				RangerAccessResult result = evalAccess(inode, path, pathOwner, access, accessTypes, RangerHdfsAccessRequest.getRemoteIp(), context, context.auditHandler);
 
 				context.saveResult(result);
 
-				if (result == null || !result.getIsAccessDetermined()) {
-					ret = AuthzStatus.NOT_DETERMINED;
-				} else if (!result.getIsAllowed()) { // explicit deny
-					ret = AuthzStatus.DENY;
-				} else { // allowed
-					ret = AuthzStatus.ALLOW;
-				}
+				ret = toAuthzStatus(result);
 			}
 
 			if(ret == null) {
@@ -811,6 +1042,30 @@ private AuthzStatus isAccessAllowedForHierarchy(INode inode, INodeAttributes ino
 			return ret;
 		}
 	}
+
+	private static AuthzStatus toAuthzStatus(RangerAccessResult result) {
+		final AuthzStatus ret;
+
+		if (result == null || !result.getIsAccessDetermined()) {
+			ret = AuthzStatus.NOT_DETERMINED;
+		} else if (!result.getIsAllowed()) { // explicit deny
+			ret = AuthzStatus.DENY;
+		} else { // allowed
+			ret = AuthzStatus.ALLOW;
+		}
+
+		return ret;
+	}
+
+	private static String getChildPath(String parentPath, String childName) {
+		StringBuilder sb = new StringBuilder(parentPath.length() + 1 + childName.length()).append(parentPath);
+
+		if (parentPath.isEmpty() || parentPath.charAt(parentPath.length() - 1) != Path.SEPARATOR_CHAR) {
+			sb.append(Path.SEPARATOR_CHAR);
+		}
+
+		return sb.append(childName).toString();
+	}
 }
 
 
@@ -821,9 +1076,13 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 
 	private final boolean     hadoopAuthEnabled;
 	private final boolean     optimizeSubAccessAuthEnabled;
+	private final boolean     parallelSubAccessAuthEnabled;
+	private final int         parallelSubAccessAuthThreads;
+	private final int         maxSubAccessDirectories;
 	private final String      randomizedWildcardPathName;
 	private final String      hadoopModuleName;
 	private final Set<String> excludeUsers = new HashSet<>();
+	private volatile ForkJoinPool subAccessPool = null;
 
 	public RangerHdfsPlugin(Path addlConfigFile) {
 		super("hdfs", "hdfs");
@@ -842,6 +1101,9 @@ public RangerHdfsPlugin(Path addlConfigFile) {
 		config.setIsFallbackSupported(this.hadoopAuthEnabled);
 
 		this.optimizeSubAccessAuthEnabled = config.getBoolean(RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT);
+		this.parallelSubAccessAuthEnabled = config.getBoolean(RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_PROP, RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_DEFAULT);
+		this.parallelSubAccessAuthThreads = Math.max(1, config.getInt(RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_THREADS_PROP, RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_THREADS_DEFAULT));
+		this.maxSubAccessDirectories      = config.getInt(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_PROP, RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_DEFAULT);
 		this.randomizedWildcardPathName   = RangerPathResourceMatcher.WILDCARD_ASTERISK + random + RangerPathResourceMatcher.WILDCARD_ASTERISK;
 		this.hadoopModuleName             = config.get(RangerHadoopConstants.AUDITLOG_HADOOP_MODULE_ACL_NAME_PROP , RangerHadoopConstants.DEFAULT_HADOOP_MODULE_ACL_NAME);
 
@@ -890,11 +1152,62 @@ public boolean isHadoopAuthEnabled() {
 	public boolean isOptimizeSubAccessAuthEnabled() {
 		return optimizeSubAccessAuthEnabled;
 	}
+	public boolean isParallelSubAccessAuthEnabled() {
+		return parallelSubAccessAuthEnabled;
+	}
+	public int getParallelSubAccessAuthThreads() {
+		return parallelSubAccessAuthThreads;
+	}
+	public int getMaxSubAccessDirectories() {
+		return maxSubAccessDirectories;
+	}
 	public String getRandomizedWildcardPathName() {
 		return randomizedWildcardPathName;
 	}
 	public String getHadoopModuleName() { return hadoopModuleName; }
 	public Set<String> getExcludedUsers() { return  excludeUsers; }
+
+	public ForkJoinPool getSubAccessPool() {
+		ForkJoinPool ret = subAccessPool;
+
+		if (ret == null) {
+			synchronized (this) {
+				ret = subAccessPool;
+
+				if (ret == null) {
+					ret = new ForkJoinPool(parallelSubAccessAuthThreads, new SubAccessThreadFactory(), null, false);
+
+					subAccessPool = ret;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void cleanup() {
+		super.cleanup();
+
+		ForkJoinPool pool = subAccessPool;
+
+		subAccessPool = null;
+
+		if (pool != null) {
+			pool.shutdownNow();
+		}
+	}
+
+	private static class SubAccessThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread ret = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+			ret.setName("RangerHdfsSubAccess-" + ret.getPoolIndex());
+
+			return ret;
+		}
+	}
 }
 
 class RangerHdfsResource extends RangerAccessResourceImpl {
@@ -921,6 +1234,11 @@ public String getAsString() {
 class RangerHdfsAccessRequest extends RangerAccessRequestImpl {
 
 	public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAction access, String accessType, String action, String user, Set<String> groups) {
+		this(inode, path, pathOwner, access, accessType, action, user, groups, getRemoteIp());
+	}
+
+	// remoteIp should be given when the request is created outside of the IPC handler thread, like in sub-access check tasks
+	public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAction access, String accessType, String action, String user, Set<String> groups, String remoteIp) {
 		if (action == null && access != null) {
 			action = access.toString();
 		}
@@ -930,17 +1248,17 @@ public RangerHdfsAccessRequest(INode inode, String path, String pathOwner, FsAct
 		super.setUser(user);
 		super.setUserGroups(groups);
 		super.setAccessTime(new Date());
-		super.setClientIPAddress(getRemoteIp());
+		super.setClientIPAddress(remoteIp);
 		super.setAction(action);
 		super.setForwardedAddresses(null);
-		super.setRemoteIPAddress(getRemoteIp());
+		super.setRemoteIPAddress(remoteIp);
 
 		if (inode != null) {
 			buildRequestContext(inode);
 		}
 	}
 
-	private static String getRemoteIp() {
+	static String getRemoteIp() {
 		String ret = null;
 		InetAddress ip = Server.getRemoteIp();
 		if (ip != null) {
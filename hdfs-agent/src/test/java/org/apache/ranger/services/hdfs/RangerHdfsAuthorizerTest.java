@@ -29,14 +29,17 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.fs.permission.PermissionStatus;
 import org.apache.hadoop.hdfs.server.namenode.INode;
 import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider;
 import org.apache.hadoop.hdfs.server.namenode.INodeAttributeProvider.AccessControlEnforcer;
 import org.apache.hadoop.hdfs.server.namenode.INodeAttributes;
+import org.apache.hadoop.hdfs.server.namenode.INodeDirectory;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.ranger.authorization.hadoop.RangerHdfsAuthorizer;
+import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -187,6 +190,15 @@ public void checkDirAccessBlocked(FsAction access, String userName, String... gr
 
     @BeforeClass
     public static void setup() {
+        authorizer = createAuthorizer("");
+
+        AccessControlEnforcer accessControlEnforcer = null;
+        rangerControlEnforcer = authorizer.getExternalAccessControlEnforcer(accessControlEnforcer);
+    }
+
+    private static RangerHdfsAuthorizer createAuthorizer(String additionalProperties) {
+        RangerHdfsAuthorizer ret = null;
+
         try {
             File file = File.createTempFile("hdfs-version-site", ".xml");
             file.deleteOnExit();
@@ -202,17 +214,24 @@ public static void setup() {
                         "                <name>xasecure.add-hadoop-authorization</name>\n" +
                         "                <value>true</value>\n" +
                         "        </property>\n" +
+                        additionalProperties +
                         "</configuration>\n");
             }
 
-            authorizer = new RangerHdfsAuthorizer(new org.apache.hadoop.fs.Path(file.toURI()));
-            authorizer.start();
+            ret = new RangerHdfsAuthorizer(new org.apache.hadoop.fs.Path(file.toURI()));
+            ret.start();
         } catch (Exception exception) {
             Assert.fail("Cannot create hdfs-version-site file:[" + exception.getMessage() + "]");
         }
 
-        AccessControlEnforcer accessControlEnforcer = null;
-        rangerControlEnforcer = authorizer.getExternalAccessControlEnforcer(accessControlEnforcer);
+        return ret;
+    }
+
+    private static String property(String name, String value) {
+        return "        <property>\n" +
+               "                <name>" + name + "</name>\n" +
+               "                <value>" + value + "</value>\n" +
+               "        </property>\n";
     }
 
     @AfterClass
@@ -302,6 +321,110 @@ public void HDFSBaseFileNameTokenReadTest() throws AccessControlException {
         readFailWithPath("/tmp/tmpdir5/t/data-file.txt");
     }
 
+    @Test
+    public void subAccessTest() throws AccessControlException {
+        checkSubAccess(rangerControlEnforcer);
+    }
+
+    @Test
+    public void subAccessParallelTest() throws AccessControlException {
+        RangerHdfsAuthorizer parallelAuthorizer = createAuthorizer(property(RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_PROP, "true"));
+
+        try {
+            checkSubAccess(parallelAuthorizer.getExternalAccessControlEnforcer(null));
+        } finally {
+            parallelAuthorizer.stop();
+        }
+    }
+
+    @Test
+    public void subAccessMaxDirectoriesTest() throws AccessControlException {
+        INodeDirectory dir = createDirectory("get-content-summary", createDirectory("tmpdir1"), createDirectory("tmpdir2"));
+
+        checkSubAccess(rangerControlEnforcer, "/tmp/get-content-summary", dir, FsAction.READ_EXECUTE, "bob");
+
+        for (String parallel : new String[] { "false", "true" }) {
+            RangerHdfsAuthorizer limitedAuthorizer = createAuthorizer(property(RangerHadoopConstants.RANGER_PARALLEL_SUBACCESS_AUTHORIZATION_PROP, parallel) +
+                                                                      property(RangerHadoopConstants.RANGER_SUBACCESS_AUTHORIZATION_MAX_DIRECTORIES_PROP, "2"));
+
+            try {
+                checkSubAccessBlocked(limitedAuthorizer.getExternalAccessControlEnforcer(null), "/tmp/get-content-summary", dir, FsAction.READ_EXECUTE, "bob");
+            } finally {
+                limitedAuthorizer.stop();
+            }
+        }
+    }
+
+    private void checkSubAccess(AccessControlEnforcer enforcer) throws AccessControlException {
+        // /tmp/tmpdir3 policy is recursive
+        INodeDirectory tmpdir3 = createDirectory("tmpdir3", createDirectory("a", createDirectory("b")), createDirectory("c"));
+
+        checkSubAccess(enforcer, "/tmp/tmpdir3", tmpdir3, FsAction.READ_EXECUTE, "bob");
+        checkSubAccess(enforcer, "/tmp/tmpdir3", tmpdir3, FsAction.READ_EXECUTE, "alice", "IT");
+        checkSubAccessBlocked(enforcer, "/tmp/tmpdir3", tmpdir3, FsAction.READ_EXECUTE, "eve");
+        checkSubAccessBlocked(enforcer, "/tmp/tmpdir3", tmpdir3, FsAction.WRITE, "bob");
+
+        // /tmp/get-content-summary policy is not recursive: it covers only its directories tmpdir1 and tmpdir2
+        checkSubAccess(enforcer, "/tmp/get-content-summary", createDirectory("get-content-summary", createDirectory("tmpdir1"), createDirectory("tmpdir2")), FsAction.READ_EXECUTE, "bob");
+        checkSubAccessBlocked(enforcer, "/tmp/get-content-summary", createDirectory("get-content-summary", createDirectory("tmpdir1"), createDirectory("tmpdir3")), FsAction.READ_EXECUTE, "bob");
+        checkSubAccessBlocked(enforcer, "/tmp/get-content-summary", createDirectory("get-content-summary", createDirectory("tmpdir1", createDirectory("tmpdir2"))), FsAction.READ_EXECUTE, "bob");
+    }
+
+    private static void checkSubAccessBlocked(AccessControlEnforcer enforcer, String path, INodeDirectory dir, FsAction subAccess, String userName, String... groups) {
+        try {
+            checkSubAccess(enforcer, path, dir, subAccess, userName, groups);
+            Assert.fail("Access should be blocked for sub-directories of " + path + " subAccess=" + subAccess
+                    + " for user=" + userName + " groups=" + Arrays.asList(groups));
+        } catch (AccessControlException ace) {
+            Assert.assertNotNull(ace);
+        }
+    }
+
+    private static void checkSubAccess(AccessControlEnforcer enforcer, String path, INodeDirectory dir, FsAction subAccess, String userName, String... groups) throws AccessControlException {
+        final UserGroupInformation user         = UserGroupInformation.createUserForTesting(userName, groups);
+        final String[]             pathSegments = path.split("/");
+        final INode[]              nodes        = new INode[pathSegments.length];
+
+        for (int i = 0; i < pathSegments.length - 1; i++) {
+            nodes[i] = createNode(pathSegments, i, FILE_OWNER, FILE_GROUP, false);
+        }
+
+        nodes[nodes.length - 1] = dir;
+
+        INodeAttributeProvider.AuthorizationContext.Builder builder =
+                new  INodeAttributeProvider.AuthorizationContext.Builder()
+                        .fsOwner(FILE_OWNER)
+                        .supergroup(FILE_GROUP)
+                        .callerUgi(user)
+                        .inodeAttrs(nodes)
+                        .inodes(nodes)
+                        .pathByNameArr(new byte[0][0])
+                        .snapshotId(SNAPSHOT_ID)
+                        .path(path)
+                        .ancestorIndex(nodes.length - 2)
+                        .doCheckOwner(false)
+                        .ancestorAccess(null)
+                        .parentAccess(null)
+                        .access(null)
+                        .subAccess(subAccess)
+                        .ignoreEmptyDir(false)
+                        .operationName(null)
+                        .callerContext(null);
+
+        enforcer.checkPermissionWithContext(new INodeAttributeProvider.AuthorizationContext(builder));
+    }
+
+    private static INodeDirectory createDirectory(String name, INodeDirectory... children) {
+        PermissionStatus permission = new PermissionStatus(FILE_OWNER, FILE_GROUP, FsPermission.getDirDefault());
+        INodeDirectory   ret        = new INodeDirectory(0, name.getBytes(StandardCharsets.UTF_8), permission, 0);
+
+        for (INodeDirectory child : children) {
+            ret.addChild(child);
+        }
+
+        return ret;
+    }
+
     private void readFailWithPath(String path) throws AccessControlException {
         final TestFileSystem fs = new TestFileSystem(path);
         fs.setFilePermission(READ_ONLY);
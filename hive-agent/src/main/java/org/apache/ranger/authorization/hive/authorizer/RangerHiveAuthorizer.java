@@ -26,6 +26,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -73,6 +74,7 @@
 import org.apache.ranger.plugin.model.RangerServiceDef.RangerDataMaskTypeDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs;
@@ -1163,6 +1165,11 @@ public List<HivePrivilegeObject> filterListCmdObjects(List<HivePrivilegeObject>
 			if (ret == null) { // if we got any items to filter then we can't return back a null.  We must return back a list even if its empty.
 				ret = new ArrayList<HivePrivilegeObject>(objs.size());
 			}
+
+			// evaluate all objects in a single batch, so that lookups common to the objects (like the database) are done once
+			List<HivePrivilegeObject> privilegeObjects = new ArrayList<>(objs.size());
+			List<RangerAccessRequest> requests         = new ArrayList<>(objs.size());
+
 			for (HivePrivilegeObject privilegeObject : objs) {
 				if (LOG.isDebugEnabled()) {
 					HivePrivObjectActionType actionType = privilegeObject.getActionType();
@@ -1182,21 +1189,39 @@ public List<HivePrivilegeObject> filterListCmdObjects(List<HivePrivilegeObject>
 				if (resource == null) {
 					LOG.error("filterListCmdObjects: RangerHiveResource returned by createHiveResource is null");
 				} else {
-					RangerHiveAccessRequest request = new RangerHiveAccessRequest(resource, user, groups, roles, context, sessionContext);
-					RangerAccessResult result = hivePlugin.isAccessAllowed(request, auditHandler);
+					privilegeObjects.add(privilegeObject);
+					requests.add(new RangerHiveAccessRequest(resource, user, groups, roles, context, sessionContext));
+				}
+			}
+
+			Collection<RangerAccessResult> results = requests.isEmpty() ? null : hivePlugin.isAccessAllowed(requests, null);
+
+			if (results != null) {
+				Iterator<HivePrivilegeObject> iterObjects  = privilegeObjects.iterator();
+				Iterator<RangerAccessRequest> iterRequests = requests.iterator();
+
+				for (RangerAccessResult result : results) {
+					HivePrivilegeObject     privilegeObject = iterObjects.next();
+					RangerHiveAccessRequest request         = (RangerHiveAccessRequest) iterRequests.next();
+
 					if (result == null) {
 						LOG.error("filterListCmdObjects: Internal error: null RangerAccessResult object received back from isAccessAllowed()!");
-					} else if (!result.getIsAllowed()) {
-						if (LOG.isDebugEnabled()) {
-							String path = resource.getAsString();
-							LOG.debug(String.format("filterListCmdObjects: Permission denied: user [%s] does not have [%s] privilege on [%s]. resource[%s], request[%s], result[%s]",
-									user, request.getHiveAccessType().name(), path, resource, request, result));
-						}
 					} else {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug(String.format("filterListCmdObjects: access allowed. resource[%s], request[%s], result[%s]", resource, request, result));
+						auditHandler.processResult(result);
+
+						if (!result.getIsAllowed()) {
+							if (LOG.isDebugEnabled()) {
+								RangerAccessResource resource = request.getResource();
+								String path = resource.getAsString();
+								LOG.debug(String.format("filterListCmdObjects: Permission denied: user [%s] does not have [%s] privilege on [%s]. resource[%s], request[%s], result[%s]",
+										user, request.getHiveAccessType().name(), path, resource, request, result));
+							}
+						} else {
+							if (LOG.isDebugEnabled()) {
+								LOG.debug(String.format("filterListCmdObjects: access allowed. resource[%s], request[%s], result[%s]", request.getResource(), request, result));
+							}
+							ret.add(privilegeObject);
 						}
-						ret.add(privilegeObject);
 					}
 				}
 			}
@@ -1261,16 +1286,14 @@ public List<HivePrivilegeObject> applyRowFilterAndColumnMasking(HiveAuthzContext
 					if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
 						List<String> columnTransformers = new ArrayList<String>();
 
-						for (String column : hiveObj.getColumns()) {
-							boolean isColumnTransformed = addCellValueTransformerAndCheckIfTransformed(queryContext, hiveObj, column, columnTransformers, metaStoreClient);
-
-							if(LOG.isDebugEnabled()) {
-								LOG.debug("addCellValueTransformerAndCheckIfTransformed(database=" + database + ", table=" + table + ", column=" + column + "): " + isColumnTransformed);
-							}
+						boolean isAnyColumnTransformed = addCellValueTransformersAndCheckIfTransformed(queryContext, hiveObj, columnTransformers, metaStoreClient);
 
-							needToTransform = needToTransform || isColumnTransformed;
+						if(LOG.isDebugEnabled()) {
+							LOG.debug("addCellValueTransformersAndCheckIfTransformed(database=" + database + ", table=" + table + ", columns=" + hiveObj.getColumns() + "): " + isAnyColumnTransformed);
 						}
 
+						needToTransform = needToTransform || isAnyColumnTransformed;
+
 						hiveObj.setCellValueTransformers(columnTransformers);
 					}
 				}
@@ -1376,23 +1399,26 @@ private String getRowFilterExpression(HiveAuthzContext context, HivePrivilegeObj
 		return ret;
 	}
 
-	private boolean addCellValueTransformerAndCheckIfTransformed(HiveAuthzContext context, HivePrivilegeObject tableOrView, String columnName, List<String> columnTransformers, IMetaStoreClient metaStoreClient) throws SemanticException {
+	/*
+	 * Evaluates data-mask policies for all columns of the table/view in a single batch: user, groups, roles and the
+	 * table owner are looked up once for the table, instead of once for each column.
+	 */
+	private boolean addCellValueTransformersAndCheckIfTransformed(HiveAuthzContext context, HivePrivilegeObject tableOrView, List<String> columnTransformers, IMetaStoreClient metaStoreClient) throws SemanticException {
 		UserGroupInformation ugi = getCurrentUserGroupInfo();
 
 		if(ugi == null) {
 			throw new SemanticException("user information not available");
 		}
 
-
-		String databaseName    = tableOrView.getDbname();
-		String tableOrViewName = tableOrView.getObjectName();
+		String       databaseName    = tableOrView.getDbname();
+		String       tableOrViewName = tableOrView.getObjectName();
+		List<String> columnNames     = tableOrView.getColumns();
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("==> addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + ")");
+			LOG.debug("==> addCellValueTransformersAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnNames + ")");
 		}
 
 		boolean ret = false;
-		String columnTransformer = columnName;
 
 		RangerHiveAuditHandler auditHandler = new RangerHiveAuditHandler(hivePlugin.getConfig());
 
@@ -1402,54 +1428,79 @@ private boolean addCellValueTransformerAndCheckIfTransformed(HiveAuthzContext co
 			Set<String>             groups         = Sets.newHashSet(ugi.getGroupNames());
 			Set<String>             roles          = getCurrentRolesForUser(user, groups);
 			HiveObjectType          objectType     = HiveObjectType.COLUMN;
-			RangerHiveResource      resource       = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
+			RangerHiveResource      tableResource  = new RangerHiveResource(HiveObjectType.TABLE, databaseName, tableOrViewName);
 
-			setOwnerUser(resource, tableOrView, metaStoreClient);
+			setOwnerUser(tableResource, tableOrView, metaStoreClient);
 
-			RangerHiveAccessRequest request = new RangerHiveAccessRequest(resource, user, groups, roles, objectType.name(), HiveAccessType.SELECT, context, sessionContext);
-			RangerAccessResult      result  = hivePlugin.evalDataMaskPolicies(request, auditHandler);
+			List<RangerAccessRequest> requests = new ArrayList<>(columnNames.size());
 
-			ret = isDataMaskEnabled(result);
+			for (String columnName : columnNames) {
+				RangerHiveResource resource = new RangerHiveResource(objectType, databaseName, tableOrViewName, columnName);
 
-			if(ret) {
-				String                maskType    = result.getMaskType();
-				RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
-				String transformer	= null;
-				if (maskTypeDef != null) {
-					transformer = maskTypeDef.getTransformer();
-				}
+				resource.setOwnerUser(tableResource.getOwnerUser());
 
-				if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
-					columnTransformer = "NULL";
-				} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
-					String maskedValue = result.getMaskedValue();
+				requests.add(new RangerHiveAccessRequest(resource, user, groups, roles, objectType.name(), HiveAccessType.SELECT, context, sessionContext));
+			}
 
-					if(maskedValue == null) {
-						columnTransformer = "NULL";
-					} else {
-						columnTransformer = maskedValue.replace("{col}", columnName);
-					}
+			Collection<RangerAccessResult> results     = hivePlugin.evalDataMaskPolicies(requests, auditHandler);
+			Iterator<RangerAccessResult>   iterResults = results != null ? results.iterator() : null;
+
+			for (String columnName : columnNames) {
+				RangerAccessResult result            = iterResults != null && iterResults.hasNext() ? iterResults.next() : null;
+				String             columnTransformer = getColumnTransformer(columnName, result);
 
-				} else if(StringUtils.isNotEmpty(transformer)) {
-					columnTransformer = transformer.replace("{col}", columnName);
+				if(LOG.isDebugEnabled()) {
+					LOG.debug("addCellValueTransformersAndCheckIfTransformed(database=" + databaseName + ", table=" + tableOrViewName + ", column=" + columnName + "): " + columnTransformer);
 				}
 
-				/*
-				String maskCondition = result.getMaskCondition();
+				ret = ret || isDataMaskEnabled(result);
 
-				if(StringUtils.isNotEmpty(maskCondition)) {
-					ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
-				}
-				*/
+				columnTransformers.add(columnTransformer);
 			}
 		} finally {
 			auditHandler.flushAudit();
 		}
 
-		columnTransformers.add(columnTransformer);
-
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + "): " + ret);
+			LOG.debug("<== addCellValueTransformersAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnNames + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private String getColumnTransformer(String columnName, RangerAccessResult result) {
+		String ret = columnName;
+
+		if(isDataMaskEnabled(result)) {
+			String                maskType    = result.getMaskType();
+			RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
+			String transformer	= null;
+			if (maskTypeDef != null) {
+				transformer = maskTypeDef.getTransformer();
+			}
+
+			if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
+				ret = "NULL";
+			} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
+				String maskedValue = result.getMaskedValue();
+
+				if(maskedValue == null) {
+					ret = "NULL";
+				} else {
+					ret = maskedValue.replace("{col}", columnName);
+				}
+
+			} else if(StringUtils.isNotEmpty(transformer)) {
+				ret = transformer.replace("{col}", columnName);
+			}
+
+			/*
+			String maskCondition = result.getMaskCondition();
+
+			if(StringUtils.isNotEmpty(maskCondition)) {
+				ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
+			}
+			*/
 		}
 
 		return ret;
@@ -447,91 +447,56 @@ public void engineLoad(InputStream stream, char[] password) throws IOException,
         }
 
         Map<String, Object> keyEntries = new ConcurrentHashMap<>();
+        MessageDigest       md         = getLoadDigest(password);
+        byte[]              computed   = md != null ? md.digest() : new byte[0];
 
-        if (keyVaultEnabled) {
-            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-                String             encodedStr  = rangerKey.getEncoded();
-                byte[]             encodedByte = DatatypeConverter.parseBase64Binary(encodedStr);
-                String             alias       = rangerKey.getAlias();
-                SecretKeyByteEntry entry       = new SecretKeyByteEntry(new Date(rangerKey.getCreatedDate()), encodedByte,
-                                                                        rangerKey.getCipher(), rangerKey.getBitLength(),
-                                                                        rangerKey.getDescription(), rangerKey.getVersion(),
-                                                                        rangerKey.getAttributes());
-
-                logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
-
-                keyEntries.put(alias, entry);
-            }
-        } else {
-            MessageDigest md = null;
-
-            if (password != null) {
-                md = getKeyedMessageDigest(password);
-            }
-
-            byte computed[] = {};
-
-            if (md != null) {
-                computed = md.digest();
-            }
-
-            for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-                String encoded = rangerKey.getEncoded();
-                byte[] data    = DatatypeConverter.parseBase64Binary(encoded);
+        for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+            Object entry = toKeyEntry(rangerKey, md, computed);
 
-                if (data != null && data.length > 0) {
-                    stream = new ByteArrayInputStream(data);
-                } else {
-                    logger.error("No Key found for alias {}", rangerKey.getAlias());
-                }
+            logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
 
-                if (computed != null) {
-                    int counter = 0;
+            // Add the entry to the list
+            keyEntries.put(rangerKey.getAlias(), entry);
+        }
 
-                    for (int i = computed.length - 1; i >= 0; i--) {
-                        if (computed[i] != data[data.length - (1 + counter)]) {
-                            Throwable t = new UnrecoverableKeyException("Password verification failed");
+        if (logger.isDebugEnabled()) {
+            logger.debug("engineLoad(): loaded {} keys", keyEntries.size());
+        }
 
-                            logger.error("Keystore was tampered with, or password was incorrect.", t);
+        this.keyEntries = keyEntries;
 
-                            throw new IOException("Keystore was tampered with, or password was incorrect", t);
-                        } else {
-                            counter++;
-                        }
-                    }
-                }
+        if (logger.isDebugEnabled()) {
+            logger.debug("engineLoad(): keyEntries switched with {} keys", keyEntries.size());
+        }
+    }
 
-                SealedObject sealedKey;
+    /**
+     * Loads only the given alias from the database, instead of all keys like engineLoad() does.
+     *
+     * @return true if the alias was found in the database
+     */
+    public boolean engineLoadAlias(String alias, char[] password) throws IOException, NoSuchAlgorithmException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> engineLoadAlias({})", alias);
+        }
 
-                // read the (entry creation) date
-                // read the sealed key
-                try (DataInputStream dis = password != null ? new DataInputStream(new DigestInputStream(stream, md)) : new DataInputStream(stream);
-                     ObjectInputStream ois = new ObjectInputStream(dis)) {
-                    sealedKey = (SealedObject) ois.readObject();
-                } catch (ClassNotFoundException cnfe) {
-                    throw new IOException(cnfe.getMessage());
-                }
+        boolean          ret       = false;
+        XXRangerKeyStore rangerKey = dbOperationLoad(alias);
 
-                SecretKeyEntry entry = new SecretKeyEntry(new Date(rangerKey.getCreatedDate()), sealedKey, rangerKey.getCipher(),
-                                                          rangerKey.getBitLength(), rangerKey.getDescription(), rangerKey.getVersion(),
-                                                          rangerKey.getAttributes());
+        if (rangerKey != null) {
+            MessageDigest md       = getLoadDigest(password);
+            byte[]        computed = md != null ? md.digest() : new byte[0];
 
-                logger.debug("engineLoad(): loaded key {}", rangerKey.getAlias());
+            keyEntries.put(alias, toKeyEntry(rangerKey, md, computed));
 
-                // Add the entry to the list
-                keyEntries.put(rangerKey.getAlias(), entry);
-            }
+            ret = true;
         }
 
         if (logger.isDebugEnabled()) {
-            logger.debug("engineLoad(): loaded {} keys", keyEntries.size());
+            logger.debug("<== engineLoadAlias({}): ret={}", alias, ret);
         }
 
-        this.keyEntries = keyEntries;
-
-        if (logger.isDebugEnabled()) {
-            logger.debug("engineLoad(): keyEntries switched with {} keys", keyEntries.size());
-        }
+        return ret;
     }
 
     @Override
@@ -934,6 +899,74 @@ private XXRangerKeyStore mapToEntityBean(XXRangerKeyStore rangerKMSKeyStore, XXR
         return xxRangerKeyStore;
     }
 
+    private XXRangerKeyStore dbOperationLoad(String alias) {
+        XXRangerKeyStore ret = null;
+
+        try {
+            if (kmsDao != null) {
+                ret = kmsDao.getKeyByAlias(alias);
+            }
+        } catch (Exception e) {
+            logger.error("dbOperationLoad({}) error", alias, e);
+        }
+
+        return ret;
+    }
+
+    private MessageDigest getLoadDigest(char[] password) throws IOException, NoSuchAlgorithmException {
+        return (!keyVaultEnabled && password != null) ? getKeyedMessageDigest(password) : null;
+    }
+
+    private Object toKeyEntry(XXRangerKeyStore rangerKey, MessageDigest md, byte[] computed) throws IOException {
+        if (keyVaultEnabled) {
+            byte[] encodedByte = DatatypeConverter.parseBase64Binary(rangerKey.getEncoded());
+
+            return new SecretKeyByteEntry(new Date(rangerKey.getCreatedDate()), encodedByte, rangerKey.getCipher(),
+                                          rangerKey.getBitLength(), rangerKey.getDescription(), rangerKey.getVersion(),
+                                          rangerKey.getAttributes());
+        }
+
+        InputStream stream = null;
+        byte[]      data   = DatatypeConverter.parseBase64Binary(rangerKey.getEncoded());
+
+        if (data != null && data.length > 0) {
+            stream = new ByteArrayInputStream(data);
+        } else {
+            logger.error("No Key found for alias {}", rangerKey.getAlias());
+        }
+
+        if (computed != null) {
+            int counter = 0;
+
+            for (int i = computed.length - 1; i >= 0; i--) {
+                if (computed[i] != data[data.length - (1 + counter)]) {
+                    Throwable t = new UnrecoverableKeyException("Password verification failed");
+
+                    logger.error("Keystore was tampered with, or password was incorrect.", t);
+
+                    throw new IOException("Keystore was tampered with, or password was incorrect", t);
+                } else {
+                    counter++;
+                }
+            }
+        }
+
+        SealedObject sealedKey;
+
+        // read the (entry creation) date
+        // read the sealed key
+        try (DataInputStream dis = md != null ? new DataInputStream(new DigestInputStream(stream, md)) : new DataInputStream(stream);
+             ObjectInputStream ois = new ObjectInputStream(dis)) {
+            sealedKey = (SealedObject) ois.readObject();
+        } catch (ClassNotFoundException cnfe) {
+            throw new IOException(cnfe.getMessage());
+        }
+
+        return new SecretKeyEntry(new Date(rangerKey.getCreatedDate()), sealedKey, rangerKey.getCipher(),
+                                  rangerKey.getBitLength(), rangerKey.getDescription(), rangerKey.getVersion(),
+                                  rangerKey.getAttributes());
+    }
+
     private List<XXRangerKeyStore> dbOperationLoad() {
         if (logger.isDebugEnabled()) {
             logger.debug("==> dbOperationLoad()");
@@ -36,10 +36,14 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.crypto.KeyGenerator;
 import javax.crypto.spec.SecretKeySpec;
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.ranger.plugin.util.AutoClosableLock.AutoClosableReadLock;
@@ -49,6 +53,8 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.ranger.credentialapi.CredentialReader;
 import org.apache.ranger.kms.dao.DaoManager;
+import org.apache.ranger.kms.metrics.KMSMetrics;
+import org.apache.ranger.kms.metrics.collector.KMSMetricsCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,13 +86,23 @@ public class RangerKeyStoreProvider extends KeyProvider {
     private static final String TENCENT_CLIENT_SECRET        = RangerTencentKMSProvider.TENCENT_CLIENT_SECRET;
     private static final String TENCENT_CLIENT_SECRET_ALIAS  = "ranger.kms.tencent.client.secret.alias";
     private static final String IS_GCP_ENABLED               = "ranger.kms.gcp.enabled";
-
-    private final RangerKeyStore        dbStore;
-    private final char[]                masterKey;
-    private final Map<String, Metadata> cache = new HashMap<>();
-    private final ReadWriteLock         lock  = new ReentrantReadWriteLock(true);
-    private final boolean               keyVaultEnabled;
-    private       boolean               changed = false;
+    private static final String KEY_VERSION_CACHE_ENABLED    = "ranger.kms.keyversion.cache.enabled";
+    private static final String KEY_VERSION_CACHE_MAX_SIZE   = "ranger.kms.keyversion.cache.max.size";
+    private static final String KEY_VERSION_CACHE_TTL_MS     = "ranger.kms.keyversion.cache.ttl.ms";
+    private static final String KEY_VERSION_CACHE_ZEROIZE    = "ranger.kms.keyversion.cache.zeroize";
+    private static final String MISSING_ALIAS_CACHE_TTL_MS   = "ranger.kms.keystore.missing.alias.cache.ttl.ms";
+    private static final int    MISSING_ALIAS_CACHE_MAX_SIZE = 10000;
+
+    private final RangerKeyStore                          dbStore;
+    private final char[]                                  masterKey;
+    private final Map<String, Metadata>                   cache = new HashMap<>();
+    private final ReadWriteLock                           lock  = new ReentrantReadWriteLock(true);
+    private final boolean                                 keyVaultEnabled;
+    private final RangerKeyVersionCache                   keyVersionCache;
+    private final long                                    missingAliasTtlMs;
+    private final Map<String, Long>                       missingAliases = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Boolean>> aliasLoads     = new ConcurrentHashMap<>();
+    private       boolean                                 changed = false;
 
     public RangerKeyStoreProvider(Configuration conf) throws Throwable {
         super(conf);
@@ -199,6 +215,22 @@ public RangerKeyStoreProvider(Configuration conf) throws Throwable {
             masterKey = this.generateAndGetMasterKey(masterKeyProvider, password);
         }
 
+        keyVersionCache   = createKeyVersionCache(conf);
+        missingAliasTtlMs = conf.getLong(MISSING_ALIAS_CACHE_TTL_MS, 5 * 1000L);
+
+        reloadKeys();
+    }
+
+    @VisibleForTesting
+    RangerKeyStoreProvider(Configuration conf, RangerKeyStore dbStore, char[] masterKey) throws IOException {
+        super(conf);
+
+        this.dbStore           = dbStore;
+        this.masterKey         = masterKey;
+        this.keyVaultEnabled   = false;
+        this.keyVersionCache   = createKeyVersionCache(conf);
+        this.missingAliasTtlMs = conf.getLong(MISSING_ALIAS_CACHE_TTL_MS, 5 * 1000L);
+
         reloadKeys();
     }
 
@@ -234,6 +266,8 @@ public KeyVersion createKey(String name, byte[] material, Options options) throw
 
             String versionName = buildVersionName(name, 0);
 
+            invalidateKeyVersions(name);
+
             ret = innerSetKeyVersion(name, versionName, material, meta);
         }
 
@@ -281,6 +315,8 @@ public void deleteKey(String name) throws IOException {
 
             cache.remove(name);
 
+            invalidateKeyVersions(name);
+
             changed = true;
         }
 
@@ -326,20 +362,49 @@ public KeyVersion getKeyVersion(String versionName) throws IOException {
             logger.debug("==> getKeyVersion({})", versionName);
         }
 
+        KeyVersion ret = keyVersionCache != null ? keyVersionCache.get(versionName) : null;
+
+        if (keyVersionCache != null) {
+            updateMetric(ret != null ? KMSMetrics.KMSMetric.KEY_VERSION_CACHE_HIT_COUNT : KMSMetrics.KMSMetric.KEY_VERSION_CACHE_MISS_COUNT);
+        }
+
+        if (ret == null) {
+            ret = loadKeyVersion(versionName);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("<== getKeyVersion({})", versionName);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void invalidateCache(String name) throws IOException {
+        if (logger.isDebugEnabled()) {
+            logger.debug("==> invalidateCache({})", name);
+        }
+
+        try (AutoClosableWriteLock ignored = new AutoClosableWriteLock(lock)) {
+            cache.remove(name);
+
+            missingAliases.remove(name);
+
+            invalidateKeyVersions(name);
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("<== invalidateCache({})", name);
+        }
+    }
+
+    private KeyVersion loadKeyVersion(String versionName) throws IOException {
         KeyVersion ret = null;
 
         try (AutoClosableReadLock ignored = new AutoClosableReadLock(lock)) {
             if (keyVaultEnabled) {
                 try {
-                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
-
-                    if (!versionNameExists) {
-                        dbStore.engineLoad(null, masterKey);
-
-                        versionNameExists = dbStore.engineContainsAlias(versionName);
-                    }
-
-                    if (versionNameExists) {
+                    if (loadAliasIfAbsent(versionName)) {
                         byte[] decryptKeyByte;
 
                         try {
@@ -355,39 +420,28 @@ public KeyVersion getKeyVersion(String versionName) throws IOException {
 
                 } catch (NoSuchAlgorithmException e) {
                     throw new IOException("Can't get algorithm for key " + e.getMessage());
-                } catch (CertificateException e) {
-                    throw new IOException("Certificate exception storing key", e);
                 }
             } else {
                 SecretKeySpec key = null;
                 try {
-                    boolean versionNameExists = dbStore.engineContainsAlias(versionName);
-
-                    if (!versionNameExists) {
-                        dbStore.engineLoad(null, masterKey);
-
-                        versionNameExists = dbStore.engineContainsAlias(versionName);
-                    }
-
-                    if (versionNameExists) {
+                    if (loadAliasIfAbsent(versionName)) {
                         key = (SecretKeySpec) dbStore.engineGetKey(versionName, masterKey);
                     }
                 } catch (NoSuchAlgorithmException e) {
                     throw new IOException("Can't get algorithm for key " + key, e);
                 } catch (UnrecoverableKeyException e) {
                     throw new IOException("Can't recover key " + key, e);
-                } catch (CertificateException e) {
-                    throw new IOException("Certificate exception storing key", e);
                 }
 
                 if (key != null) {
                     ret = new KeyVersion(getBaseName(versionName), versionName, key.getEncoded());
                 }
             }
-        }
 
-        if (logger.isDebugEnabled()) {
-            logger.debug("<== getKeyVersion({})", versionName);
+            // added under the read lock, so that it can't race with invalidations done under the write lock
+            if (ret != null && keyVersionCache != null) {
+                keyVersionCache.put(ret);
+            }
         }
 
         return ret;
@@ -466,11 +520,7 @@ public Metadata getMetadata(String name) throws IOException {
             ret = cache.get(name);
 
             if (ret == null) {
-                if (!dbStore.engineContainsAlias(name)) {
-                    dbStore.engineLoad(null, masterKey);
-                }
-
-                if (dbStore.engineContainsAlias(name)) {
+                if (loadAliasIfAbsent(name)) {
                     if (keyVaultEnabled) {
                         ret = dbStore.engineGetKeyMetadata(name);
 
@@ -535,6 +585,8 @@ public KeyVersion rollNewVersion(String name, byte[] material) throws IOExceptio
             int    nextVersion = meta.addVersion();
             String versionName = buildVersionName(name, nextVersion);
 
+            invalidateKeyVersions(name);
+
             ret = innerSetKeyVersion(name, versionName, material, meta);
         }
 
@@ -711,6 +763,114 @@ private void saveKey(String name, Metadata metadata) throws IOException {
         }
     }
 
+    /**
+     * Makes sure the given alias is loaded in dbStore, by loading only that alias from the database when needed.
+     * Concurrent loads of the same alias share a single database read; aliases not found in the database are
+     * remembered for missingAliasTtlMs, so that lookups of absent keys don't reach the database on every call.
+     */
+    private boolean loadAliasIfAbsent(String alias) throws IOException, NoSuchAlgorithmException {
+        if (dbStore.engineContainsAlias(alias)) {
+            return true;
+        }
+
+        Long missingUntil = missingAliases.get(alias);
+
+        if (missingUntil != null) {
+            if (missingUntil > System.currentTimeMillis()) {
+                return false;
+            }
+
+            missingAliases.remove(alias, missingUntil);
+        }
+
+        CompletableFuture<Boolean> load     = new CompletableFuture<>();
+        CompletableFuture<Boolean> inFlight = aliasLoads.putIfAbsent(alias, load);
+
+        if (inFlight == null) {
+            try {
+                boolean found = dbStore.engineContainsAlias(alias) || dbStore.engineLoadAlias(alias, masterKey);
+
+                if (!found) {
+                    addMissingAlias(alias);
+                }
+
+                load.complete(found);
+            } catch (IOException | NoSuchAlgorithmException | RuntimeException e) {
+                load.completeExceptionally(e);
+            } finally {
+                aliasLoads.remove(alias, load);
+            }
+
+            inFlight = load;
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("loadAliasIfAbsent({}): waiting for load in progress", alias);
+        }
+
+        try {
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new IOException("Interrupted while loading key " + alias, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof NoSuchAlgorithmException) {
+                throw (NoSuchAlgorithmException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Failed to load key " + alias, cause);
+        }
+    }
+
+    private void addMissingAlias(String alias) {
+        if (missingAliasTtlMs > 0) {
+            long now = System.currentTimeMillis();
+
+            if (missingAliases.size() >= MISSING_ALIAS_CACHE_MAX_SIZE) {
+                missingAliases.values().removeIf(missingUntil -> missingUntil <= now);
+
+                if (missingAliases.size() >= MISSING_ALIAS_CACHE_MAX_SIZE) {
+                    missingAliases.clear();
+                }
+            }
+
+            missingAliases.put(alias, now + missingAliasTtlMs);
+        }
+    }
+
+    private static RangerKeyVersionCache createKeyVersionCache(Configuration conf) {
+        final RangerKeyVersionCache ret;
+
+        if (conf.getBoolean(KEY_VERSION_CACHE_ENABLED, true)) {
+            ret = new RangerKeyVersionCache(conf.getInt(KEY_VERSION_CACHE_MAX_SIZE, 1000),
+                                            conf.getLong(KEY_VERSION_CACHE_TTL_MS, 10 * 60 * 1000L),
+                                            conf.getBoolean(KEY_VERSION_CACHE_ZEROIZE, true));
+        } else {
+            ret = null;
+        }
+
+        return ret;
+    }
+
+    private void invalidateKeyVersions(String name) {
+        if (keyVersionCache != null) {
+            keyVersionCache.invalidate(name);
+        }
+    }
+
+    private static void updateMetric(KMSMetrics.KMSMetric metric) {
+        KMSMetricsCollector collector = KMSMetricsCollector.getInstanceIfCreated();
+
+        if (collector != null) {
+            collector.incrementCounter(metric);
+        }
+    }
+
     private void reloadKeys() throws IOException {
         if (logger.isDebugEnabled()) {
             logger.debug("==> reloadKeys()");
@@ -718,6 +878,7 @@ private void reloadKeys() throws IOException {
 
         try (AutoClosableWriteLock ignored  = new AutoClosableWriteLock(lock)) {
             cache.clear();
+            missingAliases.clear();
 
             loadKeys(masterKey);
         } catch (NoSuchAlgorithmException|CertificateException e) {
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.crypto.key;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Size and TTL bounded cache of unsealed key versions, keyed by version name.
+ *
+ * The cache keeps its own copy of the key material and hands out a new KeyVersion, with a copy of the material, on
+ * every hit; this allows the cached copy to be zeroed when an entry is evicted, expired or invalidated, without
+ * affecting KeyVersion instances still in use by callers.
+ */
+class RangerKeyVersionCache {
+    private static final Logger logger = LoggerFactory.getLogger(RangerKeyVersionCache.class);
+
+    private final int                    maxSize;
+    private final long                   ttlMs;
+    private final boolean                zeroize;
+    private final Map<String, CachedKey> entries;
+    private final AtomicLong             hitCount      = new AtomicLong();
+    private final AtomicLong             missCount     = new AtomicLong();
+    private final AtomicLong             evictionCount = new AtomicLong();
+
+    RangerKeyVersionCache(int maxSize, long ttlMs, boolean zeroize) {
+        this.maxSize = maxSize;
+        this.ttlMs   = ttlMs;
+        this.zeroize = zeroize;
+        this.entries = new LinkedHashMap<String, CachedKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+                boolean ret = size() > RangerKeyVersionCache.this.maxSize;
+
+                if (ret) {
+                    evicted(eldest.getValue());
+                }
+
+                return ret;
+            }
+        };
+
+        logger.info("RangerKeyVersionCache(maxSize={}, ttlMs={}, zeroize={})", maxSize, ttlMs, zeroize);
+    }
+
+    KeyVersion get(String versionName) {
+        KeyVersion ret = null;
+
+        synchronized (entries) {
+            CachedKey entry = entries.get(versionName);
+
+            if (entry != null) {
+                if (entry.isExpired(System.currentTimeMillis())) {
+                    entries.remove(versionName);
+
+                    evicted(entry);
+                } else {
+                    ret = entry.toKeyVersion();
+                }
+            }
+        }
+
+        if (ret != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    void put(KeyVersion keyVersion) {
+        if (keyVersion == null || keyVersion.getMaterial() == null) {
+            return;
+        }
+
+        CachedKey entry = new CachedKey(keyVersion, System.currentTimeMillis() + ttlMs);
+
+        synchronized (entries) {
+            CachedKey prev = entries.put(keyVersion.getVersionName(), entry);
+
+            if (prev != null) {
+                evicted(prev);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached versions of the given key.
+     */
+    void invalidate(String keyName) {
+        int count = 0;
+
+        synchronized (entries) {
+            for (Iterator<CachedKey> iter = entries.values().iterator(); iter.hasNext(); ) {
+                CachedKey entry = iter.next();
+
+                if (entry.name.equals(keyName)) {
+                    iter.remove();
+
+                    evicted(entry);
+
+                    count++;
+                }
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("invalidate({}): removed {} key versions", keyName, count);
+        }
+    }
+
+    void invalidateAll() {
+        synchronized (entries) {
+            for (CachedKey entry : entries.values()) {
+                evicted(entry);
+            }
+
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private void evicted(CachedKey entry) {
+        evictionCount.incrementAndGet();
+
+        if (zeroize) {
+            Arrays.fill(entry.material, (byte) 0);
+        }
+    }
+
+    private static class CachedKey {
+        final String name;
+        final String versionName;
+        final byte[] material;
+        final long   expiryTime;
+
+        CachedKey(KeyVersion keyVersion, long expiryTime) {
+            this.name        = keyVersion.getName();
+            this.versionName = keyVersion.getVersionName();
+            this.material    = keyVersion.getMaterial().clone();
+            this.expiryTime  = expiryTime;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiryTime;
+        }
+
+        KeyVersion toKeyVersion() {
+            return new KeyVersion(name, versionName, material.clone());
+        }
+    }
+}
@@ -65,6 +65,8 @@ public class KMSWebApp implements ServletContextListener {
       "reencrypt_eek.calls.meter";
   private static final String REENCRYPT_EEK_BATCH_METER = METRICS_PREFIX +
            "reencrypt_eek_batch.calls.meter";
+  private static final String DECRYPT_EEK_BATCH_METER = METRICS_PREFIX +
+           "decrypt_eek_batch.calls.meter";
   public static final String HADOOP_KMS_METRIC_COLLECTION_THREADSAFE = "hadoop.kms.metric.collection.threadsafe";
   private static Logger LOG;
   private static MetricRegistry metricRegistry;
@@ -79,6 +81,7 @@ public class KMSWebApp implements ServletContextListener {
   private static Meter decryptEEKCallsMeter;
   private static Meter reencryptEEKCallsMeter;
   private static Meter reencryptEEKBatchCallsMeter;
+  private static Meter decryptEEKBatchCallsMeter;
   private static Meter generateEEKCallsMeter;
   private static Meter invalidCallsMeter;
   private static KMSAudit kmsAudit;
@@ -147,6 +150,8 @@ public void contextInitialized(ServletContextEvent sce) {
           new Meter());
       reencryptEEKBatchCallsMeter = metricRegistry.register(REENCRYPT_EEK_BATCH_METER,
           new Meter());
+      decryptEEKBatchCallsMeter = metricRegistry.register(DECRYPT_EEK_BATCH_METER,
+          new Meter());
       adminCallsMeter = metricRegistry.register(ADMIN_CALLS_METER, new Meter());
       keyCallsMeter = metricRegistry.register(KEY_CALLS_METER, new Meter());
       invalidCallsMeter = metricRegistry.register(INVALID_CALLS_METER,
@@ -303,6 +308,10 @@ public static Meter getReencryptEEKBatchCallsMeter() {
     return reencryptEEKBatchCallsMeter;
   }
 
+  public static Meter getDecryptEEKBatchCallsMeter() {
+    return decryptEEKBatchCallsMeter;
+  }
+
   public static Meter getUnauthorizedCallsMeter() {
     return unauthorizedCallsMeter;
   }
@@ -30,7 +30,8 @@
 public class RangerKMSDao extends BaseDao<XXRangerKeyStore> {
     private static final Logger logger = LoggerFactory.getLogger(RangerKMSDao.class);
 
-    private static final String GET_ALL_KEYS_QUERY_NAME = "XXRangerKeyStore.getAllKeys";
+    private static final String GET_ALL_KEYS_QUERY_NAME     = "XXRangerKeyStore.getAllKeys";
+    private static final String GET_KEY_BY_ALIAS_QUERY_NAME = "XXRangerKeyStore.getKeyByAlias";
 
     RangerKMSDao(DaoManagerBase daoManager) {
         super(daoManager);
@@ -59,19 +60,7 @@ public List<XXRangerKeyStore> getAllKeys() {
                 ret = new ArrayList<>(rows.size());
 
                 for (Object[] row : rows) {
-                    XXRangerKeyStore key = new XXRangerKeyStore();
-
-                    key.setId((Long) row[0]);
-                    key.setAlias((String) row[1]);
-                    key.setCreatedDate((Long) row[2]);
-                    key.setEncoded((String) row[3]);
-                    key.setCipher((String) row[4]);
-                    key.setBitLength((Integer) row[5]);
-                    key.setDescription((String) row[6]);
-                    key.setVersion((Integer) row[7]);
-                    key.setAttributes((String) row[8]);
-
-                    ret.add(key);
+                    ret.add(toKey(row));
                 }
             }
         } catch (NoResultException e) {
@@ -84,4 +73,49 @@ public List<XXRangerKeyStore> getAllKeys() {
 
         return ret;
     }
+
+    /**
+     * Reads a single key from the database, bypassing the JPA cache like getAllKeys() does.
+     */
+    public XXRangerKeyStore getKeyByAlias(String alias) {
+        XXRangerKeyStore ret = null;
+        EntityManager    em  = null;
+
+        try {
+            em = getEntityManager();
+
+            List<Object[]> rows = (List<Object[]>) em.createNamedQuery(GET_KEY_BY_ALIAS_QUERY_NAME)
+                                                     .setParameter("alias", alias)
+                                                     .setHint("eclipselink.refresh", "true")
+                                                     .getResultList();
+
+            if (rows != null && !rows.isEmpty()) {
+                ret = toKey(rows.get(0));
+            }
+        } catch (NoResultException e) {
+            logger.error("getKeyByAlias({}) failed", alias, e);
+        } finally {
+            if (em != null) {
+                em.clear();
+            }
+        }
+
+        return ret;
+    }
+
+    private static XXRangerKeyStore toKey(Object[] row) {
+        XXRangerKeyStore ret = new XXRangerKeyStore();
+
+        ret.setId((Long) row[0]);
+        ret.setAlias((String) row[1]);
+        ret.setCreatedDate((Long) row[2]);
+        ret.setEncoded((String) row[3]);
+        ret.setCipher((String) row[4]);
+        ret.setBitLength((Integer) row[5]);
+        ret.setDescription((String) row[6]);
+        ret.setVersion((Integer) row[7]);
+        ret.setAttributes((String) row[8]);
+
+        return ret;
+    }
 }
@@ -55,6 +55,15 @@ public static KMSMetricsCollector getInstance( boolean isCollectionThreadSafe)
         return kmsMetricsCollector;
     }
 
+    /**
+     * Returns the collector if it has been created already, typically by KMSWebApp; null otherwise, like when a key
+     * provider is used by a command line tool.
+     */
+    public static KMSMetricsCollector getInstanceIfCreated()
+    {
+        return kmsMetricsCollector;
+    }
+
     public boolean isCollectionThreadSafe()
     {
         return this.isCollectionThreadSafe;
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.crypto.key;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProvider.Metadata;
+import org.apache.hadoop.crypto.key.KeyProvider.Options;
+import org.apache.ranger.entity.XXRangerKeyStore;
+import org.apache.ranger.kms.dao.DaoManager;
+import org.apache.ranger.kms.dao.RangerKMSDao;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Tests loading of single aliases, on lookup misses, by RangerKeyStore.engineLoadAlias() and
+ * RangerKeyStoreProvider. The database is a mocked RangerKMSDao over an in-memory map of key rows.
+ */
+public class TestRangerKeyStoreAliasLoad {
+    private static final String MISSING_ALIAS_CACHE_TTL_MS = "ranger.kms.keystore.missing.alias.cache.ttl.ms";
+    private static final int    MISSING_ALIAS_CACHE_SIZE   = 10000;
+    private static final char[] MASTER_KEY                 = "masterkey".toCharArray();
+
+    private final Map<String, XXRangerKeyStore> keyRows = new ConcurrentHashMap<>();
+
+    private RangerKMSDao   kmsDao;
+    private RangerKeyStore writerKeyStore;
+
+    @Before
+    public void setUp() throws Exception {
+        kmsDao = Mockito.mock(RangerKMSDao.class);
+
+        Mockito.when(kmsDao.findByAlias(Mockito.anyString())).thenAnswer(invocation -> keyRows.get((String) invocation.getArguments()[0]));
+        Mockito.when(kmsDao.create(Mockito.any(XXRangerKeyStore.class))).thenAnswer(invocation -> {
+            XXRangerKeyStore row = (XXRangerKeyStore) invocation.getArguments()[0];
+
+            keyRows.put(row.getAlias(), row);
+
+            return row;
+        });
+        Mockito.when(kmsDao.getKeyByAlias(Mockito.anyString())).thenAnswer(invocation -> keyRows.get((String) invocation.getArguments()[0]));
+
+        // full loads find nothing, so that keys are only found by loading their alias
+        Mockito.when(kmsDao.getAllKeys()).thenReturn(Collections.emptyList());
+
+        writerKeyStore = new RangerKeyStore(getDaoManager());
+    }
+
+    @Test
+    public void testEngineLoadAlias() throws Exception {
+        createKey("key1");
+
+        RangerKeyStore keyStore = new RangerKeyStore(getDaoManager());
+
+        Assert.assertFalse(keyStore.engineContainsAlias("key1@0"));
+
+        Assert.assertTrue(keyStore.engineLoadAlias("key1@0", MASTER_KEY));
+        Assert.assertTrue(keyStore.engineContainsAlias("key1@0"));
+        Assert.assertFalse(keyStore.engineContainsAlias("key1"));
+        Assert.assertArrayEquals(writerKeyStore.engineGetKey("key1@0", MASTER_KEY).getEncoded(), keyStore.engineGetKey("key1@0", MASTER_KEY).getEncoded());
+
+        Assert.assertFalse(keyStore.engineLoadAlias("key2", MASTER_KEY));
+        Assert.assertFalse(keyStore.engineContainsAlias("key2"));
+
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1@0");
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key2");
+    }
+
+    @Test
+    public void testLoadOnLookupMiss() throws Exception {
+        KeyVersion keyVersion = createKey("key1");
+
+        RangerKeyStoreProvider provider = createProvider(60 * 1000L);
+
+        Metadata metadata = provider.getMetadata("key1");
+
+        Assert.assertNotNull(metadata);
+        Assert.assertEquals(1, metadata.getVersions());
+        Assert.assertArrayEquals(keyVersion.getMaterial(), provider.getKeyVersion("key1@0").getMaterial());
+
+        Assert.assertNotNull(provider.getMetadata("key1"));
+        Assert.assertNotNull(provider.getKeyVersion("key1@0"));
+
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1");
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1@0");
+    }
+
+    @Test
+    public void testMissingAliasCacheTtl() throws Exception {
+        RangerKeyStoreProvider provider = createProvider(60 * 1000L);
+
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNull(provider.getMetadata("key1"));
+            Assert.assertNull(provider.getKeyVersion("key1@0"));
+        }
+
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1");
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1@0");
+
+        // a key created by another instance isn't seen until the missing entry expires
+        createKey("key1");
+
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        provider = createProvider(1L);
+
+        Assert.assertNull(provider.getMetadata("key2"));
+
+        Thread.sleep(10);
+
+        Assert.assertNull(provider.getMetadata("key2"));
+
+        Mockito.verify(kmsDao, Mockito.times(2)).getKeyByAlias("key2");
+    }
+
+    @Test
+    public void testMissingAliasCacheDisabled() throws Exception {
+        RangerKeyStoreProvider provider = createProvider(0L);
+
+        Assert.assertNull(provider.getMetadata("key1"));
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        Mockito.verify(kmsDao, Mockito.times(2)).getKeyByAlias("key1");
+    }
+
+    @Test
+    public void testMissingAliasCacheSizeIsBounded() throws Exception {
+        RangerKeyStoreProvider provider = createProvider(60 * 1000L);
+
+        for (int i = 0; i < MISSING_ALIAS_CACHE_SIZE; i++) {
+            Assert.assertNull(provider.getMetadata("key" + i));
+        }
+
+        Assert.assertNull(provider.getMetadata("key0"));
+
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key0");
+
+        // the cache is full of unexpired entries: adding one more drops them
+        Assert.assertNull(provider.getMetadata("key" + MISSING_ALIAS_CACHE_SIZE));
+        Assert.assertNull(provider.getMetadata("key0"));
+
+        Mockito.verify(kmsDao, Mockito.times(2)).getKeyByAlias("key0");
+    }
+
+    @Test
+    public void testMissingAliasClearedOnInvalidateCache() throws Exception {
+        RangerKeyStoreProvider provider = createProvider(60 * 1000L);
+
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        createKey("key1");
+
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        provider.invalidateCache("key1");
+
+        Assert.assertNotNull(provider.getMetadata("key1"));
+
+        Mockito.verify(kmsDao, Mockito.times(2)).getKeyByAlias("key1");
+    }
+
+    @Test
+    public void testMissingAliasClearedOnReload() throws Exception {
+        RangerKeyStoreProvider provider = createProvider(60 * 1000L);
+
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        createKey("key1");
+
+        Assert.assertNull(provider.getMetadata("key1"));
+
+        provider.getKeys(); // reloads all keys
+
+        Assert.assertNotNull(provider.getMetadata("key1"));
+
+        Mockito.verify(kmsDao, Mockito.times(2)).getKeyByAlias("key1");
+    }
+
+    @Test
+    public void testConcurrentLoadsOfAliasShareDatabaseRead() throws Exception {
+        final int             numThreads  = 8;
+        final CountDownLatch  loadStarted = new CountDownLatch(1);
+        final CountDownLatch  loadRelease = new CountDownLatch(1);
+        final AtomicInteger   notFound    = new AtomicInteger();
+        final List<Throwable> errors      = Collections.synchronizedList(new ArrayList<>());
+
+        Mockito.when(kmsDao.getKeyByAlias("key1")).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            loadRelease.await();
+
+            return null;
+        });
+
+        // with the missing-alias cache disabled, only waiting for the load in progress avoids more reads
+        final RangerKeyStoreProvider provider = createProvider(0L);
+
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < numThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    if (provider.getMetadata("key1") == null) {
+                        notFound.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+
+            threads.add(thread);
+
+            thread.start();
+        }
+
+        Assert.assertTrue(loadStarted.await(30, TimeUnit.SECONDS));
+
+        // wait for the other threads to block on the load in progress
+        long waitUntil = System.currentTimeMillis() + 30 * 1000L;
+
+        while (countThreadsInState(threads, Thread.State.WAITING) < numThreads && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+
+        loadRelease.countDown();
+
+        for (Thread thread : threads) {
+            thread.join(30 * 1000L);
+        }
+
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        Assert.assertEquals(numThreads, notFound.get());
+
+        Mockito.verify(kmsDao, Mockito.times(1)).getKeyByAlias("key1");
+    }
+
+    private KeyVersion createKey(String name) throws Exception {
+        RangerKeyStoreProvider writer  = new RangerKeyStoreProvider(new Configuration(false), writerKeyStore, MASTER_KEY);
+        Options                options = new Options(new Configuration(false));
+
+        options.setCipher("AES");
+        options.setBitLength(128);
+
+        KeyVersion ret = writer.createKey(name, options);
+
+        writer.flush();
+
+        return ret;
+    }
+
+    private RangerKeyStoreProvider createProvider(long missingAliasTtlMs) throws Exception {
+        Configuration conf = new Configuration(false);
+
+        conf.setLong(MISSING_ALIAS_CACHE_TTL_MS, missingAliasTtlMs);
+
+        return new RangerKeyStoreProvider(conf, new RangerKeyStore(getDaoManager()), MASTER_KEY);
+    }
+
+    private DaoManager getDaoManager() {
+        DaoManager ret = Mockito.mock(DaoManager.class);
+
+        Mockito.when(ret.getRangerKMSDao()).thenReturn(kmsDao);
+
+        return ret;
+    }
+
+    private static int countThreadsInState(List<Thread> threads, Thread.State state) {
+        int ret = 0;
+
+        for (Thread thread : threads) {
+            if (thread.getState() == state) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+}
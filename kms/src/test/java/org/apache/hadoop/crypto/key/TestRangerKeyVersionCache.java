@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.crypto.key;
+
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRangerKeyVersionCache {
+
+    @Test
+    public void testGetPutAndInvalidate() {
+        RangerKeyVersionCache cache    = new RangerKeyVersionCache(10, 60 * 1000L, true);
+        byte[]                material = new byte[] { 1, 2, 3, 4 };
+
+        Assert.assertNull(cache.get("key1@0"));
+
+        cache.put(new KeyVersion("key1", "key1@0", material));
+        cache.put(new KeyVersion("key1", "key1@1", new byte[] { 5, 6, 7, 8 }));
+        cache.put(new KeyVersion("key2", "key2@0", new byte[] { 9, 10, 11, 12 }));
+
+        KeyVersion kv1 = cache.get("key1@0");
+
+        Assert.assertNotNull(kv1);
+        Assert.assertEquals("key1", kv1.getName());
+        Assert.assertArrayEquals(material, kv1.getMaterial());
+        Assert.assertNotSame(material, kv1.getMaterial());
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        // material handed out by the cache isn't affected by zeroizing the cached copy
+        cache.invalidate("key1");
+
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3, 4 }, kv1.getMaterial());
+        Assert.assertNull(cache.get("key1@0"));
+        Assert.assertNull(cache.get("key1@1"));
+        Assert.assertNotNull(cache.get("key2@0"));
+        Assert.assertEquals(1, cache.size());
+
+        cache.invalidateAll();
+
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSizeLimit() {
+        RangerKeyVersionCache cache = new RangerKeyVersionCache(2, 60 * 1000L, true);
+
+        cache.put(new KeyVersion("key1", "key1@0", new byte[] { 1 }));
+        cache.put(new KeyVersion("key2", "key2@0", new byte[] { 2 }));
+
+        Assert.assertNotNull(cache.get("key1@0")); // makes key2@0 the least recently used entry
+
+        cache.put(new KeyVersion("key3", "key3@0", new byte[] { 3 }));
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("key2@0"));
+        Assert.assertNotNull(cache.get("key1@0"));
+        Assert.assertNotNull(cache.get("key3@0"));
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        RangerKeyVersionCache cache = new RangerKeyVersionCache(10, 0L, true);
+
+        cache.put(new KeyVersion("key1", "key1@0", new byte[] { 1 }));
+
+        Thread.sleep(1);
+
+        Assert.assertNull(cache.get("key1@0"));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.getEvictionCount());
+    }
+}
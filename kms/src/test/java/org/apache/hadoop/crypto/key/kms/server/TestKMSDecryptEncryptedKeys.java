@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto.key.kms.server;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.core.Response;
+
+import com.codahale.metrics.Meter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSClientProvider.KMSKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSRESTConstants;
+import org.apache.hadoop.crypto.key.kms.server.KMS.KMSOp;
+import org.apache.hadoop.crypto.key.kms.server.KMSACLsType.Type;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.authorize.AuthorizationException;
+import org.apache.hadoop.security.token.delegation.web.DelegationTokenAuthenticationFilter;
+import org.apache.hadoop.util.KMSUtil;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.mockito.Mockito;
+
+public class TestKMSDecryptEncryptedKeys {
+
+  private static final String KEY_NAME    = "key1";
+  private static final String OTHER_KEY   = "key2";
+  private static final String CLIENT_IP   = "192.168.90.1";
+  private static final byte[] KEY_MATERIAL = new byte[] { 1, 2, 3, 4 };
+
+  @Rule
+  public final Timeout testTimeout = new Timeout(180000);
+
+  private final UserGroupInformation authorizedUser   = UserGroupInformation.createUserForTesting("alice", new String[0]);
+  private final UserGroupInformation unauthorizedUser = UserGroupInformation.createUserForTesting("bob", new String[0]);
+
+  private final Map<String, Object> origWebAppState = new HashMap<>();
+
+  private KeyProviderCryptoExtension keyProvider;
+  private KMSAudit                   kmsAudit;
+  private HttpServletRequest         request;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new Configuration(false);
+
+    conf.set(Type.DECRYPT_EEK.getAclConfigKey(), authorizedUser.getShortUserName());
+
+    KMSACLs acls = new KMSACLs(conf);
+
+    keyProvider = Mockito.mock(KeyProviderCryptoExtension.class);
+    kmsAudit    = Mockito.mock(KMSAudit.class);
+    request     = Mockito.mock(HttpServletRequest.class);
+
+    Mockito.when(keyProvider.getConf()).thenReturn(conf);
+    Mockito.when(keyProvider.getKeyVersion(KEY_NAME + "@0")).thenReturn(new KMSKeyVersion(KEY_NAME, KEY_NAME + "@0", KEY_MATERIAL));
+    Mockito.when(keyProvider.getKeyVersion(OTHER_KEY + "@0")).thenReturn(new KMSKeyVersion(OTHER_KEY, OTHER_KEY + "@0", KEY_MATERIAL));
+    Mockito.when(keyProvider.decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class))).thenReturn(new KMSKeyVersion(KEY_NAME, KeyProviderCryptoExtension.EK, KEY_MATERIAL));
+    Mockito.when(request.getRemoteAddr()).thenReturn(CLIENT_IP);
+
+    // state normally initialized by KMSWebApp.contextInitialized()
+    setWebAppState("kmsConf", conf);
+    setWebAppState("kmsAcls", acls);
+    setWebAppState("kmsAudit", kmsAudit);
+    setWebAppState("keyProviderCryptoExtension", new KeyAuthorizationKeyProvider(keyProvider, acls));
+    setWebAppState("decryptEEKBatchCallsMeter", new Meter());
+    setWebAppState("unauthorizedCallsMeter", new Meter());
+  }
+
+  @After
+  public void cleanUp() throws Exception {
+    setHttpUser(null);
+
+    for (Map.Entry<String, Object> entry : origWebAppState.entrySet()) {
+      getWebAppField(entry.getKey()).set(null, entry.getValue());
+    }
+  }
+
+  @Test
+  public void testDecryptBatch() throws Exception {
+    setHttpUser(authorizedUser);
+
+    List<Map> payload = new ArrayList<>();
+
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(KEY_NAME + "@0", new byte[] { 1 })));
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(KEY_NAME + "@0", new byte[] { 2 })));
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(KEY_NAME + "@0", new byte[] { 3 })));
+
+    Response response = new KMS().decryptEncryptedKeys(KEY_NAME, payload, request);
+
+    Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+
+    List<Map> keyVersions = (List<Map>) response.getEntity();
+
+    Assert.assertEquals(payload.size(), keyVersions.size());
+
+    for (Map keyVersion : keyVersions) {
+      Assert.assertEquals(KeyProviderCryptoExtension.EK, keyVersion.get(KMSRESTConstants.VERSION_NAME_FIELD));
+    }
+
+    Mockito.verify(keyProvider, Mockito.times(payload.size())).decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class));
+    Mockito.verify(kmsAudit).ok(authorizedUser, KMSOp.DECRYPT_EEK_BATCH, KEY_NAME, "decrypted " + payload.size() + " keys");
+    Mockito.verifyNoMoreInteractions(kmsAudit);
+  }
+
+  @Test
+  public void testDecryptBatchUnauthorized() throws Exception {
+    setHttpUser(unauthorizedUser);
+
+    List<Map> payload = new ArrayList<>();
+
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(KEY_NAME + "@0", new byte[] { 1 })));
+
+    try {
+      new KMS().decryptEncryptedKeys(KEY_NAME, payload, request);
+
+      Assert.fail("decryptEncryptedKeys() should fail for user " + unauthorizedUser.getShortUserName());
+    } catch (AuthorizationException excp) {
+      // expected
+    }
+
+    Mockito.verify(keyProvider, Mockito.never()).decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class));
+    Mockito.verify(kmsAudit).unauthorized(unauthorizedUser, KMSOp.DECRYPT_EEK_BATCH, KEY_NAME);
+    Mockito.verifyNoMoreInteractions(kmsAudit);
+  }
+
+  @Test
+  public void testDecryptBatchRejectsKeyVersionOfOtherKey() throws Exception {
+    setHttpUser(authorizedUser);
+
+    List<Map> payload = new ArrayList<>();
+
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(KEY_NAME + "@0", new byte[] { 1 })));
+    payload.add(KMSUtil.toJSON(createEncryptedKeyVersion(OTHER_KEY + "@0", new byte[] { 2 })));
+
+    try {
+      new KMS().decryptEncryptedKeys(KEY_NAME, payload, request);
+
+      Assert.fail("decryptEncryptedKeys() should fail for an EEK of key " + OTHER_KEY);
+    } catch (IllegalArgumentException excp) {
+      Assert.assertTrue(excp.getMessage(), excp.getMessage().contains(OTHER_KEY + "@0"));
+    }
+
+    Mockito.verify(kmsAudit, Mockito.never()).ok(Mockito.any(UserGroupInformation.class), Mockito.any(KMSOp.class), Mockito.anyString(), Mockito.anyString());
+  }
+
+  private static EncryptedKeyVersion createEncryptedKeyVersion(String keyVersionName, byte[] encryptedMaterial) {
+    return EncryptedKeyVersion.createForDecryption(KEY_NAME, keyVersionName, new byte[16], encryptedMaterial);
+  }
+
+  private static void setHttpUser(UserGroupInformation ugi) throws Exception {
+    Field field = DelegationTokenAuthenticationFilter.class.getDeclaredField("UGI_TL");
+
+    field.setAccessible(true);
+
+    ((ThreadLocal<UserGroupInformation>) field.get(null)).set(ugi);
+  }
+
+  private void setWebAppState(String fieldName, Object value) throws Exception {
+    Field field = getWebAppField(fieldName);
+
+    origWebAppState.put(fieldName, field.get(null));
+
+    field.set(null, value);
+  }
+
+  private static Field getWebAppField(String fieldName) throws Exception {
+    Field field = KMSWebApp.class.getDeclaredField(fieldName);
+
+    field.setAccessible(true);
+
+    return field;
+  }
+}
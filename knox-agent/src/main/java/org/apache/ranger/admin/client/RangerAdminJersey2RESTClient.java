@@ -52,6 +52,8 @@
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.message.GZipEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -82,6 +84,7 @@ public class RangerAdminJersey2RESTClient extends AbstractRangerAdminClient {
 	int	   _restClientReadTimeOutMs;
 	int	   _restClientMaxRetryAttempts;
 	int	   _restClientRetryIntervalMs;
+	boolean _isCompressionEnabled;
 	private int lastKnownActiveUrlIndex;
 	private List<String> configURLs;
 	private boolean			 isRangerCookieEnabled;
@@ -112,6 +115,7 @@ public void init(String serviceName, String appId, String configPropertyPrefix,
 		_restClientReadTimeOutMs = config.getInt(configPropertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
 		_restClientMaxRetryAttempts	= config.getInt(configPropertyPrefix + ".policy.rest.client.max.retry.attempts", 3);
 		_restClientRetryIntervalMs	= config.getInt(configPropertyPrefix + ".policy.rest.client.retry.interval.ms", 1 * 1000);
+		_isCompressionEnabled    = config.getBoolean(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_COMPRESSED_DOWNLOAD_DEFAULT);
 
 		_clusterName             = config.get(configPropertyPrefix + ".access.cluster.name", "");
 		if(StringUtil.isEmpty(_clusterName)){
@@ -427,6 +431,12 @@ public boolean verify(String urlHostName, SSLSession session) {
 		if(_client == null) {
 			_client = ClientBuilder.newClient();
 		}
+
+		if (_isCompressionEnabled) {
+			// EncodingFilter sets header Accept-Encoding with the registered encoders; GZipEncoder decodes gzip-encoded responses
+			_client.register(GZipEncoder.class);
+			_client.register(EncodingFilter.class);
+		}
 		
 		return _client;
 	}
@@ -46,6 +46,7 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.slf4j.Logger;
@@ -69,6 +70,8 @@ public class RangerKmsAuthorizer implements Runnable, KeyACLs {
 	      "User:%s not allowed to do '%s'";
 
 	  public static final int RELOADER_SLEEP_MILLIS = 1000;
+
+	  private static final long DEFAULT_DECISION_CACHE_TTL_MS = 5 * 1000L;
 	
 	  private static final Map<KMSACLsType.Type, String> ACCESS_TYPE_MAP = new HashMap<>();
 	
@@ -339,6 +342,14 @@ private static String getRangerAccessType(KMSACLsType.Type accessType) {
 	class RangerKMSPlugin extends RangerBasePlugin {
 		public RangerKMSPlugin() {
 			super("kms", "kms");
+
+			// calls like DECRYPT_EEK repeat the same (user, key, access) many times a second; so, unless configured otherwise, the
+			// policy engine caches the decisions that don't depend on policy conditions, validity schedules or request context.
+			// Cached decisions also expire after a few seconds, which bounds how long one can outlive a change the cache doesn't track
+			RangerPolicyEngineOptions options = getConfig().getPolicyEngineOptions();
+
+			options.enableDecisionCache = getConfig().getBoolean(getConfig().getPropertyPrefix() + ".policyengine.option.enable.decision.cache", true);
+			options.decisionCacheTtlMs  = getConfig().getLong(getConfig().getPropertyPrefix() + ".policyengine.option.decision.cache.ttl.ms", DEFAULT_DECISION_CACHE_TTL_MS);
 		}
 
 		@Override
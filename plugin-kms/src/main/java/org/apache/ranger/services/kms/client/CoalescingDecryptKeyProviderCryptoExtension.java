@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.services.kms.client;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.kms.KMSClientProvider.KMSKeyVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A KeyProviderCryptoExtension that coalesces concurrent decryptEncryptedKey() calls for the same key into calls
+ * to the KMS batch decrypt endpoint, POST /v1/key/{name}/_decryptbatch.
+ *
+ * Jobs that open many encrypted files at once, like Hive LLAP daemons or Spark executors, otherwise send one KMS
+ * request per file open. Calls are grouped per key: a call made while no batch of the key is in flight is sent
+ * on its own, through the wrapped provider; calls made while a batch is in flight queue up and are sent together,
+ * up to maxBatchSize EEKs per batch, once it completes. Identical EEKs in a batch are sent once; each caller gets
+ * its own copy of the decrypted key material.
+ */
+public class CoalescingDecryptKeyProviderCryptoExtension extends KeyProviderCryptoExtension {
+	private static final Logger LOG = LoggerFactory.getLogger(CoalescingDecryptKeyProviderCryptoExtension.class);
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+	/**
+	 * Sends a batch of EEKs of a key to be decrypted; returns the decrypted key versions in the order of the EEKs
+	 */
+	public interface DecryptBatchSender {
+		List<KeyVersion> decryptEncryptedKeys(String keyName, List<EncryptedKeyVersion> encryptedKeyVersions) throws IOException, GeneralSecurityException;
+	}
+
+	public CoalescingDecryptKeyProviderCryptoExtension(KeyProviderCryptoExtension keyProvider, DecryptBatchSender batchSender) {
+		this(keyProvider, batchSender, DEFAULT_MAX_BATCH_SIZE);
+	}
+
+	public CoalescingDecryptKeyProviderCryptoExtension(KeyProviderCryptoExtension keyProvider, DecryptBatchSender batchSender, int maxBatchSize) {
+		super(keyProvider, new CoalescingCryptoExtension(keyProvider, batchSender, maxBatchSize));
+	}
+
+	private static class CoalescingCryptoExtension implements CryptoExtension {
+		private final KeyProviderCryptoExtension         keyProvider;
+		private final DecryptBatchSender                 batchSender;
+		private final int                                maxBatchSize;
+		private final ConcurrentMap<String, KeyDecrypts> keyDecrypts = new ConcurrentHashMap<>();
+
+		CoalescingCryptoExtension(KeyProviderCryptoExtension keyProvider, DecryptBatchSender batchSender, int maxBatchSize) {
+			this.keyProvider  = keyProvider;
+			this.batchSender  = batchSender;
+			this.maxBatchSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE;
+		}
+
+		@Override
+		public void warmUpEncryptedKeys(String... keyNames) throws IOException {
+			keyProvider.warmUpEncryptedKeys(keyNames);
+		}
+
+		@Override
+		public void drain(String keyName) {
+			keyProvider.drain(keyName);
+		}
+
+		@Override
+		public EncryptedKeyVersion generateEncryptedKey(String encryptionKeyName) throws IOException, GeneralSecurityException {
+			return keyProvider.generateEncryptedKey(encryptionKeyName);
+		}
+
+		@Override
+		public EncryptedKeyVersion reencryptEncryptedKey(EncryptedKeyVersion encryptedKeyVersion) throws IOException, GeneralSecurityException {
+			return keyProvider.reencryptEncryptedKey(encryptedKeyVersion);
+		}
+
+		@Override
+		public void reencryptEncryptedKeys(List<EncryptedKeyVersion> encryptedKeyVersions) throws IOException, GeneralSecurityException {
+			keyProvider.reencryptEncryptedKeys(encryptedKeyVersions);
+		}
+
+		/*
+		 * The caller either sends the next batch of the key, which then includes its own EEK, or waits for its EEK
+		 * to be decrypted by the batch of another caller. After sending a batch, the sender hands the next one over
+		 * to the first caller still waiting, so that no caller keeps sending the batches of others.
+		 */
+		@Override
+		public KeyVersion decryptEncryptedKey(EncryptedKeyVersion encryptedKeyVersion) throws IOException, GeneralSecurityException {
+			String         keyName  = encryptedKeyVersion.getEncryptionKeyName();
+			KeyDecrypts    decrypts = keyDecrypts.computeIfAbsent(keyName, k -> new KeyDecrypts());
+			PendingDecrypt decrypt  = new PendingDecrypt(encryptedKeyVersion);
+
+			synchronized (decrypts) {
+				decrypts.pending.add(decrypt);
+
+				if (!decrypts.isSending) {
+					decrypts.isSending = true;
+					decrypt.isSender   = true;
+				}
+			}
+
+			if (!decrypt.isSender) {
+				decrypt.awaitTurn();
+			}
+
+			if (!decrypt.isDone) {
+				sendBatch(keyName, decrypts);
+			}
+
+			return decrypt.getKeyVersion();
+		}
+
+		private void sendBatch(String keyName, KeyDecrypts decrypts) {
+			final List<PendingDecrypt> batch = new ArrayList<>();
+
+			synchronized (decrypts) {
+				while (batch.size() < maxBatchSize && !decrypts.pending.isEmpty()) {
+					batch.add(decrypts.pending.removeFirst());
+				}
+			}
+
+			try {
+				if (batch.size() == 1) {
+					batch.get(0).setKeyVersion(keyProvider.decryptEncryptedKey(batch.get(0).encryptedKeyVersion));
+				} else {
+					sendBatch(keyName, batch);
+				}
+			} catch (IOException | GeneralSecurityException | RuntimeException excp) {
+				LOG.debug("decrypt of {} EEKs of key {} failed", batch.size(), keyName, excp);
+
+				for (PendingDecrypt decrypt : batch) {
+					decrypt.setError(excp);
+				}
+			} finally {
+				PendingDecrypt nextSender = null;
+
+				synchronized (decrypts) {
+					if (decrypts.pending.isEmpty()) {
+						decrypts.isSending = false;
+					} else {
+						nextSender          = decrypts.pending.getFirst();
+						nextSender.isSender = true;
+					}
+				}
+
+				for (PendingDecrypt decrypt : batch) {
+					decrypt.isDone = true;
+
+					decrypt.signal.countDown();
+				}
+
+				if (nextSender != null) {
+					nextSender.signal.countDown();
+				}
+			}
+		}
+
+		private void sendBatch(String keyName, List<PendingDecrypt> batch) throws IOException, GeneralSecurityException {
+			Map<EekId, Integer>       eekIndexes = new HashMap<>();
+			List<EncryptedKeyVersion> eeks       = new ArrayList<>(batch.size());
+
+			for (PendingDecrypt decrypt : batch) {
+				if (eekIndexes.putIfAbsent(new EekId(decrypt.encryptedKeyVersion), eeks.size()) == null) {
+					eeks.add(decrypt.encryptedKeyVersion);
+				}
+			}
+
+			List<KeyVersion> keyVersions = batchSender.decryptEncryptedKeys(keyName, eeks);
+
+			if (keyVersions == null || keyVersions.size() != eeks.size()) {
+				throw new IOException("decrypt of " + eeks.size() + " EEKs of key " + keyName + " returned " + (keyVersions == null ? 0 : keyVersions.size()) + " keys");
+			}
+
+			LOG.debug("decrypted {} EEKs of key {} in one batch, for {} calls", eeks.size(), keyName, batch.size());
+
+			for (PendingDecrypt decrypt : batch) {
+				decrypt.setKeyVersion(keyVersions.get(eekIndexes.get(new EekId(decrypt.encryptedKeyVersion))));
+			}
+		}
+	}
+
+	private static class KeyDecrypts {
+		final LinkedList<PendingDecrypt> pending = new LinkedList<>();
+		boolean                          isSending;
+	}
+
+	/*
+	 * A decrypt call waiting for its result, or for its turn to send the next batch. The fields are set before
+	 * the signal is counted down, which publishes them to the waiting caller.
+	 */
+	private static class PendingDecrypt {
+		final EncryptedKeyVersion encryptedKeyVersion;
+		final CountDownLatch      signal = new CountDownLatch(1);
+		boolean                   isSender;
+		boolean                   isDone;
+		KeyVersion                keyVersion;
+		Exception                 error;
+
+		PendingDecrypt(EncryptedKeyVersion encryptedKeyVersion) {
+			this.encryptedKeyVersion = encryptedKeyVersion;
+		}
+
+		/*
+		 * a waiting caller can't give up on being interrupted, as it may be the next sender
+		 */
+		void awaitTurn() {
+			boolean isInterrupted = false;
+
+			while (true) {
+				try {
+					signal.await();
+
+					break;
+				} catch (InterruptedException excp) {
+					isInterrupted = true;
+				}
+			}
+
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void setKeyVersion(KeyVersion keyVersion) {
+			byte[] material = keyVersion.getMaterial();
+
+			this.keyVersion = new KMSKeyVersion(keyVersion.getName(), keyVersion.getVersionName(), material != null ? material.clone() : null);
+		}
+
+		void setError(Exception error) {
+			this.error = error;
+		}
+
+		KeyVersion getKeyVersion() throws IOException, GeneralSecurityException {
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			} else if (error instanceof GeneralSecurityException) {
+				throw (GeneralSecurityException) error;
+			} else if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			}
+
+			return keyVersion;
+		}
+	}
+
+	/*
+	 * Identifies an EEK by its key version, IV and encrypted material
+	 */
+	private static final class EekId {
+		private final String versionName;
+		private final byte[] iv;
+		private final byte[] material;
+		private final int    hashCode;
+
+		EekId(EncryptedKeyVersion eek) {
+			this.versionName = eek.getEncryptionKeyVersionName();
+			this.iv          = eek.getEncryptedKeyIv();
+			this.material    = eek.getEncryptedKeyVersion().getMaterial();
+			this.hashCode    = 31 * (31 * versionName.hashCode() + Arrays.hashCode(iv)) + Arrays.hashCode(material);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof EekId)) {
+				return false;
+			}
+
+			EekId other = (EekId) obj;
+
+			return versionName.equals(other.versionName) && Arrays.equals(iv, other.iv) && Arrays.equals(material, other.material);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.services.kms.client;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSRESTConstants;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.security.ssl.SSLFactory;
+import org.apache.hadoop.security.token.delegation.web.DelegationTokenAuthenticatedURL;
+import org.apache.hadoop.util.HttpExceptionUtils;
+import org.apache.hadoop.util.KMSUtil;
+
+import com.google.gson.Gson;
+
+/**
+ * Sends batches of EEKs to the batch decrypt endpoint of a KMS, POST {kmsUrl}/v1/key/{name}/_decryptbatch, as the
+ * current user. The connection is authenticated like those of Hadoop's KMS client: with the user's delegation
+ * token for the KMS, if any, otherwise with SPNEGO or, on an unsecured cluster, the user name.
+ */
+public class KMSDecryptBatchSender implements CoalescingDecryptKeyProviderCryptoExtension.DecryptBatchSender {
+	private static final String DECRYPT_BATCH_SUB_RESOURCE = "_decryptbatch";
+	private static final String CONTENT_TYPE_JSON          = "application/json";
+
+	private final String     kmsUrl;
+	private final SSLFactory sslFactory;
+	private final Gson       gson = new Gson();
+
+	/**
+	 * @param kmsUrl URL of the KMS, like http://kms-host:9292/kms
+	 * @param conf   client configuration, for the SSL settings of an https URL
+	 */
+	public KMSDecryptBatchSender(String kmsUrl, Configuration conf) throws IOException, GeneralSecurityException {
+		this.kmsUrl = kmsUrl.endsWith("/") ? kmsUrl.substring(0, kmsUrl.length() - 1) : kmsUrl;
+
+		if (this.kmsUrl.toLowerCase().startsWith("https:")) {
+			sslFactory = new SSLFactory(SSLFactory.Mode.CLIENT, conf);
+
+			sslFactory.init();
+		} else {
+			sslFactory = null;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public List<KeyVersion> decryptEncryptedKeys(String keyName, List<EncryptedKeyVersion> encryptedKeyVersions) throws IOException {
+		final URL url = new URL(kmsUrl + KMSRESTConstants.SERVICE_VERSION + "/" + KMSRESTConstants.KEY_RESOURCE + "/"
+		                        + URLEncoder.encode(keyName, "UTF-8") + "/" + DECRYPT_BATCH_SUB_RESOURCE);
+
+		List<Map> payload = new ArrayList<>(encryptedKeyVersions.size());
+
+		for (EncryptedKeyVersion encryptedKeyVersion : encryptedKeyVersions) {
+			payload.add(KMSUtil.toJSON(encryptedKeyVersion));
+		}
+
+		HttpURLConnection conn = openConnection(url);
+
+		try {
+			conn.setRequestMethod("POST");
+			conn.setRequestProperty("Content-Type", CONTENT_TYPE_JSON);
+			conn.setRequestProperty("Accept", CONTENT_TYPE_JSON);
+			conn.setDoOutput(true);
+
+			try (OutputStream out = conn.getOutputStream()) {
+				out.write(gson.toJson(payload).getBytes(StandardCharsets.UTF_8));
+			}
+
+			HttpExceptionUtils.validateResponse(conn, HttpURLConnection.HTTP_OK);
+
+			List response;
+
+			try (Reader in = new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8)) {
+				response = gson.fromJson(in, List.class);
+			}
+
+			List<KeyVersion> ret = new ArrayList<>(response != null ? response.size() : 0);
+
+			if (response != null) {
+				for (Object keyVersion : response) {
+					ret.add(KMSUtil.parseJSONKeyVersion((Map) keyVersion));
+				}
+			}
+
+			return ret;
+		} finally {
+			conn.disconnect();
+		}
+	}
+
+	public void destroy() {
+		if (sslFactory != null) {
+			sslFactory.destroy();
+		}
+	}
+
+	private HttpURLConnection openConnection(final URL url) throws IOException {
+		final DelegationTokenAuthenticatedURL authUrl = new DelegationTokenAuthenticatedURL(sslFactory);
+
+		try {
+			return UserGroupInformation.getCurrentUser().doAs((PrivilegedExceptionAction<HttpURLConnection>) () -> authUrl.openConnection(url, new DelegationTokenAuthenticatedURL.Token()));
+		} catch (InterruptedException excp) {
+			Thread.currentThread().interrupt();
+
+			throw new IOException(excp);
+		} catch (IOException excp) {
+			throw excp;
+		} catch (Exception excp) {
+			throw new IOException("failed to connect to " + url, excp);
+		}
+	}
+}
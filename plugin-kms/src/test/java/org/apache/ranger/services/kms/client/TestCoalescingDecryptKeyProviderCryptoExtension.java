@@ -0,0 +1,385 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.services.kms.client;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider.KeyVersion;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSClientProvider.KMSKeyVersion;
+import org.apache.hadoop.crypto.key.kms.KMSRESTConstants;
+import org.apache.hadoop.util.KMSUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests CoalescingDecryptKeyProviderCryptoExtension over a mocked key provider and batch sender, and
+ * KMSDecryptBatchSender against a local HTTP server.
+ */
+public class TestCoalescingDecryptKeyProviderCryptoExtension {
+    private static final String KEY1 = "key1";
+    private static final String KEY2 = "key2";
+
+    private final List<List<EncryptedKeyVersion>> sentBatches = Collections.synchronizedList(new ArrayList<>());
+
+    private KeyProviderCryptoExtension keyProvider;
+    private CountDownLatch             providerCalled;
+    private CountDownLatch             providerRelease;
+
+    @Before
+    public void setUp() throws Exception {
+        keyProvider     = Mockito.mock(KeyProviderCryptoExtension.class);
+        providerCalled  = new CountDownLatch(1);
+        providerRelease = new CountDownLatch(0);
+
+        Mockito.when(keyProvider.getConf()).thenReturn(new Configuration(false));
+        Mockito.when(keyProvider.decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class))).thenAnswer(invocation -> {
+            EncryptedKeyVersion eek = (EncryptedKeyVersion) invocation.getArguments()[0];
+
+            if (KEY1.equals(eek.getEncryptionKeyName())) {
+                providerCalled.countDown();
+                providerRelease.await();
+            }
+
+            return decrypt(eek);
+        });
+    }
+
+    @Test
+    public void testSingleDecryptUsesKeyProvider() throws Exception {
+        KeyProviderCryptoExtension provider = createProvider(10);
+        EncryptedKeyVersion        eek      = createEek(KEY1, 1);
+
+        Assert.assertArrayEquals(eek.getEncryptedKeyVersion().getMaterial(), provider.decryptEncryptedKey(eek).getMaterial());
+        Assert.assertArrayEquals(eek.getEncryptedKeyVersion().getMaterial(), provider.decryptEncryptedKey(eek).getMaterial());
+
+        Mockito.verify(keyProvider, Mockito.times(2)).decryptEncryptedKey(eek);
+        Assert.assertTrue(sentBatches.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentDecryptsAreBatched() throws Exception {
+        KeyProviderCryptoExtension provider = createProvider(10);
+        List<EncryptedKeyVersion>  eeks     = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            eeks.add(createEek(KEY1, i));
+        }
+
+        // identical EEKs, as when many files share a data encryption key
+        eeks.add(createEek(KEY1, 4));
+        eeks.add(createEek(KEY1, 4));
+
+        List<DecryptCall> calls = decryptWhileFirstCallIsInFlight(provider, createEek(KEY1, 100), eeks);
+
+        Assert.assertEquals(1, sentBatches.size());
+        Assert.assertEquals(5, sentBatches.get(0).size());
+        Mockito.verify(keyProvider, Mockito.times(1)).decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class));
+
+        for (DecryptCall call : calls) {
+            call.assertDecrypted();
+        }
+
+        // each caller gets its own copy of the material
+        Assert.assertNotSame(calls.get(5).keyVersion.getMaterial(), calls.get(6).keyVersion.getMaterial());
+        Assert.assertNotSame(calls.get(4).keyVersion.getMaterial(), calls.get(5).keyVersion.getMaterial());
+    }
+
+    @Test
+    public void testMaxBatchSize() throws Exception {
+        KeyProviderCryptoExtension provider = createProvider(2);
+        List<EncryptedKeyVersion>  eeks     = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            eeks.add(createEek(KEY1, i));
+        }
+
+        List<DecryptCall> calls = decryptWhileFirstCallIsInFlight(provider, createEek(KEY1, 100), eeks);
+
+        // 2 batches of 2, and the last EEK on its own
+        Assert.assertEquals(2, sentBatches.size());
+        Assert.assertEquals(2, sentBatches.get(0).size());
+        Assert.assertEquals(2, sentBatches.get(1).size());
+        Mockito.verify(keyProvider, Mockito.times(2)).decryptEncryptedKey(Mockito.any(EncryptedKeyVersion.class));
+
+        for (DecryptCall call : calls) {
+            call.assertDecrypted();
+        }
+    }
+
+    @Test
+    public void testBatchFailure() throws Exception {
+        KeyProviderCryptoExtension provider = new CoalescingDecryptKeyProviderCryptoExtension(keyProvider, (keyName, eeks) -> {
+            throw new IOException("KMS unavailable");
+        });
+
+        List<DecryptCall> calls = decryptWhileFirstCallIsInFlight(provider, createEek(KEY1, 100), createEeks(KEY1, 3));
+
+        for (DecryptCall call : calls) {
+            Assert.assertNull(call.keyVersion);
+            Assert.assertTrue(String.valueOf(call.error), call.error instanceof IOException);
+            Assert.assertEquals("KMS unavailable", call.error.getMessage());
+        }
+
+        // later calls are not affected
+        EncryptedKeyVersion eek = createEek(KEY1, 1);
+
+        Assert.assertArrayEquals(eek.getEncryptedKeyVersion().getMaterial(), provider.decryptEncryptedKey(eek).getMaterial());
+    }
+
+    @Test
+    public void testKeysAreBatchedSeparately() throws Exception {
+        KeyProviderCryptoExtension provider = createProvider(10);
+        List<EncryptedKeyVersion>  eeks     = createEeks(KEY1, 3);
+
+        eeks.addAll(createEeks(KEY2, 3));
+
+        // calls for another key don't wait for the call in flight
+        List<DecryptCall> calls = decryptWhileFirstCallIsInFlight(provider, createEek(KEY1, 100), eeks.subList(0, 3), () -> {
+            for (EncryptedKeyVersion eek : eeks.subList(3, 6)) {
+                Assert.assertArrayEquals(eek.getEncryptedKeyVersion().getMaterial(), provider.decryptEncryptedKey(eek).getMaterial());
+            }
+
+            return null;
+        });
+
+        Assert.assertEquals(1, sentBatches.size());
+
+        for (EncryptedKeyVersion eek : sentBatches.get(0)) {
+            Assert.assertEquals(KEY1, eek.getEncryptionKeyName());
+        }
+
+        for (DecryptCall call : calls) {
+            call.assertDecrypted();
+        }
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testKMSDecryptBatchSender() throws Exception {
+        final List<String> requestPaths = Collections.synchronizedList(new ArrayList<>());
+        final Gson         gson         = new Gson();
+        final HttpServer   server       = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+        server.createContext("/kms", exchange -> {
+            // the client authenticates first, with OPTIONS requests
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+
+                return;
+            }
+
+            requestPaths.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+
+            List<Map> payload;
+
+            try (Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                payload = gson.fromJson(in, List.class);
+            }
+
+            List<Map> response = new ArrayList<>();
+
+            for (EncryptedKeyVersion eek : KMSUtil.parseJSONEncKeyVersions(KEY1, payload)) {
+                response.add(KMSUtil.toJSON(decrypt(eek)));
+            }
+
+            byte[] body = gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+
+        server.start();
+
+        try {
+            KMSDecryptBatchSender     sender      = new KMSDecryptBatchSender("http://localhost:" + server.getAddress().getPort() + "/kms/", new Configuration(false));
+            List<EncryptedKeyVersion> eeks        = createEeks(KEY1, 3);
+            List<KeyVersion>          keyVersions = sender.decryptEncryptedKeys(KEY1, eeks);
+
+            Assert.assertEquals(eeks.size(), keyVersions.size());
+
+            for (int i = 0; i < eeks.size(); i++) {
+                Assert.assertEquals(KeyProviderCryptoExtension.EK, keyVersions.get(i).getVersionName());
+                Assert.assertArrayEquals(eeks.get(i).getEncryptedKeyVersion().getMaterial(), keyVersions.get(i).getMaterial());
+            }
+
+            Assert.assertEquals(Collections.singletonList("POST /kms" + KMSRESTConstants.SERVICE_VERSION + "/key/" + KEY1 + "/_decryptbatch"), requestPaths);
+
+            sender.destroy();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private KeyProviderCryptoExtension createProvider(int maxBatchSize) {
+        return new CoalescingDecryptKeyProviderCryptoExtension(keyProvider, (keyName, eeks) -> {
+            sentBatches.add(new ArrayList<>(eeks));
+
+            List<KeyVersion> ret = new ArrayList<>();
+
+            for (EncryptedKeyVersion eek : eeks) {
+                Assert.assertEquals(keyName, eek.getEncryptionKeyName());
+
+                ret.add(decrypt(eek));
+            }
+
+            return ret;
+        }, maxBatchSize);
+    }
+
+    /*
+     * Decrypts the given EEKs, each in its own thread, while the decrypt of the first EEK is blocked in the key provider
+     */
+    private List<DecryptCall> decryptWhileFirstCallIsInFlight(KeyProviderCryptoExtension provider, EncryptedKeyVersion firstEek, List<EncryptedKeyVersion> eeks) throws Exception {
+        return decryptWhileFirstCallIsInFlight(provider, firstEek, eeks, null);
+    }
+
+    private List<DecryptCall> decryptWhileFirstCallIsInFlight(KeyProviderCryptoExtension provider, EncryptedKeyVersion firstEek, List<EncryptedKeyVersion> eeks, Callable<Void> whileInFlight) throws Exception {
+        providerRelease = new CountDownLatch(1);
+
+        DecryptCall firstCall = new DecryptCall(provider, firstEek);
+
+        firstCall.thread.start();
+
+        Assert.assertTrue(providerCalled.await(30, TimeUnit.SECONDS));
+
+        List<DecryptCall> ret = new ArrayList<>();
+
+        for (EncryptedKeyVersion eek : eeks) {
+            DecryptCall call = new DecryptCall(provider, eek);
+
+            ret.add(call);
+
+            call.thread.start();
+        }
+
+        // wait for the calls to queue up behind the first one
+        long waitUntil = System.currentTimeMillis() + 30 * 1000L;
+
+        while (countWaitingCalls(ret) < ret.size() && System.currentTimeMillis() < waitUntil) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(ret.size(), countWaitingCalls(ret));
+
+        if (whileInFlight != null) {
+            whileInFlight.call();
+        }
+
+        providerRelease.countDown();
+
+        firstCall.join();
+
+        for (DecryptCall call : ret) {
+            call.join();
+        }
+
+        providerRelease = new CountDownLatch(0);
+
+        return ret;
+    }
+
+    private static int countWaitingCalls(List<DecryptCall> calls) {
+        int ret = 0;
+
+        for (DecryptCall call : calls) {
+            if (call.thread.getState() == Thread.State.WAITING) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    private static List<EncryptedKeyVersion> createEeks(String keyName, int count) {
+        List<EncryptedKeyVersion> ret = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            ret.add(createEek(keyName, i));
+        }
+
+        return ret;
+    }
+
+    private static EncryptedKeyVersion createEek(String keyName, int id) {
+        return EncryptedKeyVersion.createForDecryption(keyName, keyName + "@0", new byte[16], new byte[] { (byte) id, 1, 2, 3 });
+    }
+
+    /*
+     * the "decrypted" material is the encrypted material, so that each result can be checked against its EEK
+     */
+    private static KeyVersion decrypt(EncryptedKeyVersion eek) {
+        return new KMSKeyVersion(eek.getEncryptionKeyName(), KeyProviderCryptoExtension.EK, eek.getEncryptedKeyVersion().getMaterial().clone());
+    }
+
+    private static class DecryptCall {
+        final EncryptedKeyVersion eek;
+        final Thread              thread;
+        KeyVersion                keyVersion;
+        Exception                 error;
+
+        DecryptCall(KeyProviderCryptoExtension provider, EncryptedKeyVersion eek) {
+            this.eek    = eek;
+            this.thread = new Thread(() -> {
+                try {
+                    keyVersion = provider.decryptEncryptedKey(eek);
+                } catch (Exception excp) {
+                    error = excp;
+                }
+            });
+        }
+
+        void join() throws InterruptedException {
+            thread.join(30 * 1000L);
+
+            Assert.assertFalse(thread.isAlive());
+        }
+
+        void assertDecrypted() {
+            Assert.assertNull(error);
+            Assert.assertNotNull(keyVersion);
+            Assert.assertArrayEquals(eek.getEncryptedKeyVersion().getMaterial(), keyVersion.getMaterial());
+        }
+    }
+}
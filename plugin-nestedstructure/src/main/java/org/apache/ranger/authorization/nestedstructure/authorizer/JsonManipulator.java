@@ -18,33 +18,43 @@
 
 package org.apache.ranger.authorization.nestedstructure.authorizer;
 
-import com.google.gson.JsonParser;
-import com.google.gson.JsonSyntaxException;
-import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
-
-
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
-* Accepts a json string, parses it into a {@link DocumentContext}.
- * Individual fields can be updated in the {@link DocumentContext}.
+* Accepts a json string, parses it into a tree of {@link JsonElement}.
+ * Individual fields can be updated in the tree.
  * And a new json string can be obtained.
+ *
+ * The names of the fields are derived from the shape of the document, i.e. its field names and nesting. Records of a
+ * stream usually share a few shapes; hence the field names are cached by shape, which is computed while parsing.
 **/
 public class JsonManipulator {
-    /**
-    the overall document
-     **/
-    private final DocumentContext documentContext;
+    private static final int MAX_CACHED_SHAPES    = 1000;
+    private static final int MAX_SHAPE_KEY_LENGTH = 8192;
+
+    private static final ConcurrentCacheMap<String, Set<String>> FIELDS_BY_SHAPE = new ConcurrentCacheMap<>(MAX_CACHED_SHAPES);
 
     /**
-    a {@link DocumentContext} that specializes in returning field names (not values)
+    the overall document
      **/
-    private final DocumentContext fieldContextDocument;
+    private final JsonElement document;
 
     private final Set<String> fields;
 
@@ -54,53 +64,29 @@ public class JsonManipulator {
      * @param jsonString json to be parsed and masked
      */
     public JsonManipulator(String jsonString) {
-        checkIsValidJson(jsonString);
-
-        documentContext = JsonPath.parse(jsonString);
+        StringBuilder shape = new StringBuilder();
 
-        //"$..*" - give me everything
-        Configuration conf = Configuration.builder().options(Option.AS_PATH_LIST).build();
+        document = parse(jsonString, shape);
 
-        fieldContextDocument = JsonPath.using(conf).parse(jsonString);
+        if (shape.length() <= MAX_SHAPE_KEY_LENGTH) {
+            String      shapeKey = shape.toString();
+            Set<String> cached   = FIELDS_BY_SHAPE.get(shapeKey);
 
-        List<String> leafPathList = fieldContextDocument.read("$..*");
+            if (cached == null) {
+                cached = Collections.unmodifiableSet(getLeafPaths(document));
 
-        //remove non-leaf nodes from the list
-        //if element n starts with element n-1, then n-1 is a leaf node and should be removed
-        Collections.sort(leafPathList);
-
-        List<String> filteredList = new ArrayList<>();
-
-        for (int i = 0; i < leafPathList.size(); i++) {
-            String current = leafPathList.get(i);
-
-            if ((i + 1) < leafPathList.size()) {
-                String next = leafPathList.get(i + 1);
-
-                if (!next.startsWith(current)) {
-                    filteredList.add(current);
-                }
-            } else {
-                filteredList.add(current);
+                FIELDS_BY_SHAPE.put(shapeKey, cached);
             }
-        }
 
-        leafPathList = filteredList;
-
-        Stream<String> newList = leafPathList.stream().map(path -> {
-            return path.replaceAll("\\[[0-9]+\\]", ".*") //removes "[0]" replaces with .*
-                    .replaceAll("\\$\\['", "") //removes "$['"
-                    .replaceAll("'\\]\\['", ".") //removes "']['"
-                    .replaceAll("\\*\\['", "*.") //removes *['
-                    .replaceAll("'\\]", ""); //removes trailing "']"
-        });
-
-        fields = newList.collect(Collectors.toSet());
+            fields = cached;
+        } else {
+            fields = Collections.unmodifiableSet(getLeafPaths(document));
+        }
     }
 
     /**
      *
-      * @return The names of all the edge fields in the {@link DocumentContext}.
+      * @return The names of all the edge fields in the document.
      * Note that is a value is nested (ie it is of type map) that it is not returned.
      * For example if the full field set was Set(address, address.city, address.street, address.state),
      * only Set(address.city, address.street, address.state) would be returned
@@ -112,57 +98,278 @@ public JsonManipulator(String jsonString) {
      * @param fieldAccess
      */
     public void maskFields(List<FieldLevelAccess> fieldAccess){
-        Stream<FieldLevelAccess> maskedFields = fieldAccess.stream().filter(fa -> fa.hasAccess && fa.isMasked);
-
-        maskedFields.forEach(fa -> {
-            //System.out.println( " attribute " + fa.field + " masked ? " + (fa.isMasked? "yes":"no"));
-
-            getMatchingFields(fa.field).forEach(fullFieldPath -> {
-                final Object realValue = documentContext.read(fullFieldPath);
-                final Object maskedValue;
-
-                //I know I could use polymorphism to not have different methods
-                //but I prefer the readability and the clarity of different method names
-                if (realValue instanceof String) {
-                    maskedValue = DataMasker.maskString((String)realValue, fa.maskType, fa.customMaskedValue);
-                } else if (realValue instanceof Number) {
-                    maskedValue = DataMasker.maskNumber((Number)realValue, fa.maskType, fa.customMaskedValue);
-                } else if (realValue instanceof Boolean) {
-                    maskedValue = DataMasker.maskBoolean((Boolean)realValue, fa.maskType, fa.customMaskedValue);
-                } else {
-                    throw new MaskingException("unable to determine field type: " + realValue);
-                }
-
-                documentContext.set(fullFieldPath, maskedValue);
-            });
-        });
+        for (FieldLevelAccess fa : fieldAccess) {
+            if (fa.hasAccess && fa.isMasked) {
+                maskField(document, fa.field.split("\\."), 0, fa);
+            }
+        }
     }
 
     /**
-     * @return the current/updated json string of the {@link DocumentContext} that is being worked on
+     * @return the current/updated json string of the document that is being worked on
      */
-    public String getJsonString(){return documentContext.jsonString();}
+    public String getJsonString(){return document.toString();}
 
 
     /**
      * Used for testing
-     * @param fullPath
+     * @param fullPath field name, in which array elements are referenced with * or [index]
      * @return the value at a specific path
      */
     String readString(String fullPath){
-        return documentContext.read(fullPath).toString();
+        List<JsonElement> values = new ArrayList<>();
+
+        readValues(document, fullPath.split("\\."), 0, values);
+
+        final String ret;
+
+        if (fullPath.contains("*")) {
+            JsonArray array = new JsonArray();
+
+            values.forEach(array::add);
+
+            ret = array.toString();
+        } else if (values.isEmpty()) {
+            throw new MaskingException("no value found at path: " + fullPath);
+        } else {
+            JsonElement value = values.get(0);
+
+            ret = value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        }
+
+        return ret;
     }
 
-    private void checkIsValidJson(String jsonString) {
+    /**
+     * Parses the json string, in a single pass that also records the shape of the document in the given builder.
+     * The shape includes field names and nesting, but not values; consecutive array elements of the same shape are
+     * recorded once, since the field names don't include array indexes.
+     */
+    private static JsonElement parse(String jsonString, StringBuilder shape) {
         try {
-            JsonParser.parseString(jsonString); // throws JsonSyntaxException
-        } catch (JsonSyntaxException e) {
+            JsonReader reader = new JsonReader(new StringReader(jsonString));
+
+            reader.setLenient(true); // as JsonParser.parseString(), used earlier to validate the input
+
+            JsonElement ret = readElement(reader, shape);
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new MaskingException("invalid input json; unable to mask: did not consume the entire document");
+            }
+
+            return ret;
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
             throw new MaskingException("invalid input json; unable to mask", e);
         }
     }
 
-    private List<String> getMatchingFields(String fieldPath){
-        return fieldContextDocument.read("$."+fieldPath);
+    private static JsonElement readElement(JsonReader reader, StringBuilder shape) throws IOException {
+        final JsonElement ret;
+
+        switch (reader.peek()) {
+            case BEGIN_OBJECT: {
+                JsonObject object = new JsonObject();
+
+                shape.append('{');
+
+                reader.beginObject();
+
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+
+                    shape.append(name.length()).append(':').append(name);
+
+                    object.add(name, readElement(reader, shape));
+                }
+
+                reader.endObject();
+
+                shape.append('}');
+
+                ret = object;
+            }
+            break;
+
+            case BEGIN_ARRAY: {
+                JsonArray array         = new JsonArray();
+                int       prevElemStart = -1;
+
+                shape.append('[');
+
+                reader.beginArray();
+
+                while (reader.hasNext()) {
+                    int elemStart = shape.length();
+
+                    array.add(readElement(reader, shape));
+
+                    if (prevElemStart != -1 && isSameShape(shape, prevElemStart, elemStart)) {
+                        shape.setLength(elemStart);
+                    } else {
+                        prevElemStart = elemStart;
+                    }
+                }
+
+                reader.endArray();
+
+                shape.append(']');
+
+                ret = array;
+            }
+            break;
+
+            case STRING:
+                ret = new JsonPrimitive(reader.nextString());
+
+                shape.append('v');
+            break;
+
+            case NUMBER:
+                ret = new JsonPrimitive(ToNumberPolicy.LAZILY_PARSED_NUMBER.readNumber(reader));
+
+                shape.append('v');
+            break;
+
+            case BOOLEAN:
+                ret = new JsonPrimitive(reader.nextBoolean());
+
+                shape.append('v');
+            break;
+
+            case NULL:
+                reader.nextNull();
+
+                ret = JsonNull.INSTANCE;
+
+                shape.append('v');
+            break;
+
+            default:
+                throw new MaskingException("invalid input json; unable to mask: unexpected token " + reader.peek());
+        }
+
+        return ret;
     }
-}
 
+    // is the shape of the element at [elemStart, shape.length()) same as that of the previous element, at [prevElemStart, elemStart)?
+    private static boolean isSameShape(StringBuilder shape, int prevElemStart, int elemStart) {
+        int len = shape.length() - elemStart;
+
+        if (elemStart - prevElemStart != len) {
+            return false;
+        }
+
+        for (int i = 0; i < len; i++) {
+            if (shape.charAt(prevElemStart + i) != shape.charAt(elemStart + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Set<String> getLeafPaths(JsonElement document) {
+        Set<String> ret = new HashSet<>();
+
+        addLeafPaths(document, "", ret);
+
+        return ret;
+    }
+
+    // array elements are named "*"; empty objects and arrays are leaf fields as well
+    private static void addLeafPaths(JsonElement element, String path, Set<String> paths) {
+        if (element.isJsonObject() && element.getAsJsonObject().size() > 0) {
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                addLeafPaths(entry.getValue(), path.isEmpty() ? entry.getKey() : (path + "." + entry.getKey()), paths);
+            }
+        } else if (element.isJsonArray() && element.getAsJsonArray().size() > 0) {
+            String elemPath = path.isEmpty() ? "*" : (path + ".*");
+
+            for (JsonElement elem : element.getAsJsonArray()) {
+                addLeafPaths(elem, elemPath, paths);
+            }
+        } else if (!path.isEmpty()) {
+            paths.add(path);
+        }
+    }
+
+    private static void maskField(JsonElement parent, String[] path, int idx, FieldLevelAccess fa) {
+        String  name   = path[idx];
+        boolean isLeaf = idx == path.length - 1;
+
+        if (parent.isJsonArray() && "*".equals(name)) {
+            JsonArray array = parent.getAsJsonArray();
+
+            for (int i = 0; i < array.size(); i++) {
+                if (isLeaf) {
+                    array.set(i, mask(array.get(i), fa));
+                } else {
+                    maskField(array.get(i), path, idx + 1, fa);
+                }
+            }
+        } else if (parent.isJsonObject() && parent.getAsJsonObject().has(name)) {
+            JsonObject object = parent.getAsJsonObject();
+
+            if (isLeaf) {
+                object.add(name, mask(object.get(name), fa));
+            } else {
+                maskField(object.get(name), path, idx + 1, fa);
+            }
+        }
+    }
+
+    private static JsonElement mask(JsonElement value, FieldLevelAccess fa) {
+        final Object maskedValue;
+
+        //I know I could use polymorphism to not have different methods
+        //but I prefer the readability and the clarity of different method names
+        if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isString()) {
+            maskedValue = DataMasker.maskString(value.getAsString(), fa.maskType, fa.customMaskedValue);
+        } else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber()) {
+            maskedValue = DataMasker.maskNumber(value.getAsNumber(), fa.maskType, fa.customMaskedValue);
+        } else if (value.isJsonPrimitive() && value.getAsJsonPrimitive().isBoolean()) {
+            maskedValue = DataMasker.maskBoolean(value.getAsBoolean(), fa.maskType, fa.customMaskedValue);
+        } else {
+            throw new MaskingException("unable to determine field type: " + value);
+        }
+
+        final JsonElement ret;
+
+        if (maskedValue == null) {
+            ret = JsonNull.INSTANCE;
+        } else if (maskedValue instanceof String) {
+            ret = new JsonPrimitive((String) maskedValue);
+        } else if (maskedValue instanceof Number) {
+            ret = new JsonPrimitive((Number) maskedValue);
+        } else {
+            ret = new JsonPrimitive((Boolean) maskedValue);
+        }
+
+        return ret;
+    }
+
+    private static void readValues(JsonElement parent, String[] path, int idx, List<JsonElement> values) {
+        String            name     = path[idx];
+        List<JsonElement> children = new ArrayList<>();
+
+        if (parent.isJsonArray() && "*".equals(name)) {
+            parent.getAsJsonArray().forEach(children::add);
+        } else if (parent.isJsonArray() && name.startsWith("[") && name.endsWith("]")) { // array index, like [0]
+            int index = Integer.parseInt(name.substring(1, name.length() - 1));
+
+            if (index < parent.getAsJsonArray().size()) {
+                children.add(parent.getAsJsonArray().get(index));
+            }
+        } else if (parent.isJsonObject() && parent.getAsJsonObject().has(name)) {
+            children.add(parent.getAsJsonObject().get(name));
+        }
+
+        for (JsonElement child : children) {
+            if (idx == path.length - 1) {
+                values.add(child);
+            } else {
+                readValues(child, path, idx + 1, values);
+            }
+        }
+    }
+}
@@ -20,16 +20,38 @@
 
 package org.apache.ranger.authorization.nestedstructure.authorizer;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import jdk.nashorn.api.scripting.ClassFilter;
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
- * Executes an injected javascript command to determine if the user has access to the selected record
+ * Executes an injected javascript command to determine if the user has access to the selected record.
+ *
+ * Creating a script engine, and parsing the filter expression, costs much more than evaluating the expression for
+ * a record. Hence each thread keeps its own engine, along with the filter expressions it recently compiled. Simple
+ * expressions that compare a string attribute of the record with literals are evaluated without the script engine.
  */
 public class RecordFilterJavaScript {
     private static final Logger logger = LoggerFactory.getLogger(RecordFilterJavaScript.class);
@@ -46,6 +68,18 @@ public class RecordFilterJavaScript {
             "&& isNaN(x) && isNaN(y)); } while (k < len) { if (sameValueZero(o[k], valueToFind)) { return true; } k++; }" +
             " return false; } }); }";
 
+    /**
+     * converts the given JSON string to JavaScript object, which the filterExpr expects
+     */
+    private static final String SCRIPT_PREFIX = " jsonAttr = JSON.parse(jsonString); " + NASHORN_POLYFILL_ARRAY_PROTOTYPE_INCLUDES + " ";
+
+    /**
+     * number of compiled filter expressions retained by each thread
+     */
+    private static final int MAX_FILTERS_PER_THREAD = 128;
+
+    private static final ThreadLocal<FilterCache> FILTER_CACHE = ThreadLocal.withInitial(FilterCache::new);
+
 
     /**
      * This class filter prevents javascript from importing, using or reflecting any java classes
@@ -72,39 +106,206 @@ boolean containsMalware(String filterExpr){
 
 
     public static boolean filterRow(String user, String filterExpr, String jsonString) {
-        SecurityFilter securityFilter = new SecurityFilter();
-
-        if (securityFilter.containsMalware(filterExpr)) {
-            throw new MaskingException("cannot process filter expression due to security concern \"this.engine\": " + filterExpr);
+        if (logger.isDebugEnabled()) {
+            logger.debug("filterExpr: " + filterExpr);
         }
 
-        NashornScriptEngineFactory factory = new NashornScriptEngineFactory();
-        ScriptEngine               engine  = factory.getScriptEngine(securityFilter);
+        FilterCache cache     = FILTER_CACHE.get();
+        boolean     hasAccess = cache.getFilter(filterExpr).evaluate(cache, user, jsonString);
 
         if (logger.isDebugEnabled()) {
-            logger.debug("filterExpr: " + filterExpr);
+            logger.debug("row filter access=" + hasAccess);
+        }
+
+        return hasAccess;
+    }
+
+    /**
+     * The script engine of a thread, and the filter expressions recently evaluated by the thread; least recently used
+     * expressions are evicted once there are more than MAX_FILTERS_PER_THREAD.
+     */
+    private static class FilterCache extends LinkedHashMap<String, CompiledFilter> {
+        private final SecurityFilter securityFilter = new SecurityFilter();
+        private       ScriptEngine   engine;
+
+        FilterCache() {
+            super(16, 0.75f, true);
+        }
+
+        CompiledFilter getFilter(String filterExpr) {
+            CompiledFilter ret = get(filterExpr);
+
+            if (ret == null) {
+                if (securityFilter.containsMalware(filterExpr)) {
+                    throw new MaskingException("cannot process filter expression due to security concern \"this.engine\": " + filterExpr);
+                }
+
+                ret = new CompiledFilter(filterExpr);
+
+                put(filterExpr, ret);
+            }
+
+            return ret;
+        }
+
+        ScriptEngine getEngine() {
+            if (engine == null) {
+                engine = new NashornScriptEngineFactory().getScriptEngine(securityFilter);
+            }
+
+            return engine;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledFilter> eldest) {
+            return size() > MAX_FILTERS_PER_THREAD;
+        }
+    }
+
+    /**
+     * A filter expression, compiled once per thread. Bindings are reused across records, so that each evaluation
+     * doesn't create a new javascript global object; jsonAttr is reassigned for every record.
+     */
+    private static class CompiledFilter {
+        private final String          filterExpr;
+        private final StringPredicate predicate;
+        private       CompiledScript  script;
+        private       Bindings        bindings;
+
+        CompiledFilter(String filterExpr) {
+            this.filterExpr = filterExpr;
+            this.predicate  = StringPredicate.parse(filterExpr);
+        }
+
+        boolean evaluate(FilterCache cache, String user, String jsonString) {
+            Boolean ret = predicate != null ? predicate.evaluate(jsonString) : null;
+
+            if (ret == null) {
+                ret = evaluateScript(cache, user, jsonString);
+            }
+
+            return ret;
+        }
+
+        private boolean evaluateScript(FilterCache cache, String user, String jsonString) {
+            try {
+                if (script == null) {
+                    ScriptEngine engine = cache.getEngine();
+
+                    script   = ((Compilable) engine).compile(SCRIPT_PREFIX + filterExpr);
+                    bindings = engine.createBindings();
+                }
+
+                bindings.put("jsonString", jsonString);
+                bindings.put("user", user);
+
+                return (boolean) script.eval(bindings);
+            } catch (Exception e) {
+                throw new MaskingException("unable to properly evaluate filter expression: " + filterExpr, e);
+            } finally {
+                if (bindings != null) { // don't hold on to the record until the next evaluation
+                    bindings.remove("jsonString");
+                    bindings.remove("jsonAttr");
+                    bindings.remove("user");
+                }
+            }
         }
+    }
+
+    /**
+     * Evaluates, without the script engine, the most common filter expressions:
+     *   jsonAttr.a.b == 'x', jsonAttr.a.b === 'x', jsonAttr.a.b.equals('x') and ['x', 'y'].includes(jsonAttr.a.b)
+     * evaluate() returns null when the attribute in the record is not a string, or the record is not valid JSON; the
+     * caller then evaluates the expression with the script engine, which handles javascript type conversions and errors.
+     */
+    static class StringPredicate {
+        private static final String  ATTR     = "jsonAttr((?:\\.[A-Za-z_$][\\w$]*)+)";
+        private static final String  LITERAL  = "(?:'([^'\\\\]*)'|\"([^\"\\\\]*)\")";
+        private static final Pattern LITERAL_PATTERN  = Pattern.compile(LITERAL);
+        private static final Pattern EQUALS_PATTERN   = Pattern.compile("^\\s*" + ATTR + "\\s*(?:===|==)\\s*" + LITERAL + "\\s*;?\\s*$");
+        private static final Pattern EQUALS_PATTERN2  = Pattern.compile("^\\s*" + ATTR + "\\.equals\\(\\s*" + LITERAL + "\\s*\\)\\s*;?\\s*$");
+        private static final Pattern INCLUDES_PATTERN = Pattern.compile("^\\s*\\[\\s*(" + LITERAL + "(?:\\s*,\\s*" + LITERAL + ")*)\\s*\\]\\.includes\\(\\s*" + ATTR + "\\s*\\)\\s*;?\\s*$");
+
+        private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
 
-        // convert the given JSON string to JavaScript object, which the filterExpr expects, and then exec the filterExpr
-        String script = " jsonAttr = JSON.parse(jsonString); " + NASHORN_POLYFILL_ARRAY_PROTOTYPE_INCLUDES + " " + filterExpr;
+        private final String[]    attrPath;
+        private final Set<String> values;
 
-        try {
-            Bindings bindings = engine.createBindings();
+        private StringPredicate(String attrPath, Set<String> values) {
+            this.attrPath = attrPath.substring(1).split("\\.");
+            this.values   = values;
+        }
+
+        static StringPredicate parse(String filterExpr) {
+            StringPredicate ret     = null;
+            Matcher         matcher = EQUALS_PATTERN.matcher(filterExpr);
 
-            bindings.put("jsonString", jsonString);
-            bindings.put("user", user);
+            if (!matcher.matches()) {
+                matcher = EQUALS_PATTERN2.matcher(filterExpr);
+            }
 
-            boolean hasAccess = (boolean) engine.eval(script, bindings);
+            if (matcher.matches()) {
+                ret = new StringPredicate(matcher.group(1), Collections.singleton(matcher.group(2) != null ? matcher.group(2) : matcher.group(3)));
+            } else {
+                matcher = INCLUDES_PATTERN.matcher(filterExpr);
+
+                if (matcher.matches()) {
+                    ret = new StringPredicate(matcher.group(matcher.groupCount()), getLiterals(matcher.group(1)));
+                }
+            }
 
             if (logger.isDebugEnabled()) {
-                logger.debug("row filter access=" + hasAccess);
+                logger.debug("filterExpr: " + filterExpr + ", evaluated without script engine: " + (ret != null));
             }
 
-            return hasAccess;
-        } catch (Exception e) {
-            throw new MaskingException("unable to properly evaluate filter expression: " + filterExpr, e);
+            return ret;
+        }
+
+        Boolean evaluate(String jsonString) {
+            Boolean ret = null;
+
+            try {
+                JsonElement value = parseJson(jsonString);
+
+                for (String name : attrPath) {
+                    value = (value instanceof JsonObject) ? ((JsonObject) value).get(name) : null;
+                }
+
+                if (value instanceof JsonPrimitive && ((JsonPrimitive) value).isString()) {
+                    ret = values.contains(value.getAsString());
+                }
+            } catch (IOException | RuntimeException e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("failed to parse record; filter will be evaluated by script engine", e);
+                }
+            }
+
+            return ret;
+        }
+
+        private static Set<String> getLiterals(String str) {
+            Set<String> ret     = new HashSet<>();
+            Matcher     matcher = LITERAL_PATTERN.matcher(str);
+
+            while (matcher.find()) {
+                ret.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+            }
+
+            return ret;
+        }
+
+        private static JsonElement parseJson(String jsonString) throws IOException {
+            JsonReader reader = new JsonReader(new StringReader(jsonString));
+
+            reader.setLenient(false); // same as JSON.parse()
+
+            JsonElement ret = JSON_ELEMENT_ADAPTER.read(reader);
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new IOException("unexpected content after JSON document");
+            }
+
+            return ret;
         }
     }
 }
-
- 
\ No newline at end of file
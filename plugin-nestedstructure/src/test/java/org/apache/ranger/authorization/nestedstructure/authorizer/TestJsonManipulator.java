@@ -25,6 +25,7 @@
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -360,4 +361,31 @@ void testRecordsInArray2(){
         man.maskFields(Arrays.asList(fieldAccess));
         Assert.assertEquals(man.readString("customAttributes.[0].key"), "THEMASK");
     }
+
+    @Test
+    void testFieldsCachedByShape() {
+        JsonManipulator man1 = new JsonManipulator("{\"id\": 1, \"tags\": [{\"key\": \"a\"}], \"address\": {\"city\": \"x\"}}");
+        JsonManipulator man2 = new JsonManipulator("{\"id\": 2, \"tags\": [{\"key\": \"b\"}, {\"key\": \"c\"}], \"address\": {\"city\": \"y\"}}");
+        JsonManipulator man3 = new JsonManipulator("{\"id\": 3, \"tags\": [{\"key\": \"d\"}, {\"value\": \"e\"}], \"address\": {\"city\": \"z\"}}");
+
+        // records that differ only in values and in the number of array elements of the same shape share the field set
+        Assert.assertSame(man1.getFields(), man2.getFields());
+        Assert.assertEquals(man1.getFields(), new HashSet<>(Arrays.asList("id", "tags.*.key", "address.city")));
+
+        Assert.assertNotSame(man1.getFields(), man3.getFields());
+        Assert.assertEquals(man3.getFields(), new HashSet<>(Arrays.asList("id", "tags.*.key", "tags.*.value", "address.city")));
+
+        Assert.assertEquals(man3.readString("tags.[1].value"), "e");
+    }
+
+    @Test
+    void testEmptyContainerFields() {
+        JsonManipulator man = new JsonManipulator("{\"emptyMap\": {}, \"emptyArray\": [], \"nested\": [[1, 2], [3]]}");
+
+        Assert.assertEquals(man.getFields(), new HashSet<>(Arrays.asList("emptyMap", "emptyArray", "nested.*.*")));
+
+        man.maskFields(Arrays.asList(new FieldLevelAccess("nested.*.*", true, 1L, true, CUSTOM, "0")));
+
+        Assert.assertEquals(man.getJsonString(), "{\"emptyMap\":{},\"emptyArray\":[],\"nested\":[[0,0],[0]]}");
+    }
 }
@@ -62,5 +62,41 @@ public void testBasicFilters(){
 
         Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.partner.equals('cox')", TestJsonManipulator.testString1), false);
     }
-}
 
+    @Test
+    public void testStringPredicates() {
+        Assert.assertNotNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.partner == 'dance'"));
+        Assert.assertNotNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.address.zipCode === \"19019\""));
+        Assert.assertNotNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.address.zipCode.equals('19019')"));
+        Assert.assertNotNull(RecordFilterJavaScript.StringPredicate.parse("['PA', 'NJ'].includes(jsonAttr.address.state)"));
+        Assert.assertNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.aMap.mapNumber > 5"));
+        Assert.assertNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.partner == 'dance' && user == 'user'"));
+        Assert.assertNull(RecordFilterJavaScript.StringPredicate.parse("jsonAttr.partner == 'it\\'s'"));
+
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.partner == 'dance'", TestJsonManipulator.testString1), true);
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.partner == 'cox'", TestJsonManipulator.testString1), false);
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.address.zipCode === \"19019\"", TestJsonManipulator.testString1), true);
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "['PA', 'NJ'].includes(jsonAttr.address.state)", TestJsonManipulator.testString1), true);
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "['NY', 'NJ'].includes(jsonAttr.address.state)", TestJsonManipulator.testString1), false);
+
+        // attribute is not a string, or not present: evaluated by the script engine, with javascript semantics
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.someNumber == '12345678'", TestJsonManipulator.bigTester), true);
+        Assert.assertEquals(RecordFilterJavaScript.filterRow("user", "jsonAttr.notExists == 'dance'", TestJsonManipulator.testString1), false);
+    }
+
+    @Test
+    public void testCompiledFilterReuse() {
+        String filterExpr = "jsonAttr.address.zipCode.equals('19019') && user == 'user1'";
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(RecordFilterJavaScript.filterRow("user1", filterExpr, TestJsonManipulator.testString1), true);
+            Assert.assertEquals(RecordFilterJavaScript.filterRow("user2", filterExpr, TestJsonManipulator.testString1), false);
+            Assert.assertEquals(RecordFilterJavaScript.filterRow("user1", filterExpr, TestJsonManipulator.testString1.replace("19019", "19020")), false);
+        }
+    }
+
+    @Test(expectedExceptions = {MaskingException.class})
+    public void testInvalidRecord() {
+        RecordFilterJavaScript.filterRow("user", "jsonAttr.partner == 'dance'", "{ \"partner\": \"dance\" ");
+    }
+}
@@ -35,6 +35,7 @@
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
@@ -49,12 +50,15 @@
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 
 import static java.util.Locale.ENGLISH;
 
@@ -238,38 +242,19 @@ public List<ViewExpression> getColumnMasks(SystemSecurityContext context, Catalo
   @Override
   public Set<String> filterCatalogs(SystemSecurityContext context, Set<String> catalogs) {
     LOG.debug("==> RangerSystemAccessControl.filterCatalogs("+ catalogs + ")");
-    Set<String> filteredCatalogs = new HashSet<>(catalogs.size());
-    for (String catalog: catalogs) {
-      if (hasPermission(createResource(catalog), context, TrinoAccessType.SELECT)) {
-        filteredCatalogs.add(catalog);
-      }
-    }
-    return filteredCatalogs;
+    return filterByPermission(catalogs, catalog -> createResource(catalog), context, TrinoAccessType.SELECT);
   }
 
   @Override
   public Set<String> filterSchemas(SystemSecurityContext context, String catalogName, Set<String> schemaNames) {
     LOG.debug("==> RangerSystemAccessControl.filterSchemas(" + catalogName + ")");
-    Set<String> filteredSchemaNames = new HashSet<>(schemaNames.size());
-    for (String schemaName: schemaNames) {
-      if (hasPermission(createResource(catalogName, schemaName), context, TrinoAccessType.SELECT)) {
-        filteredSchemaNames.add(schemaName);
-      }
-    }
-    return filteredSchemaNames;
+    return filterByPermission(schemaNames, schemaName -> createResource(catalogName, schemaName), context, TrinoAccessType.SELECT);
   }
 
   @Override
   public Set<SchemaTableName> filterTables(SystemSecurityContext context, String catalogName, Set<SchemaTableName> tableNames) {
     LOG.debug("==> RangerSystemAccessControl.filterTables(" + catalogName + ")");
-    Set<SchemaTableName> filteredTableNames = new HashSet<>(tableNames.size());
-    for (SchemaTableName tableName : tableNames) {
-      RangerTrinoResource res = createResource(catalogName, tableName.getSchemaName(), tableName.getTableName());
-      if (hasPermission(res, context, TrinoAccessType.SELECT)) {
-        filteredTableNames.add(tableName);
-      }
-    }
-    return filteredTableNames;
+    return filterByPermission(tableNames, tableName -> createResource(catalogName, tableName.getSchemaName(), tableName.getTableName()), context, TrinoAccessType.SELECT);
   }
 
   /** PERMISSION CHECKS ORDERED BY SYSTEM, CATALOG, SCHEMA, TABLE, VIEW, COLUMN, QUERY, FUNCTIONS, PROCEDURES **/
@@ -713,6 +698,10 @@ public void checkCanExecuteTableProcedure(SystemSecurityContext context, Catalog
   /** HELPER FUNCTIONS **/
 
   private RangerTrinoAccessRequest createAccessRequest(RangerTrinoResource resource, SystemSecurityContext context, TrinoAccessType accessType) {
+    return new RangerTrinoAccessRequest(resource, context.getIdentity().getUser(), getUserGroups(context), accessType);
+  }
+
+  private Set<String> getUserGroups(SystemSecurityContext context) {
     Set<String> userGroups = null;
 
     if (useUgi) {
@@ -727,14 +716,7 @@ private RangerTrinoAccessRequest createAccessRequest(RangerTrinoResource resourc
       userGroups = context.getIdentity().getGroups();
     }
 
-    RangerTrinoAccessRequest request = new RangerTrinoAccessRequest(
-      resource,
-      context.getIdentity().getUser(),
-      userGroups,
-      accessType
-    );
-
-    return request;
+    return userGroups;
   }
 
   private boolean hasPermission(RangerTrinoResource resource, SystemSecurityContext context, TrinoAccessType accessType) {
@@ -750,6 +732,43 @@ private boolean hasPermission(RangerTrinoResource resource, SystemSecurityContex
     return ret;
   }
 
+  /*
+   * Evaluates access to all the given objects in a single batch: user groups are looked up once, and the policy-engine
+   * shares resource lookups across the requests, which usually have the catalog (and schema) in common.
+   */
+  private <T> Set<T> filterByPermission(Set<T> objects, Function<T, RangerTrinoResource> resourceMapper, SystemSecurityContext context, TrinoAccessType accessType) {
+    Set<T> ret = new HashSet<>(objects.size());
+
+    if (objects.isEmpty()) {
+      return ret;
+    }
+
+    String                    user       = context.getIdentity().getUser();
+    Set<String>               userGroups = getUserGroups(context);
+    List<T>                   objectList = new ArrayList<>(objects);
+    List<RangerAccessRequest> requests   = new ArrayList<>(objectList.size());
+
+    for (T object : objectList) {
+      requests.add(new RangerTrinoAccessRequest(resourceMapper.apply(object), user, userGroups, accessType));
+    }
+
+    Collection<RangerAccessResult> results = rangerPlugin.isAccessAllowed(requests);
+
+    if (results != null) {
+      Iterator<T> iterObjects = objectList.iterator();
+
+      for (RangerAccessResult result : results) {
+        T object = iterObjects.next();
+
+        if (result != null && result.getIsAllowed()) {
+          ret.add(object);
+        }
+      }
+    }
+
+    return ret;
+  }
+
   private static RangerTrinoResource createUserResource(String userName) {
     RangerTrinoResource res = new RangerTrinoResource();
     res.setValue(RangerTrinoResource.KEY_USER, userName);
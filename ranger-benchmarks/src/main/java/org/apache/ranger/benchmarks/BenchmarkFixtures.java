@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.policyengine.RangerAccessRequestDeserializer;
+import org.apache.ranger.policyengine.RangerResourceDeserializer;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Loads the hive policy/tag/request fixtures shared with ranger-tools, and scales them up to the sizes
+ * needed by the benchmarks. Scaling is deterministic (fixed seed), so that runs are comparable.
+ */
+public final class BenchmarkFixtures {
+	public static final String SERVICE_POLICIES_FILE = "/testdata/test_servicepolicies_hive.json";
+	public static final String SERVICE_TAGS_FILE     = "/testdata/test_servicetags_hive.json";
+	public static final String REQUESTS_FILE         = "/testdata/test_requests_hive.json";
+	public static final String CONFIG_FILE           = "/testdata/ranger-config.xml";
+
+	public static final int DATABASE_COUNT = 10;
+	public static final int TABLE_COUNT    = 100;
+	public static final int COLUMN_COUNT   = 20;
+	public static final int USER_COUNT     = 100;
+
+	private static final long     SEED         = 20231017L;
+	private static final String[] ACCESS_TYPES = { "select", "update", "create", "drop", "alter" };
+	private static final Gson     GSON         = createGson();
+
+	private BenchmarkFixtures() {
+	}
+
+	public static Gson getGson() {
+		return GSON;
+	}
+
+	public static ServicePolicies loadServicePolicies() {
+		return load(SERVICE_POLICIES_FILE, ServicePolicies.class);
+	}
+
+	public static ServiceTags loadServiceTags() {
+		return load(SERVICE_TAGS_FILE, ServiceTags.class);
+	}
+
+	public static List<RangerAccessRequest> loadRequests() {
+		List<RangerAccessRequest> ret = new ArrayList<>();
+
+		try (Reader reader = openResource(REQUESTS_FILE)) {
+			JsonArray testCases = JsonParser.parseReader(reader).getAsJsonArray();
+
+			for (JsonElement testCase : testCases) {
+				ret.add(GSON.fromJson(testCase.getAsJsonObject().get("request"), RangerAccessRequest.class));
+			}
+		} catch (Exception excp) {
+			throw new IllegalStateException("failed to load " + REQUESTS_FILE, excp);
+		}
+
+		return ret;
+	}
+
+	public static RangerPluginContext createPluginContext(String serviceType, RangerPolicyEngineOptions options) {
+		RangerPluginContext ret = new RangerPluginContext(new RangerPluginConfig(serviceType, null, "perf-test", null, null, options));
+
+		ret.getConfig().addResource(getResource(CONFIG_FILE));
+
+		return ret;
+	}
+
+	public static RangerPolicyEngineOptions createPolicyEngineOptions() {
+		RangerPolicyEngineOptions ret = new RangerPolicyEngineOptions();
+
+		ret.disableTagPolicyEvaluation = false;
+		ret.cacheAuditResults          = false;
+
+		return ret;
+	}
+
+	/**
+	 * Returns the fixture service-policies, with its policies replaced by policyCount copies of the first
+	 * fixture policy, each on a different database/table/column combination.
+	 */
+	public static ServicePolicies createServicePolicies(int policyCount) {
+		ServicePolicies    ret      = loadServicePolicies();
+		RangerPolicy       template = ret.getPolicies().get(0);
+		List<RangerPolicy> policies = new ArrayList<>(policyCount);
+		Random             random   = new Random(SEED);
+
+		for (int i = 0; i < policyCount; i++) {
+			policies.add(createPolicy(template, i + 1, ret.getServiceDef().getName(), random));
+		}
+
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+
+	public static RangerPolicy createPolicy(RangerPolicy template, long id, String serviceType, Random random) {
+		RangerPolicy                      ret       = copy(template, RangerPolicy.class);
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", new RangerPolicyResource(getDatabaseName(random.nextInt(DATABASE_COUNT)), false, false));
+		resources.put("table", new RangerPolicyResource(random.nextInt(4) == 0 ? "tax_*" : getTableName(random.nextInt(TABLE_COUNT)), false, false));
+		resources.put("column", new RangerPolicyResource(random.nextInt(2) == 0 ? "*" : getColumnName(random.nextInt(COLUMN_COUNT)), false, false));
+
+		ret.setId(id);
+		ret.setName("generated-policy-" + id);
+		ret.setServiceType(serviceType);
+		ret.setResources(resources);
+		ret.getPolicyItems().get(0).setUsers(Collections.singletonList(getUserName(random.nextInt(USER_COUNT))));
+
+		return ret;
+	}
+
+	/**
+	 * Returns the fixture requests, followed by requestCount generated requests on resources covered by
+	 * {@link #createServicePolicies(int)} and {@link #createServiceTags(int)}.
+	 */
+	public static List<RangerAccessRequest> createRequests(int requestCount) {
+		List<RangerAccessRequest> ret      = loadRequests();
+		RangerAccessRequest       template = ret.get(0);
+		Random                    random   = new Random(SEED + 1);
+
+		for (int i = 0; i < requestCount; i++) {
+			RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+			resource.setValue("database", getDatabaseName(random.nextInt(DATABASE_COUNT)));
+			resource.setValue("table", getTableName(random.nextInt(TABLE_COUNT)));
+			resource.setValue("column", getColumnName(random.nextInt(COLUMN_COUNT)));
+
+			RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, ACCESS_TYPES[random.nextInt(ACCESS_TYPES.length)], getUserName(random.nextInt(USER_COUNT)), template.getUserGroups(), null);
+
+			request.setRequestData(template.getRequestData());
+
+			ret.add(request);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns the fixture service-tags, with resourceCount additional tagged tables, all associated with the fixture tag.
+	 */
+	public static ServiceTags createServiceTags(int resourceCount) {
+		ServiceTags                 ret              = loadServiceTags();
+		RangerServiceResource       template         = ret.getServiceResources().get(0);
+		List<Long>                  tagIds           = ret.getResourceToTagIds().get(template.getId());
+		List<RangerServiceResource> serviceResources = new ArrayList<>(ret.getServiceResources());
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>(ret.getResourceToTagIds());
+		Random                      random           = new Random(SEED + 2);
+
+		for (int i = 0; i < resourceCount; i++) {
+			RangerServiceResource             resource         = copy(template, RangerServiceResource.class);
+			Map<String, RangerPolicyResource> resourceElements = new HashMap<>();
+			long                              id               = template.getId() + i + 1;
+
+			resourceElements.put("database", new RangerPolicyResource(getDatabaseName(random.nextInt(DATABASE_COUNT))));
+			resourceElements.put("table", new RangerPolicyResource(getTableName(random.nextInt(TABLE_COUNT))));
+
+			resource.setId(id);
+			resource.setGuid(null);
+			resource.setResourceElements(resourceElements);
+
+			serviceResources.add(resource);
+			resourceToTagIds.put(id, tagIds);
+		}
+
+		ret.setServiceResources(serviceResources);
+		ret.setResourceToTagIds(resourceToTagIds);
+
+		return ret;
+	}
+
+	public static RangerServiceDef.RangerResourceDef getResourceDef(RangerServiceDef serviceDef, String name) {
+		for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+			if (resourceDef.getName().equals(name)) {
+				return resourceDef;
+			}
+		}
+
+		throw new IllegalArgumentException(name + ": resource not found in service-def " + serviceDef.getName());
+	}
+
+	public static String getDatabaseName(int idx) {
+		return "finance_" + idx;
+	}
+
+	public static String getTableName(int idx) {
+		return "tax_" + (2000 + idx % 20) + "_" + idx;
+	}
+
+	public static String getColumnName(int idx) {
+		return "col-" + idx;
+	}
+
+	public static String getUserName(int idx) {
+		return "hrt_" + idx;
+	}
+
+	public static <T> T copy(T obj, Class<T> clz) {
+		return GSON.fromJson(GSON.toJson(obj), clz);
+	}
+
+	private static <T> T load(String resourceName, Class<T> clz) {
+		try (Reader reader = openResource(resourceName)) {
+			return GSON.fromJson(reader, clz);
+		} catch (Exception excp) {
+			throw new IllegalStateException("failed to load " + resourceName, excp);
+		}
+	}
+
+	private static Reader openResource(String resourceName) {
+		InputStream in = BenchmarkFixtures.class.getResourceAsStream(resourceName);
+
+		if (in == null) {
+			throw new IllegalStateException(resourceName + ": resource not found");
+		}
+
+		return new InputStreamReader(in, StandardCharsets.UTF_8);
+	}
+
+	private static URL getResource(String resourceName) {
+		URL ret = BenchmarkFixtures.class.getResource(resourceName);
+
+		if (ret == null) {
+			throw new IllegalStateException(resourceName + ": resource not found");
+		}
+
+		return ret;
+	}
+
+	private static Gson createGson() {
+		GsonBuilder builder = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z");
+
+		return builder.registerTypeAdapter(RangerAccessRequest.class, new RangerAccessRequestDeserializer(builder))
+		              .registerTypeAdapter(RangerAccessResource.class, new RangerResourceDeserializer(builder))
+		              .create();
+	}
+}
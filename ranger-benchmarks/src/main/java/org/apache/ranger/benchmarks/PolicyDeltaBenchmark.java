@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerPolicyDeltaUtil.applyDeltas(), with an even mix of create/update/delete deltas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyDeltaBenchmark {
+	@Param({ "1000", "10000" })
+	public int policyCount;
+
+	@Param({ "10", "100" })
+	public int deltaCount;
+
+	private List<RangerPolicy>      policies;
+	private List<RangerPolicyDelta> deltas;
+	private String                  serviceType;
+
+	@Setup(Level.Trial)
+	public void init() {
+		ServicePolicies servicePolicies = BenchmarkFixtures.createServicePolicies(policyCount);
+		RangerPolicy    template        = servicePolicies.getPolicies().get(0);
+		Random          random          = new Random(policyCount);
+
+		serviceType = servicePolicies.getServiceDef().getName();
+		policies    = servicePolicies.getPolicies();
+		deltas      = new ArrayList<>(deltaCount);
+
+		for (int i = 0; i < deltaCount; i++) {
+			final int          changeType;
+			final RangerPolicy policy;
+
+			switch (i % 3) {
+				case 0:
+					changeType = RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE;
+					policy     = BenchmarkFixtures.createPolicy(template, policyCount + i + 1, serviceType, random);
+				break;
+
+				case 1:
+					changeType = RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE;
+					policy     = BenchmarkFixtures.createPolicy(template, random.nextInt(policyCount) + 1, serviceType, random);
+				break;
+
+				default:
+					changeType = RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE;
+					policy     = BenchmarkFixtures.copy(policies.get(random.nextInt(policyCount)), RangerPolicy.class);
+				break;
+			}
+
+			deltas.add(new RangerPolicyDelta((long) i, changeType, (long) i, policy));
+		}
+	}
+
+	@Benchmark
+	public List<RangerPolicy> applyDeltas() {
+		return RangerPolicyDeltaUtil.applyDeltas(policies, deltas, serviceType);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerPolicyEngineImpl.evaluatePolicies() for access policies, including tag-policy evaluation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyEngineBenchmark {
+	@Param({ "100", "1000", "10000" })
+	public int policyCount;
+
+	@Param({ "false", "true" })
+	public boolean enableDecisionCache;
+
+	private RangerPolicyEngineImpl    policyEngine;
+	private List<RangerAccessRequest> requests;
+
+	@Setup(Level.Trial)
+	public void init() {
+		ServicePolicies           servicePolicies = BenchmarkFixtures.createServicePolicies(policyCount);
+		RangerPolicyEngineOptions options         = BenchmarkFixtures.createPolicyEngineOptions();
+
+		options.enableDecisionCache = enableDecisionCache;
+
+		RangerPluginContext pluginContext = BenchmarkFixtures.createPluginContext(servicePolicies.getServiceDef().getName(), options);
+
+		policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+		requests     = BenchmarkFixtures.createRequests(1024);
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() {
+		policyEngine.releaseResources(true);
+	}
+
+	@Benchmark
+	public RangerAccessResult evaluatePolicies(RequestCursor cursor) {
+		return policyEngine.evaluatePolicies(cursor.next(requests), RangerPolicy.POLICY_TYPE_ACCESS, null);
+	}
+}
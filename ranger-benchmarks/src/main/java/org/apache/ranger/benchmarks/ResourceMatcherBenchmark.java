@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerDefaultResourceMatcher and RangerPathResourceMatcher isMatch(), with literal and wildcard policy values.
+ * Default matchers use the 'table' resource-def of the hive fixture; path matchers use an hdfs-style 'path' resource-def.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceMatcherBenchmark {
+	private RangerResourceMatcher defaultLiteralMatcher;
+	private RangerResourceMatcher defaultWildcardMatcher;
+	private RangerResourceMatcher pathRecursiveMatcher;
+	private RangerResourceMatcher pathWildcardMatcher;
+	private List<Object>          tableNames;
+	private List<Object>          paths;
+	private Map<String, Object>   evalContext;
+
+	@Setup(Level.Trial)
+	public void init() {
+		RangerServiceDef  serviceDef   = BenchmarkFixtures.loadServicePolicies().getServiceDef();
+		RangerResourceDef tableDef     = BenchmarkFixtures.getResourceDef(serviceDef, "table");
+		RangerResourceDef pathDef      = getPathResourceDef();
+		List<String>      literalNames = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			literalNames.add(BenchmarkFixtures.getTableName(i * 10));
+		}
+
+		defaultLiteralMatcher  = createMatcher(new RangerDefaultResourceMatcher(), tableDef, new RangerPolicyResource(literalNames, false, false));
+		defaultWildcardMatcher = createMatcher(new RangerDefaultResourceMatcher(), tableDef, new RangerPolicyResource(Arrays.asList("tax_201?_*", "*_2005_*"), false, false));
+		pathRecursiveMatcher   = createMatcher(new RangerPathResourceMatcher(), pathDef, new RangerPolicyResource(Arrays.asList("/warehouse/finance_1", "/warehouse/finance_2"), false, true));
+		pathWildcardMatcher    = createMatcher(new RangerPathResourceMatcher(), pathDef, new RangerPolicyResource("/warehouse/finance_*/tax_201?_*", false, true));
+		tableNames             = new ArrayList<>();
+		paths                  = new ArrayList<>();
+		evalContext            = new HashMap<>();
+
+		for (RangerAccessRequest request : BenchmarkFixtures.createRequests(1024)) {
+			Object database = request.getResource().getValue("database");
+			Object table    = request.getResource().getValue("table");
+
+			tableNames.add(table);
+			paths.add("/warehouse/" + database + "/" + table + "/part-00000");
+		}
+	}
+
+	@Benchmark
+	public boolean defaultMatcherLiteral(RequestCursor cursor) {
+		return defaultLiteralMatcher.isMatch(cursor.next(tableNames), ResourceElementMatchingScope.SELF, evalContext);
+	}
+
+	@Benchmark
+	public boolean defaultMatcherWildcard(RequestCursor cursor) {
+		return defaultWildcardMatcher.isMatch(cursor.next(tableNames), ResourceElementMatchingScope.SELF, evalContext);
+	}
+
+	@Benchmark
+	public boolean pathMatcherRecursive(RequestCursor cursor) {
+		return pathRecursiveMatcher.isMatch(cursor.next(paths), ResourceElementMatchingScope.SELF, evalContext);
+	}
+
+	@Benchmark
+	public boolean pathMatcherWildcard(RequestCursor cursor) {
+		return pathWildcardMatcher.isMatch(cursor.next(paths), ResourceElementMatchingScope.SELF, evalContext);
+	}
+
+	private static RangerResourceMatcher createMatcher(RangerResourceMatcher matcher, RangerResourceDef resourceDef, RangerPolicyResource policyResource) {
+		matcher.setResourceDef(resourceDef);
+		matcher.setPolicyResource(policyResource);
+		matcher.init();
+
+		return matcher;
+	}
+
+	private static RangerResourceDef getPathResourceDef() {
+		RangerResourceDef   ret            = new RangerResourceDef();
+		Map<String, String> matcherOptions = new HashMap<>();
+
+		matcherOptions.put("wildCard", "true");
+		matcherOptions.put("ignoreCase", "false");
+		matcherOptions.put("pathSeparatorChar", "/");
+
+		ret.setItemId(1L);
+		ret.setName("path");
+		ret.setType("path");
+		ret.setLevel(10);
+		ret.setParent("");
+		ret.setRecursiveSupported(true);
+		ret.setMatcher(RangerPathResourceMatcher.class.getName());
+		ret.setMatcherOptions(matcherOptions);
+
+		return ret;
+	}
+}
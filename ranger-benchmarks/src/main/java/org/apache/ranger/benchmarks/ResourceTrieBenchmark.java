@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
+import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerResourceTrie.getEvaluatorsForResource() on tries built the same way RangerPolicyRepository builds them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceTrieBenchmark {
+	@Param({ "100", "1000", "10000" })
+	public int policyCount;
+
+	@Param({ "true", "false" })
+	public boolean optimizeForRetrieval;
+
+	private RangerResourceTrie<RangerPolicyResourceEvaluator> databaseTrie;
+	private RangerResourceTrie<RangerPolicyResourceEvaluator> tableTrie;
+	private List<Object>                                      databaseNames;
+	private List<Object>                                      tableNames;
+
+	@Setup(Level.Trial)
+	public void init() {
+		ServicePolicies             servicePolicies = BenchmarkFixtures.createServicePolicies(policyCount);
+		RangerServiceDef            serviceDef      = servicePolicies.getServiceDef();
+		RangerPolicyEngineOptions   options         = BenchmarkFixtures.createPolicyEngineOptions();
+		RangerPluginContext         pluginContext   = BenchmarkFixtures.createPluginContext(serviceDef.getName(), options);
+		List<RangerPolicyEvaluator> evaluators      = new ArrayList<>();
+
+		for (RangerPolicy policy : servicePolicies.getPolicies()) {
+			RangerOptimizedPolicyEvaluator evaluator = new RangerOptimizedPolicyEvaluator();
+
+			evaluator.setPluginContext(pluginContext);
+			evaluator.init(policy, serviceDef, options);
+
+			evaluators.add(evaluator);
+		}
+
+		databaseTrie  = new RangerResourceTrie<>(BenchmarkFixtures.getResourceDef(serviceDef, "database"), evaluators, optimizeForRetrieval, false, pluginContext);
+		tableTrie     = new RangerResourceTrie<>(BenchmarkFixtures.getResourceDef(serviceDef, "table"), evaluators, optimizeForRetrieval, false, pluginContext);
+		databaseNames = new ArrayList<>();
+		tableNames    = new ArrayList<>();
+
+		for (RangerAccessRequest request : BenchmarkFixtures.createRequests(1024)) {
+			databaseNames.add(request.getResource().getValue("database"));
+			tableNames.add(request.getResource().getValue("table"));
+		}
+	}
+
+	@Benchmark
+	public Set<RangerPolicyResourceEvaluator> databaseLookup(RequestCursor cursor) {
+		return databaseTrie.getEvaluatorsForResource(cursor.next(databaseNames));
+	}
+
+	@Benchmark
+	public Set<RangerPolicyResourceEvaluator> tableLookup(RequestCursor cursor) {
+		return tableTrie.getEvaluatorsForResource(cursor.next(tableNames));
+	}
+}
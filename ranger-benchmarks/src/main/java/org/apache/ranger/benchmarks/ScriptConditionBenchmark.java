@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmarks;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerCompiledScript;
+import org.apache.ranger.plugin.policyengine.RangerRequestScriptEvaluator;
+import org.apache.ranger.plugin.util.ScriptEngineUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.script.ScriptEngine;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-evaluation cost of a policy-item condition script: evaluation of the script text, as done before condition
+ * scripts were compiled, versus evaluation of the script compiled once by RangerRequestScriptEvaluator.compileScript().
+ * The 'ctx' script uses only the request-context object; the 'json' script references variables initialized from
+ * the JSON serialized request-context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptConditionBenchmark {
+	private static final String SCRIPT_CTX  = "ctx.getUser() != null && ctx.getUser().endsWith('1')";
+	private static final String SCRIPT_JSON = "REQ.accessType == 'select' && USER._name.endsWith('1')";
+
+	@Param({ "ctx", "json" })
+	public String scriptType;
+
+	private ScriptEngine              scriptEngine;
+	private String                    script;
+	private boolean                   enableJsonCtx;
+	private RangerCompiledScript      compiledScript;
+	private List<RangerAccessRequest> requests;
+
+	@Setup(Level.Trial)
+	public void init() {
+		scriptEngine   = ScriptEngineUtil.createScriptEngine(BenchmarkFixtures.loadServicePolicies().getServiceDef().getName());
+		script         = "json".equals(scriptType) ? SCRIPT_JSON : SCRIPT_CTX;
+		enableJsonCtx  = RangerRequestScriptEvaluator.needsJsonCtxEnabled(script);
+		compiledScript = RangerRequestScriptEvaluator.compileScript(scriptEngine, script, null);
+		requests       = BenchmarkFixtures.createRequests(1024);
+	}
+
+	@Benchmark
+	public boolean evaluateScriptText(RequestCursor cursor) {
+		RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(cursor.next(requests));
+
+		evaluator.evaluateConditionScript(scriptEngine, script, enableJsonCtx);
+
+		return evaluator.getResult();
+	}
+
+	@Benchmark
+	public boolean evaluateCompiledScript(RequestCursor cursor) {
+		RangerRequestScriptEvaluator evaluator = new RangerRequestScriptEvaluator(cursor.next(requests));
+
+		evaluator.evaluateConditionScript(compiledScript);
+
+		return evaluator.getResult();
+	}
+}
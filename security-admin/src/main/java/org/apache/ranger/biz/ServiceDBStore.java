@@ -27,6 +27,7 @@
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -2901,34 +2902,58 @@ public ServicePolicies getServicePoliciesIfUpdated(String serviceName, Long last
 			if (LOG.isDebugEnabled()) {
 				LOG.debug("Checking if resource-service:[" + ret.getServiceName() + "] is disabled");
 			}
-			if (!serviceDbObj.getIsenabled()) {
-				ret = ServicePolicies.copyHeader(ret);
-				ret.setTagPolicies(null);
-			} else {
-				boolean isTagServiceActive = true;
+			boolean isServiceEnabled   = serviceDbObj.getIsenabled();
+			String  tagServiceName     = null;
+			boolean isTagServiceActive = false;
 
-				if (ret.getTagPolicies() != null) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Checking if tag-service:[" + ret.getTagPolicies().getServiceName() + "] is disabled");
-					}
-					String tagServiceName = ret.getTagPolicies().getServiceName();
+			if (isServiceEnabled && ret.getTagPolicies() != null) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Checking if tag-service:[" + ret.getTagPolicies().getServiceName() + "] is disabled");
+				}
+				tagServiceName = ret.getTagPolicies().getServiceName();
 
-					if (StringUtils.isNotEmpty(tagServiceName)) {
-						XXService tagService = daoMgr.getXXService().findByName(tagServiceName);
-						if (tagService == null || !tagService.getIsenabled()) {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("tag-service:[" + tagServiceName + "] is disabled");
-							}
-							isTagServiceActive = false;
+				if (StringUtils.isNotEmpty(tagServiceName)) {
+					XXService tagService = daoMgr.getXXService().findByName(tagServiceName);
+					if (tagService == null || !tagService.getIsenabled()) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("tag-service:[" + tagServiceName + "] is disabled");
 						}
 					} else {
-						isTagServiceActive = false;
+						isTagServiceActive = true;
 					}
-				} else {
-					isTagServiceActive = false;
 				}
+			}
+
+			Map<String, RangerSecurityZone.RangerSecurityZoneService> securityZones               = securityZoneStore.getSecurityZonesForService(serviceName);
+			Map<String, List<HashMap<String, List<String>>>>          zoneResources               = new HashMap<>();
+			List<String>                                              zonesInAssociatedTagService = Collections.emptyList();
+
+			if (MapUtils.isNotEmpty(securityZones)) {
+				for (Map.Entry<String, RangerSecurityZone.RangerSecurityZoneService> entry : securityZones.entrySet()) {
+					zoneResources.put(entry.getKey(), entry.getValue().getResources());
+				}
+
+				if (isTagServiceActive) {
+					zonesInAssociatedTagService = daoMgr.getXXSecurityZoneDao().findZonesByTagServiceName(tagServiceName);
+				}
+			}
+
+			Map<String, String> serviceConfig    = getServiceConfigForPlugin(serviceDbObj.getId());
+			Map<String, String> tagServiceConfig = isTagServiceActive && ret.getTagPolicies().getServiceId() != null ? getServiceConfigForPlugin(ret.getTagPolicies().getServiceId()) : null;
+
+			// everything, other than the cached policies, the response is built from; changes to these don't update the policy-version
+			List<Object> downloadInputs = Arrays.asList(isServiceEnabled, tagServiceName, isTagServiceActive, zoneResources, zonesInAssociatedTagService, serviceConfig, tagServiceConfig);
+
+			// plugins downloading the same version share the response, so that it is built and serialized only once
+			ServicePolicies cachedResponse = RangerServicePoliciesCache.getInstance().getDownloadResponse(serviceName, lastKnownVersion, needsBackwardCompatibility, ret.getPolicyVersion(), downloadInputs);
 
-				if (!isTagServiceActive) {
+			if (cachedResponse != null) {
+				ret = cachedResponse;
+			} else {
+				if (!isServiceEnabled) {
+					ret = ServicePolicies.copyHeader(ret);
+					ret.setTagPolicies(null);
+				} else if (!isTagServiceActive) {
 					ServicePolicies copy = ServicePolicies.copyHeader(ret);
 					copy.setTagPolicies(null);
 					List<RangerPolicy> copyPolicies = ret.getPolicies() != null ? new ArrayList<>(ret.getPolicies()) : null;
@@ -2937,27 +2962,27 @@ public ServicePolicies getServicePoliciesIfUpdated(String serviceName, Long last
 					copy.setPolicyDeltas(copyPolicyDeltas);
 					ret = copy;
 				}
-			}
 
-			Map<String, RangerSecurityZone.RangerSecurityZoneService> securityZones = securityZoneStore.getSecurityZonesForService(serviceName);
-			ServicePolicies updatedServicePolicies = ret;
-			if (MapUtils.isNotEmpty(securityZones)) {
-				updatedServicePolicies = getUpdatedServicePoliciesForZones(ret, securityZones);
-				patchAssociatedTagServiceInSecurityZoneInfos(updatedServicePolicies);
-			}
+				ServicePolicies updatedServicePolicies = ret;
+				if (MapUtils.isNotEmpty(securityZones)) {
+					updatedServicePolicies = getUpdatedServicePoliciesForZones(ret, securityZones);
+					patchAssociatedTagServiceInSecurityZoneInfos(updatedServicePolicies, zonesInAssociatedTagService);
+				}
 
-			if (lastKnownVersion == null || lastKnownVersion == -1L || needsBackwardCompatibility) {
-				ret = filterServicePolicies(updatedServicePolicies);
-			} else {
-				ret = updatedServicePolicies;
-			}
+				if (lastKnownVersion == null || lastKnownVersion == -1L || needsBackwardCompatibility) {
+					ret = filterServicePolicies(updatedServicePolicies);
+				} else {
+					ret = updatedServicePolicies;
+				}
 
-			ret.setServiceConfig(getServiceConfigForPlugin(ret.getServiceId()));
+				ret.setServiceConfig(serviceConfig);
 
-			if (ret.getTagPolicies() != null && ret.getTagPolicies().getServiceId() != null) {
-				ret.getTagPolicies().setServiceConfig(getServiceConfigForPlugin(ret.getTagPolicies().getServiceId()));
-			}
+				if (ret.getTagPolicies() != null && ret.getTagPolicies().getServiceId() != null) {
+					ret.getTagPolicies().setServiceConfig(tagServiceConfig);
+				}
 
+				RangerServicePoliciesCache.getInstance().saveDownloadResponse(serviceName, lastKnownVersion, needsBackwardCompatibility, downloadInputs, ret);
+			}
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -6222,32 +6247,13 @@ private static ServicePolicies getUpdatedServicePoliciesForZones(ServicePolicies
 		return ret;
 	}
 
-	private void patchAssociatedTagServiceInSecurityZoneInfos(ServicePolicies servicePolicies) {
-		if (servicePolicies != null && MapUtils.isNotEmpty(servicePolicies.getSecurityZones())) {
-
-			// Get list of zones that associated tag-service (if any) is associated with
-			List<String> zonesInAssociatedTagService = new ArrayList<>();
-
-			String tagServiceName = servicePolicies.getTagPolicies() != null ? servicePolicies.getTagPolicies().getServiceName() : null;
-
-			if (StringUtils.isNotEmpty(tagServiceName)) {
-				try {
-					RangerService tagService = getServiceByName(tagServiceName);
-					if (tagService != null && tagService.getIsEnabled()) {
-						zonesInAssociatedTagService = daoMgr.getXXSecurityZoneDao().findZonesByTagServiceName(tagServiceName);
-					}
-				} catch (Exception exception) {
-					LOG.warn("Could not get service associated with [" + tagServiceName + "]", exception);
-				}
-			}
+	private static void patchAssociatedTagServiceInSecurityZoneInfos(ServicePolicies servicePolicies, List<String> zonesInAssociatedTagService) {
+		if (servicePolicies != null && MapUtils.isNotEmpty(servicePolicies.getSecurityZones()) && CollectionUtils.isNotEmpty(zonesInAssociatedTagService)) {
+			for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> entry : servicePolicies.getSecurityZones().entrySet()) {
+				String zoneName = entry.getKey();
+				ServicePolicies.SecurityZoneInfo securityZoneInfo = entry.getValue();
 
-			if (CollectionUtils.isNotEmpty(zonesInAssociatedTagService)) {
-				for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> entry : servicePolicies.getSecurityZones().entrySet()) {
-					String zoneName = entry.getKey();
-					ServicePolicies.SecurityZoneInfo securityZoneInfo = entry.getValue();
-
-					securityZoneInfo.setContainsAssociatedTagService(zonesInAssociatedTagService.contains(zoneName));
-				}
+				securityZoneInfo.setContainsAssociatedTagService(zonesInAssociatedTagService.contains(zoneName));
 			}
 		}
 	}
@@ -25,6 +25,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -105,6 +106,7 @@ public class XUserMgr extends XUserMgrBase {
 	private static final String USER = "User";
 	private static final String GROUP = "Group";
 	private static final int MAX_DB_TRANSACTION_RETRIES = 5;
+	private static final int BULK_CHUNK_SIZE = PropertiesUtil.getIntProperty("ranger.usersync.bulk.chunk.size", 500);
 
 	@Autowired
 	XUserService xUserService;
@@ -2741,36 +2743,8 @@ public Object doInTransaction(TransactionStatus status) {
 			return ret;
 		}
 
-		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
-		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
-		try {
-			txTemplate.execute(new TransactionCallback<Void>() {
-				@Override
-				public Void doInTransaction(TransactionStatus status) {
-					int noOfRetries = 0;
-					Exception failureException = null;
-					do {
-						noOfRetries++;
-						try {
-							daoManager.getXXGlobalState().onGlobalAppDataChange(RANGER_USER_GROUP_GLOBAL_STATE_NAME);
-							if (logger.isDebugEnabled()) {
-								logger.debug("createOrUpdateXGroups(): Successfully updated x_ranger_global_state table");
-							}
-							return null;
-						} catch (Exception excp) {
-							logger.warn("createOrUpdateXGroups(): Failed to update x_ranger_global_state table and retry count =  " + noOfRetries);
-							failureException = excp;
-						}
-					} while (noOfRetries <= MAX_DB_TRANSACTION_RETRIES);
-					logger.error("createOrUpdateXGroups(): Failed to update x_ranger_global_state table after max retries", failureException);
-					throw new RuntimeException(failureException);
-				}
-			});
-		} catch (Throwable ex) {
-			logger.error("XUserMgr.createOrUpdateXUsers(): Failed to update DB for GlobalState table ", ex);
-			throw restErrorUtil.createRESTException("Failed to create or update users ",
-					MessageEnums.ERROR_CREATING_OBJECT);
-		}
+		updateUserStoreVersionWithRetries("createOrUpdateXUsers", "Failed to create or update users ");
+
 		if (logger.isDebugEnabled()) {
 			logger.debug("<== createOrUpdateXUsers(): Done");
 		}
@@ -2849,6 +2823,293 @@ private void createXUser(VXUser vXUser, String username) {
 		}
 	}
 
+	/**
+	 * Bulk variant of createOrUpdateXUsers(), used by usersync. Existing users of the given page are loaded with a few
+	 * queries per ranger.usersync.bulk.chunk.size users and compared in memory, so that only new and changed users are written; writes are done in transactions of
+	 * ranger.usersync.bulk.chunk.size users instead of one transaction per user, and the user-store version is
+	 * updated once at the end.
+	 *
+	 * @return number of valid users processed, i.e. created, updated or found unchanged, like createOrUpdateXUsers()
+	 */
+	public int createOrUpdateXUsersInBulk(VXUserList users) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> createOrUpdateXUsersInBulk(count=" + users.getListSize() + ")");
+		}
+		xaBizUtil.blockAuditorRoleUser();
+
+		final Map<String, VXUser> validUsers = new LinkedHashMap<>();
+
+		for (VXUser vXUser : users.getList()) {
+			final String userName  = vXUser == null ? null : vXUser.getName();
+			final String firstName = vXUser == null ? null : vXUser.getFirstName();
+
+			if (userName == null || "null".equalsIgnoreCase(userName) || userName.trim().isEmpty()) {
+				logger.warn("Ignoring user {}: invalid username", userName);
+				continue;
+			}
+
+			if (firstName == null || "null".equalsIgnoreCase(firstName) || firstName.trim().isEmpty()) {
+				logger.warn("Ignoring user {}: invalid firstName {}", userName, firstName);
+				continue;
+			}
+
+			checkAccess(userName);
+
+			validUsers.put(userName, vXUser);
+		}
+
+		final Map<String, XXPortalUser> portalUsers     = new HashMap<>();
+		final Map<String, XXUser>       xUsers          = new HashMap<>();
+		final Map<Long, Set<String>>    portalUserRoles = new HashMap<>();
+
+		if (!validUsers.isEmpty()) {
+			final List<String> userNames = new ArrayList<>(validUsers.keySet());
+
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			txTemplate.setReadOnly(true);
+			txTemplate.execute(new TransactionCallback<Void>() {
+				@Override
+				public Void doInTransaction(TransactionStatus status) {
+					for (int fromIndex = 0; fromIndex < userNames.size(); fromIndex += BULK_CHUNK_SIZE) {
+						List<String> names         = userNames.subList(fromIndex, Math.min(fromIndex + BULK_CHUNK_SIZE, userNames.size()));
+						List<Long>   portalUserIds = new ArrayList<>();
+
+						for (XXPortalUser portalUser : daoManager.getXXPortalUser().findByLoginIds(names)) {
+							portalUsers.put(portalUser.getLoginId(), portalUser);
+							portalUserIds.add(portalUser.getId());
+						}
+						for (XXUser xUser : daoManager.getXXUser().findByUserNames(names)) {
+							xUsers.put(xUser.getName(), xUser);
+						}
+						portalUserRoles.putAll(daoManager.getXXPortalUserRole().getUserRolesByUserIds(portalUserIds));
+					}
+					return null;
+				}
+			});
+		}
+
+		final List<VXUser> toWrite = new ArrayList<>();
+
+		for (VXUser vXUser : validUsers.values()) {
+			XXPortalUser portalUser = portalUsers.get(vXUser.getName());
+
+			if (portalUser == null || isXUserChanged(vXUser, portalUser, xUsers.get(vXUser.getName()), portalUserRoles.get(portalUser.getId()))) {
+				toWrite.add(vXUser);
+			}
+		}
+
+		int       written = 0;
+		Throwable failure = null;
+
+		for (int fromIndex = 0; fromIndex < toWrite.size(); fromIndex += BULK_CHUNK_SIZE) {
+			final List<VXUser> chunk = toWrite.subList(fromIndex, Math.min(fromIndex + BULK_CHUNK_SIZE, toWrite.size()));
+
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			try {
+				txTemplate.execute(new TransactionCallback<Void>() {
+					@Override
+					public Void doInTransaction(TransactionStatus status) {
+						for (VXUser vXUser : chunk) {
+							XXPortalUser portalUser = portalUsers.get(vXUser.getName());
+
+							if (portalUser == null) {
+								createXUser(vXUser, vXUser.getName());
+							} else {
+								updateXUser(vXUser, userMgr.mapXXPortalUserVXPortalUser(portalUser));
+							}
+						}
+						return null;
+					}
+				});
+			} catch (Throwable ex) {
+				logger.error("XUserMgr.createOrUpdateXUsersInBulk(): Failed to update DB for users: ", ex);
+				failure = ex;
+				break;
+			}
+			written += chunk.size();
+		}
+
+		// users written by earlier chunks are committed, hence the version update even after a failure
+		if (written > 0) {
+			updateUserStoreVersionWithRetries("createOrUpdateXUsersInBulk", "Failed to create or update users ");
+		}
+
+		if (failure != null) {
+			throw restErrorUtil.createRESTException("Failed to create or update users ", MessageEnums.ERROR_CREATING_OBJECT);
+		}
+
+		final int ret = validUsers.size();
+
+		logger.info("createOrUpdateXUsersInBulk(count=" + users.getListSize() + "): valid=" + ret + ", created/updated=" + written + ", unchanged=" + (ret - written));
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("<== createOrUpdateXUsersInBulk(count=" + users.getListSize() + "): ret=" + ret);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Bulk variant of createOrUpdateXGroups(): existing groups of the given page are loaded with one query per
+	 * ranger.usersync.bulk.chunk.size groups and compared in memory; new and changed groups are written in bulk mode, in transactions of ranger.usersync.bulk.chunk.size
+	 * groups, and the user-store version is updated once at the end.
+	 *
+	 * @return number of valid groups processed, i.e. created, updated or found unchanged, like createOrUpdateXGroups()
+	 */
+	public int createOrUpdateXGroupsInBulk(VXGroupList groups) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> createOrUpdateXGroupsInBulk(count=" + groups.getListSize() + ")");
+		}
+		checkAdminAccess();
+		xaBizUtil.blockAuditorRoleUser();
+
+		final Map<String, VXGroup> validGroups = new LinkedHashMap<>();
+
+		for (VXGroup vXGroup : groups.getList()) {
+			final String groupName = vXGroup == null ? null : vXGroup.getName();
+
+			if (groupName == null || "null".equalsIgnoreCase(groupName) || groupName.trim().isEmpty()) {
+				logger.warn("Ignoring invalid groupname " + groupName);
+				continue;
+			}
+
+			validGroups.put(groupName, vXGroup);
+		}
+
+		final Map<String, XXGroup> xGroups = new HashMap<>();
+
+		if (!validGroups.isEmpty()) {
+			final List<String> groupNames = new ArrayList<>(validGroups.keySet());
+
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			txTemplate.setReadOnly(true);
+			txTemplate.execute(new TransactionCallback<Void>() {
+				@Override
+				public Void doInTransaction(TransactionStatus status) {
+					for (int fromIndex = 0; fromIndex < groupNames.size(); fromIndex += BULK_CHUNK_SIZE) {
+						List<String> names = groupNames.subList(fromIndex, Math.min(fromIndex + BULK_CHUNK_SIZE, groupNames.size()));
+
+						for (XXGroup xGroup : daoManager.getXXGroup().findByGroupNames(names)) {
+							xGroups.put(xGroup.getName(), xGroup);
+						}
+					}
+					return null;
+				}
+			});
+		}
+
+		final List<VXGroup> toWrite = new ArrayList<>();
+
+		for (VXGroup vXGroup : validGroups.values()) {
+			XXGroup xGroup = xGroups.get(vXGroup.getName());
+
+			if (xGroup == null || isXGroupChanged(vXGroup, xGroup)) {
+				toWrite.add(vXGroup);
+			}
+		}
+
+		int       written = 0;
+		Throwable failure = null;
+
+		for (int fromIndex = 0; fromIndex < toWrite.size(); fromIndex += BULK_CHUNK_SIZE) {
+			final List<VXGroup> chunk = toWrite.subList(fromIndex, Math.min(fromIndex + BULK_CHUNK_SIZE, toWrite.size()));
+
+			TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+			txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			try {
+				txTemplate.execute(new TransactionCallback<Void>() {
+					@Override
+					public Void doInTransaction(TransactionStatus status) {
+						boolean oldBulkMode = RangerBizUtil.isBulkMode();
+
+						// defer the writes to commit, so that they are sent to the database as JDBC batches
+						RangerBizUtil.setBulkMode(true);
+						try {
+							xGroupService.createOrUpdateXGroupsWithOutLogin(chunk, xGroups);
+						} finally {
+							RangerBizUtil.setBulkMode(oldBulkMode);
+						}
+						return null;
+					}
+				});
+			} catch (Throwable ex) {
+				logger.error("XUserMgr.createOrUpdateXGroupsInBulk(): Failed to update DB for groups: ", ex);
+				failure = ex;
+				break;
+			}
+			written += chunk.size();
+		}
+
+		// groups written by earlier chunks are committed, hence the version update even after a failure
+		if (written > 0) {
+			updateUserStoreVersionWithRetries("createOrUpdateXGroupsInBulk", "Failed to create or update groups ");
+		}
+
+		if (failure != null) {
+			throw restErrorUtil.createRESTException("Failed to create or update groups ", MessageEnums.ERROR_CREATING_OBJECT);
+		}
+
+		final int ret = validGroups.size();
+
+		logger.info("createOrUpdateXGroupsInBulk(count=" + groups.getListSize() + "): valid=" + ret + ", created/updated=" + written + ", unchanged=" + (ret - written));
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("<== createOrUpdateXGroupsInBulk(count=" + groups.getListSize() + "): ret=" + ret);
+		}
+
+		return ret;
+	}
+
+	private boolean isXUserChanged(VXUser vXUser, XXPortalUser portalUser, XXUser xUser, Set<String> existingRoles) {
+		if (xUser == null) {
+			return true;
+		}
+
+		String password = vXUser.getPassword();
+
+		if (password != null && !password.equals(PropertiesUtil.getProperty("ranger.password.hidden", "*****"))) {
+			return true;
+		}
+
+		if (vXUser.getUserRoleList() != null && !new HashSet<>(vXUser.getUserRoleList()).equals(existingRoles == null ? Collections.<String>emptySet() : existingRoles)) {
+			return true;
+		}
+
+		return !isSameValue(toPortalName(vXUser.getFirstName()), portalUser.getFirstName()) ||
+		       !isSameValue(toPortalName(vXUser.getLastName()), portalUser.getLastName()) ||
+		       !isSameValue(vXUser.getEmailAddress(), portalUser.getEmailAddress()) ||
+		       !isSameValue(vXUser.getSyncSource(), portalUser.getSyncSource()) ||
+		       vXUser.getStatus() != portalUser.getStatus() ||
+		       vXUser.getUserSource() != portalUser.getUserSource() ||
+		       !isSameValue(vXUser.getDescription(), xUser.getDescription()) ||
+		       !isSameValue(vXUser.getOtherAttributes(), xUser.getOtherAttributes()) ||
+		       !isSameValue(vXUser.getSyncSource(), xUser.getSyncSource()) ||
+		       !Objects.equals(vXUser.getIsVisible(), xUser.getIsVisible()) ||
+		       !Objects.equals(vXUser.getCredStoreId(), xUser.getCredStoreId());
+	}
+
+	private boolean isXGroupChanged(VXGroup vXGroup, XXGroup xGroup) {
+		return !isSameValue(vXGroup.getDescription(), xGroup.getDescription()) ||
+		       !isSameValue(vXGroup.getOtherAttributes(), xGroup.getOtherAttributes()) ||
+		       !isSameValue(vXGroup.getSyncSource(), xGroup.getSyncSource()) ||
+		       vXGroup.getGroupType() != xGroup.getGroupType() ||
+		       vXGroup.getGroupSource() != xGroup.getGroupSource() ||
+		       !Objects.equals(vXGroup.getIsVisible(), xGroup.getIsVisible()) ||
+		       !Objects.equals(vXGroup.getCredStoreId(), xGroup.getCredStoreId());
+	}
+
+	private static String toPortalName(String name) {
+		return "null".equalsIgnoreCase(name) ? "" : name;
+	}
+
+	// null and empty are the same once stored in some databases, like Oracle
+	private static boolean isSameValue(String val1, String val2) {
+		return StringUtils.equals(StringUtils.defaultString(val1), StringUtils.defaultString(val2));
+	}
+
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public int createOrUpdateXGroups(VXGroupList groups) {
 		for (VXGroup vXGroup : groups.getList()) {
@@ -2880,7 +3141,7 @@ public int createOrDeleteXGroupUserList(List<GroupUserInfo> groupUserInfoList) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("No. of groups to be updated = " + groupUserInfoList.size());
 			}
-			Map<String, Long> usersFromDB = daoManager.getXXUser().getAllUserIds();
+			Map<String, Long> usersFromDB = getUserIds(groupUserInfoList);
 			if (MapUtils.isNotEmpty(usersFromDB)) {
 				if (logger.isDebugEnabled()) {
 					logger.debug("No. of users in DB = " + usersFromDB.size());
@@ -2901,6 +3162,29 @@ public int createOrDeleteXGroupUserList(List<GroupUserInfo> groupUserInfoList) {
 		return updatedGroups;
 	}
 
+	// ids of only the users in the given memberships, instead of all users, as usersync sends memberships in pages
+	private Map<String, Long> getUserIds(List<GroupUserInfo> groupUserInfoList) {
+		Set<String> userNames = new HashSet<>();
+
+		for (GroupUserInfo groupUserInfo : groupUserInfoList) {
+			if (groupUserInfo.getAddUsers() != null) {
+				userNames.addAll(groupUserInfo.getAddUsers());
+			}
+			if (groupUserInfo.getDelUsers() != null) {
+				userNames.addAll(groupUserInfo.getDelUsers());
+			}
+		}
+
+		List<String>      names = new ArrayList<>(userNames);
+		Map<String, Long> ret   = new HashMap<>();
+
+		for (int fromIndex = 0; fromIndex < names.size(); fromIndex += BULK_CHUNK_SIZE) {
+			ret.putAll(daoManager.getXXUser().getUserIdsByNames(names.subList(fromIndex, Math.min(fromIndex + BULK_CHUNK_SIZE, names.size()))));
+		}
+
+		return ret;
+	}
+
 	@Transactional(readOnly = false, propagation = Propagation.REQUIRED)
 	public List<String> updateUserRoleAssignments(UsersGroupRoleAssignments ugRoleAssignments) {
 		List<String> updatedUsers = new ArrayList<>();
@@ -3343,4 +3627,36 @@ private void updateUserStoreVersion(String label) {
 			logger.error(label + ": userStore version update failed", excp);
 		}
 	}
+
+	private void updateUserStoreVersionWithRetries(final String label, String errorMessage) {
+		TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+		txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		try {
+			txTemplate.execute(new TransactionCallback<Void>() {
+				@Override
+				public Void doInTransaction(TransactionStatus status) {
+					int noOfRetries = 0;
+					Exception failureException = null;
+					do {
+						noOfRetries++;
+						try {
+							daoManager.getXXGlobalState().onGlobalAppDataChange(RANGER_USER_GROUP_GLOBAL_STATE_NAME);
+							if (logger.isDebugEnabled()) {
+								logger.debug(label + "(): Successfully updated x_ranger_global_state table");
+							}
+							return null;
+						} catch (Exception excp) {
+							logger.warn(label + "(): Failed to update x_ranger_global_state table and retry count =  " + noOfRetries);
+							failureException = excp;
+						}
+					} while (noOfRetries <= MAX_DB_TRANSACTION_RETRIES);
+					logger.error(label + "(): Failed to update x_ranger_global_state table after max retries", failureException);
+					throw new RuntimeException(failureException);
+				}
+			});
+		} catch (Throwable ex) {
+			logger.error("XUserMgr." + label + "(): Failed to update DB for GlobalState table ", ex);
+			throw restErrorUtil.createRESTException(errorMessage, MessageEnums.ERROR_CREATING_OBJECT);
+		}
+	}
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+
+/**
+ * A download response (ServicePolicies, ServiceTags or RangerRoles) held by one of the download caches, along with
+ * its serialized form. The JSON, and its gzip compressed form, are computed on first use and then reused for every
+ * plugin that downloads the same version; the payload is discarded by the cache when the cached version changes.
+ */
+public class RangerDownloadPayload {
+	private final Object response;
+	private final Long   version;
+	private byte[]       json;
+	private byte[]       compressedJson;
+
+	public RangerDownloadPayload(Object response, Long version) {
+		this.response = response;
+		this.version  = version;
+	}
+
+	public Object getResponse() { return response; }
+
+	public Long getVersion() { return version; }
+
+	public boolean isFor(Object response, Long version) {
+		return this.response == response && Objects.equals(this.version, version);
+	}
+
+	public synchronized byte[] getJson() throws IOException {
+		if (json == null) {
+			json = JsonUtilsV2.getMapper().writeValueAsBytes(response);
+		}
+
+		return json;
+	}
+
+	public synchronized byte[] getCompressedJson() throws IOException {
+		if (compressedJson == null) {
+			byte[]                json = getJson();
+			ByteArrayOutputStream out  = new ByteArrayOutputStream(Math.max(json.length / 4, 512));
+
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+				gzip.write(json);
+			}
+
+			compressedJson = out.toByteArray();
+		}
+
+		return compressedJson;
+	}
+
+	@Override
+	public String toString() {
+		return "RangerDownloadPayload={version=" + version + ", jsonLength=" + (json != null ? json.length : -1) + ", compressedJsonLength=" + (compressedJson != null ? compressedJson.length : -1) + "}";
+	}
+}
@@ -29,7 +29,10 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -44,7 +47,7 @@ public class RangerRoleCache {
 	private final int           waitTimeInSeconds;
 	private final ReentrantLock lock = new ReentrantLock();
 
-	RangerRoleCacheWrapper roleCacheWrapper = null;
+	private final RangerRoleCacheWrapper roleCacheWrapper = new RangerRoleCacheWrapper();
 
 	public static RangerRoleCache getInstance() {
 		if (sInstance == null) {
@@ -67,8 +70,7 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
 		final RangerRoles ret;
 
 		if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-			roleCacheWrapper = new RangerRoleCacheWrapper();
-			ret              = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
+			ret = roleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
 		} else {
 			ret = null;
 		}
@@ -76,17 +78,52 @@ public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore r
 		return ret;
 	}
 
+	/**
+	 * Returns the payload of a response returned by getLatestRangerRoleOrCached(), if the response is still the cached
+	 * RangerRoles of the service; otherwise returns null.
+	 */
+	public RangerDownloadPayload getDownloadPayload(RangerRoles response) {
+		return (response != null && response.getServiceName() != null) ? roleCacheWrapper.getDownloadPayload(response) : null;
+	}
+
 	private class RangerRoleCacheWrapper {
 		RangerRoles roles;
 		Long        rolesVersion;
 
+		// responses, with their payloads, of services that downloaded rolesVersion; cleared when rolesVersion changes
+		final Map<String, RangerDownloadPayload> servicePayloads = new HashMap<>();
+
 		RangerRoleCacheWrapper() {
 			this.roles        = null;
 			this.rolesVersion = -1L;
 		}
 
-		public RangerRoles getRoles() {
-			return this.roles;
+		public synchronized RangerRoles getRoles(String serviceName) {
+			final RangerRoles ret;
+
+			if (roles != null) {
+				RangerDownloadPayload payload = servicePayloads.get(serviceName);
+
+				if (payload == null) {
+					RangerRoles serviceRoles = new RangerRoles();
+
+					// all services download the same roles
+					serviceRoles.setServiceName(serviceName);
+					serviceRoles.setRangerRoles(roles.getRangerRoles());
+					serviceRoles.setRoleUpdateTime(roles.getRoleUpdateTime());
+					serviceRoles.setRoleVersion(roles.getRoleVersion());
+
+					payload = new RangerDownloadPayload(serviceRoles, serviceRoles.getRoleVersion());
+
+					servicePayloads.put(serviceName, payload);
+				}
+
+				ret = (RangerRoles) payload.getResponse();
+			} else {
+				ret = null;
+			}
+
+			return ret;
 		}
 
 		public Long getRolesVersion() {
@@ -104,7 +141,13 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 			try {
 				lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
 
-				if (lockResult) {
+				if (lockResult && roles != null && Objects.equals(rolesVersion, rolesVersionInDB)) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("RangerRoles cache already has the latest version, version:[" + rolesVersion + "]");
+					}
+
+					ret = getRoles(serviceName);
+				} else if (lockResult) {
 					// We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
 					final long            startTimeMs  = System.currentTimeMillis();
 					SearchFilter          searchFilter = null;
@@ -116,14 +159,20 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("loading Roles from database and it took:" + TimeUnit.MILLISECONDS.toSeconds(dbLoadTimeMs) + " seconds");
 						}
-						ret = new RangerRoles();
+						RangerRoles latestRoles = new RangerRoles();
+
+						latestRoles.setRangerRoles(rolesInDB);
+						latestRoles.setRoleUpdateTime(updateTime);
+						latestRoles.setRoleVersion(rolesVersionInDB);
 
-						ret.setRangerRoles(rolesInDB);
-						ret.setRoleUpdateTime(updateTime);
-						ret.setRoleVersion(rolesVersionInDB);
+						synchronized (this) {
+							rolesVersion = rolesVersionInDB;
+							roles        = latestRoles;
 
-						rolesVersion = rolesVersionInDB;
-						roles = ret;
+							servicePayloads.clear();
+						}
+
+						ret = getRoles(serviceName);
 					} else {
 						LOG.error("Could not get Ranger Roles from database ...");
 					}
@@ -131,7 +180,7 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached RangerRoles");
 					}
-					ret = getRoles();
+					ret = getRoles(serviceName);
 				}
 			} catch (InterruptedException exception) {
 				LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
@@ -147,6 +196,12 @@ public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBSt
 
 			return ret;
 		}
+
+		synchronized RangerDownloadPayload getDownloadPayload(RangerRoles response) {
+			RangerDownloadPayload payload = servicePayloads.get(response.getServiceName());
+
+			return (payload != null && payload.getResponse() == response) ? payload : null;
+		}
 	}
 }
 
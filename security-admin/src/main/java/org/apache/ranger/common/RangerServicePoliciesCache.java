@@ -152,6 +152,72 @@ public ServicePolicies getServicePolicies(String serviceName, Long serviceId, Lo
 		return ret;
 	}
 
+	/**
+	 * Returns the download response cached by saveDownloadResponse() for the same request, i.e. same lastKnownVersion
+	 * and needsBackwardCompatibility, at the given policy-version and built from inputs equal to the given inputs;
+	 * otherwise returns null. inputs must include everything, other than the cached policies, that the response is
+	 * built from - like the service's enabled state and its configs, the tag-service and security-zones - as changes
+	 * to these don't update the policy-version.
+	 */
+	public ServicePolicies getDownloadResponse(String serviceName, Long lastKnownVersion, boolean needsBackwardCompatibility, Long policyVersion, Object inputs) {
+		ServicePolicies ret = null;
+
+		if (policyVersion != null && StringUtils.isNotBlank(serviceName)) {
+			final ServicePoliciesWrapper servicePoliciesWrapper;
+
+			synchronized (this) {
+				servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+			}
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getDownloadResponse(getDownloadKey(lastKnownVersion, needsBackwardCompatibility), policyVersion, inputs);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Caches the download response built from the given inputs, if its policy-version is the cached one, so that
+	 * plugins downloading the same policy-version share one response object whose serialized form is computed only
+	 * once - see getDownloadPayload().
+	 */
+	public void saveDownloadResponse(String serviceName, Long lastKnownVersion, boolean needsBackwardCompatibility, Object inputs, ServicePolicies response) {
+		if (response != null && response.getPolicyVersion() != null && StringUtils.isNotBlank(serviceName)) {
+			final ServicePoliciesWrapper servicePoliciesWrapper;
+
+			synchronized (this) {
+				servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+			}
+
+			if (servicePoliciesWrapper != null) {
+				servicePoliciesWrapper.saveDownloadResponse(getDownloadKey(lastKnownVersion, needsBackwardCompatibility), inputs, response);
+			}
+		}
+	}
+
+	/**
+	 * Returns the payload of a response cached by saveDownloadResponse(), if the policy-version it was cached
+	 * for is still the current one; otherwise returns null.
+	 */
+	public RangerDownloadPayload getDownloadPayload(ServicePolicies response) {
+		RangerDownloadPayload ret = null;
+
+		if (response != null && StringUtils.isNotBlank(response.getServiceName())) {
+			final ServicePoliciesWrapper servicePoliciesWrapper;
+
+			synchronized (this) {
+				servicePoliciesWrapper = servicePoliciesMap.get(response.getServiceName());
+			}
+
+			if (servicePoliciesWrapper != null) {
+				ret = servicePoliciesWrapper.getDownloadPayload(response);
+			}
+		}
+
+		return ret;
+	}
+
     /**
      * Reset policy cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -248,6 +314,10 @@ public void saveToCache(ServicePolicies policies) {
 		}
 	}
 
+	private static String getDownloadKey(Long lastKnownVersion, boolean needsBackwardCompatibility) {
+		return (needsBackwardCompatibility || lastKnownVersion == null || lastKnownVersion == -1L) ? "all" : lastKnownVersion.toString();
+	}
+
 	private class ServicePoliciesWrapper {
 		final Long          serviceId;
 		ServicePolicies     servicePolicies;
@@ -257,6 +327,19 @@ private class ServicePoliciesWrapper {
 
 		ServicePolicyDeltasCache deltaCache;
 
+		// download responses for the current policy-version, keyed by the requested range; cleared when the version changes
+		final Map<String, DownloadResponse> downloadResponses = new HashMap<>();
+
+		class DownloadResponse {
+			final Object                inputs;
+			final RangerDownloadPayload payload;
+
+			DownloadResponse(Object inputs, RangerDownloadPayload payload) {
+				this.inputs  = inputs;
+				this.payload = payload;
+			}
+		}
+
 		class ServicePolicyDeltasCache {
 			final long            fromVersion;
 			final ServicePolicies servicePolicyDeltas;
@@ -462,6 +545,10 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 						}
 					}
 					this.deltaCache = null;
+
+					synchronized (downloadResponses) {
+						downloadResponses.clear();
+					}
 				} else {
 					LOG.error("Could not get policies from database, from-version:[" + cachedServicePoliciesVersion + ")");
 				}
@@ -484,6 +571,52 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 			return isCacheReloadedByDQEvent;
 		}
 
+		ServicePolicies getDownloadResponse(String downloadKey, Long version, Object inputs) {
+			ServicePolicies ret = null;
+
+			synchronized (downloadResponses) {
+				DownloadResponse downloadResponse = downloadResponses.get(downloadKey);
+
+				if (downloadResponse != null && Objects.equals(downloadResponse.inputs, inputs)) {
+					ServicePolicies response = (ServicePolicies) downloadResponse.payload.getResponse();
+
+					// the cached response could be the cached servicePolicies, which is updated in place when deltas are applied
+					if (Objects.equals(downloadResponse.payload.getVersion(), version) && Objects.equals(response.getPolicyVersion(), version)) {
+						ret = response;
+					}
+				}
+			}
+
+			return ret;
+		}
+
+		void saveDownloadResponse(String downloadKey, Object inputs, ServicePolicies response) {
+			final Long version = response.getPolicyVersion();
+
+			synchronized (downloadResponses) {
+				// replaces the response built from earlier inputs, if any
+				if (servicePolicies != null && Objects.equals(servicePolicies.getPolicyVersion(), version)) {
+					downloadResponses.put(downloadKey, new DownloadResponse(inputs, new RangerDownloadPayload(response, version)));
+				}
+			}
+		}
+
+		RangerDownloadPayload getDownloadPayload(ServicePolicies response) {
+			RangerDownloadPayload ret = null;
+
+			synchronized (downloadResponses) {
+				for (DownloadResponse downloadResponse : downloadResponses.values()) {
+					if (downloadResponse.payload.isFor(response, response.getPolicyVersion())) {
+						ret = downloadResponse.payload;
+
+						break;
+					}
+				}
+			}
+
+			return ret;
+		}
+
 		private void checkCacheSanity(String serviceName, ServiceStore serviceStore, boolean isTagService) {
 			final boolean result;
 			Long dbPolicyVersion = serviceStore.getServicePolicyVersion(serviceName);
@@ -160,6 +160,28 @@ public ServiceTags getServiceTags(String serviceName, Long serviceId, Long lastK
 		return ret;
 	}
 
+	/**
+	 * Returns the payload of a response returned by getServiceTags(), if the response is still cached - either as the
+	 * latest ServiceTags of the service or as the cached deltas; otherwise returns null.
+	 */
+	public RangerDownloadPayload getDownloadPayload(ServiceTags response) {
+		RangerDownloadPayload ret = null;
+
+		if (useServiceTagsCache && response != null && StringUtils.isNotBlank(response.getServiceName())) {
+			final ServiceTagsWrapper serviceTagsWrapper;
+
+			synchronized (this) {
+				serviceTagsWrapper = serviceTagsMap.get(response.getServiceName());
+			}
+
+			if (serviceTagsWrapper != null) {
+				ret = serviceTagsWrapper.getDownloadPayload(response);
+			}
+		}
+
+		return ret;
+	}
+
     /**
      * Reset service tag cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -226,6 +248,10 @@ ServiceTags getServiceTagsDeltaFromVersion(long fromVersion) {
 		}
 		ReentrantLock lock = new ReentrantLock();
 
+		// serialized forms of serviceTags and of the cached deltas, computed on first download
+		RangerDownloadPayload serviceTagsPayload;
+		RangerDownloadPayload deltaPayload;
+
 		ServiceTagsWrapper(Long serviceId) {
 			this.serviceId = serviceId;
 			serviceTags = null;
@@ -379,6 +405,8 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
 						this.serviceTags = RangerServiceTagsDeltaUtil.applyDelta(serviceTags, serviceTagsFromDb);
 						this.deltaCache  = new ServiceTagsDeltasCache(cachedServiceTagsVersion, serviceTagsFromDb);
 					}
+
+					clearDownloadPayloads();
 				} else {
 					LOG.error("Could not get tags from database, from-version:[" + cachedServiceTagsVersion + ")");
 				}
@@ -398,6 +426,34 @@ boolean getLatest(String serviceName, TagStore tagStore) throws Exception {
 			return isCacheCompletelyLoaded;
 		}
 
+		synchronized RangerDownloadPayload getDownloadPayload(ServiceTags response) {
+			final ServiceTagsDeltasCache deltaCache = this.deltaCache;
+			final RangerDownloadPayload  ret;
+
+			if (response == serviceTags) {
+				if (serviceTagsPayload == null || !serviceTagsPayload.isFor(response, response.getTagVersion())) {
+					serviceTagsPayload = new RangerDownloadPayload(response, response.getTagVersion());
+				}
+
+				ret = serviceTagsPayload;
+			} else if (deltaCache != null && response == deltaCache.serviceTagsDelta) {
+				if (deltaPayload == null || !deltaPayload.isFor(response, response.getTagVersion())) {
+					deltaPayload = new RangerDownloadPayload(response, response.getTagVersion());
+				}
+
+				ret = deltaPayload;
+			} else {
+				ret = null;
+			}
+
+			return ret;
+		}
+
+		synchronized void clearDownloadPayloads() {
+			serviceTagsPayload = null;
+			deltaPayload       = null;
+		}
+
 		private void pruneUnusedAttributes() {
 			RangerServiceTagsDeltaUtil.pruneUnusedAttributes(this.serviceTags);
 		}
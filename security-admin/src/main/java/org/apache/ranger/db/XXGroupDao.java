@@ -21,6 +21,7 @@
 
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -69,6 +70,17 @@ public XXGroup findByGroupName(String groupName) {
 		return null;
 	}
 
+	public List<XXGroup> findByGroupNames(Collection<String> groupNames) {
+		if (groupNames == null || groupNames.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		return getEntityManager()
+				.createNamedQuery("XXGroup.findByGroupNames", tClass)
+				.setParameter("names", groupNames)
+				.getResultList();
+	}
+
 	public Map<Long, String> getAllGroupIdNames() {
 		Map<Long, String> groups = new HashMap<Long, String>();
 		try {
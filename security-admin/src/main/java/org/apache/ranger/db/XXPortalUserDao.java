@@ -19,6 +19,8 @@
 
 package org.apache.ranger.db;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -55,6 +57,16 @@ public XXPortalUser findByLoginId(String loginId) {
 		return null;
 	}
 
+	public List<XXPortalUser> findByLoginIds(Collection<String> loginIds) {
+		if (loginIds == null || loginIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		return getEntityManager()
+				.createNamedQuery("XXPortalUser.findByLoginIds", tClass)
+				.setParameter("loginIds", loginIds).getResultList();
+	}
+
 	public XXPortalUser findByEmailAddress(String emailAddress) {
 		if (daoManager.getStringUtil().isEmpty(emailAddress)) {
 			return null;
@@ -21,7 +21,12 @@
 
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.persistence.NoResultException;
 
@@ -72,4 +77,23 @@ public List<String> findXPortalUserRolebyXPortalUserId(Long userId) {
 			return new ArrayList<String>();
 		}
 	}
+
+	@SuppressWarnings("unchecked")
+	public Map<Long, Set<String>> getUserRolesByUserIds(Collection<Long> userIds) {
+		Map<Long, Set<String>> ret = new HashMap<>();
+		if (userIds == null || userIds.isEmpty()) {
+			return ret;
+		}
+		try {
+			List<Object[]> rows = getEntityManager().createNamedQuery("XXPortalUserRole.getUserRolesByUserIds").setParameter("userIds", userIds).getResultList();
+			if (rows != null) {
+				for (Object[] row : rows) {
+					ret.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((String) row[1]);
+				}
+			}
+		} catch (NoResultException e) {
+			// doNothing
+		}
+		return ret;
+	}
 }
@@ -27,6 +27,7 @@
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
@@ -58,6 +59,17 @@ public XXUser findByUserName(String name) {
 		return null;
 	}
 
+	public List<XXUser> findByUserNames(Collection<String> names) {
+		if (names == null || names.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		return getEntityManager()
+				.createNamedQuery("XXUser.findByUserNames", tClass)
+				.setParameter("names", names)
+				.getResultList();
+	}
+
 	public XXUser findByPortalUserId(Long portalUserId) {
 		if (portalUserId == null) {
 			return null;
@@ -111,6 +123,27 @@ public Map<String, Long> getAllUserIds() {
 		return users;
 	}
 
+	@SuppressWarnings("unchecked")
+	public Map<String, Long> getUserIdsByNames(Collection<String> names) {
+		Map<String, Long> users = new HashMap<>();
+		if (names == null || names.isEmpty()) {
+			return users;
+		}
+		try {
+			List<Object[]> rows = (List<Object[]>) getEntityManager().createNamedQuery("XXUser.getUserIdsByNames").setParameter("names", names).getResultList();
+			if (rows != null) {
+				for (Object[] row : rows) {
+					users.put((String)row[0], (Long)row[1]);
+				}
+			}
+		} catch (NoResultException e) {
+			if (logger.isDebugEnabled()) {
+				logger.debug(e.getMessage());
+			}
+		}
+		return users;
+	}
+
 	public List<Object[]> getAllUserIdNames() {
 		List<Object[]> users = new ArrayList<Object[]>();
 		try {
@@ -1605,6 +1605,28 @@ public int addOrUpdateGroups(VXGroupList groups) {
 		return ret;
 	}
 
+	@POST
+	@Path("/ugsync/users/bulk")
+	@Consumes({ "application/json" })
+	@Produces({ "application/json" })
+	@PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
+	@Transactional(readOnly = false, propagation = Propagation.NOT_SUPPORTED)
+	public String addOrUpdateUsersInBulk(VXUserList users) {
+		int ret = xUserMgr.createOrUpdateXUsersInBulk(users);
+		return String.valueOf(ret);
+	}
+
+	@POST
+	@Path("/ugsync/groups/bulk")
+	@Consumes({ "application/json" })
+	@Produces({ "application/json" })
+	@PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
+	@Transactional(readOnly = false, propagation = Propagation.NOT_SUPPORTED)
+	public int addOrUpdateGroupsInBulk(VXGroupList groups) {
+		int ret = xUserMgr.createOrUpdateXGroupsInBulk(groups);
+		return ret;
+	}
+
 	@POST
 	@Path("/ugsync/groupusers")
 	@Consumes({ "application/json" })
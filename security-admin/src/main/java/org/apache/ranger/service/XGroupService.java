@@ -142,6 +142,42 @@ public VXGroup createXGroupWithOutLogin(VXGroup vxGroup) {
 		return vxGroup;
 	}
 
+	/**
+	 * Bulk variant of createXGroupWithOutLogin(): groups found in existingGroups (keyed by name) are updated,
+	 * others are created; nothing is read back, so that the writes can be sent as JDBC batches when called in
+	 * bulk mode.
+	 */
+	public int createOrUpdateXGroupsWithOutLogin(List<VXGroup> vxGroups, Map<String, XXGroup> existingGroups) {
+		boolean       setAddedBy = daoManager.getXXPortalUser().getById(createdByUserId) != null;
+		List<XXGroup> toCreate   = new ArrayList<XXGroup>();
+
+		for (VXGroup vxGroup : vxGroups) {
+			XXGroup xxGroup     = existingGroups.get(vxGroup.getName());
+			boolean groupExists = xxGroup != null;
+
+			if (!groupExists) {
+				xxGroup = new XXGroup();
+			}
+
+			xxGroup = mapViewToEntityBean(vxGroup, xxGroup, 0);
+			if (setAddedBy) {
+				xxGroup.setAddedByUserId(createdByUserId);
+				xxGroup.setUpdatedByUserId(createdByUserId);
+			}
+			if (groupExists) {
+				getDao().update(xxGroup);
+			} else {
+				toCreate.add(xxGroup);
+			}
+		}
+
+		if (!toCreate.isEmpty()) {
+			getDao().batchCreate(toCreate);
+		}
+
+		return vxGroups.size();
+	}
+
 	public VXGroup readResourceWithOutLogin(Long id) {
 		XXGroup resource = getDao().getById(id);
 		if (resource == null) {
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import org.apache.ranger.common.PropertiesUtil;
+import org.apache.ranger.common.RangerDownloadPayload;
+import org.apache.ranger.common.RangerRoleCache;
+import org.apache.ranger.common.RangerServicePoliciesCache;
+import org.apache.ranger.common.RangerServiceTagsCache;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jersey.api.container.filter.GZIPContentEncodingFilter;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+
+/**
+ * Compresses responses of the policy, tag, role and userstore download APIs called by plugins, when the request
+ * has "Accept-Encoding: gzip". Plugins that don't send the header, like older plugins, receive uncompressed responses.
+ *
+ * Policies, tags and roles still held by the download caches are written from the serialized (and compressed) payload
+ * kept by the cache, instead of being serialized again for each plugin.
+ */
+public class RangerDownloadCompressionFilter extends GZIPContentEncodingFilter {
+	private static final Logger LOG = LoggerFactory.getLogger(RangerDownloadCompressionFilter.class);
+
+	public static final String  PROP_DOWNLOAD_COMPRESSION_ENABLED         = "ranger.admin.download.compression.enabled";
+	public static final boolean PROP_DOWNLOAD_COMPRESSION_ENABLED_DEFAULT = true;
+	public static final String  PROP_DOWNLOAD_PAYLOAD_CACHE_ENABLED         = "ranger.admin.download.payload.cache.enabled";
+	public static final boolean PROP_DOWNLOAD_PAYLOAD_CACHE_ENABLED_DEFAULT = true;
+
+	private static final String ENCODING_GZIP = "gzip";
+
+	// paths relative to /service, like plugins/secure/policies/download/{serviceName}, tags/download/{serviceName}
+	private static final Pattern DOWNLOAD_PATH_PATTERN = Pattern.compile("^/?(plugins(/secure)?/policies|tags(/secure)?|roles(/secure)?|xusers(/secure)?)/download/.+");
+
+	private final boolean isEnabled;
+	private final boolean isPayloadCacheEnabled;
+
+	public RangerDownloadCompressionFilter() {
+		this.isEnabled             = PropertiesUtil.getBooleanProperty(PROP_DOWNLOAD_COMPRESSION_ENABLED, PROP_DOWNLOAD_COMPRESSION_ENABLED_DEFAULT);
+		this.isPayloadCacheEnabled = PropertiesUtil.getBooleanProperty(PROP_DOWNLOAD_PAYLOAD_CACHE_ENABLED, PROP_DOWNLOAD_PAYLOAD_CACHE_ENABLED_DEFAULT);
+
+		LOG.info(PROP_DOWNLOAD_COMPRESSION_ENABLED + "=" + isEnabled + ", " + PROP_DOWNLOAD_PAYLOAD_CACHE_ENABLED + "=" + isPayloadCacheEnabled);
+	}
+
+	@Override
+	public ContainerResponse filter(ContainerRequest request, ContainerResponse response) {
+		if (isDownloadPath(request.getPath())) {
+			RangerDownloadPayload payload = isPayloadCacheEnabled ? getDownloadPayload(response.getEntity()) : null;
+
+			if (payload == null || !setPayload(request, response, payload)) {
+				if (isEnabled) {
+					response = super.filter(request, response);
+				}
+			}
+		}
+
+		return response;
+	}
+
+	RangerDownloadPayload getDownloadPayload(Object entity) {
+		final RangerDownloadPayload ret;
+
+		if (entity instanceof ServicePolicies) {
+			ret = RangerServicePoliciesCache.getInstance().getDownloadPayload((ServicePolicies) entity);
+		} else if (entity instanceof ServiceTags) {
+			ret = RangerServiceTagsCache.getInstance().getDownloadPayload((ServiceTags) entity);
+		} else if (entity instanceof RangerRoles) {
+			ret = RangerRoleCache.getInstance().getDownloadPayload((RangerRoles) entity);
+		} else {
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	private boolean setPayload(ContainerRequest request, ContainerResponse response, RangerDownloadPayload payload) {
+		boolean ret = false;
+
+		try {
+			if (isEnabled && acceptsGzip(request)) {
+				response.setEntity(payload.getCompressedJson());
+				response.getHttpHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+			} else {
+				response.setEntity(payload.getJson());
+			}
+
+			if (!response.getHttpHeaders().containsKey(HttpHeaders.CONTENT_TYPE)) {
+				response.getHttpHeaders().putSingle(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_TYPE);
+			}
+
+			ret = true;
+		} catch (IOException excp) {
+			LOG.warn("RangerDownloadCompressionFilter.setPayload(" + payload + "): failed to serialize response; it will be serialized by the JSON provider", excp);
+		}
+
+		return ret;
+	}
+
+	static boolean isDownloadPath(String path) {
+		return path != null && DOWNLOAD_PATH_PATTERN.matcher(path).matches();
+	}
+
+	private static boolean acceptsGzip(ContainerRequest request) {
+		List<String> acceptEncodings = request.getRequestHeaders().get(HttpHeaders.ACCEPT_ENCODING);
+
+		if (acceptEncodings != null) {
+			for (String acceptEncoding : acceptEncodings) {
+				if (acceptEncoding != null && acceptEncoding.contains(ENCODING_GZIP)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -23,12 +23,20 @@
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 
 import org.apache.ranger.audit.destination.FileAuditDestination;
+import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.AuditProviderFactory;
@@ -39,6 +47,9 @@
 import org.apache.ranger.audit.queue.AuditBatchQueue;
 import org.apache.ranger.audit.queue.AuditFileSpool;
 import org.apache.ranger.audit.queue.AuditQueue;
+import org.apache.ranger.audit.queue.AuditRingBufferQueue;
+import org.apache.ranger.audit.queue.AuditSpoolFile;
+import org.apache.ranger.audit.queue.AuditSummaryKey;
 import org.apache.ranger.audit.queue.AuditSummaryQueue;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -103,6 +114,81 @@ public void testAuditSummaryQueue() {
 		commonTestSummary(testConsumer, queue);
 	}
 
+	@Test
+	public void testAuditSummaryQueueWithThreads() {
+		logger.debug("testAuditSummaryQueueWithThreads()...");
+		TestConsumer testConsumer = new TestConsumer();
+		AuditSummaryQueue queue = new AuditSummaryQueue(testConsumer);
+
+		Properties props = new Properties();
+		props.put(BaseAuditHandler.PROP_DEFAULT_PREFIX + "."
+				+ AuditSummaryQueue.PROP_SUMMARY_INTERVAL, "" + 300);
+		props.put(BaseAuditHandler.PROP_DEFAULT_PREFIX + "."
+				+ AuditSummaryQueue.PROP_SUMMARY_THREADS, "" + 4);
+		queue.init(props, BaseAuditHandler.PROP_DEFAULT_PREFIX);
+
+		queue.start();
+
+		commonTestSummary(testConsumer, queue);
+
+		assertEquals(testConsumer.getSumTotal(), queue.getEventsInCount());
+		assertEquals(testConsumer.getCountTotal(), queue.getSummariesOutCount());
+	}
+
+	@Test
+	public void testAuditSummaryKey() {
+		AuthzAuditEvent event1 = createEvent("john", "select", "xademo/customer_details/imei", true);
+		AuthzAuditEvent event2 = createEvent("john", "select", "xademo/customer_details/imei", true);
+		AuthzAuditEvent event3 = createEvent("john", "select", "xademo/customer_details/imei", false);
+		AuthzAuditEvent event4 = createEvent("jane", "select", "xademo/customer_details/imei", true);
+
+		AuditSummaryKey key1 = new AuditSummaryKey(event1);
+
+		assertEquals(key1, new AuditSummaryKey(event2));
+		assertEquals(key1.hashCode(), new AuditSummaryKey(event2).hashCode());
+		assertEquals(key1, new AuditSummaryKey().set(event2));
+		assertEquals(key1, new AuditSummaryKey(new AuditSummaryKey(event2)));
+		assertNotEquals(key1, new AuditSummaryKey(event3));
+		assertNotEquals(key1, new AuditSummaryKey(event4));
+
+		// events other than AuthzAuditEvent are keyed by getEventKey(), which can be null
+		AuditEventBase otherEvent1 = new TestOtherEvent(null);
+		AuditEventBase otherEvent2 = new TestOtherEvent("key");
+
+		assertEquals(new AuditSummaryKey(otherEvent1), new AuditSummaryKey(new TestOtherEvent(null)));
+		assertEquals(new AuditSummaryKey(otherEvent2), new AuditSummaryKey(new TestOtherEvent("key")));
+		assertNotEquals(new AuditSummaryKey(otherEvent1), new AuditSummaryKey(otherEvent2));
+		assertNotEquals(new AuditSummaryKey(otherEvent1), key1);
+		assertNotEquals(key1, new AuditSummaryKey(otherEvent1));
+		assertEquals(0, AuditSummaryKey.hashOf(otherEvent1));
+	}
+
+	private static class TestOtherEvent extends AuditEventBase {
+		private final String eventKey;
+
+		TestOtherEvent(String eventKey) {
+			this.eventKey = eventKey;
+		}
+
+		@Override
+		public String getEventKey() {
+			return eventKey;
+		}
+
+		@Override
+		public Date getEventTime() {
+			return new Date();
+		}
+
+		@Override
+		public void setEventCount(long eventCount) {
+		}
+
+		@Override
+		public void setEventDurationMS(long eventDurationMS) {
+		}
+	}
+
 	private void commonTestSummary(TestConsumer testConsumer,
 			BaseAuditHandler queue) {
 		int messageToSend = 0;
@@ -346,6 +432,120 @@ public void testAuditBatchQueueByTime() {
 		assertNull("Event not in sequnce", testConsumer.isInSequence());
 	}
 
+	@Test
+	public void testAuditRingBufferQueue() throws Exception {
+		logger.debug("testAuditRingBufferQueue()...");
+		int producerCount = 4;
+		int messagePerProducer = 250;
+		int messageToSend = producerCount * messagePerProducer;
+
+		String basePropName = "testAuditRingBufferQueue_"
+				+ MiscUtil.generateUniqueId();
+		Properties props = new Properties();
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, "" + 100);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, "" + 64);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, "" + 200);
+
+		TestConsumer testConsumer = new TestConsumer();
+		AuditRingBufferQueue queue = new AuditRingBufferQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		assertEquals(AuditRingBufferQueue.FullPolicy.BLOCK, queue.getFullPolicy());
+
+		Thread[] producers = new Thread[producerCount];
+		for (int i = 0; i < producerCount; i++) {
+			producers[i] = new Thread(() -> {
+				for (int j = 0; j < messagePerProducer; j++) {
+					queue.log(createEvent("john", "select", "db/tbl/col", true));
+				}
+			});
+			producers[i].start();
+		}
+		for (Thread producer : producers) {
+			producer.join();
+		}
+
+		queue.waitToComplete();
+		queue.stop();
+		queue.waitToComplete();
+
+		Map<String, Long> metrics = queue.getMetrics();
+
+		assertEquals("Total count", messageToSend, testConsumer.getSumTotal());
+		assertEquals("Queue depth", 0L, queue.getQueueDepth());
+		assertEquals("Dropped count", 0L, queue.getDroppedCount());
+		assertEquals("Enqueue count", Long.valueOf(messageToSend), metrics.get("enqueue.count"));
+		assertEquals("Drain batch count", Long.valueOf(testConsumer.getBatchCount()), metrics.get("drain.batch.count"));
+		assertTrue("Drain batch size", metrics.get("drain.batch.size.max") <= 100);
+	}
+
+	@Test
+	public void testAuditRingBufferQueueLogBeforeStart() {
+		logger.debug("testAuditRingBufferQueueLogBeforeStart()...");
+		int messageToSend = 10;
+
+		String basePropName = "testAuditRingBufferQueueLogBeforeStart_"
+				+ MiscUtil.generateUniqueId();
+		Properties props = new Properties();
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, "" + 100);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, "" + 100);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, "" + 200);
+
+		TestConsumer testConsumer = new TestConsumer();
+		AuditRingBufferQueue queue = new AuditRingBufferQueue(testConsumer);
+		queue.init(props, basePropName);
+
+		for (int i = 0; i < messageToSend; i++) {
+			assertTrue("log() before start()", queue.log(createEvent()));
+		}
+
+		queue.start();
+		queue.waitToComplete();
+		queue.stop();
+		queue.waitToComplete();
+
+		assertEquals("Total count", messageToSend, testConsumer.getCountTotal());
+		assertNull("Event not in sequnce", testConsumer.isInSequence());
+	}
+
+	@Test
+	public void testAuditRingBufferQueueDropWhenFull() {
+		logger.debug("testAuditRingBufferQueueDropWhenFull()...");
+		int messageToSend = 10;
+		int queueSize = 4;
+
+		String basePropName = "testAuditRingBufferQueueDropWhenFull_"
+				+ MiscUtil.generateUniqueId();
+		Properties props = new Properties();
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_SIZE, "" + messageToSend);
+		props.put(basePropName + "." + AuditQueue.PROP_QUEUE_SIZE, "" + queueSize);
+		props.put(basePropName + "." + AuditQueue.PROP_BATCH_INTERVAL, "" + 60 * 1000);
+		props.put(basePropName + "." + AuditRingBufferQueue.PROP_FULL_POLICY, "drop");
+
+		TestConsumer testConsumer = new TestConsumer();
+		AuditRingBufferQueue queue = new AuditRingBufferQueue(testConsumer);
+		queue.init(props, basePropName);
+		queue.start();
+
+		assertEquals(AuditRingBufferQueue.FullPolicy.DROP, queue.getFullPolicy());
+
+		int loggedCount = 0;
+		for (int i = 0; i < messageToSend; i++) {
+			if (queue.log(createEvent())) {
+				loggedCount++;
+			}
+		}
+
+		queue.waitToComplete();
+		queue.stop();
+		queue.waitToComplete();
+
+		assertEquals("Dropped count", messageToSend - loggedCount, queue.getDroppedCount());
+		assertEquals("Total count", loggedCount, testConsumer.getCountTotal());
+		assertNull("Event not in sequnce", testConsumer.isInSequence());
+	}
+
 	@Test
 	public void testAuditBatchQueueDestDown() {
 		logger.debug("testAuditBatchQueueDestDown()...");
@@ -402,6 +602,177 @@ public void testAuditBatchQueueDestDown() {
 	@Test
 	public void testAuditBatchQueueDestDownFlipFlop() {
 		logger.debug("testAuditBatchQueueDestDownFlipFlop()...");
+		commonTestDestDownFlipFlop(null);
+	}
+
+	@Test
+	public void testAuditBatchQueueDestDownFlipFlopBinarySpool() {
+		logger.debug("testAuditBatchQueueDestDownFlipFlopBinarySpool()...");
+		commonTestDestDownFlipFlop(AuditSpoolFile.Format.binary);
+	}
+
+	@Test
+	public void testAuditSpoolFileBinaryFormat() throws Exception {
+		logger.debug("testAuditSpoolFileBinaryFormat()...");
+		File file = new File("target", "testAuditSpoolFileBinaryFormat_"
+				+ MiscUtil.generateUniqueId() + ".log");
+		List<String> records = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			records.add(MiscUtil.stringify(createEvent("user" + i, "select",
+					"db/tbl/col" + i, i % 2 == 0)));
+		}
+
+		// small blocks, so that the records span many blocks
+		AuditSpoolFile.Writer writer = AuditSpoolFile.openWriter(file, false,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (int i = 0; i < 500; i++) {
+			writer.write(records.get(i));
+		}
+		writer.close();
+
+		// append to the existing file, as after a restart
+		writer = AuditSpoolFile.openWriter(file, true,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (int i = 500; i < records.size(); i++) {
+			writer.write(records.get(i));
+		}
+		writer.close();
+
+		assertEquals(AuditSpoolFile.Format.binary, AuditSpoolFile.getFormat(file));
+		assertEquals(records, readSpoolFile(file));
+
+		// a partially written block at the end is ignored
+		long fileSize = file.length();
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(new byte[] { 0x52, 0x41, 0x42, 0x42, 0, 0, 0x10 });
+		}
+		assertEquals(records, readSpoolFile(file));
+		assertTrue(file.length() > fileSize);
+
+		// as is a complete block that doesn't decompress to the length in its header
+		file.delete();
+		writer = AuditSpoolFile.openWriter(file, false,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (String record : records) {
+			writer.write(record);
+		}
+		writer.close();
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(createSpoolBlock("torn".getBytes("UTF-8"), 100));
+		}
+		assertEquals(records, readSpoolFile(file));
+
+		// a json spool file is read line by line
+		File jsonFile = new File("target", "testAuditSpoolFileJsonFormat_"
+				+ MiscUtil.generateUniqueId() + ".log");
+		writer = AuditSpoolFile.openWriter(jsonFile, false,
+				AuditSpoolFile.Format.json, Charset.defaultCharset(), 0, false);
+		for (String record : records) {
+			writer.write(record);
+		}
+		writer.close();
+
+		assertEquals(AuditSpoolFile.Format.json, AuditSpoolFile.getFormat(jsonFile));
+		assertEquals(records, readSpoolFile(jsonFile));
+
+		file.delete();
+		jsonFile.delete();
+	}
+
+	@Test
+	public void testAuditSpoolFileAppendAfterTornTail() throws Exception {
+		logger.debug("testAuditSpoolFileAppendAfterTornTail()...");
+		File file = new File("target", "testAuditSpoolFileAppendAfterTornTail_"
+				+ MiscUtil.generateUniqueId() + ".log");
+		List<String> records = new ArrayList<String>();
+		for (int i = 0; i < 1500; i++) {
+			records.add(MiscUtil.stringify(createEvent("user" + i, "select",
+					"db/tbl/col" + i, i % 2 == 0)));
+		}
+
+		AuditSpoolFile.Writer writer = AuditSpoolFile.openWriter(file, false,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (int i = 0; i < 500; i++) {
+			writer.write(records.get(i));
+		}
+		writer.close();
+		long validLength = file.length();
+
+		// a crash in the middle of writing a block leaves its first bytes behind
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(new byte[] { 0x52, 0x41, 0x42, 0x42, 0, 0, 0x10 });
+		}
+
+		// appending after a restart drops the torn block, so that the
+		// records appended are read back
+		writer = AuditSpoolFile.openWriter(file, true,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (int i = 500; i < 1000; i++) {
+			writer.write(records.get(i));
+		}
+		writer.close();
+		assertTrue(file.length() > validLength);
+		assertEquals(records.subList(0, 1000), readSpoolFile(file));
+
+		// as does a complete block that fails validation
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(createSpoolBlock("torn".getBytes("UTF-8"), 100));
+		}
+		writer = AuditSpoolFile.openWriter(file, true,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (int i = 1000; i < records.size(); i++) {
+			writer.write(records.get(i));
+		}
+		writer.close();
+		assertEquals(records, readSpoolFile(file));
+
+		// a file with only part of its header is started over
+		file.delete();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[] { 0x52, 0x41, 0x53 });
+		}
+		writer = AuditSpoolFile.openWriter(file, true,
+				AuditSpoolFile.Format.binary, null, 4 * 1024, false);
+		for (String record : records) {
+			writer.write(record);
+		}
+		writer.close();
+		assertEquals(AuditSpoolFile.Format.binary, AuditSpoolFile.getFormat(file));
+		assertEquals(records, readSpoolFile(file));
+
+		file.delete();
+	}
+
+	private static byte[] createSpoolBlock(byte[] data, int length) {
+		Deflater deflater = new Deflater();
+		byte[] compressed = new byte[data.length + 64];
+		deflater.setInput(data);
+		deflater.finish();
+		int compressedLength = deflater.deflate(compressed);
+		deflater.end();
+
+		CRC32 crc = new CRC32();
+		crc.update(compressed, 0, compressedLength);
+
+		ByteBuffer block = ByteBuffer.allocate(24 + compressedLength);
+		block.putInt(0x52414242).putInt(compressedLength).putInt(length)
+				.putInt(1).putLong(crc.getValue());
+		block.put(compressed, 0, compressedLength);
+		return block.array();
+	}
+
+	private List<String> readSpoolFile(File file) throws Exception {
+		List<String> ret = new ArrayList<String>();
+		try (AuditSpoolFile.Reader reader = AuditSpoolFile.openReader(file,
+				Charset.defaultCharset())) {
+			for (String record = reader.readRecord(); record != null; record = reader.readRecord()) {
+				ret.add(record);
+			}
+		}
+		return ret;
+	}
+
+	private void commonTestDestDownFlipFlop(AuditSpoolFile.Format spoolFormat) {
 		int messageToSend = 10;
 
 		String basePropName = "testAuditBatchQueueDestDownFlipFlop_"
@@ -432,6 +803,10 @@ public void testAuditBatchQueueDestDownFlipFlop() {
 		props.put(basePropName + "."
 				+ AuditFileSpool.PROP_FILE_SPOOL_DEST_RETRY_MS, ""
 				+ destRetryMS);
+		if (spoolFormat != null) {
+			props.put(basePropName + "."
+					+ AuditFileSpool.PROP_FILE_SPOOL_FORMAT, spoolFormat.name());
+		}
 
 		TestConsumer testConsumer = new TestConsumer();
 		testConsumer.isDown = false;
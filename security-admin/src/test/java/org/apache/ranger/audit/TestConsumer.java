@@ -47,7 +47,7 @@ public class TestConsumer extends AuditDestination {
 	 * .audit.model.AuditEventBase)
 	 */
 	@Override
-	public boolean log(AuditEventBase event) {
+	public synchronized boolean log(AuditEventBase event) {
 		if (isDown) {
 			return false;
 		}
@@ -63,7 +63,7 @@ public boolean log(AuditEventBase event) {
 	}
 
 	@Override
-	public boolean log(Collection<AuditEventBase> events) {
+	public synchronized boolean log(Collection<AuditEventBase> events) {
 		if (isDown) {
 			return false;
 		}
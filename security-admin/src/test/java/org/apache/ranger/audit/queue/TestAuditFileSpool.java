@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.Date;
+import java.util.Properties;
+
+import org.apache.ranger.audit.TestConsumer;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.queue.AuditFileSpool.AuditIndexRecord;
+import org.apache.ranger.audit.queue.AuditFileSpool.SPOOL_FILE_STATUS;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the index file of the binary spool format, which is an append-only
+ * journal of index record changes that is compacted once it grows too long.
+ */
+public class TestAuditFileSpool {
+
+	private String basePropName;
+	private Properties props;
+
+	@Before
+	public void setUp() {
+		basePropName = "testAuditFileSpool_" + MiscUtil.generateUniqueId();
+		props = new Properties();
+		props.put(basePropName + "." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR,
+				new File("target", basePropName).getPath());
+		props.put(basePropName + "." + AuditFileSpool.PROP_FILE_SPOOL_INDEX_FILE,
+				"index_" + basePropName + ".json");
+		props.put(basePropName + "." + AuditFileSpool.PROP_FILE_SPOOL_FORMAT,
+				AuditSpoolFile.Format.binary.name());
+	}
+
+	@Test
+	public void testIndexJournal() throws Exception {
+		AuditFileSpool spool = createSpool();
+		assertTrue(spool.isIndexJournal);
+		assertTrue(spool.indexRecords.isEmpty());
+
+		AuditIndexRecord record1 = addIndexRecord(spool, "spool1.log");
+		AuditIndexRecord record2 = addIndexRecord(spool, "spool2.log");
+		AuditIndexRecord record3 = addIndexRecord(spool, "spool3.log");
+
+		// each change is appended to the journal
+		record1.status = SPOOL_FILE_STATUS.pending;
+		spool.saveIndexRecord(record1);
+		record1.status = SPOOL_FILE_STATUS.read_inprogress;
+		record1.linePosition = 10;
+		spool.saveIndexRecord(record1);
+		spool.removeIndexRecord(record2);
+
+		assertEquals(6, countIndexFileEntries(spool));
+		assertEquals(6, spool.indexJournalCount);
+
+		// on load, the last entry of each record wins and done records are dropped
+		AuditFileSpool reloaded = createSpool();
+		assertEquals(6, reloaded.indexJournalCount);
+		assertEquals(2, reloaded.indexRecords.size());
+		assertIndexRecord(record1, reloaded.indexRecords.get(0));
+		assertIndexRecord(record3, reloaded.indexRecords.get(1));
+
+		// a record removed and then written again is loaded again
+		record2.status = SPOOL_FILE_STATUS.pending;
+		reloaded.indexRecords.add(record2);
+		reloaded.saveIndexRecord(record2);
+
+		reloaded = createSpool();
+		assertEquals(3, reloaded.indexRecords.size());
+		assertIndexRecord(record2, reloaded.indexRecords.get(2));
+	}
+
+	@Test
+	public void testIndexJournalCompaction() throws Exception {
+		AuditFileSpool spool = createSpool();
+		AuditIndexRecord record1 = addIndexRecord(spool, "spool1.log");
+		AuditIndexRecord record2 = addIndexRecord(spool, "spool2.log");
+		spool.removeIndexRecord(record2);
+
+		int compactAt = Math.max(AuditFileSpool.INDEX_JOURNAL_COMPACT_MIN,
+				spool.indexRecords.size() * AuditFileSpool.INDEX_JOURNAL_COMPACT_RATIO);
+
+		// repeated updates of a record grow the journal up to the threshold
+		while (spool.indexJournalCount < compactAt) {
+			record1.linePosition++;
+			spool.saveIndexRecord(record1);
+		}
+		assertEquals(compactAt, countIndexFileEntries(spool));
+
+		// the next update rewrites the index file with one entry per record
+		record1.linePosition++;
+		spool.saveIndexRecord(record1);
+		assertEquals(1, countIndexFileEntries(spool));
+		assertEquals(1, spool.indexJournalCount);
+		assertFalse(new File(spool.indexFile.getPath() + ".tmp").exists());
+
+		// and entries are appended to the compacted file again
+		record1.linePosition++;
+		spool.saveIndexRecord(record1);
+		assertEquals(2, countIndexFileEntries(spool));
+
+		AuditFileSpool reloaded = createSpool();
+		assertEquals(1, reloaded.indexRecords.size());
+		assertIndexRecord(record1, reloaded.indexRecords.get(0));
+
+		// compacting drops the superseded entries
+		reloaded.compactIndexFile();
+		assertEquals(1, countIndexFileEntries(reloaded));
+
+		reloaded = createSpool();
+		assertEquals(1, reloaded.indexJournalCount);
+		assertIndexRecord(record1, reloaded.indexRecords.get(0));
+	}
+
+	private AuditFileSpool createSpool() {
+		TestConsumer consumer = new TestConsumer();
+		AuditFileSpool ret = new AuditFileSpool(new AuditBatchQueue(consumer),
+				consumer);
+		assertTrue(ret.init(props, basePropName));
+		return ret;
+	}
+
+	private static AuditIndexRecord addIndexRecord(AuditFileSpool spool,
+			String fileName) throws Exception {
+		AuditIndexRecord ret = spool.new AuditIndexRecord();
+		ret.id = MiscUtil.generateUniqueId();
+		ret.filePath = new File(spool.logFolder, fileName).getPath();
+		ret.status = SPOOL_FILE_STATUS.write_inprogress;
+		ret.fileCreateTime = new Date();
+		spool.indexRecords.add(ret);
+		spool.saveIndexRecord(ret);
+		return ret;
+	}
+
+	private static void assertIndexRecord(AuditIndexRecord expected,
+			AuditIndexRecord actual) {
+		assertEquals(expected.id, actual.id);
+		assertEquals(expected.filePath, actual.filePath);
+		assertEquals(expected.status, actual.status);
+		assertEquals(expected.linePosition, actual.linePosition);
+	}
+
+	private static int countIndexFileEntries(AuditFileSpool spool)
+			throws Exception {
+		int ret = 0;
+		try (BufferedReader br = new BufferedReader(new FileReader(
+				spool.indexFile))) {
+			for (String line = br.readLine(); line != null; line = br.readLine()) {
+				if (!line.isEmpty()) {
+					ret++;
+				}
+			}
+		}
+		return ret;
+	}
+}
@@ -17,7 +17,9 @@
 package org.apache.ranger.biz;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -3781,8 +3783,9 @@ public void test110CreateOrDeleteXGroupUserList() {
 		usersFromDB.put("testuser2", 2L);
 		XXUserDao xxUserDao = Mockito.mock(XXUserDao.class);
 		Mockito.when(daoManager.getXXUser()).thenReturn(xxUserDao);
-		Mockito.when(xxUserDao.getAllUserIds()).thenReturn(usersFromDB);
+		Mockito.when(xxUserDao.getUserIdsByNames(Mockito.argThat(names -> new HashSet<String>(names).equals(new HashSet<String>(Arrays.asList("testuser1", "testuser2", "testuser3")))))).thenReturn(usersFromDB);
 		xUserMgr.createOrDeleteXGroupUserList(groupUserInfoList);
+		Mockito.verify(xxUserDao, Mockito.never()).getAllUserIds();
 	}
 
 	@Test
@@ -4692,4 +4695,118 @@ public void test132CreateExternalUser() {
 		Assert.assertNotNull(createdXUser);
 		Assert.assertEquals(createdXUser.getName(), vXUser.getName());
 	}
+
+	@Test
+	public void test133CreateOrUpdateXUsersInBulk() throws Exception {
+		destroySession();
+		setup();
+		VXUser existingUser = vxUser();
+		existingUser.setPassword(null);
+		existingUser.setFirstName("user12");
+		existingUser.setLastName("test12");
+		existingUser.setUserSource(RangerCommonEnums.USER_EXTERNAL);
+		VXUser newUser = vxUser();
+		newUser.setName("newuser");
+		newUser.setFirstName("newuser");
+		newUser.setPassword(null);
+		newUser.setEmailAddress("");
+		newUser.setUserRoleList(null);
+		VXUser invalidUser = vxUser();
+		invalidUser.setName("null");
+		List<VXUser> vXUserList = new ArrayList<VXUser>();
+		vXUserList.add(existingUser);
+		vXUserList.add(newUser);
+		vXUserList.add(invalidUser);
+		VXUserList users = new VXUserList(vXUserList);
+
+		VXPortalUser vXPortalUser = userProfile();
+		XXPortalUser xXPortalUser = xxPortalUser(vXPortalUser);
+		xXPortalUser.setId(userId);
+		xXPortalUser.setUserSource(RangerCommonEnums.USER_EXTERNAL);
+		XXUser xXUser = xxUser(existingUser);
+		Map<Long, Set<String>> portalUserRoles = new HashMap<Long, Set<String>>();
+		portalUserRoles.put(userId, new HashSet<String>(existingUser.getUserRoleList()));
+
+		XXPortalUserDao xXPortalUserDao = Mockito.mock(XXPortalUserDao.class);
+		XXUserDao xxUserDao = Mockito.mock(XXUserDao.class);
+		XXPortalUserRoleDao xXPortalUserRoleDao = Mockito.mock(XXPortalUserRoleDao.class);
+		XXModuleDefDao xXModuleDefDao = Mockito.mock(XXModuleDefDao.class);
+		Mockito.when(daoManager.getXXPortalUser()).thenReturn(xXPortalUserDao);
+		Mockito.when(daoManager.getXXUser()).thenReturn(xxUserDao);
+		Mockito.when(daoManager.getXXPortalUserRole()).thenReturn(xXPortalUserRoleDao);
+		Mockito.when(daoManager.getXXModuleDef()).thenReturn(xXModuleDefDao);
+		Mockito.when(xXPortalUserDao.findByLoginIds(Arrays.asList(existingUser.getName(), newUser.getName()))).thenReturn(Collections.singletonList(xXPortalUser));
+		Mockito.when(xxUserDao.findByUserNames(Arrays.asList(existingUser.getName(), newUser.getName()))).thenReturn(Collections.singletonList(xXUser));
+		Mockito.when(xXPortalUserRoleDao.getUserRolesByUserIds(Collections.singletonList(userId))).thenReturn(portalUserRoles);
+		Mockito.when(xXPortalUserDao.findByLoginIds(Collections.singletonList(existingUser.getName()))).thenReturn(Collections.singletonList(xXPortalUser));
+		Mockito.when(xxUserDao.findByUserNames(Collections.singletonList(existingUser.getName()))).thenReturn(Collections.singletonList(xXUser));
+		Mockito.when(userMgr.mapVXPortalUserToXXPortalUser((VXPortalUser) Mockito.any())).thenReturn(new XXPortalUser());
+		Mockito.when(xUserService.createResource((VXUser) Mockito.any())).thenReturn(newUser);
+
+		// only the new user is written; the existing user is unchanged, but counted as processed
+		int processedUserCount = xUserMgr.createOrUpdateXUsersInBulk(users);
+		Assert.assertEquals(2, processedUserCount);
+		Mockito.verify(xXPortalUserDao, Mockito.times(1)).create((XXPortalUser) Mockito.any());
+		Mockito.verify(xXPortalUserDao, Mockito.never()).getAll();
+		Mockito.verify(xxUserDao, Mockito.never()).getAll();
+		Mockito.verify(userMgr, Mockito.never()).updateUserWithPass((VXPortalUser) Mockito.any());
+		Mockito.verify(xxGlobalStateDao, Mockito.times(1)).onGlobalAppDataChange(Mockito.anyString());
+
+		// no change: nothing is written and the user-store version is not updated; the unchanged user is still
+		// counted, as usersync treats 0 as a failure
+		vXUserList.remove(newUser);
+		processedUserCount = xUserMgr.createOrUpdateXUsersInBulk(users);
+		Assert.assertEquals(1, processedUserCount);
+		Mockito.verify(userMgr, Mockito.never()).updateUserWithPass((VXPortalUser) Mockito.any());
+		Mockito.verify(xxGlobalStateDao, Mockito.times(1)).onGlobalAppDataChange(Mockito.anyString());
+
+		// a changed email address makes the existing user to be updated
+		existingUser.setEmailAddress("test2@test.com");
+		Mockito.when(userMgr.mapXXPortalUserVXPortalUser(xXPortalUser)).thenReturn(vXPortalUser);
+		Mockito.when(userMgr.updateUserWithPass((VXPortalUser) Mockito.any())).thenReturn(xXPortalUser);
+		Mockito.when(xxUserDao.findByUserName(existingUser.getName())).thenReturn(xXUser);
+		Mockito.when(xUserService.updateResource(existingUser)).thenReturn(existingUser);
+		processedUserCount = xUserMgr.createOrUpdateXUsersInBulk(users);
+		Assert.assertEquals(1, processedUserCount);
+		Mockito.verify(userMgr, Mockito.times(1)).updateUserWithPass((VXPortalUser) Mockito.any());
+		Mockito.verify(xxGlobalStateDao, Mockito.times(2)).onGlobalAppDataChange(Mockito.anyString());
+	}
+
+	@Test
+	public void test134CreateOrUpdateXGroupsInBulk() throws Exception {
+		destroySession();
+		setup();
+		VXGroup existingGroup = vxGroup();
+		VXGroup changedGroup = vxGroup();
+		changedGroup.setName("changedgroup");
+		VXGroup newGroup = vxGroup();
+		newGroup.setName("newgroup");
+		VXGroupList groups = new VXGroupList(Arrays.asList(existingGroup, changedGroup, newGroup));
+
+		XXGroup xxExistingGroup = new XXGroup();
+		xxExistingGroup.setName(existingGroup.getName());
+		xxExistingGroup.setDescription(existingGroup.getDescription());
+		xxExistingGroup.setIsVisible(existingGroup.getIsVisible());
+		XXGroup xxChangedGroup = new XXGroup();
+		xxChangedGroup.setName(changedGroup.getName());
+		xxChangedGroup.setDescription("old description");
+		xxChangedGroup.setIsVisible(changedGroup.getIsVisible());
+
+		XXGroupDao xxGroupDao = Mockito.mock(XXGroupDao.class);
+		Mockito.when(daoManager.getXXGroup()).thenReturn(xxGroupDao);
+		Mockito.when(xxGroupDao.findByGroupNames(Arrays.asList(existingGroup.getName(), changedGroup.getName(), newGroup.getName()))).thenReturn(Arrays.asList(xxExistingGroup, xxChangedGroup));
+
+		int processedGroupCount = xUserMgr.createOrUpdateXGroupsInBulk(groups);
+		Assert.assertEquals(3, processedGroupCount);
+		Mockito.verify(xGroupService).createOrUpdateXGroupsWithOutLogin(Mockito.eq(Arrays.asList(changedGroup, newGroup)), Mockito.anyMap());
+		Mockito.verify(xxGroupDao, Mockito.never()).getAll();
+		Mockito.verify(xxGlobalStateDao, Mockito.times(1)).onGlobalAppDataChange(Mockito.anyString());
+
+		// a page of unchanged groups is not written, but is processed
+		Mockito.when(xxGroupDao.findByGroupNames(Collections.singletonList(existingGroup.getName()))).thenReturn(Collections.singletonList(xxExistingGroup));
+		processedGroupCount = xUserMgr.createOrUpdateXGroupsInBulk(new VXGroupList(Collections.singletonList(existingGroup)));
+		Assert.assertEquals(1, processedGroupCount);
+		Mockito.verify(xGroupService, Mockito.times(1)).createOrUpdateXGroupsWithOutLogin(Mockito.anyList(), Mockito.anyMap());
+		Mockito.verify(xxGlobalStateDao, Mockito.times(1)).onGlobalAppDataChange(Mockito.anyString());
+	}
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRangerServicePoliciesCache {
+	private static final String SERVICE_NAME = "cl1_test_download_payload";
+	private static final Long   SERVICE_ID   = 1001L;
+
+	@Mock
+	ServiceStore serviceStore;
+
+	@Test
+	public void testDownloadResponseIsSharedPerVersion() throws Exception {
+		RangerServicePoliciesCache cache = RangerServicePoliciesCache.getInstance();
+
+		Mockito.when(serviceStore.getServicePolicyVersion(SERVICE_NAME)).thenReturn(5L);
+		Mockito.when(serviceStore.getServicePolicyDeltasOrPolicies(SERVICE_NAME, -1L)).thenReturn(createServicePolicies(5L));
+
+		ServicePolicies cached = cache.getServicePolicies(SERVICE_NAME, SERVICE_ID, -1L, true, serviceStore);
+
+		Assert.assertNotNull(cached);
+
+		List<Object>    inputs    = Arrays.asList(true, "cl1_tag", true);
+		ServicePolicies response1 = ServicePolicies.copyHeader(cached);
+		ServicePolicies response2 = ServicePolicies.copyHeader(cached);
+
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, inputs));
+
+		cache.saveDownloadResponse(SERVICE_NAME, -1L, true, inputs, response1);
+
+		Assert.assertSame(response1, cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, Arrays.asList(true, "cl1_tag", true)));
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, 4L, false, 5L, inputs));
+
+		// a response is not served for other inputs, like a disabled tag-service, nor for another policy-version
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, Arrays.asList(true, "cl1_tag", false)));
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 4L, inputs));
+
+		RangerDownloadPayload payload = cache.getDownloadPayload(response1);
+
+		Assert.assertNotNull(payload);
+		Assert.assertSame(payload, cache.getDownloadPayload(response1));
+		Assert.assertEquals(JsonUtilsV2.getMapper().writeValueAsString(response1), new String(payload.getJson(), "UTF-8"));
+		Assert.assertArrayEquals(payload.getJson(), IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(payload.getCompressedJson()))));
+		Assert.assertNull(cache.getDownloadPayload(response2));
+
+		// the response built from changed inputs replaces the earlier one
+		List<Object> changedInputs = Arrays.asList(true, "cl1_tag", false);
+
+		cache.saveDownloadResponse(SERVICE_NAME, -1L, true, changedInputs, response2);
+
+		Assert.assertSame(response2, cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, changedInputs));
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, inputs));
+		Assert.assertNull(cache.getDownloadPayload(response1));
+
+		// payloads are dropped once the cache moves to a newer version
+		Mockito.when(serviceStore.getServicePolicyVersion(SERVICE_NAME)).thenReturn(6L);
+		Mockito.when(serviceStore.getServicePolicyDeltasOrPolicies(SERVICE_NAME, 5L)).thenReturn(createServicePolicies(6L));
+
+		ServicePolicies updated = cache.getServicePolicies(SERVICE_NAME, SERVICE_ID, 5L, true, serviceStore);
+
+		Assert.assertEquals(Long.valueOf(6L), updated.getPolicyVersion());
+		Assert.assertNull(cache.getDownloadPayload(response2));
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, changedInputs));
+
+		// a response for an older version is not cached
+		cache.saveDownloadResponse(SERVICE_NAME, -1L, true, inputs, response1);
+
+		Assert.assertNull(cache.getDownloadResponse(SERVICE_NAME, -1L, true, 5L, inputs));
+		Assert.assertNull(cache.getDownloadPayload(response1));
+
+		ServicePolicies response3 = ServicePolicies.copyHeader(updated);
+
+		cache.saveDownloadResponse(SERVICE_NAME, -1L, true, inputs, response3);
+
+		Assert.assertSame(response3, cache.getDownloadResponse(SERVICE_NAME, -1L, true, 6L, inputs));
+
+		cache.resetCache(SERVICE_NAME);
+	}
+
+	private ServicePolicies createServicePolicies(Long policyVersion) {
+		ServicePolicies ret = new ServicePolicies();
+
+		ret.setServiceName(SERVICE_NAME);
+		ret.setServiceId(SERVICE_ID);
+		ret.setPolicyVersion(policyVersion);
+		ret.setPolicies(new ArrayList<>());
+
+		return ret;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.service.filter;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.ranger.common.RangerDownloadPayload;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import com.sun.jersey.spi.container.ContainerRequest;
+import com.sun.jersey.spi.container.ContainerResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRangerDownloadCompressionFilter {
+	@Mock
+	ContainerRequest request;
+
+	@Mock
+	ContainerResponse response;
+
+	@Test
+	public void testIsDownloadPath() {
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("plugins/policies/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("plugins/secure/policies/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("tags/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("tags/secure/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("roles/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("/roles/secure/download/cl1_hive"));
+		Assert.assertTrue(RangerDownloadCompressionFilter.isDownloadPath("xusers/secure/download/cl1_hive"));
+
+		Assert.assertFalse(RangerDownloadCompressionFilter.isDownloadPath(null));
+		Assert.assertFalse(RangerDownloadCompressionFilter.isDownloadPath("plugins/policies/downloadExcel"));
+		Assert.assertFalse(RangerDownloadCompressionFilter.isDownloadPath("plugins/policies/download/"));
+		Assert.assertFalse(RangerDownloadCompressionFilter.isDownloadPath("plugins/services"));
+		Assert.assertFalse(RangerDownloadCompressionFilter.isDownloadPath("xusers/users"));
+	}
+
+	@Test
+	public void testCompressesOnlyDownloads() {
+		RangerDownloadCompressionFilter filter          = new RangerDownloadCompressionFilter();
+		MultivaluedMap<String, String>  requestHeaders  = new MultivaluedMapImpl();
+		MultivaluedMap<String, Object>  responseHeaders = new OutBoundHeaders();
+
+		requestHeaders.putSingle(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+		Mockito.when(request.getRequestHeaders()).thenReturn(requestHeaders);
+		Mockito.when(response.getHttpHeaders()).thenReturn(responseHeaders);
+		Mockito.when(response.getEntity()).thenReturn("{}");
+
+		Mockito.when(request.getPath()).thenReturn("plugins/services");
+		filter.filter(request, response);
+
+		Assert.assertNull(responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+		Mockito.when(request.getPath()).thenReturn("plugins/secure/policies/download/cl1_hive");
+		filter.filter(request, response);
+
+		Assert.assertEquals("gzip", responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void testWritesCachedPayload() throws Exception {
+		RangerDownloadCompressionFilter filter          = Mockito.spy(new RangerDownloadCompressionFilter());
+		MultivaluedMap<String, String>  requestHeaders  = new MultivaluedMapImpl();
+		MultivaluedMap<String, Object>  responseHeaders = new OutBoundHeaders();
+		ServicePolicies                 policies        = new ServicePolicies();
+		RangerDownloadPayload           payload         = new RangerDownloadPayload(policies, 1L);
+
+		Mockito.doReturn(payload).when(filter).getDownloadPayload(policies);
+		Mockito.when(request.getPath()).thenReturn("plugins/policies/download/cl1_hive");
+		Mockito.when(request.getRequestHeaders()).thenReturn(requestHeaders);
+		Mockito.when(response.getHttpHeaders()).thenReturn(responseHeaders);
+		Mockito.when(response.getEntity()).thenReturn(policies);
+
+		filter.filter(request, response);
+
+		Mockito.verify(response).setEntity(payload.getJson());
+		Assert.assertNull(responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+		requestHeaders.putSingle(HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+		filter.filter(request, response);
+
+		Mockito.verify(response).setEntity(payload.getCompressedJson());
+		Assert.assertEquals("gzip", responseHeaders.getFirst(HttpHeaders.CONTENT_ENCODING));
+	}
+}
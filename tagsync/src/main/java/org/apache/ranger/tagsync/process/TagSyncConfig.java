@@ -124,6 +124,10 @@ public class TagSyncConfig extends Configuration {
 	private static final String  TAGSYNC_SINK_MAX_BATCH_SIZE_PROP    = "ranger.tagsync.dest.ranger.max.batch.size";
 
 	private static final String TAGSYNC_ATLASREST_SOURCE_ENTITIES_BATCH_SIZE = "ranger.tagsync.source.atlasrest.entities.batch.size";
+	private static final String TAGSYNC_ATLASREST_SOURCE_INCREMENTAL_SYNC_ENABLED_PROP = "ranger.tagsync.source.atlasrest.incremental.sync.enabled";
+	private static final String TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL_PROP = "ranger.tagsync.source.atlasrest.full.sync.interval.millis";
+	private static final String TAGSYNC_ATLASREST_SOURCE_KEYSET_PAGINATION_ENABLED_PROP = "ranger.tagsync.source.atlasrest.keyset.pagination.enabled";
+	private static final long   DEFAULT_TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL = 24 * 60 * 60 * 1000L;
 	public static final String TAGSYNC_SERVER_HA_ENABLED_PARAM = "ranger-tagsync.server.ha.enabled";
 
 	private Properties props;
@@ -568,4 +572,29 @@ static public int getAtlasRestSourceEntitiesBatchSize(Properties prop) {
 
 		return ret;
 	}
+
+	static public boolean isAtlasRestSourceIncrementalSyncEnabled(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLASREST_SOURCE_INCREMENTAL_SYNC_ENABLED_PROP);
+		return "true".equalsIgnoreCase(StringUtils.trimToEmpty(val));
+	}
+
+	static public long getAtlasRestSourceFullSyncIntervalInMillis(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL_PROP);
+		long   ret = DEFAULT_TAGSYNC_ATLASREST_SOURCE_FULL_SYNC_INTERVAL;
+
+		if (StringUtils.isNotBlank(val)) {
+			try {
+				ret = Long.valueOf(val);
+			} catch (NumberFormatException exception) {
+				// Ignore
+			}
+		}
+
+		return ret;
+	}
+
+	static public boolean isAtlasRestSourceKeysetPaginationEnabled(Properties prop) {
+		String val = prop.getProperty(TAGSYNC_ATLASREST_SOURCE_KEYSET_PAGINATION_ENABLED_PROP);
+		return "true".equalsIgnoreCase(StringUtils.trimToEmpty(val));
+	}
 }
@@ -50,6 +50,13 @@ public static boolean isEntityTypeHandled(String entityTypeName) {
 		return ret;
 	}
 
+	/*
+	 * Returns the names of entity-types that have a resource mapper, sorted
+	 */
+	public static Set<String> getHandledEntityTypes() {
+		return Collections.unmodifiableSet(new TreeSet<>(atlasResourceMappers.keySet()));
+	}
+
 	public static RangerServiceResource getRangerServiceResource(RangerAtlasEntity atlasEntity) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> getRangerServiceResource(" + atlasEntity.getGuid() +")");
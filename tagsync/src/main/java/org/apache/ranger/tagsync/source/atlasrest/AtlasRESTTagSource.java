@@ -23,6 +23,7 @@
 import com.google.gson.GsonBuilder;
 import org.apache.atlas.AtlasClientV2;
 import org.apache.atlas.AtlasServiceException;
+import org.apache.atlas.SortOrder;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.SearchFilter;
 import org.apache.atlas.model.TimeBoundary;
@@ -63,6 +64,9 @@
 public class AtlasRESTTagSource extends AbstractTagSource implements Runnable {
 	private static final Logger LOG = LoggerFactory.getLogger(AtlasRESTTagSource.class);
 
+	private static final String ATTR_GUID                       = "__guid";
+	private static final String ATTR_MODIFICATION_TIMESTAMP     = "__modificationTimestamp";
+	private static final long   INCREMENTAL_SYNC_OVERLAP_MILLIS = 60 * 1000L; // allows for clock differences between tagsync and Atlas hosts
 
     	private static final ThreadLocal<DateFormat> DATE_FORMATTER = new ThreadLocal<DateFormat>() {
 		@Override
@@ -80,6 +84,14 @@ protected DateFormat initialValue() {
 	private boolean  isKerberized     = false;
 	private String[] userNamePassword = null;
 	private int      entitiesBatchSize = TagSyncConfig.DEFAULT_TAGSYNC_ATLASREST_SOURCE_ENTITIES_BATCH_SIZE;
+	private boolean  isIncrementalSyncEnabled  = false;
+	private long     fullSyncIntervalInMillis;
+	private boolean  isKeysetPaginationEnabled = false;
+
+	private AtlasTypeRegistry typeRegistry      = null;
+	private String            typesDefSignature = null;
+	private long              lastSyncTime      = 0; // start time of the last successful sync
+	private long              lastFullSyncTime  = 0;
 
 	private Thread myThread = null;
 
@@ -136,6 +148,9 @@ public boolean initialize(Properties properties) {
 		sleepTimeBetweenCycleInMillis = TagSyncConfig.getTagSourceAtlasDownloadIntervalInMillis(properties);
 		isKerberized = TagSyncConfig.getTagsyncKerberosIdentity(properties) != null;
 		entitiesBatchSize = TagSyncConfig.getAtlasRestSourceEntitiesBatchSize(properties);
+		isIncrementalSyncEnabled = TagSyncConfig.isAtlasRestSourceIncrementalSyncEnabled(properties);
+		fullSyncIntervalInMillis = TagSyncConfig.getAtlasRestSourceFullSyncIntervalInMillis(properties);
+		isKeysetPaginationEnabled = TagSyncConfig.isAtlasRestSourceKeysetPaginationEnabled(properties);
 
 		String restEndpoint       = TagSyncConfig.getAtlasRESTEndpoint(properties);
 		String sslConfigFile = TagSyncConfig.getAtlasRESTSslConfigFile(properties);
@@ -146,6 +161,9 @@ public boolean initialize(Properties properties) {
 			LOG.debug("sslConfigFile=" + sslConfigFile);
 			LOG.debug("userName=" + userNamePassword[0]);
 			LOG.debug("kerberized=" + isKerberized);
+			LOG.debug("incrementalSyncEnabled=" + isIncrementalSyncEnabled);
+			LOG.debug("fullSyncIntervalInMillis=" + fullSyncIntervalInMillis);
+			LOG.debug("keysetPaginationEnabled=" + isKeysetPaginationEnabled);
 		}
         if (StringUtils.isNotEmpty(restEndpoint)) {
             this.restUrls = restEndpoint.split(",");
@@ -216,144 +234,345 @@ public void run() {
     }
 
 	public void synchUp() throws Exception {
-		List<RangerAtlasEntityWithTags> rangerAtlasEntities = getAtlasActiveEntities();
+		AtlasClientV2 atlasClient = null;
 
-		if (CollectionUtils.isNotEmpty(rangerAtlasEntities)) {
-			if (LOG.isDebugEnabled()) {
-				for (RangerAtlasEntityWithTags element : rangerAtlasEntities) {
-					LOG.debug(Objects.toString(element));
-				}
-			}
-			Map<String, ServiceTags> serviceTagsMap = AtlasNotificationMapper.processAtlasEntities(rangerAtlasEntities);
+		try {
+			atlasClient = getAtlasClient();
+		} catch (IOException exception) {
+			LOG.error("Failed to get Atlas client.", exception);
+		}
+
+		if (atlasClient == null) {
+			return;
+		}
 
-			if (MapUtils.isNotEmpty(serviceTagsMap)) {
-				for (Map.Entry<String, ServiceTags> entry : serviceTagsMap.entrySet()) {
-					if (LOG.isDebugEnabled()) {
-						Gson gsonBuilder = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z")
-								.setPrettyPrinting()
-								.create();
-						String serviceTagsString = gsonBuilder.toJson(entry.getValue());
+		long   syncStartTime        = System.currentTimeMillis();
+		String oldTypesDefSignature = typesDefSignature;
 
-						LOG.debug("serviceTags=" + serviceTagsString);
-					}
-					updateSink(entry.getValue());
+		if (!refreshTypeRegistry(atlasClient)) {
+			return;
+		}
+
+		// changes to classification types, like new attributes or super-types, don't update the entities; so do a full sync when types change
+		boolean isTypesDefChanged = !StringUtils.equals(oldTypesDefSignature, typesDefSignature);
+		boolean isDelta           = isIncrementalSyncEnabled && lastSyncTime > 0 && !isTypesDefChanged && (syncStartTime - lastFullSyncTime) < fullSyncIntervalInMillis;
+
+		List<RangerAtlasEntityWithTags> rangerAtlasEntities = getAtlasEntities(atlasClient, isDelta ? (lastSyncTime - INCREMENTAL_SYNC_OVERLAP_MILLIS) : -1);
+
+		if (rangerAtlasEntities == null) {
+			return;
+		}
+
+		boolean isUploaded;
+
+		if (isDelta) {
+			List<RangerAtlasEntityWithTags> entitiesWithTags    = new ArrayList<>();
+			List<RangerAtlasEntityWithTags> entitiesWithoutTags = new ArrayList<>();
+
+			for (RangerAtlasEntityWithTags element : rangerAtlasEntities) {
+				if (CollectionUtils.isNotEmpty(element.getTags())) {
+					entitiesWithTags.add(element);
+				} else {
+					entitiesWithoutTags.add(element);
 				}
 			}
+
+			LOG.info("Incremental sync: " + entitiesWithTags.size() + " entities with tags, " + entitiesWithoutTags.size() + " entities without tags modified since " + new Date(lastSyncTime));
+
+			// delete first, as a deleted entity and its replacement can map to the same resource
+			isUploaded = uploadServiceTags(entitiesWithoutTags, ServiceTags.OP_DELETE) && uploadServiceTags(entitiesWithTags, ServiceTags.OP_ADD_OR_UPDATE);
+		} else {
+			isUploaded = uploadServiceTags(rangerAtlasEntities, null);
 		}
 
+		if (isUploaded) {
+			lastSyncTime = syncStartTime;
+
+			if (!isDelta) {
+				lastFullSyncTime = syncStartTime;
+			}
+		}
 	}
 
-    private List<RangerAtlasEntityWithTags> getAtlasActiveEntities() {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("==> getAtlasActiveEntities()");
-        }
-        List<RangerAtlasEntityWithTags> ret         = new ArrayList<>();
+	/*
+	 * op: when not null, replaces the op set by AtlasNotificationMapper (OP_REPLACE)
+	 */
+	private boolean uploadServiceTags(List<RangerAtlasEntityWithTags> rangerAtlasEntities, String op) throws Exception {
+		if (CollectionUtils.isEmpty(rangerAtlasEntities)) {
+			return true;
+		}
 
-        AtlasClientV2                   atlasClient = null;
-        try {
-            atlasClient = getAtlasClient();
-        } catch (IOException exception) {
-            LOG.error("Failed to get Atlas client.", exception);
-        }
+		if (LOG.isDebugEnabled()) {
+			for (RangerAtlasEntityWithTags element : rangerAtlasEntities) {
+				LOG.debug(Objects.toString(element));
+			}
+		}
+		Map<String, ServiceTags> serviceTagsMap = AtlasNotificationMapper.processAtlasEntities(rangerAtlasEntities);
 
-        if (atlasClient != null) {
+		if (serviceTagsMap == null) {
+			return false;
+		}
 
-            SearchParameters searchParams = new SearchParameters();
+		for (Map.Entry<String, ServiceTags> entry : serviceTagsMap.entrySet()) {
+			ServiceTags serviceTags = entry.getValue();
 
-            searchParams.setExcludeDeletedEntities(true);
-            searchParams.setClassification("*");
-            //searchParams.setIncludeSubClassifications(true);
-            //searchParams.setIncludeSubTypes(true);
-            searchParams.setIncludeClassificationAttributes(true);
-            searchParams.setLimit(entitiesBatchSize);
+			if (op != null) {
+				serviceTags.setOp(op);
+
+				if (ServiceTags.OP_DELETE.equals(op)) {
+					serviceTags.setTagDefinitions(Collections.EMPTY_MAP);
+					serviceTags.setTags(Collections.EMPTY_MAP);
+				}
+			}
 
-            boolean isMoreData;
-            int     nextStartIndex = 0;
+			if (LOG.isDebugEnabled()) {
+				Gson gsonBuilder = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z")
+						.setPrettyPrinting()
+						.create();
+				String serviceTagsString = gsonBuilder.toJson(serviceTags);
+
+				LOG.debug("serviceTags=" + serviceTagsString);
+			}
+			updateSink(serviceTags);
+		}
+
+		return true;
+	}
 
-            do {
-                AtlasTypeRegistry                            typeRegistry  = new AtlasTypeRegistry();
+    /*
+     * Downloads type-definitions from Atlas; the type-registry is rebuilt only when a type-definition has changed since the last download
+     */
+    private boolean refreshTypeRegistry(AtlasClientV2 atlasClient) {
+        boolean ret = false;
+
+        try {
+            AtlasTypesDef typesDef  = atlasClient.getAllTypeDefs(new SearchFilter());
+            String        signature = getTypesDefSignature(typesDef);
+
+            if (typeRegistry != null && StringUtils.equals(signature, typesDefSignature)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Type-definitions have not changed since last download. Reusing type-registry");
+                }
+            } else {
+                AtlasTypeRegistry                            registry      = new AtlasTypeRegistry();
                 AtlasTypeRegistry.AtlasTransientTypeRegistry tty           = null;
-                AtlasSearchResult                            searchResult  = null;
                 boolean                                      commitUpdates = false;
 
-                searchParams.setOffset(nextStartIndex);
-                isMoreData = false;
-
                 try {
-                    searchResult = atlasClient.facetedSearch(searchParams);
-                    AtlasTypesDef typesDef = atlasClient.getAllTypeDefs(new SearchFilter());
-                    tty = typeRegistry.lockTypeRegistryForUpdate();
+                    tty = registry.lockTypeRegistryForUpdate();
                     tty.addTypes(typesDef);
                     commitUpdates = true;
-                } catch (AtlasServiceException | AtlasBaseException excp) {
-                    LOG.error("failed to download tags from Atlas", excp);
-                    ret = null;
-                } catch (Exception unexpectedException) {
-                    LOG.error("Failed to download tags from Atlas due to unexpected exception", unexpectedException);
-                    ret = null;
                 } finally {
                     if (tty != null) {
-                        typeRegistry.releaseTypeRegistryForUpdate(tty, commitUpdates);
+                        registry.releaseTypeRegistryForUpdate(tty, commitUpdates);
                     }
                 }
 
-                if (commitUpdates && searchResult != null) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug(AtlasType.toJson(searchResult));
-                    }
+                typeRegistry      = registry;
+                typesDefSignature = signature;
+
+                LOG.info("Loaded type-definitions from Atlas");
+            }
+
+            ret = true;
+        } catch (AtlasServiceException | AtlasBaseException excp) {
+            LOG.error("failed to download type-definitions from Atlas", excp);
+        } catch (Exception unexpectedException) {
+            LOG.error("Failed to download type-definitions from Atlas due to unexpected exception", unexpectedException);
+        }
+
+        return ret;
+    }
+
+    /*
+     * modifiedSince: when > 0, only entities modified since this time are returned; these include deleted entities and
+     *                entities without tags, with empty tags, so that their tags can be removed
+     */
+    private List<RangerAtlasEntityWithTags> getAtlasEntities(AtlasClientV2 atlasClient, long modifiedSince) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> getAtlasEntities(modifiedSince=" + modifiedSince + ")");
+        }
+        List<RangerAtlasEntityWithTags> ret     = new ArrayList<>();
+        boolean                         isDelta = modifiedSince > 0;
 
-                    List<AtlasEntityHeader> entityHeaders = searchResult.getEntities();
+        SearchParameters searchParams = new SearchParameters();
 
-                    if (CollectionUtils.isNotEmpty(entityHeaders)) {
+        if (isDelta) {
+            Set<String> handledEntityTypes = AtlasResourceMapperUtil.getHandledEntityTypes();
 
+            if (handledEntityTypes.isEmpty()) {
+                LOG.warn("No Atlas entity-types are handled. Skipping incremental sync");
+
+                return ret;
+            }
+
+            // only entities of handled types are of interest; searching all types would page through every entity modified in Atlas
+            searchParams.setTypeName(StringUtils.join(handledEntityTypes, ','));
+            searchParams.setExcludeDeletedEntities(false);
+        } else {
+            searchParams.setExcludeDeletedEntities(true);
+            searchParams.setClassification("*");
+        }
+        //searchParams.setIncludeSubClassifications(true);
+        //searchParams.setIncludeSubTypes(true);
+        searchParams.setIncludeClassificationAttributes(true);
+        searchParams.setLimit(entitiesBatchSize);
+
+        if (isKeysetPaginationEnabled) {
+            // each page starts after the last guid of the previous page, instead of at an offset Atlas has to skip to
+            searchParams.setSortBy(ATTR_GUID);
+            searchParams.setSortOrder(SortOrder.ASCENDING);
+        }
+
+        boolean isMoreData;
+        int     nextStartIndex = 0;
+        String  lastGuid       = null;
+
+        do {
+            AtlasSearchResult searchResult = null;
+
+            searchParams.setOffset(nextStartIndex);
+            searchParams.setEntityFilters(getEntityFilters(modifiedSince, lastGuid));
+            isMoreData = false;
+
+            try {
+                searchResult = atlasClient.facetedSearch(searchParams);
+            } catch (AtlasServiceException excp) {
+                LOG.error("failed to download tags from Atlas", excp);
+                ret = null;
+            } catch (Exception unexpectedException) {
+                LOG.error("Failed to download tags from Atlas due to unexpected exception", unexpectedException);
+                ret = null;
+            }
+
+            if (searchResult != null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(AtlasType.toJson(searchResult));
+                }
+
+                List<AtlasEntityHeader> entityHeaders = searchResult.getEntities();
+
+                if (CollectionUtils.isNotEmpty(entityHeaders)) {
+
+                    if (isKeysetPaginationEnabled) {
+                        lastGuid = entityHeaders.get(entityHeaders.size() - 1).getGuid();
+                    } else {
                         nextStartIndex += entityHeaders.size();
-                        isMoreData = true;
+                    }
+                    isMoreData = true;
 
-                        for (AtlasEntityHeader header : entityHeaders) {
-                            if (!header.getStatus().equals(AtlasEntity.Status.ACTIVE)) {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug("Skipping entity because it is not ACTIVE, header:[" + header + "]");
-                                }
-                                continue;
+                    for (AtlasEntityHeader header : entityHeaders) {
+                        boolean isActive = AtlasEntity.Status.ACTIVE.equals(header.getStatus());
+
+                        if (!isActive && !isDelta) {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Skipping entity because it is not ACTIVE, header:[" + header + "]");
                             }
+                            continue;
+                        }
 
-                            String typeName = header.getTypeName();
-                            if (!AtlasResourceMapperUtil.isEntityTypeHandled(typeName)) {
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.debug("Not fetching Atlas entities of type:[" + typeName + "]");
-                                }
-                                continue;
+                        String typeName = header.getTypeName();
+                        if (!AtlasResourceMapperUtil.isEntityTypeHandled(typeName)) {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Not fetching Atlas entities of type:[" + typeName + "]");
                             }
+                            continue;
+                        }
 
-                            List<EntityNotificationWrapper.RangerAtlasClassification> allTagsForEntity = new ArrayList<>();
+                        List<EntityNotificationWrapper.RangerAtlasClassification> allTagsForEntity = new ArrayList<>();
 
+                        if (isActive && header.getClassifications() != null) {
                             for (AtlasClassification classification : header.getClassifications()) {
                                 List<EntityNotificationWrapper.RangerAtlasClassification> tags = resolveTag(typeRegistry, classification);
                                 if (tags != null) {
                                     allTagsForEntity.addAll(tags);
                                 }
                             }
+                        }
 
-                            if (CollectionUtils.isNotEmpty(allTagsForEntity)) {
-                                RangerAtlasEntity entity = new RangerAtlasEntity(typeName, header.getGuid(), header.getAttributes());
-                                RangerAtlasEntityWithTags entityWithTags = new RangerAtlasEntityWithTags(entity, allTagsForEntity, typeRegistry);
+                        if (CollectionUtils.isNotEmpty(allTagsForEntity) || isDelta) {
+                            RangerAtlasEntity entity = new RangerAtlasEntity(typeName, header.getGuid(), header.getAttributes());
+                            RangerAtlasEntityWithTags entityWithTags = new RangerAtlasEntityWithTags(entity, allTagsForEntity, typeRegistry);
 
-                                ret.add(entityWithTags);
-                            }
+                            ret.add(entityWithTags);
                         }
                     }
                 }
-            } while (isMoreData);
+            }
+        } while (isMoreData);
 
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== getAtlasEntities(modifiedSince=" + modifiedSince + ")");
         }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== getAtlasActiveEntities()");
+        return ret;
+    }
+
+    static SearchParameters.FilterCriteria getEntityFilters(long modifiedSince, String lastGuid) {
+        List<SearchParameters.FilterCriteria> criteria = new ArrayList<>();
+
+        if (modifiedSince > 0) {
+            criteria.add(getFilterCriteria(ATTR_MODIFICATION_TIMESTAMP, SearchParameters.Operator.GTE, Long.toString(modifiedSince)));
+        }
+
+        if (lastGuid != null) {
+            criteria.add(getFilterCriteria(ATTR_GUID, SearchParameters.Operator.GT, lastGuid));
+        }
+
+        final SearchParameters.FilterCriteria ret;
+
+        if (criteria.isEmpty()) {
+            ret = null;
+        } else if (criteria.size() == 1) {
+            ret = criteria.get(0);
+        } else {
+            ret = new SearchParameters.FilterCriteria();
+
+            ret.setCondition(SearchParameters.FilterCriteria.Condition.AND);
+            ret.setCriterion(criteria);
         }
 
         return ret;
     }
 
+    private static SearchParameters.FilterCriteria getFilterCriteria(String attributeName, SearchParameters.Operator operator, String attributeValue) {
+        SearchParameters.FilterCriteria ret = new SearchParameters.FilterCriteria();
+
+        ret.setAttributeName(attributeName);
+        ret.setOperator(operator);
+        ret.setAttributeValue(attributeValue);
+
+        return ret;
+    }
+
+    /*
+     * Changes to a type-definition update its version and update-time
+     */
+    static String getTypesDefSignature(AtlasTypesDef typesDef) {
+        List<String> signatures = new ArrayList<>();
+
+        addTypeDefSignatures(typesDef.getEnumDefs(), signatures);
+        addTypeDefSignatures(typesDef.getStructDefs(), signatures);
+        addTypeDefSignatures(typesDef.getClassificationDefs(), signatures);
+        addTypeDefSignatures(typesDef.getEntityDefs(), signatures);
+        addTypeDefSignatures(typesDef.getRelationshipDefs(), signatures);
+        addTypeDefSignatures(typesDef.getBusinessMetadataDefs(), signatures);
+
+        Collections.sort(signatures);
+
+        return signatures.toString();
+    }
+
+    private static void addTypeDefSignatures(List<? extends AtlasBaseTypeDef> typeDefs, List<String> signatures) {
+        if (typeDefs != null) {
+            for (AtlasBaseTypeDef typeDef : typeDefs) {
+                Date updateTime = typeDef.getUpdateTime();
+
+                signatures.add(typeDef.getName() + ":" + typeDef.getVersion() + ":" + (updateTime != null ? updateTime.getTime() : 0));
+            }
+        }
+    }
+
     /*
      * Returns a list of <EntityNotificationWrapper.RangerAtlasClassification>
      */
@@ -437,7 +656,7 @@ private List<EntityNotificationWrapper.RangerAtlasClassification> resolveTag(Atl
         return ret;
     }
 
-	private AtlasClientV2 getAtlasClient() throws IOException {
+	AtlasClientV2 getAtlasClient() throws IOException {
 		final AtlasClientV2 ret;
 
 		if (isKerberized) {
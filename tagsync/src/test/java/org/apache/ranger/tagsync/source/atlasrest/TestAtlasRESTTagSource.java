@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.tagsync.source.atlasrest;
+
+import org.apache.atlas.AtlasClientV2;
+import org.apache.atlas.model.SearchFilter;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.typedef.AtlasClassificationDef;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.apache.ranger.tagsync.model.TagSink;
+import org.apache.ranger.tagsync.source.atlas.AtlasHiveResourceMapper;
+import org.apache.ranger.tagsync.source.atlas.AtlasResourceMapperUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+
+public class TestAtlasRESTTagSource {
+	private static final String SERVICE_NAME   = "cl1_hive";
+	private static final String TAG_TYPE       = "PII";
+	private static final long   OVERLAP_MILLIS = 60 * 1000L;
+	private static final String ATTR_GUID      = "__guid";
+	private static final String ATTR_MOD_TIME  = "__modificationTimestamp";
+
+	private AtlasClientV2           atlasClient;
+	private TagSink                 tagSink;
+	private AtlasRESTTagSource      tagSource;
+	private AtlasClassificationDef  classificationDef;
+	private List<AtlasEntityHeader> searchResultEntities;
+	private List<SearchParameters>  searches;
+
+	@Before
+	public void setUp() throws Exception {
+		Properties props = new Properties();
+
+		props.setProperty("ranger.tagsync.source.atlasrest.endpoint", "http://localhost:21000");
+		props.setProperty("ranger.tagsync.source.atlasrest.incremental.sync.enabled", "true");
+		props.setProperty("ranger.tagsync.source.atlasrest.full.sync.interval.millis", Long.toString(24 * 60 * 60 * 1000L));
+
+		atlasClient          = Mockito.mock(AtlasClientV2.class);
+		tagSink              = Mockito.mock(TagSink.class);
+		classificationDef    = new AtlasClassificationDef(TAG_TYPE);
+		searchResultEntities = new ArrayList<>();
+		searches             = new ArrayList<>();
+
+		classificationDef.setVersion(1L);
+		classificationDef.setUpdateTime(new Date(1000L));
+
+		Mockito.when(atlasClient.getAllTypeDefs(Mockito.any(SearchFilter.class))).thenAnswer(invocation -> {
+			AtlasTypesDef ret = new AtlasTypesDef();
+
+			ret.setClassificationDefs(Collections.singletonList(classificationDef));
+
+			return ret;
+		});
+
+		// the first page returns searchResultEntities, the next page is empty
+		Mockito.when(atlasClient.facetedSearch(Mockito.any(SearchParameters.class))).thenAnswer(invocation -> {
+			SearchParameters  params = invocation.getArgument(0);
+			AtlasSearchResult ret    = new AtlasSearchResult();
+
+			searches.add(copyOf(params));
+
+			ret.setEntities(params.getOffset() == 0 ? new ArrayList<>(searchResultEntities) : Collections.<AtlasEntityHeader>emptyList());
+
+			return ret;
+		});
+
+		tagSource = new AtlasRESTTagSource() {
+			@Override
+			AtlasClientV2 getAtlasClient() {
+				return atlasClient;
+			}
+		};
+
+		Assert.assertTrue(tagSource.initialize(props));
+
+		tagSource.setTagSink(tagSink);
+	}
+
+	@Test
+	public void testGetEntityFilters() {
+		Assert.assertNull(AtlasRESTTagSource.getEntityFilters(-1, null));
+
+		SearchParameters.FilterCriteria filter = AtlasRESTTagSource.getEntityFilters(1000L, null);
+
+		assertCriteria(filter, ATTR_MOD_TIME, SearchParameters.Operator.GTE, "1000");
+
+		filter = AtlasRESTTagSource.getEntityFilters(-1, "guid-1");
+
+		assertCriteria(filter, ATTR_GUID, SearchParameters.Operator.GT, "guid-1");
+
+		filter = AtlasRESTTagSource.getEntityFilters(1000L, "guid-1");
+
+		Assert.assertEquals(SearchParameters.FilterCriteria.Condition.AND, filter.getCondition());
+		Assert.assertEquals(2, filter.getCriterion().size());
+		assertCriteria(filter.getCriterion().get(0), ATTR_MOD_TIME, SearchParameters.Operator.GTE, "1000");
+		assertCriteria(filter.getCriterion().get(1), ATTR_GUID, SearchParameters.Operator.GT, "guid-1");
+	}
+
+	@Test
+	public void testGetTypesDefSignature() {
+		AtlasClassificationDef def1 = new AtlasClassificationDef("tag1");
+		AtlasClassificationDef def2 = new AtlasClassificationDef("tag2");
+
+		def1.setVersion(1L);
+		def2.setVersion(1L);
+
+		AtlasTypesDef typesDef1 = new AtlasTypesDef();
+		AtlasTypesDef typesDef2 = new AtlasTypesDef();
+
+		typesDef1.setClassificationDefs(Arrays.asList(def1, def2));
+		typesDef2.setClassificationDefs(Arrays.asList(def2, def1));
+
+		String signature = AtlasRESTTagSource.getTypesDefSignature(typesDef1);
+
+		// the order of type-definitions doesn't matter
+		Assert.assertEquals(signature, AtlasRESTTagSource.getTypesDefSignature(typesDef2));
+
+		// an update of a type-definition changes the signature
+		def2.setVersion(2L);
+
+		Assert.assertNotEquals(signature, AtlasRESTTagSource.getTypesDefSignature(typesDef2));
+
+		def2.setVersion(1L);
+		def2.setUpdateTime(new Date());
+
+		Assert.assertNotEquals(signature, AtlasRESTTagSource.getTypesDefSignature(typesDef2));
+
+		def2.setUpdateTime(null);
+
+		Assert.assertEquals(signature, AtlasRESTTagSource.getTypesDefSignature(typesDef2));
+
+		// as does a new type-definition
+		typesDef2.setClassificationDefs(Arrays.asList(def1, def2, new AtlasClassificationDef("tag3")));
+
+		Assert.assertNotEquals(signature, AtlasRESTTagSource.getTypesDefSignature(typesDef2));
+
+		Assert.assertEquals("[]", AtlasRESTTagSource.getTypesDefSignature(new AtlasTypesDef()));
+	}
+
+	@Test
+	public void testFullSync() throws Exception {
+		searchResultEntities.add(getEntityHeader("guid-1", "default.table1@cl1", AtlasEntity.Status.ACTIVE, TAG_TYPE));
+		searchResultEntities.add(getEntityHeader("guid-2", "default.table2@cl1", AtlasEntity.Status.ACTIVE));
+		searchResultEntities.add(getEntityHeader("guid-3", "default.table3@cl1", AtlasEntity.Status.DELETED, TAG_TYPE));
+
+		tagSource.synchUp();
+
+		assertFullSyncSearch(searches.get(0));
+
+		List<ServiceTags> uploaded = getUploadedServiceTags(1);
+
+		// only the active entity with tags is uploaded
+		Assert.assertEquals(ServiceTags.OP_REPLACE, uploaded.get(0).getOp());
+		Assert.assertEquals(SERVICE_NAME, uploaded.get(0).getServiceName());
+		Assert.assertEquals(1, uploaded.get(0).getServiceResources().size());
+		Assert.assertEquals("table1", uploaded.get(0).getServiceResources().get(0).getResourceElements().get("table").getValues().get(0));
+		Assert.assertEquals(1, uploaded.get(0).getTags().size());
+		Assert.assertEquals(TAG_TYPE, uploaded.get(0).getTags().values().iterator().next().getType());
+	}
+
+	@Test
+	public void testDeltaSync() throws Exception {
+		long fullSyncStart = System.currentTimeMillis();
+
+		tagSource.synchUp();
+
+		long fullSyncEnd = System.currentTimeMillis();
+
+		searchResultEntities.add(getEntityHeader("guid-1", "default.table1@cl1", AtlasEntity.Status.ACTIVE, TAG_TYPE));
+		searchResultEntities.add(getEntityHeader("guid-2", "default.table2@cl1", AtlasEntity.Status.ACTIVE));
+		searchResultEntities.add(getEntityHeader("guid-3", "default.table3@cl1", AtlasEntity.Status.DELETED, TAG_TYPE));
+		searchResultEntities.add(getEntityHeader("guid-4", "topic1@cl1", AtlasEntity.Status.ACTIVE, TAG_TYPE, "unhandled_type"));
+
+		tagSource.synchUp();
+
+		SearchParameters deltaSearch = searches.get(searches.size() - 1);
+
+		assertDeltaSearch(deltaSearch);
+
+		long modifiedSince = Long.parseLong(deltaSearch.getEntityFilters().getAttributeValue());
+
+		Assert.assertTrue(modifiedSince >= fullSyncStart - OVERLAP_MILLIS && modifiedSince <= fullSyncEnd - OVERLAP_MILLIS);
+
+		List<ServiceTags> uploaded = getUploadedServiceTags(2);
+
+		// the modified entities without tags, including deleted ones, are deleted first; then the entities with tags are updated
+		Assert.assertEquals(ServiceTags.OP_DELETE, uploaded.get(0).getOp());
+		Assert.assertEquals(2, uploaded.get(0).getServiceResources().size());
+		Assert.assertTrue(uploaded.get(0).getTags().isEmpty());
+		Assert.assertTrue(uploaded.get(0).getTagDefinitions().isEmpty());
+
+		Assert.assertEquals(ServiceTags.OP_ADD_OR_UPDATE, uploaded.get(1).getOp());
+		Assert.assertEquals(1, uploaded.get(1).getServiceResources().size());
+		Assert.assertEquals(1, uploaded.get(1).getTags().size());
+	}
+
+	@Test
+	public void testTypesDefChangeForcesFullSync() throws Exception {
+		tagSource.synchUp();
+		tagSource.synchUp();
+
+		Assert.assertEquals(2, searches.size());
+		assertFullSyncSearch(searches.get(0));
+		assertDeltaSearch(searches.get(1));
+
+		classificationDef.setVersion(2L);
+		classificationDef.setUpdateTime(new Date(2000L));
+
+		tagSource.synchUp();
+
+		Assert.assertEquals(3, searches.size());
+		assertFullSyncSearch(searches.get(2));
+
+		tagSource.synchUp();
+
+		Assert.assertEquals(4, searches.size());
+		assertDeltaSearch(searches.get(3));
+	}
+
+	@Test
+	public void testFailedUploadDoesNotAdvanceLastSyncTime() throws Exception {
+		searchResultEntities.add(getEntityHeader("guid-1", "default.table1@cl1", AtlasEntity.Status.ACTIVE, TAG_TYPE));
+
+		// each sync uploads once: fail the first full sync and the second delta sync
+		Mockito.when(tagSink.upload(Mockito.any(ServiceTags.class)))
+				.thenThrow(new Exception("upload failed"))
+				.thenReturn(null)
+				.thenReturn(null)
+				.thenThrow(new Exception("upload failed"))
+				.thenReturn(null);
+
+		// a failed full sync is followed by another full sync
+		assertSynchUpFails();
+
+		tagSource.synchUp();
+
+		Assert.assertEquals(2, searches.size());
+		assertFullSyncSearch(searches.get(0));
+		assertFullSyncSearch(searches.get(1));
+
+		Thread.sleep(10);
+
+		tagSource.synchUp();
+
+		Thread.sleep(10);
+
+		assertSynchUpFails();
+
+		// a failed delta sync is followed by a delta sync of changes since the same time
+		tagSource.synchUp();
+
+		Assert.assertEquals(5, searches.size());
+		assertDeltaSearch(searches.get(2));
+		assertDeltaSearch(searches.get(3));
+		assertDeltaSearch(searches.get(4));
+
+		long modifiedSince1 = Long.parseLong(searches.get(2).getEntityFilters().getAttributeValue());
+		long modifiedSince2 = Long.parseLong(searches.get(3).getEntityFilters().getAttributeValue());
+		long modifiedSince3 = Long.parseLong(searches.get(4).getEntityFilters().getAttributeValue());
+
+		Assert.assertTrue(modifiedSince2 > modifiedSince1);
+		Assert.assertEquals(modifiedSince2, modifiedSince3);
+
+		Mockito.verify(tagSink, Mockito.times(5)).upload(Mockito.any(ServiceTags.class));
+	}
+
+	private void assertSynchUpFails() {
+		try {
+			tagSource.synchUp();
+
+			Assert.fail("synchUp() should fail when upload fails");
+		} catch (Exception excp) {
+			// expected
+		}
+	}
+
+	private void assertFullSyncSearch(SearchParameters search) {
+		Assert.assertNull(search.getTypeName());
+		Assert.assertEquals("*", search.getClassification());
+		Assert.assertTrue(search.getExcludeDeletedEntities());
+		Assert.assertNull(search.getEntityFilters());
+	}
+
+	private void assertDeltaSearch(SearchParameters search) {
+		// only handled entity-types are searched for
+		Assert.assertEquals(StringUtils.join(AtlasResourceMapperUtil.getHandledEntityTypes(), ','), search.getTypeName());
+		Assert.assertTrue(search.getTypeName().contains(AtlasHiveResourceMapper.ENTITY_TYPE_HIVE_TABLE));
+		Assert.assertNotEquals(SearchParameters.ALL_ENTITY_TYPES, search.getTypeName());
+		Assert.assertNull(search.getClassification());
+		Assert.assertFalse(search.getExcludeDeletedEntities());
+		Assert.assertNotNull(search.getEntityFilters());
+		Assert.assertEquals(ATTR_MOD_TIME, search.getEntityFilters().getAttributeName());
+		Assert.assertEquals(SearchParameters.Operator.GTE, search.getEntityFilters().getOperator());
+	}
+
+	private void assertCriteria(SearchParameters.FilterCriteria criteria, String attributeName, SearchParameters.Operator operator, String attributeValue) {
+		Assert.assertNotNull(criteria);
+		Assert.assertEquals(attributeName, criteria.getAttributeName());
+		Assert.assertEquals(operator, criteria.getOperator());
+		Assert.assertEquals(attributeValue, criteria.getAttributeValue());
+	}
+
+	private List<ServiceTags> getUploadedServiceTags(int expectedCount) throws Exception {
+		ArgumentCaptor<ServiceTags> captor = ArgumentCaptor.forClass(ServiceTags.class);
+
+		Mockito.verify(tagSink, Mockito.times(expectedCount)).upload(captor.capture());
+
+		return captor.getAllValues();
+	}
+
+	private static AtlasEntityHeader getEntityHeader(String guid, String qualifiedName, AtlasEntity.Status status, String... tagTypes) {
+		return getEntityHeader(guid, qualifiedName, status, tagTypes.length > 0 ? tagTypes[0] : null, AtlasHiveResourceMapper.ENTITY_TYPE_HIVE_TABLE);
+	}
+
+	private static AtlasEntityHeader getEntityHeader(String guid, String qualifiedName, AtlasEntity.Status status, String tagType, String typeName) {
+		Map<String, Object> attributes = new HashMap<>();
+
+		attributes.put(AtlasHiveResourceMapper.ENTITY_ATTRIBUTE_QUALIFIED_NAME, qualifiedName);
+
+		AtlasEntityHeader ret = new AtlasEntityHeader(typeName, guid, attributes);
+
+		ret.setStatus(status);
+
+		if (tagType != null) {
+			ret.setClassifications(Collections.singletonList(new AtlasClassification(tagType)));
+		}
+
+		return ret;
+	}
+
+	/*
+	 * the same SearchParameters instance is updated for each page, so keep a copy of what each search was made with
+	 */
+	private static SearchParameters copyOf(SearchParameters params) {
+		SearchParameters ret = new SearchParameters();
+
+		ret.setTypeName(params.getTypeName());
+		ret.setClassification(params.getClassification());
+		ret.setExcludeDeletedEntities(params.getExcludeDeletedEntities());
+		ret.setEntityFilters(params.getEntityFilters());
+		ret.setOffset(params.getOffset());
+		ret.setLimit(params.getLimit());
+
+		return ret;
+	}
+}
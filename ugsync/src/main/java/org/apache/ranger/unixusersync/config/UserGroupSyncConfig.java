@@ -291,6 +291,10 @@ public class UserGroupSyncConfig  {
 	public static final String UGSYNC_SERVER_HA_ENABLED_PARAM = "ranger-ugsync.server.ha.enabled";
 	public static final String UGSYNC_SYNC_SOURCE_VALIDATION_ENABLED = "ranger.usersync.syncsource.validation.enabled";
 	private static final boolean DEFAULT_UGSYNC_SYNC_SOURCE_VALIDATION_ENABLED = true;
+	public static final String UGSYNC_BULK_UPLOAD_ENABLED = "ranger.usersync.policymanager.bulk.upload.enabled";
+	private static final boolean DEFAULT_UGSYNC_BULK_UPLOAD_ENABLED = false;
+	public static final String UGSYNC_BULK_UPLOAD_MAX_RECORDS_PER_API_CALL = "ranger.usersync.policymanager.bulk.upload.maxrecordsperapicall";
+	private static final int DEFAULT_UGSYNC_BULK_UPLOAD_MAX_RECORDS_PER_API_CALL = 1000;
 
     private Properties prop = new Properties();
 	private Configuration userGroupConfig = null;
@@ -1397,4 +1401,22 @@ public boolean isSyncSourceValidationEnabled() {
 		}
 		return isSyncSourceValidationEnabled;
 	}
+
+	/*
+	 * When enabled, users and groups are uploaded to Ranger admin through the bulk endpoints, which compare the
+	 * uploaded entries with the existing ones and write only the new and changed entries, in larger transactions.
+	 */
+	public boolean isBulkUploadEnabled() {
+		boolean isBulkUploadEnabled = DEFAULT_UGSYNC_BULK_UPLOAD_ENABLED;
+		String val = prop.getProperty(UGSYNC_BULK_UPLOAD_ENABLED);
+		if(StringUtils.isNotEmpty(val)) {
+			isBulkUploadEnabled = Boolean.parseBoolean(val);
+		}
+		return isBulkUploadEnabled;
+	}
+
+	public int getBulkUploadMaxRecordsPerAPICall() {
+		int ret = getIntProperty(prop, UGSYNC_BULK_UPLOAD_MAX_RECORDS_PER_API_CALL, DEFAULT_UGSYNC_BULK_UPLOAD_MAX_RECORDS_PER_API_CALL);
+		return ret > 0 ? ret : DEFAULT_UGSYNC_BULK_UPLOAD_MAX_RECORDS_PER_API_CALL;
+	}
 }
@@ -70,11 +70,13 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
 
 	public static final String PM_USER_LIST_URI  = "/service/xusers/users/";				// GET
 	private static final String PM_ADD_USERS_URI = "/service/xusers/ugsync/users";	// POST
+	private static final String PM_ADD_USERS_BULK_URI = "/service/xusers/ugsync/users/bulk";	// POST
 
 	private static final String PM_ADD_GROUP_USER_LIST_URI = "/service/xusers/ugsync/groupusers";	// POST
 
 	public static final String PM_GROUP_LIST_URI = "/service/xusers/groups/";				// GET
 	private static final String PM_ADD_GROUPS_URI = "/service/xusers/ugsync/groups/";				// POST
+	private static final String PM_ADD_GROUPS_BULK_URI = "/service/xusers/ugsync/groups/bulk";		// POST
 
 
 	public static final String PM_GET_ALL_GROUP_USER_MAP_LIST_URI = "/service/xusers/ugsync/groupusers";		// GET
@@ -148,6 +150,8 @@ public class PolicyMgrUserGroupBuilder extends AbstractUserGroupSource implement
 
 	private boolean isRangerCookieEnabled;
 	private String rangerCookieName;
+	private boolean isBulkUploadEnabled;
+	private int bulkUploadRecordsPerCall;
 	private static String errMsgForInactiveServer = "This userGroupSync server is not in active state. Cannot commit transaction!";
 	static {
 		try {
@@ -195,6 +199,8 @@ synchronized public void init() throws Throwable {
 		isMockRun = config.isMockRunEnabled();
 		isRangerCookieEnabled = config.isUserSyncRangerCookieEnabled();
 		rangerCookieName = config.getRangerAdminCookieName();
+		isBulkUploadEnabled = config.isBulkUploadEnabled();
+		bulkUploadRecordsPerCall = config.getBulkUploadMaxRecordsPerAPICall();
 		groupNameMap = new HashMap<>();
 		userNameMap = new HashMap<>();
 		userCache = new HashMap<>();
@@ -1000,7 +1006,8 @@ private int getUsers(GetXUserListResponse xUserList) throws Throwable{
 		int ret = 0;
 		int totalCount = xUserList.getTotalCount();
 		int uploadedCount = 0;
-		int pageSize = Integer.valueOf(recordsToPullPerCall);
+		int pageSize = isBulkUploadEnabled ? bulkUploadRecordsPerCall : Integer.valueOf(recordsToPullPerCall);
+		String addUsersUri = isBulkUploadEnabled ? PM_ADD_USERS_BULK_URI : PM_ADD_USERS_URI;
 		while (uploadedCount < totalCount) {
 			checkStatus();
 			String response = null;
@@ -1016,10 +1023,10 @@ private int getUsers(GetXUserListResponse xUserList) throws Throwable{
 			}
 
 			if (isRangerCookieEnabled) {
-				response = cookieBasedUploadEntity(pagedXUserList, PM_ADD_USERS_URI);
+				response = cookieBasedUploadEntity(pagedXUserList, addUsersUri);
 			} else {
 				try {
-					clientRes = ldapUgSyncClient.post(PM_ADD_USERS_URI, null, pagedXUserList);
+					clientRes = ldapUgSyncClient.post(addUsersUri, null, pagedXUserList);
 					if (clientRes != null) {
 						response = clientRes.getEntity(String.class);
 					}
@@ -1103,7 +1110,8 @@ private int getGroups(GetXGroupListResponse xGroupList) throws Throwable{
 		int ret = 0;
 		int totalCount = xGroupList.getTotalCount();
 		int uploadedCount = 0;
-		int pageSize = Integer.valueOf(recordsToPullPerCall);
+		int pageSize = isBulkUploadEnabled ? bulkUploadRecordsPerCall : Integer.valueOf(recordsToPullPerCall);
+		String addGroupsUri = isBulkUploadEnabled ? PM_ADD_GROUPS_BULK_URI : PM_ADD_GROUPS_URI;
 		while (uploadedCount < totalCount) {
 			checkStatus();
 			String response = null;
@@ -1115,10 +1123,10 @@ private int getGroups(GetXGroupListResponse xGroupList) throws Throwable{
 			pagedXGroupList.setTotalCount(pageSize);
 
 			if (isRangerCookieEnabled) {
-				response = cookieBasedUploadEntity(pagedXGroupList, PM_ADD_GROUPS_URI);
+				response = cookieBasedUploadEntity(pagedXGroupList, addGroupsUri);
 			} else {
 				try {
-					clientRes = ldapUgSyncClient.post(PM_ADD_GROUPS_URI, null, pagedXGroupList);
+					clientRes = ldapUgSyncClient.post(addGroupsUri, null, pagedXGroupList);
 					if (clientRes != null) {
 						response = clientRes.getEntity(String.class);
 					}